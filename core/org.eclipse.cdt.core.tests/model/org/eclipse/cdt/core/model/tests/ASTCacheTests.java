@@ -22,6 +22,7 @@ import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.ILanguage;
 import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.core.model.IWorkingCopy;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
@@ -141,6 +142,73 @@ public class ASTCacheTests extends BaseTestCase {
 		checkAccessWithConcurrentReconciler();
 	}
 	
+	public void testCacheOfInactiveASTs() throws Exception {
+		ASTCache cache= new ASTCache(1024);
+		cache.setActiveElement(fTU1);
+		IASTTranslationUnit ast1= cache.acquireSharedAST(fTU1, fIndex, true, null);
+		assertNotNull(ast1);
+		cache.releaseSharedAST(ast1);
+
+		// AST of previously active element is kept
+		cache.setActiveElement(fTU2);
+		IASTTranslationUnit ast= cache.acquireSharedAST(fTU1, fIndex, false, null);
+		assertSame(ast1, ast);
+		cache.releaseSharedAST(ast);
+
+		// AST of inactive element is kept and used on activation
+		IASTTranslationUnit ast2= cache.acquireSharedAST(fTU2, fIndex, true, null);
+		assertNotNull(ast2);
+		cache.releaseSharedAST(ast2);
+		cache.setActiveElement(fTU1);
+		ast= cache.acquireSharedAST(fTU1, fIndex, false, null);
+		assertSame(ast1, ast);
+		cache.releaseSharedAST(ast);
+		ast= cache.acquireSharedAST(fTU2, fIndex, false, null);
+		assertSame(ast2, ast);
+		cache.releaseSharedAST(ast);
+
+		// reconciling discards the AST of an inactive element
+		cache.aboutToBeReconciled(fTU2);
+		assertNull(cache.acquireSharedAST(fTU2, fIndex, false, null));
+
+		cache.flush();
+
+		// cache restricted to the active element
+		cache= new ASTCache(0);
+		cache.setActiveElement(fTU1);
+		ast1= cache.acquireSharedAST(fTU1, fIndex, true, null);
+		cache.releaseSharedAST(ast1);
+		cache.setActiveElement(fTU2);
+		assertNull(cache.acquireSharedAST(fTU1, fIndex, false, null));
+	}
+
+	public void testDisposeInactiveASTs() throws Exception {
+		ASTCache cache= new ASTCache(1024);
+		try {
+			cache.setActiveElement(fTU2);
+			IASTTranslationUnit ast= cache.acquireSharedAST(fTU1, fIndex, true, null);
+			assertNotNull(ast);
+			cache.releaseSharedAST(ast);
+
+			// AST of an inactive element is disposed when its editor is closed
+			cache.disposeAST(fTU1);
+			assertNull(cache.acquireSharedAST(fTU1, fIndex, false, null));
+
+			// AST of a working copy is disposed when the working copy is destroyed
+			IWorkingCopy workingCopy= fTU1.getWorkingCopy();
+			ast= cache.acquireSharedAST(workingCopy, fIndex, true, null);
+			assertNotNull(ast);
+			cache.releaseSharedAST(ast);
+			ast= cache.acquireSharedAST(workingCopy, fIndex, false, null);
+			assertNotNull(ast);
+			cache.releaseSharedAST(ast);
+			workingCopy.destroy();
+			assertNull(cache.acquireSharedAST(workingCopy, fIndex, false, null));
+		} finally {
+			cache.flush();
+		}
+	}
+
 	private void checkActiveElement() throws Exception {
 		ASTCache cache= new ASTCache();
 		assertFalse(cache.isActiveElement(fTU1));
@@ -174,6 +174,7 @@ public class AST2BaseTest extends BaseTestCase {
         }
         if (skipTrivialInitializers)
         	parser.setSkipTrivialExpressionsInAggregateInitializers(true);
+        configureParser(parser);
         
         IASTTranslationUnit tu = parser.parse();
         assertTrue(tu.isFrozen());
@@ -205,6 +206,9 @@ public class AST2BaseTest extends BaseTestCase {
 	protected void configureScanner(IScanner scanner) {
 	}
 
+	protected void configureParser(AbstractGNUSourceCodeParser parser) {
+	}
+
 	public static IScanner createScanner(FileContent codeReader, ParserLanguage lang, ParserMode mode,
 			IScannerInfo scannerInfo) {
 		IScannerExtensionConfiguration configuration = null;
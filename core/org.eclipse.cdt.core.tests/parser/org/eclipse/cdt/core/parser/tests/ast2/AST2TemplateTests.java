@@ -88,6 +88,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTNameBase;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalUnknownScope;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownBinding;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.LookupCache;
 
 public class AST2TemplateTests extends AST2BaseTest {
 	
@@ -5534,4 +5535,44 @@ public class AST2TemplateTests extends AST2BaseTest {
 	public void testSyntaxFailureInstantiatingFunctionTemplate_365981b() throws Exception {
 		parseAndCheckBindings();
 	}
+	
+	//	template<typename T> struct A { typedef int t; };
+	//	template<typename T> struct A<T*> { typedef char t; };
+	//	A<int> a1;
+	//	A<int> a2;
+	//	A<int*> b1;
+	//	A<int*> b2;
+	public void testReuseOfInstancesForTemplateIds() throws Exception {
+		final long hits= LookupCache.getInstanceHitCount();
+		BindingAssertionHelper ba= new BindingAssertionHelper(getAboveComment(), true);
+		ICPPTemplateInstance a1= ba.assertNonProblem("A<int> a1", 6, ICPPTemplateInstance.class);
+		ICPPTemplateInstance a2= ba.assertNonProblem("A<int> a2", 6, ICPPTemplateInstance.class);
+		ICPPTemplateInstance b1= ba.assertNonProblem("A<int*> b1", 7, ICPPTemplateInstance.class);
+		ICPPTemplateInstance b2= ba.assertNonProblem("A<int*> b2", 7, ICPPTemplateInstance.class);
+		assertSame(a1, a2);
+		assertSame(b1, b2);
+		assertFalse(a1.getTemplateDefinition() instanceof ICPPClassTemplatePartialSpecialization);
+		assertInstance(b1.getTemplateDefinition(), ICPPClassTemplatePartialSpecialization.class);
+		assertTrue(LookupCache.getInstanceHitCount() >= hits + 2);
+	}
+
+	//	template<typename T> struct A { typedef typename T::type t; };
+	//	void f() {
+	//	    struct L { typedef int type; };
+	//	    A<L>::t x;
+	//	}
+	//	void g() {
+	//	    struct L { typedef char type; };
+	//	    A<L>::t y;
+	//	}
+	public void testInstancesForLocalClassesWithSameName() throws Exception {
+		BindingAssertionHelper ba= new BindingAssertionHelper(getAboveComment(), true);
+		ICPPTemplateInstance a1= ba.assertNonProblem("A<L>::t x", 4, ICPPTemplateInstance.class);
+		ICPPTemplateInstance a2= ba.assertNonProblem("A<L>::t y", 4, ICPPTemplateInstance.class);
+		assertNotSame(a1, a2);
+		IVariable x= ba.assertNonProblem("x;", 1, IVariable.class);
+		IVariable y= ba.assertNonProblem("y;", 1, IVariable.class);
+		assertEquals("int", ASTTypeUtil.getType(getNestedType(x.getType(), TDEF)));
+		assertEquals("char", ASTTypeUtil.getType(getNestedType(y.getType(), TDEF)));
+	}
 }
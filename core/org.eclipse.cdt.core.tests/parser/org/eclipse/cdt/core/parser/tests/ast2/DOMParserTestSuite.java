@@ -52,9 +52,11 @@ public class DOMParserTestSuite extends TestCase {
 		suite.addTest(TaskParserTest.suite());
 		suite.addTest(CompletionTestSuite.suite());
 		suite.addTestSuite(CharArrayMapTest.class);
+		suite.addTestSuite(PrimitiveCollectionsTest.class);
 		suite.addTest(FaultToleranceTests.suite());
 		suite.addTest(LanguageExtensionsTest.suite());
 		suite.addTest(ASTInactiveCodeTests.suite());
+		suite.addTest(DeferredFunctionBodyTests.suite());
 		suite.addTest(AccessControlTests.suite());
 		return suite;
 	}
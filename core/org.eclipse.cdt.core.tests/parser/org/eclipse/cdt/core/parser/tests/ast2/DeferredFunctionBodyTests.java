@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.dom.ast.IASTDeclarationStatement;
+import org.eclipse.cdt.core.dom.ast.IASTExpressionStatement;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IField;
+import org.eclipse.cdt.core.dom.ast.IVariable;
+import org.eclipse.cdt.core.parser.ParserLanguage;
+import org.eclipse.cdt.internal.core.dom.parser.AbstractGNUSourceCodeParser;
+import org.eclipse.cdt.internal.core.dom.parser.IASTDeferredFunctionBody;
+
+/**
+ * Testcases for function bodies that are parsed on demand.
+ */
+public class DeferredFunctionBodyTests extends AST2BaseTest {
+
+	public static TestSuite suite() {
+		return suite(DeferredFunctionBodyTests.class);
+	}
+
+	public DeferredFunctionBodyTests() {
+		super();
+	}
+
+	public DeferredFunctionBodyTests(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		// copying the ast would expand all of the bodies.
+		sValidateCopy= false;
+	}
+
+	@Override
+	protected void configureParser(AbstractGNUSourceCodeParser parser) {
+		super.configureParser(parser);
+		parser.setDeferFunctionBodies(true);
+	}
+
+	private IASTTranslationUnit parseDeferred(String code, ParserLanguage lang) throws Exception {
+		// checking for problems would expand all of the bodies.
+		return parse(code, lang, false, false);
+	}
+
+	private IASTDeferredFunctionBody getBody(IASTTranslationUnit tu, int i_decl) {
+		IASTFunctionDefinition fdef= getDeclaration(tu, i_decl);
+		assertInstance(fdef.getBody(), IASTDeferredFunctionBody.class);
+		return (IASTDeferredFunctionBody) fdef.getBody();
+	}
+
+	//	class A {
+	//	public:
+	//		int m();
+	//		int f;
+	//	};
+	//	int A::m() {
+	//		int x= f;
+	//		return x;
+	//	}
+	public void testBodyIsParsedOnAccess_Cpp() throws Exception {
+		String code= getAboveComment();
+		IASTTranslationUnit tu= parseDeferred(code, ParserLanguage.CPP);
+		IASTDeferredFunctionBody body= getBody(tu, 1);
+		assertFalse(body.isExpanded());
+
+		IASTStatement[] statements= body.getStatements();
+		assertTrue(body.isExpanded());
+		assertEquals(2, statements.length);
+		assertTrue(statements[0].isFrozen());
+		assertSame(body, statements[0].getParent());
+
+		BindingAssertionHelper ba= new BindingAssertionHelper(code, true);
+		ba.assertNonProblem("f;", 1, IField.class);
+		ba.assertNonProblem("x;", 1, IVariable.class);
+	}
+
+	//	struct S {
+	//		int f;
+	//	};
+	//	int g(struct S* s) {
+	//		int x= s->f;
+	//		return x;
+	//	}
+	public void testBodyIsParsedOnAccess_C() throws Exception {
+		String code= getAboveComment();
+		IASTTranslationUnit tu= parseDeferred(code, ParserLanguage.C);
+		IASTDeferredFunctionBody body= getBody(tu, 1);
+		assertFalse(body.isExpanded());
+		assertEquals(2, body.getStatements().length);
+
+		BindingAssertionHelper ba= new BindingAssertionHelper(code, false);
+		ba.assertNonProblem("f;", 1, IField.class);
+		ba.assertNonProblem("x;", 1, IVariable.class);
+	}
+
+	//	typedef int T;
+	//	void f() {
+	//		int a, b;
+	//		T * p;
+	//		a * b;
+	//	}
+	public void testAmbiguitiesInBodyAreResolved() throws Exception {
+		String code= getAboveComment();
+		for (ParserLanguage lang : ParserLanguage.values()) {
+			IASTTranslationUnit tu= parse(code, lang);
+			IASTStatement[] statements= getBody(tu, 1).getStatements();
+			assertEquals(3, statements.length);
+			assertInstance(statements[1], IASTDeclarationStatement.class);
+			assertInstance(statements[2], IASTExpressionStatement.class);
+		}
+	}
+
+	//	int v;
+	//	void f() {
+	//		v++;
+	//	}
+	//	void g() {
+	//		v--;
+	//	}
+	public void testSelectionExpandsEnclosingBodyOnly() throws Exception {
+		String code= getAboveComment();
+		IASTTranslationUnit tu= parseDeferred(code, ParserLanguage.CPP);
+		IASTDeferredFunctionBody body1= getBody(tu, 1);
+		IASTDeferredFunctionBody body2= getBody(tu, 2);
+
+		IASTName name= tu.getNodeSelector(null).findName(code.indexOf("v--"), 1);
+		assertNotNull(name);
+		assertInstance(name.resolveBinding(), IVariable.class);
+		assertFalse(body1.isExpanded());
+		assertTrue(body2.isExpanded());
+	}
+}
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.cdt.core.parser.util.CharArrayMap;
+import org.eclipse.cdt.core.parser.util.CharArrayObjectMap;
+import org.eclipse.cdt.core.parser.util.ObjectMap;
+import org.eclipse.cdt.internal.core.parser.scanner.MacroDictionary;
+import org.eclipse.cdt.internal.core.parser.util.IntObjectMap;
+import org.eclipse.cdt.internal.core.parser.util.LongSet;
+
+/**
+ * Compares the open addressing collections with the structures they replace, reporting the time
+ * for filling and querying them and the memory they retain. Half of the queried keys are absent,
+ * and every comparison is repeated for several rounds of which only the last ones are meaningful.
+ * The time does not include the garbage collections done for measuring the memory.
+ */
+public class PrimitiveCollectionsBenchmark extends TestCase {
+	private static final int ENTRIES= 200000;
+	private static final int LOOKUPS= 5000000;
+	private static final int ROUNDS= 5;
+
+	public void testLongSet() {
+		final long[] records= new long[ENTRIES];
+		Random random= new Random(4711);
+		for (int i = 0; i < records.length; i++) {
+			records[i]= (random.nextInt(Integer.MAX_VALUE) + 1) * 8L;
+		}
+		for (int round = 0; round < ROUNDS; round++) {
+			long memory= usedMemory();
+			long time= System.nanoTime();
+			HashSet<Long> boxed= new HashSet<Long>();
+			for (long rec : records) {
+				boxed.add(rec);
+			}
+			long boxedTime= System.nanoTime() - time;
+			final long boxedMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				if (boxed.contains(records[i % ENTRIES] + (i & 8)))
+					found++;
+			}
+			boxedTime+= System.nanoTime() - time;
+			final int size= boxed.size();
+			boxed= null;
+
+			memory= usedMemory();
+			time= System.nanoTime();
+			LongSet set= new LongSet();
+			for (long rec : records) {
+				set.add(rec);
+			}
+			long setTime= System.nanoTime() - time;
+			final long setMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found2= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				if (set.contains(records[i % ENTRIES] + (i & 8)))
+					found2++;
+			}
+			setTime+= System.nanoTime() - time;
+			assertEquals(found, found2);
+			assertEquals(size, set.size());
+
+			report("HashSet<Long>", boxedTime, boxedMemory, "LongSet", setTime, setMemory);
+		}
+	}
+
+	public void testIntObjectMap() {
+		final int[] keys= new int[ENTRIES];
+		Random random= new Random(4711);
+		for (int i = 0; i < keys.length; i++) {
+			keys[i]= random.nextInt();
+		}
+		final Object value= new Object();
+		for (int round = 0; round < ROUNDS; round++) {
+			long memory= usedMemory();
+			long time= System.nanoTime();
+			HashMap<Integer, Object> boxed= new HashMap<Integer, Object>();
+			for (int key : keys) {
+				boxed.put(key, value);
+			}
+			long boxedTime= System.nanoTime() - time;
+			final long boxedMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				if (boxed.get(keys[i % ENTRIES] + (i & 1)) != null)
+					found++;
+			}
+			boxedTime+= System.nanoTime() - time;
+			final int size= boxed.size();
+			boxed= null;
+
+			memory= usedMemory();
+			time= System.nanoTime();
+			IntObjectMap<Object> map= new IntObjectMap<Object>();
+			for (int key : keys) {
+				map.put(key, value);
+			}
+			long mapTime= System.nanoTime() - time;
+			final long mapMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found2= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				if (map.get(keys[i % ENTRIES] + (i & 1)) != null)
+					found2++;
+			}
+			mapTime+= System.nanoTime() - time;
+			assertEquals(found, found2);
+			assertEquals(size, map.size());
+
+			report("HashMap<Integer, Object>", boxedTime, boxedMemory, "IntObjectMap", mapTime, mapMemory);
+		}
+	}
+
+	/**
+	 * Compares the macro dictionary of the preprocessor with the maps for character arrays. As in
+	 * the preprocessor, the identifiers are looked up in the buffer they were lexed from.
+	 */
+	public void testMacroDictionary() {
+		final char[][] names= new char[ENTRIES][];
+		Random random= new Random(4711);
+		for (int i = 0; i < names.length; i++) {
+			names[i]= ("MACRO_" + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36)).toCharArray();
+		}
+		// Each name is followed by an absent identifier that extends it by one character.
+		final StringBuilder text= new StringBuilder();
+		final int[] offsets= new int[ENTRIES * 2];
+		final int[] lengths= new int[ENTRIES * 2];
+		for (int i = 0; i < names.length; i++) {
+			offsets[2 * i]= offsets[2 * i + 1]= text.length();
+			lengths[2 * i]= names[i].length;
+			lengths[2 * i + 1]= names[i].length + 1;
+			text.append(names[i]).append("_ ");
+		}
+		final char[] buffer= text.toString().toCharArray();
+		final Object value= new Object();
+		for (int round = 0; round < ROUNDS; round++) {
+			long memory= usedMemory();
+			long time= System.nanoTime();
+			CharArrayMap<Object> charArrayMap= new CharArrayMap<Object>(512);
+			for (char[] name : names) {
+				charArrayMap.put(name, value);
+			}
+			long charArrayMapTime= System.nanoTime() - time;
+			final long charArrayMapMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				final int j= i % offsets.length;
+				if (charArrayMap.get(buffer, offsets[j], lengths[j]) != null)
+					found++;
+			}
+			charArrayMapTime+= System.nanoTime() - time;
+			final int size= charArrayMap.size();
+			charArrayMap= null;
+
+			memory= usedMemory();
+			time= System.nanoTime();
+			CharArrayObjectMap charArrayObjectMap= new CharArrayObjectMap(512);
+			for (char[] name : names) {
+				charArrayObjectMap.put(name, value);
+			}
+			long charArrayObjectMapTime= System.nanoTime() - time;
+			final long charArrayObjectMapMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found2= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				final int j= i % offsets.length;
+				if (charArrayObjectMap.get(buffer, offsets[j], lengths[j]) != null)
+					found2++;
+			}
+			charArrayObjectMapTime+= System.nanoTime() - time;
+			assertEquals(found, found2);
+			assertEquals(size, charArrayObjectMap.size());
+			charArrayObjectMap= null;
+
+			memory= usedMemory();
+			time= System.nanoTime();
+			MacroDictionary<Object> dictionary= new MacroDictionary<Object>(512);
+			for (char[] name : names) {
+				dictionary.put(name, value);
+			}
+			long dictionaryTime= System.nanoTime() - time;
+			final long dictionaryMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found3= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				final int j= i % offsets.length;
+				if (dictionary.get(buffer, offsets[j], lengths[j]) != null)
+					found3++;
+			}
+			dictionaryTime+= System.nanoTime() - time;
+			assertEquals(found, found3);
+			assertEquals(size, dictionary.size());
+
+			report("CharArrayMap", charArrayMapTime, charArrayMapMemory, "MacroDictionary", dictionaryTime, dictionaryMemory);
+			report("CharArrayObjectMap", charArrayObjectMapTime, charArrayObjectMapMemory, "MacroDictionary", dictionaryTime, dictionaryMemory);
+		}
+	}
+
+	/**
+	 * Compares the map used for the file infos of the indexer, keyed by the location URI of a file,
+	 * with a hash map.
+	 */
+	public void testObjectMap() throws Exception {
+		final URI[] keys= new URI[ENTRIES];
+		// Equal but not identical to the keys, followed by an absent one.
+		final URI[] queries= new URI[ENTRIES * 2];
+		for (int i = 0; i < keys.length; i++) {
+			final String path= "/project/folder" + i % 100 + "/file" + i + ".cpp";
+			keys[i]= new URI("file", null, path, null);
+			queries[2 * i]= new URI("file", null, path, null);
+			queries[2 * i + 1]= new URI("file", null, path + ".h", null);
+		}
+		final Object value= new Object();
+		for (int round = 0; round < ROUNDS; round++) {
+			long memory= usedMemory();
+			long time= System.nanoTime();
+			HashMap<URI, Object> hashMap= new HashMap<URI, Object>(16);
+			for (URI key : keys) {
+				hashMap.put(key, value);
+			}
+			long hashMapTime= System.nanoTime() - time;
+			final long hashMapMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				if (hashMap.get(queries[i % queries.length]) != null)
+					found++;
+			}
+			hashMapTime+= System.nanoTime() - time;
+			final int size= hashMap.size();
+			hashMap= null;
+
+			memory= usedMemory();
+			time= System.nanoTime();
+			ObjectMap map= new ObjectMap(16);
+			for (URI key : keys) {
+				map.put(key, value);
+			}
+			long mapTime= System.nanoTime() - time;
+			final long mapMemory= usedMemory() - memory;
+			time= System.nanoTime();
+			int found2= 0;
+			for (int i = 0; i < LOOKUPS; i++) {
+				if (map.get(queries[i % queries.length]) != null)
+					found2++;
+			}
+			mapTime+= System.nanoTime() - time;
+			assertEquals(found, found2);
+			assertEquals(size, map.size());
+
+			report("HashMap<URI, Object>", hashMapTime, hashMapMemory, "ObjectMap", mapTime, mapMemory);
+		}
+	}
+
+	private static void report(String oldName, long oldTime, long oldMemory, String newName, long newTime,
+			long newMemory) {
+		System.out.println(oldName + ": " + oldTime / 1000000 + "ms, ~" + oldMemory / 1024 + "kB; " + newName
+				+ ": " + newTime / 1000000 + "ms, ~" + newMemory / 1024 + "kB");
+	}
+
+	private static long usedMemory() {
+		final Runtime runtime= Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			runtime.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
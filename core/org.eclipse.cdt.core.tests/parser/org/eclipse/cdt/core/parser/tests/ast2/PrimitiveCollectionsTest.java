@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.cdt.internal.core.parser.scanner.MacroDictionary;
+import org.eclipse.cdt.internal.core.parser.util.IntObjectMap;
+import org.eclipse.cdt.internal.core.parser.util.LongSet;
+
+/**
+ * Tests for the open addressing collections with primitive keys.
+ */
+public class PrimitiveCollectionsTest extends TestCase {
+
+	public void testIntObjectMap() {
+		IntObjectMap<String> map= new IntObjectMap<String>();
+		assertTrue(map.isEmpty());
+		assertNull(map.put(1, "one"));
+		assertNull(map.put(0, "zero"));
+		assertNull(map.put(-1, "minus one"));
+		assertEquals("one", map.put(1, "eins"));
+		assertEquals(3, map.size());
+		assertEquals("eins", map.get(1));
+		assertEquals("zero", map.get(0));
+		assertEquals("minus one", map.get(-1));
+		assertNull(map.get(2));
+		assertTrue(map.containsKey(0));
+
+		int[] keys= map.keys();
+		Arrays.sort(keys);
+		assertTrue(Arrays.equals(new int[] {-1, 0, 1}, keys));
+		assertEquals(3, map.values().size());
+
+		assertEquals("zero", map.remove(0));
+		assertNull(map.remove(0));
+		assertFalse(map.containsKey(0));
+		assertEquals(2, map.size());
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(1));
+	}
+
+	public void testIntObjectMapAgainstHashMap() {
+		IntObjectMap<Integer> map= new IntObjectMap<Integer>();
+		HashMap<Integer, Integer> expected= new HashMap<Integer, Integer>();
+		Random random= new Random(4711);
+		for (int i = 0; i < 100000; i++) {
+			// Use a small range of keys, such that there are many collisions and removals.
+			final int key= random.nextInt(2000) * 1024;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (int key = -1024; key < 2000 * 1024; key+= 512) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+	}
+
+	public void testLongSet() {
+		LongSet set= new LongSet();
+		assertTrue(set.isEmpty());
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.add(1L << 40));
+		assertTrue(set.add(-5));
+		assertEquals(3, set.size());
+		assertTrue(set.contains(0));
+		assertTrue(set.contains(1L << 40));
+		assertFalse(set.contains(1));
+
+		long[] values= set.toArray();
+		Arrays.sort(values);
+		assertTrue(Arrays.equals(new long[] {-5, 0, 1L << 40}, values));
+
+		assertTrue(set.remove(0));
+		assertFalse(set.remove(0));
+		assertFalse(set.contains(0));
+		assertEquals(2, set.size());
+
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(-5));
+	}
+
+	public void testLongSetAgainstHashSet() {
+		LongSet set= new LongSet();
+		HashSet<Long> expected= new HashSet<Long>();
+		Random random= new Random(4711);
+		for (int i = 0; i < 100000; i++) {
+			// Database records are aligned, use similar values.
+			final long value= random.nextInt(2000) * 8L;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(value), set.remove(value));
+			} else {
+				assertEquals(expected.add(value), set.add(value));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		for (long value = -8; value < 2000 * 8L; value+= 4) {
+			assertEquals(expected.contains(value), set.contains(value));
+		}
+	}
+
+	public void testMacroDictionary() {
+		MacroDictionary<String> dict= new MacroDictionary<String>(0);
+		assertNull(dict.put("MAX".toCharArray(), "max1"));
+		assertNull(dict.put("MIN".toCharArray(), "min"));
+		assertEquals("max1", dict.put("MAX".toCharArray(), "max2"));
+		assertEquals(2, dict.size());
+
+		// Names are looked up in sections of a buffer, without copying them.
+		char[] buffer= "x = MAX(MIN, MAXIMUM)".toCharArray();
+		assertEquals("max2", dict.get(buffer, 4, 3));
+		assertEquals("min", dict.get(buffer, 8, 3));
+		assertNull(dict.get(buffer, 13, 7));
+		assertNull(dict.get(buffer, 13, 2));
+		assertEquals("max2", dict.get("MAX".toCharArray()));
+
+		assertEquals(2, dict.keys().size());
+		assertEquals(2, dict.values().size());
+
+		assertEquals("min", dict.remove(buffer, 8, 3));
+		assertNull(dict.remove("MIN".toCharArray()));
+		assertNull(dict.get("MIN".toCharArray()));
+		assertEquals(1, dict.size());
+	}
+
+	public void testMacroDictionaryAgainstHashMap() {
+		MacroDictionary<Integer> dict= new MacroDictionary<Integer>(4);
+		HashMap<String, Integer> expected= new HashMap<String, Integer>();
+		Random random= new Random(4711);
+		for (int i = 0; i < 100000; i++) {
+			final String name= "M" + random.nextInt(2000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(name), dict.remove(name.toCharArray()));
+			} else {
+				assertEquals(expected.put(name, i), dict.put(name.toCharArray(), i));
+			}
+			assertEquals(expected.size(), dict.size());
+		}
+		for (int i = 0; i < 2100; i++) {
+			final String name= "M" + i;
+			assertEquals(expected.get(name), dict.get(name.toCharArray()));
+		}
+	}
+}
@@ -20,7 +20,9 @@ import java.io.OutputStream;
 import junit.framework.TestSuite;
 
 import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.parser.scanner.ASCIICharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.FileCharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.LazyCharArray;
 
@@ -63,16 +65,68 @@ public class FileCharArrayTests extends BaseTestCase {
 		testFile(false, LazyCharArray.CHUNK_SIZE*3+1);
 	}
 
-	private void testFile(boolean aligned, int charSize) throws IOException {
-		createFile(aligned, charSize);
-		
-		AbstractCharArray charArray;
-		final FileInputStream inputStream = new FileInputStream(fFile);
+	public void testSmallASCIIFile() throws IOException {
+		createFile(true, LazyCharArray.CHUNK_SIZE-1);
+		AbstractCharArray charArray= createCharArray("utf-8");
+		assertTrue(charArray instanceof ASCIICharArray);
+		checkContent(charArray, 0, LazyCharArray.CHUNK_SIZE-1);
+		assertEquals(new CharArray(expectedChars(true, LazyCharArray.CHUNK_SIZE-1)).getContentsHash(),
+				charArray.getContentsHash());
+	}
+
+	public void testSmallNonASCIIFile() throws IOException {
+		createFile(false, 1000);
+		AbstractCharArray charArray= createCharArray("utf-8");
+		assertTrue(charArray instanceof CharArray);
+		checkContent(charArray, 1, 1000);
+		assertEquals('\u00a2', charArray.get(0));
+	}
+
+	public void testSmallFileOfIncompatibleCharset() throws IOException {
+		createFile(true, 1000);
+		AbstractCharArray charArray= createCharArray("utf-16be");
+		assertTrue(charArray instanceof CharArray);
+		assertEquals(500, charArray.getLength());
+	}
+
+	public void testContentsHash() throws IOException {
+		for (int i = 0; i < 2; i++) {
+			final boolean aligned= i == 0;
+			final int charSize= LazyCharArray.CHUNK_SIZE*3+1;
+			createFile(aligned, charSize);
+			AbstractCharArray charArray= createCharArray("utf-8");
+			assertEquals(new CharArray(expectedChars(aligned, charSize)).getContentsHash(),
+					charArray.getContentsHash());
+			fFile.delete();
+		}
+	}
+
+	public void testByteOrderMark() throws IOException {
+		final int charSize= LazyCharArray.CHUNK_SIZE*2+1;
+		fFile= File.createTempFile("data", ".txt");
+		OutputStream out= new BufferedOutputStream(new FileOutputStream(fFile));
 		try {
-			charArray = FileCharArray.create(fFile.getPath(), "utf-8", inputStream);
+			out.write(0xef);
+			out.write(0xbb);
+			out.write(0xbf);
+			for (int i = 0; i < charSize; i++) {
+				out.write(i % 127);
+			}
 		} finally {
-			inputStream.close();
+			out.close();
 		}
+		AbstractCharArray charArray= createCharArray("UTF-8");
+		checkContent(charArray, 0, charSize);
+		assertEquals(charSize, charArray.getLength());
+
+		((LazyCharArray) charArray).testClearData();
+		checkContent(charArray, 0, charSize);
+	}
+
+	private void testFile(boolean aligned, int charSize) throws IOException {
+		createFile(aligned, charSize);
+		
+		AbstractCharArray charArray= createCharArray("utf-8");
 		
 		checkContent(charArray, LazyCharArray.CHUNK_SIZE, charSize);
 		assertEquals(charSize, charArray.getLength());
@@ -84,6 +138,24 @@ public class FileCharArrayTests extends BaseTestCase {
 
 	}
 
+	private AbstractCharArray createCharArray(String charSet) throws IOException {
+		final FileInputStream inputStream = new FileInputStream(fFile);
+		try {
+			return FileCharArray.create(fFile.getPath(), charSet, inputStream);
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private char[] expectedChars(boolean aligned, int charSize) {
+		char[] result= new char[charSize];
+		result[0]= aligned ? 0 : '\u00a2';
+		for (int i = 1; i < charSize; i++) {
+			result[i]= (char) (i % 127);
+		}
+		return result;
+	}
+
 	public void checkContent(AbstractCharArray charArray, int from, int to) {
 		for (int i = from; i < to; i++) {
 			assertEquals(i % 127, charArray.get(i));
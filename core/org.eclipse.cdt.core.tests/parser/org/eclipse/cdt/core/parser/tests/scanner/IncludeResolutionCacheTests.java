@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.scanner;
+
+import java.io.File;
+import java.util.Collections;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
+import org.eclipse.cdt.internal.core.pdom.indexer.FileExistsCache;
+
+/**
+ * Tests for the caches shared by the preprocessors of all translation units.
+ */
+public class IncludeResolutionCacheTests extends BaseTestCase {
+
+	public static TestSuite suite() {
+		return suite(IncludeResolutionCacheTests.class);
+	}
+
+	public IncludeResolutionCacheTests() {
+		super();
+	}
+
+	public IncludeResolutionCacheTests(String name) {
+		super(name);
+	}
+
+	public void testResolutionIsKeyedBySearchPath() throws Exception {
+		IncludeResolutionCache cache= new IncludeResolutionCache(Long.MAX_VALUE);
+		final int path1= cache.getSearchPathID("/inc1:/inc2", null);
+		final int path2= cache.getSearchPathID("/inc2:/inc1", null);
+		assertTrue(path1 != path2);
+		assertEquals(path1, cache.getSearchPathID("/inc1:/inc2", null));
+
+		assertEquals(IncludeResolutionCache.UNKNOWN, cache.get("a.h", true, "/src", path1));
+		cache.put("a.h", true, "/src", path1, 1);
+		assertEquals(1, cache.get("a.h", true, "/src", path1));
+		assertEquals(IncludeResolutionCache.UNKNOWN, cache.get("a.h", true, "/other", path1));
+		assertEquals(IncludeResolutionCache.UNKNOWN, cache.get("a.h", false, "/src", path1));
+		assertEquals(IncludeResolutionCache.UNKNOWN, cache.get("a.h", true, "/src", path2));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+
+		cache.clear();
+		assertEquals(IncludeResolutionCache.UNKNOWN, cache.get("a.h", true, "/src", path1));
+	}
+
+	public void testResolutionExpires() throws Exception {
+		IncludeResolutionCache cache= new IncludeResolutionCache(-1);
+		final int path= cache.getSearchPathID("/inc", null);
+		cache.put("a.h", false, null, path, 0);
+		assertEquals(IncludeResolutionCache.UNKNOWN, cache.get("a.h", false, null, path));
+	}
+
+	public void testInvalidationOfProbedDirectories() throws Exception {
+		IncludeResolutionCache cache= new IncludeResolutionCache(Long.MAX_VALUE);
+		final int path= cache.getSearchPathID("/inc", null);
+		final String src= new File("src").getAbsolutePath();
+		final String other= new File("other").getAbsolutePath();
+		cache.put("a.h", true, src, path, IncludeResolutionCache.CURRENT_DIRECTORY);
+		cache.put("a.h", true, other, path, IncludeResolutionCache.CURRENT_DIRECTORY);
+
+		cache.invalidate(Collections.singleton(other));
+		assertEquals(IncludeResolutionCache.CURRENT_DIRECTORY, cache.get("a.h", true, src, path));
+		assertEquals(IncludeResolutionCache.UNKNOWN, cache.get("a.h", true, other, path));
+	}
+
+	public void testFileExistsCacheInvalidation() throws Exception {
+		File dir= File.createTempFile("includecache", "");
+		dir.delete();
+		File nested= new File(dir, "nested");
+		assertTrue(nested.mkdirs());
+		try {
+			File file= new File(dir, "a.h");
+			File nestedFile= new File(nested, "b.h");
+			FileExistsCache cache= new FileExistsCache(false);
+			assertFalse(cache.isFile(file.getPath()));
+			assertFalse(cache.isFile(nestedFile.getPath()));
+			assertTrue(file.createNewFile());
+			assertTrue(nestedFile.createNewFile());
+			assertFalse(cache.isFile(file.getPath()));
+			assertFalse(cache.isFile(nestedFile.getPath()));
+			assertEquals(2, cache.getMissCount());
+			assertEquals(2, cache.getHitCount());
+
+			cache.invalidate(dir.getPath());
+			assertTrue(cache.isFile(file.getPath()));
+			assertTrue(cache.isFile(nestedFile.getPath()));
+			assertFalse(cache.isFile(nested.getPath()));
+		} finally {
+			new File(nested, "b.h").delete();
+			nested.delete();
+			new File(dir, "a.h").delete();
+			dir.delete();
+		}
+	}
+}
@@ -16,6 +16,8 @@ import java.util.Collections;
 
 import junit.framework.TestSuite;
 
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorIncludeStatement;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorStatement;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.parser.ExtendedScannerInfo;
 import org.eclipse.cdt.core.parser.FileContent;
@@ -26,6 +28,7 @@ import org.eclipse.cdt.core.parser.ParserMode;
 import org.eclipse.cdt.core.parser.ScannerInfo;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
 import org.eclipse.cdt.internal.core.pdom.indexer.PDOMNullIndexer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -278,4 +281,79 @@ public class InclusionTests extends PreprocessorTestsBase {
     	validateInteger("1");
     	validateEOF();
     }
+
+    // #include "guarded.h"
+    // #include "guarded.h"
+    // #include "once.h"
+    // #include "once.h"
+    // #include "unguarded.h"
+    // #include "unguarded.h"
+    // #undef GUARDED_H
+    // #include "guarded.h"
+    public void testIncludeGuards() throws Exception {
+    	importFile("guarded.h", "#ifndef GUARDED_H\n#define GUARDED_H\n1\n#endif\n");
+    	importFile("once.h", "#pragma once\n2\n");
+    	importFile("unguarded.h", "#if !defined(UNGUARDED_H)\n#define UNGUARDED_H\n#endif\n3\n");
+    	IFile base = importFile("base.cpp", getAboveComment());
+
+    	FileContent reader= FileContent.create(base);
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, new ScannerInfo());
+    	validateInteger("1");
+    	validateInteger("2");
+    	validateInteger("3");
+    	validateInteger("3");
+    	validateInteger("1");
+    	validateEOF();
+
+    	assertEquals("GUARDED_H", new String(fLocationResolver.getIncludeGuard(getIncludePath("guarded.h"))));
+    	assertEquals(new String(CPreprocessor.PRAGMA_ONCE), 
+    			new String(fLocationResolver.getIncludeGuard(getIncludePath("once.h"))));
+    	assertNull(fLocationResolver.getIncludeGuard(getIncludePath("unguarded.h")));
+    	assertEquals(2, fLocationResolver.getIncludeGuardSkipCount());
+    }
+
+    private String getIncludePath(String name) {
+    	for (IASTPreprocessorStatement stmt : fLocationResolver.getAllPreprocessorStatements()) {
+    		if (stmt instanceof IASTPreprocessorIncludeStatement) {
+    			IASTPreprocessorIncludeStatement include= (IASTPreprocessorIncludeStatement) stmt;
+    			if (include.getName().toString().equals(name))
+    				return include.getPath();
+    		}
+    	}
+    	return null;
+    }
+
+    // #include "guard1.h"
+    private String getIncludePath(String name) {
+    	for (IASTPreprocessorStatement stmt : fLocationResolver.getAllPreprocessorStatements()) {
+    		if (stmt instanceof IASTPreprocessorIncludeStatement) {
+    			IASTPreprocessorIncludeStatement include= (IASTPreprocessorIncludeStatement) stmt;
+    			if (include.getName().toString().equals(name))
+    				return include.getPath();
+    		}
+    	}
+    	return null;
+    }
+
+    // #include "guard1.h"
+    // #include "guard2.h"
+    // #include "guard2.h"
+    // #include "guard3.h"
+    // #include "guard3.h"
+    public void testNoIncludeGuard() throws Exception {
+    	importFile("guard1.h", "#ifndef G1\n#define G1\n#else\n1\n#endif\n");
+    	importFile("guard2.h", "2\n#ifndef G2\n#define G2\n#endif\n");
+    	importFile("guard3.h", "#ifndef G3\n#define G3\n#endif\n#ifndef G3A\n#define G3A\n#endif\n3\n");
+    	IFile base = importFile("base.cpp", getAboveComment());
+
+    	FileContent reader= FileContent.create(base);
+    	initializeScanner(reader, ParserLanguage.C, ParserMode.COMPLETE_PARSE, new ScannerInfo());
+    	validateInteger("1");
+    	validateInteger("2");
+    	validateInteger("2");
+    	validateInteger("3");
+    	validateInteger("3");
+    	validateEOF();
+    	assertEquals(0, fLocationResolver.getIncludeGuardSkipCount());
+    }
 }
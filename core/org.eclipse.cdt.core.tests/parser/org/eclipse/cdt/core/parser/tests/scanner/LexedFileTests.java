@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.scanner;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.ILexerLog;
+import org.eclipse.cdt.internal.core.parser.scanner.LexedFile;
+import org.eclipse.cdt.internal.core.parser.scanner.LexedFileCache;
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer;
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+import org.eclipse.cdt.internal.core.parser.scanner.Token;
+
+/**
+ * Tests for replaying the tokens of lexed files.
+ */
+public class LexedFileTests extends BaseTestCase {
+	private static final LexerOptions DEFAULT_OPTIONS = new LexerOptions();
+
+	private static final String INPUT=
+		"#include <header.h> // comment\n" +
+		"/* block */ int x = 'a';\n" +
+		"#include \"other.h\"\n" +
+		"%:define M(a) a ## b\n" +
+		"#if 0\n" +
+		"\"unterminated\n" +
+		"#endif\n" +
+		"x <: y :> $ <? 0x1f 1.5e3\n" +
+		"#include <a/*b>\n" +
+		"int y; /* c */\n" +
+		"#pragma once\n";
+
+	private static class RecordingLog implements ILexerLog {
+		final StringBuilder fEvents= new StringBuilder();
+
+		public void handleComment(boolean isBlockComment, int offset, int endOffset) {
+			fEvents.append("comment ").append(isBlockComment).append(' ').append(offset).append('-').append(endOffset).append('\n');
+		}
+
+		public void handleProblem(int problemID, char[] info, int offset, int endOffset) {
+			fEvents.append("problem ").append(problemID).append(' ').append(info).append(' ').append(offset).append('-').append(endOffset).append('\n');
+		}
+	}
+
+	public static TestSuite suite() {
+		return suite(LexedFileTests.class);
+	}
+
+	public LexedFileTests() {
+		super();
+	}
+
+	public LexedFileTests(String name) {
+		super(name);
+	}
+
+	private String lex(Lexer lexer, RecordingLog log, boolean useDirectives) throws Exception {
+		StringBuilder result= new StringBuilder();
+		boolean directive= useDirectives;
+		while (true) {
+			Token t= directive ? lexer.nextDirective() : lexer.nextToken();
+			if (t.getType() == IToken.tIDENTIFIER && "include".equals(t.getImage())) {
+				lexer.setInsideIncludeDirective(true);
+				Token header= lexer.nextToken();
+				lexer.setInsideIncludeDirective(false);
+				append(result, header);
+				result.append(lexer.consumeLine(0)).append('\n');
+				t= lexer.currentToken();
+			}
+			append(result, t);
+			if (lexer.currentTokenIsFirstOnLine()) {
+				result.append(" first");
+			}
+			result.append(' ').append(lexer.getLastEndOffset()).append('\n');
+			if (t.getType() == IToken.tEND_OF_INPUT)
+				break;
+			directive= useDirectives && t.getType() == Lexer.tNEWLINE;
+		}
+		return result.append(log.fEvents).toString();
+	}
+
+	private void append(StringBuilder result, Token t) {
+		result.append(t.getType()).append(' ').append(t.getOffset()).append('-').append(t.getEndOffset());
+		result.append(' ').append(t.getCharImage()).append('\n');
+	}
+
+	private void checkReplay(String input, boolean useDirectives) throws Exception {
+		RecordingLog log= new RecordingLog();
+		String expected= lex(new Lexer(input.toCharArray(), DEFAULT_OPTIONS, log, null), log, useDirectives);
+
+		LexedFile lexed= LexedFile.create(new CharArray(input), DEFAULT_OPTIONS);
+		assertNotNull(lexed);
+		log= new RecordingLog();
+		String actual= lex(new Lexer(new CharArray(input), lexed, DEFAULT_OPTIONS, log, null), log, useDirectives);
+		assertEquals(expected, actual);
+	}
+
+	public void testReplayTokens() throws Exception {
+		checkReplay(INPUT, false);
+	}
+
+	public void testReplayDirectives() throws Exception {
+		checkReplay(INPUT, true);
+	}
+
+	public void testReplayWithHeaderNameAcrossTokens() throws Exception {
+		checkReplay("#include <a>>\nint x;\n#include <b>c>\nint y;\n", false);
+		checkReplay("#include <a>>\nint x;\n#include <b>c>\nint y;\n", true);
+	}
+
+	public void testReplayedTokensAreCopies() throws Exception {
+		LexedFile lexed= LexedFile.create(new CharArray("int x;"), DEFAULT_OPTIONS);
+		Token t1= lexed.createToken(0, null);
+		t1.setType(IToken.t_int);
+		Token t2= lexed.createToken(0, null);
+		assertNotSame(t1, t2);
+		assertEquals(IToken.tIDENTIFIER, t2.getType());
+	}
+
+	public void testCacheIsKeyedByContent() throws Exception {
+		LexedFileCache cache= new LexedFileCache(1024);
+		LexedFile lexed= cache.get("/inc/a.h", new CharArray("int a;"), DEFAULT_OPTIONS);
+		assertNotNull(lexed);
+		assertSame(lexed, cache.get("/inc/a.h", new CharArray("int a;"), DEFAULT_OPTIONS));
+		assertNotSame(lexed, cache.get("/inc/a.h", new CharArray("int b;"), DEFAULT_OPTIONS));
+		assertNotSame(lexed, cache.get("/inc/b.h", new CharArray("int a;"), DEFAULT_OPTIONS));
+
+		LexerOptions options= new LexerOptions();
+		options.fSupportDollarInIdentifiers= false;
+		assertNotSame(lexed, cache.get("/inc/a.h", new CharArray("int a;"), options));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+
+		cache.clear();
+		assertNotSame(lexed, cache.get("/inc/a.h", new CharArray("int a;"), DEFAULT_OPTIONS));
+	}
+
+	public void testDisabledCache() throws Exception {
+		LexedFileCache cache= new LexedFileCache(0);
+		assertNull(cache.get("/inc/a.h", new CharArray("int a;"), DEFAULT_OPTIONS));
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.scanner;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.ILocationCtx;
+import org.eclipse.cdt.internal.core.parser.scanner.ImageLocationInfo;
+import org.eclipse.cdt.internal.core.parser.scanner.LocationMap;
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+
+/**
+ * Measures the memory retained by the location map of a translation unit with many macro
+ * expansions and the latency of mapping sequence numbers to file locations. The translation
+ * unit consists of blanks only, every fourth expansion carries a nested implicit expansion, and
+ * the lookups map random ranges across the whole unit. Creating the AST names for the expansions
+ * is timed separately, as it only happens when a client asks for the macro references.
+ */
+public class LocationMapBenchmark extends BaseTestCase {
+	private static final int EXPANSIONS= 200000;
+	private static final int LOOKUPS= 1000000;
+	private static final int DISTANCE= 16;
+	private static final int EXPANSION_LENGTH= 8;
+
+	public static Test suite() {
+		return suite(LocationMapBenchmark.class);
+	}
+
+	public void testManyExpansions() throws Exception {
+		final IMacroBinding macro= new TestMacro("M", "1", null);
+		final IMacroBinding nestedMacro= new TestMacro("N", "2", null);
+		final char[] source= new char[EXPANSIONS * DISTANCE];
+		Arrays.fill(source, ' ');
+		final ImageLocationInfo[] noImageLocations= {};
+
+		final long memory= usedMemory();
+		long time= System.currentTimeMillis();
+		LocationMap map= new LocationMap(new LexerOptions());
+		map.pushTranslationUnit("benchmark.cpp", new CharArray(source));
+		for (int i = 0; i < EXPANSIONS; i++) {
+			final int offset= i * DISTANCE;
+			IASTName[] nested= i % 4 == 0 ?
+					new IASTName[] {map.encounterImplicitMacroExpansion(nestedMacro, null)} : new IASTName[0];
+			ILocationCtx ctx= map.pushMacroExpansion(offset, offset + 1, offset + EXPANSION_LENGTH, 3, macro,
+					nested, noImageLocations);
+			map.popContext(ctx);
+		}
+		final long buildTime= System.currentTimeMillis() - time;
+		final long retained= usedMemory() - memory;
+
+		final int sequenceLength= map.getSequenceNumberForFileOffset(null, source.length);
+		Random random= new Random(4711);
+		time= System.currentTimeMillis();
+		for (int i = 0; i < LOOKUPS; i++) {
+			IASTFileLocation loc= map.getMappedFileLocation(random.nextInt(sequenceLength - DISTANCE), DISTANCE);
+			assertNotNull(loc);
+		}
+		final long lookupTime= System.currentTimeMillis() - time;
+
+		time= System.currentTimeMillis();
+		IASTName[] refs= map.getMacroReferences();
+		final long materializeTime= System.currentTimeMillis() - time;
+		assertEquals(EXPANSIONS + EXPANSIONS / 4, refs.length);
+		refs= null;
+		final long materialized= usedMemory() - memory;
+
+		System.out.println(EXPANSIONS + " expansions: built in " + buildTime + "ms, retaining ~"
+				+ retained / 1024 + "kB; " + LOOKUPS + " mapped file locations in " + lookupTime + "ms ("
+				+ (lookupTime * 1000000L / LOOKUPS) + "ns/lookup); AST nodes created in " + materializeTime
+				+ "ms, retaining ~" + materialized / 1024 + "kB");
+		assertNotNull(map.getTranslationUnitPath());
+	}
+
+	private static long usedMemory() {
+		final Runtime runtime= Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			runtime.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
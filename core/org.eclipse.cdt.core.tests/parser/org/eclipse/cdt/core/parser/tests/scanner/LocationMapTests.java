@@ -576,4 +576,42 @@ public class LocationMapTests extends BaseTestCase {
 		checkInclude(inclusions[0].getIncludeDirective(), "b4b", "4", "pre11", "pre11", false, true, "pre1", 6, 3, 1, 7, 1);
 		assertEquals(0, inclusions[0].getNestedInclusions().length);
 	}
+
+	public void testManyMacroExpansions() {
+		IMacroBinding macro1= new TestMacro("n1", "exp1", null);
+		IMacroBinding macro2= new TestMacro("n2", "exp2", null);
+		init(LONGDIGITS);
+		for (int i = 0; i < 50; i++) {
+			IASTName[] nested= i % 2 == 0 ? new IASTName[0] : 
+				new IASTName[] {fLocationMap.encounterImplicitMacroExpansion(macro2, null)};
+			ILocationCtx ctx= fLocationMap.pushMacroExpansion(i*20, i*20+2, i*20+5, 3, macro1, nested, new ImageLocationInfo[0]);
+			fLocationMap.popContext(ctx);
+		}
+
+		IASTPreprocessorMacroExpansion[] expansions= fLocationMap.getMacroExpansions(new Loc(FN, 200, 260));
+		assertEquals(3, expansions.length);
+		for (int i = 0; i < expansions.length; i++) {
+			IASTFileLocation loc= expansions[i].getFileLocation();
+			assertEquals(200 + i*20, loc.getNodeOffset());
+			assertEquals(5, loc.getNodeLength());
+			assertSame(macro1, expansions[i].getMacroReference().getBinding());
+			assertSame(expansions[i], expansions[i].getMacroReference().getParent());
+		}
+		assertSame(expansions[0], fLocationMap.getMacroExpansions(new Loc(FN, 200, 205))[0]);
+
+		IASTName[] refs= fLocationMap.getMacroReferences();
+		assertEquals(75, refs.length);
+		int j= 0;
+		for (int i = 0; i < 50; i++) {
+			IASTPreprocessorMacroExpansion expansion= (IASTPreprocessorMacroExpansion) refs[j].getParent();
+			assertSame(refs[j++], expansion.getMacroReference());
+			IASTName[] nested= expansion.getNestedMacroReferences();
+			assertEquals(i % 2, nested.length);
+			if (nested.length > 0) {
+				assertSame(refs[j++], nested[0]);
+				assertSame(expansion, nested[0].getParent());
+			}
+		}
+		assertEquals(25, fLocationMap.getReferences(macro2).length);
+	}
 }
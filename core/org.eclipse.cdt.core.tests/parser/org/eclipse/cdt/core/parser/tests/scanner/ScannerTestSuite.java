@@ -18,6 +18,8 @@ public class ScannerTestSuite extends TestSuite {
 	public static Test suite() { 
 		TestSuite suite= new ScannerTestSuite();
 		suite.addTest(LexerTests.suite());
+		suite.addTest(LexedFileTests.suite());
+		suite.addTest(IncludeResolutionCacheTests.suite());
 		suite.addTest(LocationMapTests.suite());
 		suite.addTest(PortedScannerTests.suite());
 		suite.addTest(PreprocessorTests.suite());
@@ -38,6 +38,10 @@ import org.eclipse.core.runtime.IProgressMonitor;
 public class EmptyIndexFragment implements IIndexFragment {
 	public void acquireReadLock() throws InterruptedException {}
 
+	public boolean tryAcquireReadLock(long timeoutMillis) throws InterruptedException {
+		return true;
+	}
+
 	public IIndexFragmentBinding adaptBinding(IBinding binding) {
 		return null;
 	}
@@ -100,6 +104,10 @@ public class EmptyIndexFragment implements IIndexFragment {
 		return 0;
 	}
 
+	public long getCacheEvictions() {
+		return 0;
+	}
+
 	public IIndexFragmentFile getFile(int linkageID, IIndexFileLocation location)
 			throws CoreException {
 		return null;
@@ -32,6 +32,7 @@ import org.eclipse.cdt.core.model.IPathEntry;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.TestScannerProvider;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
 import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IWorkspaceRunnable;
@@ -228,6 +229,41 @@ public class IndexIncludeTest extends IndexTestBase {
 		}
 	}
 
+	public void testIncludeGuardIsStored() throws Exception {
+		TestScannerProvider.sIncludes= new String[]{fProject.getProject().getLocation().toOSString()};
+		IFile guarded= TestSourceReader.createFile(fProject.getProject(), "guarded20121018.h", 
+				"#ifndef GUARDED_20121018\n#define GUARDED_20121018\nint guarded;\n#endif\n");
+		IFile once= TestSourceReader.createFile(fProject.getProject(), "once20121018.h", "#pragma once\nint once;\n");
+		IFile unguarded= TestSourceReader.createFile(fProject.getProject(), "unguarded20121018.h", "int unguarded;\n");
+		TestSourceReader.createFile(fProject.getProject(), "source20121018.cpp", 
+				"#include \"guarded20121018.h\"\n#include \"once20121018.h\"\n#include \"unguarded20121018.h\"\n");
+		CCorePlugin.getIndexManager().reindex(fProject);
+		waitForIndexer();
+
+		fIndex.acquireReadLock();
+		try {
+			assertEquals("GUARDED_20121018", getIncludeGuard(guarded));
+			assertFalse(getFragmentFile(guarded).hasPragmaOnce());
+			assertNull(getIncludeGuard(once));
+			assertTrue(getFragmentFile(once).hasPragmaOnce());
+			assertNull(getIncludeGuard(unguarded));
+			assertFalse(getFragmentFile(unguarded).hasPragmaOnce());
+		} finally {
+			fIndex.releaseReadLock();
+		}
+	}
+
+	private IIndexFragmentFile getFragmentFile(IFile file) throws CoreException {
+		IIndexFile ifile= fIndex.getFile(ILinkage.CPP_LINKAGE_ID, IndexLocationFactory.getWorkspaceIFL(file));
+		assertTrue(ifile instanceof IIndexFragmentFile);
+		return (IIndexFragmentFile) ifile;
+	}
+
+	private String getIncludeGuard(IFile file) throws CoreException {
+		char[] guard= getFragmentFile(file).getIncludeGuard();
+		return guard == null ? null : new String(guard);
+	}
+
 	private void checkInclude(IIndexInclude include, String content, String includeName, boolean isSystem) throws CoreException {
 		int offset= content.indexOf(includeName);
 		assertEquals(offset, include.getNameOffset());
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexInclude;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Tests for indexing with more than one parser thread.
+ */
+public class IndexParserThreadsTest extends BaseTestCase {
+	private static final int SOURCES= 40;
+
+	private ICProject fProject;
+
+	public static Test suite() {
+		return suite(IndexParserThreadsTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= CProjectHelper.createCCProject("IndexParserThreadsTest" + System.currentTimeMillis(), "bin", IPDOMManager.ID_FAST_INDEXER);
+		IndexerPreferences.setParserThreads(fProject.getProject(), 4);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(8000, npm()));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fProject != null) {
+			fProject.getProject().delete(IResource.FORCE | IResource.ALWAYS_DELETE_PROJECT_CONTENT, new NullProgressMonitor());
+		}
+		super.tearDown();
+	}
+
+	public void testProjectSetting() throws Exception {
+		assertEquals(4, IndexerPreferences.getParserThreads(fProject.getProject()));
+		assertEquals(IndexerPreferences.DEFAULT_PARSER_THREADS, IndexerPreferences.getParserThreads(null));
+	}
+
+	public void testIndexWithParserThreads() throws Exception {
+		IFile header= TestSourceReader.createFile(fProject.getProject(), "common.h",
+				"struct Common { int member; };\nint commonFunc(Common* c);");
+		IFile[] sources= new IFile[SOURCES];
+		for (int i = 0; i < SOURCES; i++) {
+			StringBuilder code= new StringBuilder();
+			code.append("#include \"common.h\"\n");
+			code.append("int func" + i + "(Common* c) { return commonFunc(c) + c->member; }\n");
+			if (i > 0) {
+				code.append("int func" + (i-1) + "(Common* c);\n");
+				code.append("int caller" + i + "(Common* c) { return func" + (i-1) + "(c); }\n");
+			}
+			sources[i]= TestSourceReader.createFile(fProject.getProject(), "source" + i + ".cpp", code.toString());
+		}
+		CCorePlugin.getIndexManager().reindex(fProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(20000, npm()));
+
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fProject);
+		index.acquireReadLock();
+		try {
+			IIndexFile[] headerFiles= index.getFiles(IndexLocationFactory.getWorkspaceIFL(header));
+			assertEquals(1, headerFiles.length);
+			assertEquals(SOURCES, index.findIncludedBy(headerFiles[0]).length);
+
+			IIndexBinding[] bindings= index.findBindings("commonFunc".toCharArray(), IndexFilter.ALL, npm());
+			assertEquals(1, bindings.length);
+			assertEquals(SOURCES, index.findReferences(bindings[0]).length);
+
+			for (int i = 0; i < SOURCES; i++) {
+				IIndexFile file= index.getFile(headerFiles[0].getLinkageID(), IndexLocationFactory.getWorkspaceIFL(sources[i]));
+				assertNotNull(file);
+				bindings= index.findBindings(("func" + i).toCharArray(), IndexFilter.ALL, npm());
+				assertEquals(1, bindings.length);
+				assertEquals(1, index.findDefinitions(bindings[0]).length);
+				assertEquals(i < SOURCES - 1 ? 1 : 0, index.findReferences(bindings[0]).length);
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+
+	public void testSameResultAsSingleThreaded() throws Exception {
+		TestSourceReader.createFile(fProject.getProject(), "config.h",
+				"#ifndef CONFIG_H\n#define CONFIG_H\n#define WIDTH 4\n#endif\n");
+		TestSourceReader.createFile(fProject.getProject(), "common.h",
+				"#include \"config.h\"\nstruct Common { int member[WIDTH]; };\nint commonFunc(Common* c);\n");
+		// The content of the header depends on the context it is included in.
+		TestSourceReader.createFile(fProject.getProject(), "value.h",
+				"#ifdef USE_LONG\ntypedef long value_t;\n#else\ntypedef int value_t;\n#endif\n");
+		TestSourceReader.createFile(fProject.getProject(), "chain.h",
+				"#include \"common.h\"\n#include \"value.h\"\ninline value_t chain(Common* c) { return commonFunc(c); }\n");
+		for (int i = 0; i < SOURCES; i++) {
+			StringBuilder code= new StringBuilder();
+			if (i % 3 == 0) {
+				code.append("#define USE_LONG\n");
+			}
+			if (i % 2 == 0) {
+				code.append("#include \"chain.h\"\n");
+			} else {
+				code.append("#include \"value.h\"\n#include \"common.h\"\n");
+			}
+			code.append("value_t func" + i + "(Common* c) { return commonFunc(c) + c->member[0]; }\n");
+			TestSourceReader.createFile(fProject.getProject(), "source" + i + ".cpp", code.toString());
+		}
+
+		IndexerPreferences.setParserThreads(fProject.getProject(), 1);
+		CCorePlugin.getIndexManager().reindex(fProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(20000, npm()));
+		String singleThreaded= getIndexContent();
+
+		IndexerPreferences.setParserThreads(fProject.getProject(), 4);
+		CCorePlugin.getIndexManager().reindex(fProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(20000, npm()));
+		assertEquals(singleThreaded, getIndexContent());
+	}
+
+	/**
+	 * Describes the files, include contexts, bindings and names of the index.
+	 */
+	private String getIndexContent() throws Exception {
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fProject);
+		index.acquireReadLock();
+		try {
+			List<String> lines= new ArrayList<String>();
+			for (IIndexFile file : index.getAllFiles()) {
+				IIndexInclude context= file.getParsedInContext();
+				lines.add(file.getLocation().getURI().getPath() + " linkage=" + file.getLinkageID() +
+						" context=" + (context == null ? null : context.getIncludedByLocation().getURI().getPath()) +
+						" names=" + file.findNames(0, Integer.MAX_VALUE).length +
+						" macros=" + file.getMacros().length + " includes=" + file.getIncludes().length);
+			}
+			for (IIndexBinding binding : index.findBindings(Pattern.compile(".*"), false, IndexFilter.ALL, npm())) {
+				lines.add(Arrays.asList(binding.getQualifiedName()) + " " + binding.getClass().getSimpleName() +
+						" names=" + index.findNames(binding, IIndex.FIND_ALL_OCCURRENCES).length);
+			}
+			Collections.sort(lines);
+			StringBuilder result= new StringBuilder();
+			for (String line : lines) {
+				result.append(line).append('\n');
+			}
+			return result.toString();
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+}
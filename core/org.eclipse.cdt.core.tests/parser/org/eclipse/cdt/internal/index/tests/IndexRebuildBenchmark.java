@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.indexer.PDOMRebuildTask;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Measures full re-indexes of a large generated project with and without building the b-trees
+ * of the bindings and macros in bulk, see {@link PDOMRebuildTask#sBulkBuild}. Each header
+ * declares a namespace with classes, functions and macros, every source includes a share of the
+ * headers and defines functions of its own. The project is indexed once to warm up, then each
+ * variant is re-indexed twice, the time of the faster run and the size of the database are
+ * reported.
+ */
+public class IndexRebuildBenchmark extends IndexTestBase {
+	private static final int HEADERS= 200;
+	private static final int SOURCES= 400;
+	private static final int HEADERS_PER_SOURCE= 20;
+	private static final int DECLARATIONS= 50;
+
+	private ICProject fProject;
+
+	public IndexRebuildBenchmark(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(IndexRebuildBenchmark.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= CProjectHelper.createCCProject("IndexRebuildBenchmark" + System.currentTimeMillis(), null,
+				IPDOMManager.ID_NO_INDEXER);
+		for (int i = 0; i < HEADERS; i++) {
+			TestSourceReader.createFile(fProject.getProject(), new Path("header" + i + ".h"), createHeader(i));
+		}
+		for (int i = 0; i < SOURCES; i++) {
+			TestSourceReader.createFile(fProject.getProject(), new Path("source" + i + ".cpp"), createSource(i));
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		PDOMRebuildTask.sBulkBuild= true;
+		if (fProject != null) {
+			CProjectHelper.delete(fProject);
+		}
+		super.tearDown();
+	}
+
+	public void testRebuild() throws Exception {
+		CCorePlugin.getIndexManager().setIndexerId(fProject, IPDOMManager.ID_FAST_INDEXER);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(3600000, new NullProgressMonitor()));
+
+		for (boolean bulk : new boolean[] {false, true}) {
+			PDOMRebuildTask.sBulkBuild= bulk;
+			long time= Long.MAX_VALUE;
+			for (int i = 0; i < 2; i++) {
+				time= Math.min(time, timeRebuild());
+			}
+			final PDOM pdom= (PDOM) CCoreInternals.getPDOMManager().getPDOM(fProject);
+			System.out.println((bulk ? "bulk" : "incremental") + " b-trees: " + SOURCES + " sources and "
+					+ HEADERS + " headers re-indexed in " + time + "ms, database size "
+					+ pdom.getDB().getSizeBytes());
+		}
+	}
+
+	private long timeRebuild() throws Exception {
+		final long time= System.currentTimeMillis();
+		CCorePlugin.getIndexManager().reindex(fProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(3600000, new NullProgressMonitor()));
+		return System.currentTimeMillis() - time;
+	}
+
+	private static String createHeader(int index) {
+		StringBuilder buf= new StringBuilder();
+		buf.append("#pragma once\n");
+		buf.append("namespace lib").append(index).append(" {\n");
+		for (int i = 0; i < DECLARATIONS; i++) {
+			buf.append("#define LIB").append(index).append("_MACRO").append(i).append("(x) ((x) + ").append(i)
+					.append(")\n");
+			buf.append("class Type").append(i).append(" {\n");
+			buf.append("public:\n");
+			buf.append("  int field").append(i).append(";\n");
+			buf.append("  int method").append(i).append("(int a) const;\n");
+			buf.append("  int method").append(i).append("(double a) const;\n");
+			buf.append("};\n");
+			buf.append("int function").append(i).append("(const Type").append(i).append("& t);\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	private static String createSource(int index) {
+		StringBuilder buf= new StringBuilder();
+		for (int i = 0; i < HEADERS_PER_SOURCE; i++) {
+			buf.append("#include \"header").append((index * 7 + i * 13) % HEADERS).append(".h\"\n");
+		}
+		buf.append("namespace app").append(index).append(" {\n");
+		for (int i = 0; i < DECLARATIONS; i++) {
+			final String lib= "lib" + (index * 7 + i % HEADERS_PER_SOURCE * 13) % HEADERS;
+			buf.append("static int local").append(i).append("(const ").append(lib).append("::Type").append(i)
+					.append("& t) {\n");
+			buf.append("  return ").append(lib).append("::function").append(i).append("(t) + t.method")
+					.append(i).append("(1) + t.field").append(i).append(";\n");
+			buf.append("}\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+}
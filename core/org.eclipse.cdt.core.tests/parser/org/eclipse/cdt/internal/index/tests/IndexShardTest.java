@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexInclude;
+import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
+import org.eclipse.cdt.internal.core.pdom.PDOMManager;
+import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+/**
+ * Tests for project indexes that are stored in multiple databases.
+ */
+public class IndexShardTest extends BaseTestCase {
+	private ICProject fProject;
+
+	public static Test suite() {
+		return suite(IndexShardTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IndexerPreferences.setShardRoots(null, "lib");
+		fProject= CProjectHelper.createCCProject("IndexShardTest" + System.currentTimeMillis(), "bin", IPDOMManager.ID_FAST_INDEXER);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(8000, npm()));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		IndexerPreferences.setShardRoots(null, null);
+		if (fProject != null) {
+			fProject.getProject().delete(IResource.FORCE | IResource.ALWAYS_DELETE_PROJECT_CONTENT, new NullProgressMonitor());
+		}
+		super.tearDown();
+	}
+
+	public void testShardRootsPreference() throws Exception {
+		assertEquals("lib", IndexerPreferences.getShardRoots(fProject.getProject()));
+		IndexerPreferences.setShardRoots(fProject.getProject(), "lib, include");
+		assertEquals("lib, include", IndexerPreferences.getShardRoots(fProject.getProject()));
+		assertEquals("lib", IndexerPreferences.getShardRoots(null));
+		IndexerPreferences.setShardRoots(fProject.getProject(), null);
+		assertEquals("lib", IndexerPreferences.getShardRoots(fProject.getProject()));
+	}
+
+	public void testLookupAcrossShards() throws Exception {
+		IFolder lib= fProject.getProject().getFolder("lib");
+		lib.create(true, true, npm());
+		IFolder src= fProject.getProject().getFolder("src");
+		src.create(true, true, npm());
+		IFile header= TestSourceReader.createFile(lib, "lib.h", "int libFunc(int a);");
+		IFile source= TestSourceReader.createFile(src, "main.cpp", "#include \"../lib/lib.h\"\nint main() { return libFunc(1); }");
+		CCorePlugin.getIndexManager().reindex(fProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(10000, npm()));
+
+		PDOMManager manager= CCoreInternals.getPDOMManager();
+		WritablePDOM[] shards= manager.getPDOMShards(fProject);
+		assertEquals(1, shards.length);
+
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fProject);
+		index.acquireReadLock();
+		try {
+			IIndexFile[] files= index.getFiles(IndexLocationFactory.getWorkspaceIFL(header));
+			assertEquals(1, files.length);
+			assertSame(shards[0], ((IIndexFragmentFile) files[0]).getIndexFragment());
+			IIndexFile sourceFile= index.getFile(files[0].getLinkageID(), IndexLocationFactory.getWorkspaceIFL(source));
+			assertNotNull(sourceFile);
+			assertSame(manager.getPDOM(fProject), ((IIndexFragmentFile) sourceFile).getIndexFragment());
+
+			IIndexInclude[] includes= sourceFile.getIncludes();
+			assertEquals(1, includes.length);
+			assertEquals(files[0], index.resolveInclude(includes[0]));
+			assertEquals(1, index.findIncludedBy(files[0]).length);
+
+			IIndexBinding[] bindings= index.findBindings("libFunc".toCharArray(), IndexFilter.ALL, npm());
+			assertEquals(1, bindings.length);
+			assertEquals(1, index.findDeclarations(bindings[0]).length);
+			assertEquals(1, index.findReferences(bindings[0]).length);
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+
+	public void testParallelRebuild() throws Exception {
+		IFolder lib= fProject.getProject().getFolder("lib");
+		lib.create(true, true, npm());
+		IFolder src= fProject.getProject().getFolder("src");
+		src.create(true, true, npm());
+		IFile header= TestSourceReader.createFile(lib, "lib.h", "int libFunc(int a);");
+		TestSourceReader.createFile(lib, "lib.cpp", "#include \"lib.h\"\nint libFunc(int a) { return a; }");
+		TestSourceReader.createFile(src, "main.cpp", "#include \"../lib/lib.h\"\nint main() { return libFunc(1); }");
+		CCorePlugin.getIndexManager().reindex(fProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(10000, npm()));
+
+		// Both shards parse the header, its content is stored once.
+		IIndexFragment fragment= checkLibFunc(header);
+
+		header= TestSourceReader.createFile(lib, "lib.h", "int libFunc(int a);\nint libVar;");
+		CCorePlugin.getIndexManager().update(new ICElement[] {fProject}, IIndexManager.UPDATE_ALL);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(10000, npm()));
+		assertSame(fragment, checkLibFunc(header));
+	}
+
+	private IIndexFragment checkLibFunc(IFile header) throws Exception {
+		IIndex index= CCorePlugin.getIndexManager().getIndex(fProject);
+		index.acquireReadLock();
+		try {
+			IIndexFile[] files= index.getFiles(IndexLocationFactory.getWorkspaceIFL(header));
+			assertEquals(1, files.length);
+			assertEquals(2, index.findIncludedBy(files[0]).length);
+
+			IIndexBinding[] bindings= index.findBindings("libFunc".toCharArray(), IndexFilter.ALL, npm());
+			assertEquals(1, bindings.length);
+			assertEquals(1, index.findDeclarations(bindings[0]).length);
+			assertEquals(1, index.findDefinitions(bindings[0]).length);
+			assertEquals(1, index.findReferences(bindings[0]).length);
+			return ((IIndexFragmentFile) files[0]).getIndexFragment();
+		} finally {
+			index.releaseReadLock();
+		}
+	}
+}
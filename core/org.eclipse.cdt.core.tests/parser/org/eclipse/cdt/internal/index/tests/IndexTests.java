@@ -30,6 +30,8 @@ public class IndexTests extends TestSuite {
 		suite.addTest(IndexNamesTests.suite());
 		suite.addTest(TeamSharedIndexTest.suite());
 		suite.addTest(IndexProviderManagerTest.suite());
+		suite.addTest(IndexShardTest.suite());
+		suite.addTest(IndexParserThreadsTest.suite());
 		
 		IndexCPPBindingResolutionBugs.addTests(suite);
 		IndexCPPBindingResolutionTest.addTests(suite);
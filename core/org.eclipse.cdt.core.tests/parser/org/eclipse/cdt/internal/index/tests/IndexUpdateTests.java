@@ -46,12 +46,14 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateTypeParameter;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPVariable;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexName;
 import org.eclipse.cdt.core.index.IndexFilter;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.testplugin.CProjectHelper;
 import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
 import org.eclipse.cdt.internal.core.pdom.CModelListener;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMFile;
+import org.eclipse.cdt.internal.core.pdom.dom.PDOMName;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNode;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -949,8 +951,107 @@ public class IndexUpdateTests extends IndexTestBase {
 			fIndex.releaseReadLock();
 		}
 	}
-	
-	
+
+
+	// int var1;
+
+	// int var2;
+
+	// #include "header.h"
+	// #include "header2.h"
+	// void test() {
+	//    var1= var2;
+	// }
+	public void testChangingHeadersWithSameContext() throws Exception {
+		setupHeader(3, true);
+		IFile header2= TestSourceReader.createFile(fCppProject.getProject(), "header2.h", fContents[1].toString());
+		try {
+			fContentUsed++;
+			setupFile(0, true);
+
+			fHeader= TestSourceReader.createFile(fHeader.getParent(), fHeader.getName(), fContents[0].toString().replaceAll("var1", "newVar1"));
+			header2= TestSourceReader.createFile(header2.getParent(), header2.getName(), fContents[1].toString().replaceAll("var2", "newVar2"));
+			TestSourceReader.waitUntilFileIsIndexed(fIndex, fHeader, INDEXER_WAIT_TIME);
+			TestSourceReader.waitUntilFileIsIndexed(fIndex, header2, INDEXER_WAIT_TIME);
+			assertTrue(CCorePlugin.getIndexManager().joinIndexer(INDEXER_WAIT_TIME, npm()));
+
+			fIndex.acquireReadLock();
+			try {
+				assertTrue(findBinding("newVar1") instanceof IVariable);
+				assertTrue(findBinding("newVar2") instanceof IVariable);
+			} finally {
+				fIndex.releaseReadLock();
+			}
+		} finally {
+			header2.delete(true, npm());
+		}
+	}
+
+	// #define TYPE int
+
+	// #include "header.h"
+
+	// #include "header2.h"
+	// TYPE globalVar;
+	public void testChangingHeaderUpdatesIncludingSources() throws Exception {
+		setupHeader(3, true);
+		IFile header2= TestSourceReader.createFile(fCppProject.getProject(), "header2.h", fContents[1].toString());
+		try {
+			fContentUsed++;
+			setupFile(0, true);
+			checkVariable("globalVar", INT, new String[] {});
+
+			// The source is not modified, it is found through the includes of the header.
+			fHeader= TestSourceReader.createFile(fHeader.getParent(), fHeader.getName(), fContents[0].toString().replaceAll("int", "short"));
+			TestSourceReader.waitUntilFileIsIndexed(fIndex, fHeader, INDEXER_WAIT_TIME);
+			assertTrue(CCorePlugin.getIndexManager().joinIndexer(INDEXER_WAIT_TIME, npm()));
+			checkVariable("globalVar", SHORT, new String[] {});
+		} finally {
+			header2.delete(true, npm());
+		}
+	}
+
+	// int var1;
+	// int var2;
+
+	// #include "header.h"
+	// int user1() { return var1; }
+
+	// #include "header.h"
+	// int user2() { return var2; }
+	public void testUnaffectedIncludersAreNotParsed() throws Exception {
+		setupHeader(3, true);
+		IFile other= TestSourceReader.createFile(fCppProject.getProject(), "other.cpp", fContents[2].toString());
+		try {
+			setupFile(0, true);
+			TestSourceReader.waitUntilFileIsIndexed(fIndex, other, INDEXER_WAIT_TIME);
+			final long var1Reference= getReferenceRecord("var1");
+			final long var2Reference= getReferenceRecord("var2");
+
+			// Only the source referring to var1 is affected by the change of its type.
+			fHeader= TestSourceReader.createFile(fHeader.getParent(), fHeader.getName(), fContents[0].toString().replaceAll("int var1", "short var1"));
+			TestSourceReader.waitUntilFileIsIndexed(fIndex, fHeader, INDEXER_WAIT_TIME);
+			assertTrue(CCorePlugin.getIndexManager().joinIndexer(INDEXER_WAIT_TIME, npm()));
+			checkVariable("var1", SHORT, new String[] {});
+			assertFalse(var1Reference == getReferenceRecord("var1"));
+			assertEquals(var2Reference, getReferenceRecord("var2"));
+		} finally {
+			other.delete(true, npm());
+		}
+	}
+
+	private long getReferenceRecord(String name) throws Exception {
+		fIndex.acquireReadLock();
+		try {
+			IIndexName[] references= fIndex.findReferences(findBinding(name));
+			assertEquals(1, references.length);
+			return ((PDOMName) references[0]).getRecord();
+		} finally {
+			fIndex.releaseReadLock();
+		}
+	}
+
+
 	// int globalVar;
 	// void func();
 	
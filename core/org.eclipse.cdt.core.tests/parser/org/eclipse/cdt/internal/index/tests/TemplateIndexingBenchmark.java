@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.index.tests;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.testplugin.CProjectHelper;
+import org.eclipse.cdt.core.testplugin.util.TestSourceReader;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.LookupCache;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Measures the time for indexing sources that make heavy use of class templates with partial
+ * specializations, in the style of expression template libraries, and reports how many lookups
+ * were served by the {@link LookupCache}. The project is created without an indexer and
+ * the sources are generated in {@link #setUp()}; the initial indexing and a full re-index of the
+ * same sources are timed separately.
+ */
+public class TemplateIndexingBenchmark extends IndexTestBase {
+	private static final int SOURCE_FILES= 20;
+	private static final int TYPES= 12;
+	private static final int USES= 200;
+
+	private ICProject fProject;
+
+	public TemplateIndexingBenchmark(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(TemplateIndexingBenchmark.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= CProjectHelper.createCCProject("TemplateIndexingBenchmark" + System.currentTimeMillis(), null,
+				IPDOMManager.ID_NO_INDEXER);
+		TestSourceReader.createFile(fProject.getProject(), new Path("meta.h"), createHeader());
+		for (int i = 0; i < SOURCE_FILES; i++) {
+			TestSourceReader.createFile(fProject.getProject(), new Path("source" + i + ".cpp"), createSource(i));
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fProject != null) {
+			CProjectHelper.delete(fProject);
+		}
+		super.tearDown();
+	}
+
+	public void testIndexTemplateHeavySources() throws Exception {
+		final long lookupHits= LookupCache.getLookupHitCount();
+		final long lookupMisses= LookupCache.getLookupMissCount();
+		final long instanceHits= LookupCache.getInstanceHitCount();
+		final long instanceMisses= LookupCache.getInstanceMissCount();
+
+		long time= System.currentTimeMillis();
+		CCorePlugin.getIndexManager().setIndexerId(fProject, IPDOMManager.ID_FAST_INDEXER);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(360000, new NullProgressMonitor()));
+		final long firstTime= System.currentTimeMillis() - time;
+
+		time= System.currentTimeMillis();
+		CCorePlugin.getIndexManager().reindex(fProject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(360000, new NullProgressMonitor()));
+		final long secondTime= System.currentTimeMillis() - time;
+
+		System.out.println(SOURCE_FILES + " template heavy sources indexed in " + firstTime + "ms, reindexed in "
+				+ secondTime + "ms; lookup cache: "
+				+ (LookupCache.getLookupHitCount() - lookupHits) + " index lookups reused, "
+				+ (LookupCache.getLookupMissCount() - lookupMisses) + " performed; "
+				+ (LookupCache.getInstanceHitCount() - instanceHits) + " template instances reused, "
+				+ (LookupCache.getInstanceMissCount() - instanceMisses) + " computed");
+	}
+
+	private static String createHeader() {
+		StringBuilder buf= new StringBuilder();
+		buf.append("#pragma once\n");
+		buf.append("namespace meta {\n");
+		buf.append("template<typename T> struct traits { typedef T scalar; enum { rank= 0 }; };\n");
+		buf.append("template<typename T> struct traits<T*> { typedef typename traits<T>::scalar scalar; enum { rank= traits<T>::rank + 1 }; };\n");
+		buf.append("template<typename T> struct traits<const T> { typedef typename traits<T>::scalar scalar; enum { rank= traits<T>::rank }; };\n");
+		buf.append("template<typename T, int N> struct traits<T[N]> { typedef typename traits<T>::scalar scalar; enum { rank= traits<T>::rank + 1 }; };\n");
+		buf.append("template<bool C, typename T, typename F> struct conditional { typedef T type; };\n");
+		buf.append("template<typename T, typename F> struct conditional<false, T, F> { typedef F type; };\n");
+		buf.append("template<typename A, typename B> struct promote { typedef typename conditional<(sizeof(A) > sizeof(B)), A, B>::type type; };\n");
+		buf.append("}\n");
+		buf.append("namespace la {\n");
+		buf.append("template<typename S, int R, int C> class Matrix {\n");
+		buf.append("public:\n");
+		buf.append("  typedef typename meta::traits<S>::scalar Scalar;\n");
+		buf.append("  Scalar coeff(int r, int c) const;\n");
+		buf.append("  template<typename O> Matrix<typename meta::promote<S, O>::type, R, C> operator+(const Matrix<O, R, C>& o) const;\n");
+		buf.append("};\n");
+		buf.append("template<typename L, typename R> struct Sum {\n");
+		buf.append("  typedef typename meta::promote<typename L::Scalar, typename R::Scalar>::type Scalar;\n");
+		buf.append("  const L& l; const R& r;\n");
+		buf.append("};\n");
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	private static String createSource(int index) {
+		final String[] scalars= {"float", "double", "int", "long", "short", "char"};
+		StringBuilder buf= new StringBuilder();
+		buf.append("#include \"meta.h\"\n");
+		buf.append("namespace user").append(index).append(" {\n");
+		for (int i = 0; i < TYPES; i++) {
+			String scalar= scalars[i % scalars.length];
+			buf.append("typedef la::Matrix<").append(scalar).append(", ").append(i % 4 + 1).append(", ")
+					.append(i % 3 + 1).append("> M").append(i).append(";\n");
+		}
+		buf.append("void compute() {\n");
+		for (int i = 0; i < USES; i++) {
+			final int t= i % TYPES;
+			final String scalar= scalars[i % scalars.length];
+			buf.append("  la::Matrix<").append(scalar).append(", ").append(t % 4 + 1).append(", ").append(t % 3 + 1)
+					.append("> m").append(i).append(";\n");
+			buf.append("  meta::traits<const ").append(scalar).append("*>::scalar s").append(i).append("= m")
+					.append(i).append(".coeff(0, 0);\n");
+			buf.append("  la::Sum<M").append(t).append(", la::Matrix<").append(scalar).append(", ").append(t % 4 + 1)
+					.append(", ").append(t % 3 + 1).append("> >::Scalar x").append(i).append("= s").append(i).append(";\n");
+		}
+		buf.append("}\n");
+		buf.append("}\n");
+		return buf.toString();
+	}
+}
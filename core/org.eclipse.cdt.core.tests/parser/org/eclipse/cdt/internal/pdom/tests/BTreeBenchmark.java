@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Random;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Compares building a name index of a fresh database by inserting the names one by one with
+ * building it in bulk via {@link BTree#bulkInsert(long[], int)}. The names are stored before the
+ * timing starts, the reported build time, cache misses and size cover the tree only. The lookups
+ * that follow show whether the bulk built tree is as fast to search as the incrementally built one.
+ */
+public class BTreeBenchmark extends BaseTestCase {
+	private static final int NAMES= 500000;
+	private static final int LOOKUPS= 200000;
+	private static final long CACHE_SIZE= 4 * 1024 * 1024;
+
+	public static Test suite() {
+		return suite(BTreeBenchmark.class);
+	}
+
+	public void testInsert() throws Exception {
+		runBenchmark(false);
+	}
+
+	public void testBulkInsert() throws Exception {
+		runBenchmark(true);
+	}
+
+	private void runBenchmark(boolean bulk) throws Exception {
+		File file= File.createTempFile("btreebench", ".pdom");
+		try {
+			String[] names= createNames(new Random(90210));
+			final Database db= new Database(file, new ChunkCache(CACHE_SIZE), 0, false);
+			db.setExclusiveLock();
+			long[] records= new long[names.length];
+			for (int i = 0; i < names.length; i++) {
+				records[i]= db.malloc(Database.PTR_SIZE);
+				db.putRecPtr(records[i], db.newString(names[i]).getRecord());
+			}
+			db.flush();
+			final long sizeBefore= db.getSizeBytes();
+			final long missesBefore= db.getCacheMisses();
+
+			long time= System.currentTimeMillis();
+			BTree btree= new BTree(db, Database.DATA_AREA, new IBTreeComparator() {
+				public int compare(long record1, long record2) throws CoreException {
+					return db.getString(db.getRecPtr(record1)).compare(db.getString(db.getRecPtr(record2)), true);
+				}
+			});
+			if (bulk) {
+				btree.bulkInsert(records, records.length);
+			} else {
+				for (long record : records) {
+					btree.insert(record);
+				}
+			}
+			db.flush();
+			final long buildTime= System.currentTimeMillis() - time;
+			final long buildMisses= db.getCacheMisses() - missesBefore;
+			final long treeSize= db.getSizeBytes() - sizeBefore;
+			db.giveUpExclusiveLock(true);
+
+			Random random= new Random(314159265);
+			time= System.currentTimeMillis();
+			for (int i = 0; i < LOOKUPS; i++) {
+				final String key= names[random.nextInt(names.length)];
+				final long[] result= {0};
+				btree.accept(new IBTreeVisitor() {
+					public int compare(long record) throws CoreException {
+						return db.getString(db.getRecPtr(record)).compare(key, true);
+					}
+					public boolean visit(long record) throws CoreException {
+						result[0]= record;
+						return false;
+					}
+				});
+				assertTrue(result[0] != 0);
+			}
+			final long lookupTime= System.currentTimeMillis() - time;
+
+			System.out.println((bulk ? "bulk" : "single") + " insert, " + NAMES + " names: build " + buildTime
+					+ "ms, cache misses " + buildMisses + ", tree size " + treeSize + ", " + LOOKUPS + " lookups "
+					+ lookupTime + "ms");
+			db.setExclusiveLock();
+			db.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	private String[] createNames(Random random) {
+		String[] result= new String[NAMES];
+		StringBuilder buf= new StringBuilder();
+		for (int i = 0; i < result.length; i++) {
+			buf.setLength(0);
+			buf.append("name_");
+			int len= 4 + random.nextInt(20);
+			for (int j = 0; j < len; j++) {
+				buf.append((char) ('a' + random.nextInt(26)));
+			}
+			buf.append(i);
+			result[i]= buf.toString();
+		}
+		return result;
+	}
+}
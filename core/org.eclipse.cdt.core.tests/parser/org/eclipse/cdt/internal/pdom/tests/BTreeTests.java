@@ -100,6 +100,95 @@ public class BTreeTests extends BaseTestCase {
 		}
 	}
 
+	/**
+	 * Builds B-trees of different degrees and sizes in bulk, including duplicate records,
+	 * and checks them against a TreeSet before and after further insertions.
+	 */
+	public void testBulkInsert() throws Exception {
+		Random random = new Random(90210);
+		int[] sizes= {0, 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17, 100, 1000, 10000};
+		for (int degree = 2; degree < 10; degree++) {
+			for (int size : sizes) {
+				init(degree);
+				SortedSet expected = new TreeSet();
+				long[] records= new long[size];
+				for (int i = 0; i < size; i++) {
+					int value = random.nextInt(size * 2 + 1);
+					expected.add(new Integer(value));
+					records[i]= new BTMockRecord(db, value).getRecord();
+				}
+				btree.bulkInsert(records, size);
+				String msg= "[degree " + degree + ", size " + size + "] ";
+				assertBTreeMatchesSortedSet(msg, btree, expected);
+				assertBTreeInvariantsHold(msg);
+
+				for (int i = 0; i < size; i++) {
+					int value = size * 2 + 1 + i;
+					expected.add(new Integer(value));
+					btree.insert(new BTMockRecord(db, value).getRecord());
+				}
+				assertBTreeMatchesSortedSet(msg, btree, expected);
+				assertBTreeInvariantsHold(msg);
+				finish();
+			}
+		}
+	}
+
+	/**
+	 * Fills a B-tree during a bulk build of the database, such that its records are buffered
+	 * until the bulk build ends, and checks it against a TreeSet while and after it is built.
+	 */
+	public void testBulkBuild() throws Exception {
+		Random random = new Random(90210);
+		init(8);
+		db.setBulkBuild(true);
+		btree = new BTree(db, rootRecord, comparator, true);
+		SortedSet expected = new TreeSet();
+		List history = new ArrayList();
+		for (int i = 0; i < 10000; i++) {
+			int value = random.nextInt(20000);
+			long record = new BTMockRecord(db, value).getRecord();
+			long inserted = btree.insert(record);
+			if (expected.add(new Integer(value))) {
+				assertEquals(record, inserted);
+				history.add(new Long(record));
+			} else {
+				assertEquals(value, db.getInt(inserted));
+				assertTrue(record != inserted);
+			}
+		}
+		for (int i = 0; i < 1000; i++) {
+			long record = ((Long) history.remove(random.nextInt(history.size()))).longValue();
+			expected.remove(new Integer(db.getInt(record)));
+			btree.delete(record);
+		}
+		assertEquals(0, db.getRecPtr(rootRecord));
+		assertBTreeMatchesSortedSet("[buffered] ", btree, expected);
+		assertEquals(history.get(0), new Long(findRecord(db.getInt(((Long) history.get(0)).longValue()))));
+		assertEquals(0, findRecord(20000));
+
+		db.setBulkBuild(false);
+		assertTrue(db.getRecPtr(rootRecord) != 0);
+		assertBTreeMatchesSortedSet("[built] ", btree, expected);
+		assertBTreeInvariantsHold("[built] ");
+		assertEquals(history.get(0), new Long(findRecord(db.getInt(((Long) history.get(0)).longValue()))));
+		finish();
+	}
+
+	private long findRecord(final int value) throws CoreException {
+		final long[] result= {0};
+		btree.accept(new IBTreeVisitor() {
+			public int compare(long record) throws CoreException {
+				return db.getInt(record) - value;
+			}
+			public boolean visit(long record) throws CoreException {
+				result[0]= record;
+				return false;
+			}
+		});
+		return result[0];
+	}
+
 	/**
 	 * Insert/Delete a random number of records into/from the B-tree 
 	 * @param seed the seed for obtaining the deterministic random testing
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Random;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Compares the heap and the memory mapped storage backend and the record pointer formats of
+ * {@link Database}. A b-tree of names is written to a fresh database, which is then closed and
+ * reopened, such that the first round of lookups reads the file. Two rounds of lookups by random
+ * names are timed and reported as the average time per lookup, together with the cache misses
+ * and the size of the file.
+ * <p>
+ * The cache is kept small compared to the database, such that most accesses miss the cache as it
+ * happens for large indexes. The width of the record pointers is fixed per session, to compare it
+ * run the benchmark a second time with -D{@value Database#WIDE_RECPTRS_PROPERTY}=true.
+ */
+public class DBBackendBenchmark extends BaseTestCase {
+	private static final int NAMES= 500000;
+	private static final int LOOKUPS= 200000;
+	private static final long CACHE_SIZE= 1024 * 1024;
+
+	public static Test suite() {
+		return suite(DBBackendBenchmark.class);
+	}
+
+	public void testHeapBackend() throws Exception {
+		runBenchmark(false, false);
+	}
+
+	public void testMappedBackend() throws Exception {
+		runBenchmark(true, false);
+	}
+
+	public void testCoarseFormat() throws Exception {
+		runBenchmark(false, true);
+	}
+
+	private void runBenchmark(boolean mapped, boolean coarse) throws Exception {
+		File file= File.createTempFile("dbbench", ".pdom");
+		try {
+			String[] names= createNames(new Random(90210));
+			long time= System.currentTimeMillis();
+			Database db= new Database(file, new ChunkCache(CACHE_SIZE), 0, false, mapped);
+			db.setExclusiveLock();
+			db.clear(0, coarse);
+			BTree btree= createBTree(db);
+			for (String name : names) {
+				long record= db.malloc(Database.PTR_SIZE);
+				db.putRecPtr(record, db.newString(name).getRecord());
+				btree.insert(record);
+			}
+			db.close();
+			final long writeTime= System.currentTimeMillis() - time;
+
+			db= new Database(file, new ChunkCache(CACHE_SIZE), 0, false, mapped);
+			db.setLocked(true);
+			try {
+				btree= createBTree(db);
+				final double coldLookup= timeLookups(db, btree, names, new Random(314159265));
+				final double warmLookup= timeLookups(db, btree, names, new Random(271828182));
+				System.out.println((mapped ? "mapped" : "heap") + " backend, " + Database.PTR_SIZE 
+						+ "-byte " + (coarse ? "coarse" : "default") + " record pointers, " + NAMES 
+						+ " names: write " + writeTime + "ms, lookup " + format(coldLookup) + "us (first round), " 
+						+ format(warmLookup) + "us (second round), cache misses " + db.getCacheMisses() 
+						+ ", size " + db.getSizeBytes());
+			} finally {
+				db.setLocked(false);
+				db.setExclusiveLock();
+				db.close();
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	private BTree createBTree(final Database db) {
+		return new BTree(db, Database.DATA_AREA, new IBTreeComparator() {
+			public int compare(long record1, long record2) throws CoreException {
+				return db.getString(db.getRecPtr(record1)).compare(db.getString(db.getRecPtr(record2)), true);
+			}
+		});
+	}
+
+	/**
+	 * Looks up random names and returns the average time per lookup in microseconds.
+	 */
+	private double timeLookups(final Database db, BTree btree, String[] names, Random random) throws CoreException {
+		long time= System.nanoTime();
+		for (int i = 0; i < LOOKUPS; i++) {
+			final String key= names[random.nextInt(names.length)];
+			final long[] result= {0};
+			btree.accept(new IBTreeVisitor() {
+				public int compare(long record) throws CoreException {
+					return db.getString(db.getRecPtr(record)).compare(key, true);
+				}
+				public boolean visit(long record) throws CoreException {
+					result[0]= record;
+					return false;
+				}
+			});
+			assertTrue(result[0] != 0);
+		}
+		return (System.nanoTime() - time) / 1000.0 / LOOKUPS;
+	}
+
+	private String format(double micros) {
+		return String.valueOf(Math.round(micros * 100) / 100.0);
+	}
+
+	private String[] createNames(Random random) {
+		String[] result= new String[NAMES];
+		StringBuilder buf= new StringBuilder();
+		for (int i = 0; i < result.length; i++) {
+			buf.setLength(0);
+			buf.append("name_");
+			int len= 4 + random.nextInt(20);
+			for (int j = 0; j < len; j++) {
+				buf.append((char) ('a' + random.nextInt(26)));
+			}
+			buf.append(i);
+			result[i]= buf.toString();
+		}
+		return result;
+	}
+}
@@ -14,6 +14,7 @@ package org.eclipse.cdt.internal.pdom.tests;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.Random;
 
 import junit.framework.Test;
@@ -74,8 +75,8 @@ public class DBTest extends BaseTestCase {
 		assertEquals(-blocksize, db.getShort(mem - Database.BLOCK_HEADER_SIZE));
 		db.free(mem);
 		assertEquals(blocksize, db.getShort(mem - Database.BLOCK_HEADER_SIZE));
-		assertEquals(mem, db.getRecPtr((deltas-Database.MIN_BLOCK_DELTAS+1) * Database.INT_SIZE));
-		assertEquals(mem + blocksize, db.getRecPtr((freeDeltas-Database.MIN_BLOCK_DELTAS+1) * Database.INT_SIZE));
+		assertEquals(mem, db.getRecPtr((deltas-Database.MIN_BLOCK_DELTAS+1) * Database.PTR_SIZE));
+		assertEquals(mem + blocksize, db.getRecPtr((freeDeltas-Database.MIN_BLOCK_DELTAS+1) * Database.PTR_SIZE));
 	}
 
 	public void testBug192437() throws IOException {
@@ -102,6 +103,177 @@ public class DBTest extends BaseTestCase {
 		}
 	}
 	
+	public void testMappedBackend() throws Exception {
+		File f = getTestDir().append("testMapped.dat").toFile();
+		f.delete();
+		Database mdb = new Database(f, new ChunkCache(), 0, false, true);
+		mdb.setExclusiveLock();
+		assertTrue(mdb.isMapped());
+		
+		final int n= 300000; 	// exceeds the size of the cache
+		long[] recs= new long[n];
+		for (int i = 0; i < n; i++) {
+			recs[i]= mdb.malloc(12 + Database.PTR_SIZE);
+			mdb.putInt(recs[i], i);
+			mdb.putLong(recs[i] + 4, -i);
+			mdb.putRecPtr(recs[i] + 12, recs[i]);
+		}
+		mdb.close();
+		
+		// read back with the heap backend
+		Database hdb = new Database(f, new ChunkCache(), 0, true, false);
+		hdb.setLocked(true);
+		try {
+			for (int i = 0; i < n; i++) {
+				assertEquals(i, hdb.getInt(recs[i]));
+				assertEquals(-i, hdb.getLong(recs[i] + 4));
+				assertEquals(recs[i], hdb.getRecPtr(recs[i] + 12));
+			}
+		} finally {
+			hdb.setLocked(false);
+			f.delete();
+		}
+	}
+
+	public void testCoarseFormat() throws Exception {
+		db.clear(7, true);
+		assertTrue(db.isCoarseFormat());
+		assertEquals(Math.min(2 * Database.MAX_DB_SIZE, (long) Integer.MAX_VALUE * Database.CHUNK_SIZE), 
+				db.getMaxSize());
+
+		final int n= 20000;
+		long[] recs= new long[n];
+		for (int i = 0; i < n; i++) {
+			recs[i]= db.malloc(4 + i % 50);
+			assertEquals(0, (recs[i] - Database.BLOCK_HEADER_SIZE) % 16);
+			db.putInt(recs[i], i);
+		}
+		for (int i = 0; i < n; i += 2) {
+			db.free(recs[i]);
+		}
+		for (int i = 0; i < n; i += 2) {
+			recs[i]= db.malloc(4 + i % 50);
+			db.putInt(recs[i], i);
+		}
+		long ptr= db.malloc(Database.PTR_SIZE);
+		db.putRecPtr(ptr, recs[n-1]);
+		File file= db.getLocation();
+		db.close();
+
+		db= new Database(file, new ChunkCache(), 0, false);
+		db.setExclusiveLock();
+		assertTrue(db.isCoarseFormat());
+		assertEquals(7, db.getVersion());
+		for (int i = 0; i < n; i++) {
+			assertEquals(i, db.getInt(recs[i]));
+		}
+		assertEquals(recs[n-1], db.getRecPtr(ptr));
+
+		// clearing keeps the format
+		db.clear(8);
+		assertTrue(db.isCoarseFormat());
+		db.clear(8, false);
+		assertFalse(db.isCoarseFormat());
+		assertEquals(Database.MAX_DB_SIZE, db.getMaxSize());
+	}
+
+	public void testPointerWidthMismatch() throws Exception {
+		db.setVersion(7);
+		File file= db.getLocation();
+		db.close();
+
+		// flip the bit recording the width of the record pointers
+		RandomAccessFile raf= new RandomAccessFile(file, "rw");
+		int header;
+		try {
+			header= raf.readInt() ^ (1 << 29);
+			raf.seek(0);
+			raf.writeInt(header);
+		} finally {
+			raf.close();
+		}
+		assertFalse(7 == Database.getVersionFromHeader(header));
+
+		db= new Database(file, new ChunkCache(), 0, false);
+		db.setExclusiveLock();
+		assertFalse(7 == db.getVersion());
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		final int n= 100000;
+		final long[] recs= new long[n];
+		for (int i = 0; i < n; i++) {
+			recs[i]= db.malloc(8);
+			db.putInt(recs[i], i);
+		}
+		db.giveUpExclusiveLock(true);
+		db.getChunkCache().setMaxSize(64 * Database.CHUNK_SIZE); 	// force evictions
+		db.resetCacheCounters();
+
+		final Throwable[] failure= {null};
+		Thread[] readers= new Thread[4];
+		for (int t = 0; t < readers.length; t++) {
+			final Random random= new Random(t);
+			readers[t]= new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 50000; i++) {
+							final int idx= random.nextInt(n);
+							if (db.getInt(recs[idx]) != idx) {
+								throw new AssertionError("wrong value for record " + idx);
+							}
+						}
+					} catch (Throwable e) {
+						synchronized (failure) {
+							failure[0]= e;
+						}
+					}
+				}
+			};
+			readers[t].start();
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		synchronized (failure) {
+			if (failure[0] != null) {
+				throw new Exception(failure[0]);
+			}
+		}
+		assertTrue(db.getCacheEvictions() > 0);
+		assertTrue(db.getCacheEvictions() <= db.getCacheMisses());
+		db.setExclusiveLock();
+	}
+
+	public void testTruncateMappedWindowOnOpen() throws Exception {
+		File f = getTestDir().append("testTruncate.dat").toFile();
+		f.delete();
+		Database mdb = new Database(f, new ChunkCache(), 0, false, true);
+		mdb.setExclusiveLock();
+		long rec= mdb.malloc(16);
+		mdb.putInt(rec, 42);
+		mdb.close();
+		final long usedSize= f.length();
+		assertTrue(usedSize < Database.WINDOW_SIZE);
+
+		// simulate a file that has not been cut back after the window was mapped
+		RandomAccessFile raf= new RandomAccessFile(f, "rw");
+		raf.setLength(Database.WINDOW_SIZE);
+		raf.close();
+
+		mdb = new Database(f, new ChunkCache(), 0, false, true);
+		mdb.setExclusiveLock();
+		try {
+			assertEquals(usedSize, f.length());
+			assertEquals(usedSize, mdb.getSizeBytes());
+			assertEquals(42, mdb.getInt(rec));
+		} finally {
+			mdb.close();
+			f.delete();
+		}
+	}
+
 	public void testFreeBlockLinking() throws Exception {
 		final int realsize = 42;
 		final int deltas = (realsize+Database.BLOCK_HEADER_SIZE + Database.BLOCK_SIZE_DELTA - 1) / Database.BLOCK_SIZE_DELTA;
@@ -112,11 +284,11 @@ public class DBTest extends BaseTestCase {
 		long mem2 = db.malloc(realsize);
 		db.free(mem1);
 		db.free(mem2);
-		assertEquals(mem2, db.getRecPtr((deltas-Database.MIN_BLOCK_DELTAS+1) * Database.INT_SIZE));
+		assertEquals(mem2, db.getRecPtr((deltas-Database.MIN_BLOCK_DELTAS+1) * Database.PTR_SIZE));
 		assertEquals(0, db.getRecPtr(mem2));
-		assertEquals(mem1, db.getRecPtr(mem2 + Database.INT_SIZE));
+		assertEquals(mem1, db.getRecPtr(mem2 + Database.PTR_SIZE));
 		assertEquals(mem2, db.getRecPtr(mem1));
-		assertEquals(0, db.getRecPtr(mem1 + Database.INT_SIZE));
+		assertEquals(0, db.getRecPtr(mem1 + Database.PTR_SIZE));
 	}
 	
 	public void testSimpleAllocationLifecycle() throws Exception {	
@@ -237,6 +409,38 @@ public class DBTest extends BaseTestCase {
 		assertCMP("a",  EQ, "A", false);
 	}
 	
+	public void testCompactStringComparison() throws CoreException {
+		Random r= new Random(27182818);
+		db.setCompactStrings(true);
+		doTrials(1000, 1, ShortString.MAX_LENGTH, r, true);
+		doTrials(1000, 1, ShortString.MAX_LENGTH, r, false);
+		doTrials(100, ShortString.MAX_LENGTH+1, ShortString.MAX_LENGTH*2, r, true);
+	}
+
+	public void testMixedStringLayouts() throws CoreException {
+		final String latin1= "caf\u00e9_bar";
+		final String wide= "caf\u00e9_\u03b1";
+		db.setCompactStrings(true);
+		IString compact= db.newString(latin1);
+		IString compactWide= db.newString(wide);
+		db.setCompactStrings(false);
+		IString utf16= db.newString(latin1);
+
+		assertEquals(latin1.length(), compact.getLength());
+		assertEquals(wide.length(), compactWide.getLength());
+		assertEquals(latin1, db.getString(compact.getRecord()).getString());
+		assertEquals(wide, db.getString(compactWide.getRecord()).getString());
+		assertEquals(utf16.hashCode(), compact.hashCode());
+		assertEquals(compact, utf16);
+		assertEquals(utf16, compact);
+		assertEquals(0, compact.compare(utf16, true));
+		assertEquals(0, db.compareStrings(compact.getRecord(), utf16.getRecord(), true));
+		assertTrue(db.stringEquals(compact.getRecord(), latin1.toCharArray()));
+		assertSignEquals(LT, compact.compare(compactWide, true));
+		assertSignEquals(GT, db.compareStrings(compactWide.getRecord(), utf16.getRecord(), true));
+		assertEquals(0, db.compareStringPrefix(compactWide.getRecord(), "caf\u00e9".toCharArray(), true));
+	}
+
 	public void testLongStringComparison() throws CoreException {
 		Random r= new Random(314159265);
 		doTrials(100, ShortString.MAX_LENGTH+1, ShortString.MAX_LENGTH*2, r, true);
@@ -300,6 +504,12 @@ public class DBTest extends BaseTestCase {
 		assertSignEquals(expected, -biss.compare(aisc, caseSensitive));
 		assertSignEquals(expected, -biss.compare(a, caseSensitive));
 		assertSignEquals(expected, -biss.comparePrefix(acs, caseSensitive));
+
+		assertSignEquals(expected, db.compareStrings(aiss.getRecord(), bisc.getRecord(), caseSensitive));
+		assertSignEquals(expected, db.compareString(aisc.getRecord(), bcs, caseSensitive));
+		assertSignEquals(expected, db.compareStringPrefix(aisc.getRecord(), bcs, caseSensitive));
+		assertEquals(a.length(), aiss.getLength());
+		assertTrue(db.stringEquals(aiss.getRecord(), acs));
 		
 		if (!caseSensitive && expected != 0) {
 			assertSignEquals(expected, aiss.compareCompatibleWithIgnoreCase(bcs));
@@ -309,6 +519,9 @@ public class DBTest extends BaseTestCase {
 			assertSignEquals(expected, -biss.compareCompatibleWithIgnoreCase(acs));
 			assertSignEquals(expected, -biss.compareCompatibleWithIgnoreCase(aiss));
 			assertSignEquals(expected, -biss.compareCompatibleWithIgnoreCase(aisc));
+
+			assertSignEquals(expected, db.compareStringsCompatibleWithIgnoreCase(aiss.getRecord(), bisc.getRecord()));
+			assertSignEquals(expected, db.compareStringCompatibleWithIgnoreCase(aisc.getRecord(), bcs));
 		}
 	}
 	
@@ -18,7 +18,12 @@ import junit.framework.Test;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.IName;
 import org.eclipse.cdt.core.dom.IPDOMManager;
+import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
 import org.eclipse.cdt.core.dom.ast.IFunction;
+import org.eclipse.cdt.core.dom.ast.IFunctionType;
+import org.eclipse.cdt.core.dom.ast.IPointerType;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.IVariable;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPBinding;
 import org.eclipse.cdt.core.index.IIndexBinding;
 import org.eclipse.cdt.core.index.IIndexLocationConverter;
@@ -33,6 +38,7 @@ import org.eclipse.cdt.internal.core.CCoreInternals;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IWritableIndexFragment;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.PDOMLockStatistics;
 import org.eclipse.cdt.internal.core.pdom.PDOMManager;
 import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
@@ -205,7 +211,37 @@ public class PDOMCPPBugsTest extends BaseTestCase {
 		pdom.acquireWriteLock();
 		pdom.releaseWriteLock();
 	}
-	
+
+	public void testTimedAcquireReadLock() throws Exception {
+		final PDOM pdom= (PDOM) CCoreInternals.getPDOMManager().getPDOM(cproject);
+		final boolean[] acquired= {true};
+		pdom.getLockStatistics().reset();
+		pdom.acquireWriteLock();
+		try {
+			Thread other= new Thread() {
+				@Override
+				public void run() {
+					try {
+						acquired[0]= pdom.tryAcquireReadLock(50);
+					} catch (InterruptedException e) {
+					}
+				}
+			};
+			other.start();
+			other.join();
+			assertFalse("read lock acquired while write-locked", acquired[0]);
+		} finally {
+			pdom.releaseWriteLock();
+		}
+		assertTrue(pdom.tryAcquireReadLock(50));
+		pdom.releaseReadLock();
+
+		PDOMLockStatistics stats= pdom.getLockStatistics();
+		assertEquals(1, stats.getReadLockTimeouts());
+		assertTrue(stats.getCount(PDOMLockStatistics.WRITE_HOLD) >= 1);
+		assertTrue(stats.getMaximum(PDOMLockStatistics.WRITE_HOLD) >= 50);
+	}
+
 	public void test191679() throws Exception {
 		IProject project= cproject.getProject();
 		IFolder cHeaders= cproject.getProject().getFolder("cHeaders");
@@ -252,5 +288,48 @@ public class PDOMCPPBugsTest extends BaseTestCase {
 			pdom.releaseReadLock();
 		}
 	}
-}
 
+	public void testSharedTypes() throws Exception {
+		IProject project= cproject.getProject();
+		TestSourceReader.createFile(project, "shared.cpp",
+				"int (*f1)(const char*, long, unsigned short*, double&);\n" +
+				"int (*f2)(const char*, long, unsigned short*, double&);\n");
+		CCorePlugin.getIndexManager().reindex(cproject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(10000, npm()));
+
+		final PDOM pdom= (PDOM) CCoreInternals.getPDOMManager().getPDOM(cproject);
+		final String type;
+		pdom.acquireReadLock();
+		try {
+			IType t1= findVariable(pdom, "f1").getType();
+			IType t2= findVariable(pdom, "f2").getType();
+			assertTrue(t1 instanceof IPointerType);
+			assertTrue(((IPointerType) t1).getType() instanceof IFunctionType);
+			assertSame(t1, t2);
+			type= ASTTypeUtil.getType(t1);
+		} finally {
+			pdom.releaseReadLock();
+		}
+
+		// Removing one of the variables must not affect the type of the other one.
+		TestSourceReader.createFile(project, "shared.cpp",
+				"int (*f2)(const char*, long, unsigned short*, double&);\n");
+		CCorePlugin.getIndexManager().reindex(cproject);
+		assertTrue(CCorePlugin.getIndexManager().joinIndexer(10000, npm()));
+		pdom.acquireReadLock();
+		try {
+			assertNull(findVariable(pdom, "f1"));
+			assertEquals(type, ASTTypeUtil.getType(findVariable(pdom, "f2").getType()));
+		} finally {
+			pdom.releaseReadLock();
+		}
+	}
+
+	private IVariable findVariable(PDOM pdom, String name) throws CoreException {
+		IIndexBinding[] bindings= pdom.findBindings(new char[][] {name.toCharArray()}, IndexFilter.ALL, npm());
+		if (bindings.length == 0)
+			return null;
+		assertEquals(1, bindings.length);
+		return (IVariable) bindings[0];
+	}
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.dom.ILinkage;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexLocationConverter;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.core.model.LanguageManager;
+import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
+import org.eclipse.cdt.internal.core.index.IWritableIndex.IncludeInformation;
+import org.eclipse.cdt.internal.core.index.IWritableIndexFragment;
+import org.eclipse.cdt.internal.core.index.IndexFileLocation;
+import org.eclipse.cdt.internal.core.index.WritableCIndex;
+import org.eclipse.cdt.internal.core.pdom.PDOMHeaderCache;
+import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Tests for the header cache shared between projects.
+ */
+public class PDOMHeaderCacheTest extends BaseTestCase {
+	private File fDirectory;
+
+	public static Test suite() {
+		return suite(PDOMHeaderCacheTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fDirectory= File.createTempFile("headercache", "");
+		fDirectory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files= fDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		fDirectory.delete();
+		super.tearDown();
+	}
+
+	private PDOMHeaderCache open() throws Exception {
+		return PDOMHeaderCache.open(fDirectory, LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+	}
+
+	public void testCacheIsUsedByOneClientAtATime() throws Exception {
+		PDOMHeaderCache cache= open();
+		assertNotNull(cache);
+		assertNull(open());
+		cache.close();
+
+		cache= open();
+		assertNotNull(cache);
+		cache.close();
+	}
+
+	public void testConfigurationSignature() throws Exception {
+		Map<String, String> macros= new HashMap<String, String>();
+		macros.put("__GNUC__", "4");
+		macros.put("NDEBUG", "");
+		Map<String, String> otherMacros= new HashMap<String, String>(macros);
+		otherMacros.put("DEBUG", "1");
+
+		int signature= PDOMHeaderCache.computeConfigurationSignature(new ScannerInfo(macros, new String[] {"/usr/include"}));
+		assertEquals(signature, PDOMHeaderCache.computeConfigurationSignature(new ScannerInfo(
+				new HashMap<String, String>(macros), new String[] {"/usr/include"})));
+		assertFalse(signature == PDOMHeaderCache.computeConfigurationSignature(new ScannerInfo(
+				macros, new String[] {"/opt/sdk/include", "/usr/include"})));
+		assertFalse(signature == PDOMHeaderCache.computeConfigurationSignature(new ScannerInfo(
+				otherMacros, new String[] {"/usr/include"})));
+	}
+
+	public void testCacheIsPartitionedByConfiguration() throws Exception {
+		PDOMHeaderCache cache= open();
+		try {
+			WritablePDOM pdom= cache.getPDOM(17);
+			assertSame(pdom, cache.getPDOM(17));
+			WritablePDOM other= cache.getPDOM(18);
+			assertNotSame(pdom, other);
+			pdom.acquireReadLock();
+			other.acquireReadLock();
+			try {
+				assertFalse(pdom.getProperty(IIndexFragment.PROPERTY_FRAGMENT_ID).equals(
+						other.getProperty(IIndexFragment.PROPERTY_FRAGMENT_ID)));
+			} finally {
+				other.releaseReadLock();
+				pdom.releaseReadLock();
+			}
+		} finally {
+			cache.close();
+		}
+	}
+
+	public void testEntryIsKeyedByTimestampAndConfiguration() throws Exception {
+		fDirectory.mkdirs();
+		File header= new File(fDirectory, "stdio.h");
+		writeFile(header, "int printf(const char *, ...);");
+		IIndexFileLocation location= IndexLocationFactory.getExternalIFL(new Path(header.getAbsolutePath()));
+
+		PDOMHeaderCache cache= open();
+		try {
+			WritablePDOM pdom= cache.getPDOM(17);
+			IIndexFragmentFile file;
+			pdom.acquireWriteLock();
+			try {
+				file= pdom.addFile(ILinkage.CPP_LINKAGE_ID, location);
+				file.setContentsHash(PDOMHeaderCache.computeContentsHash(location));
+				file.setTimestamp(header.lastModified());
+				file.setScannerConfigurationHashcode(17);
+			} finally {
+				pdom.releaseWriteLock();
+			}
+
+			pdom.acquireReadLock();
+			try {
+				assertTrue(PDOMHeaderCache.isUpToDate(file, 17, header.lastModified()));
+				assertFalse(PDOMHeaderCache.isUpToDate(file, 18, header.lastModified()));
+				assertFalse(PDOMHeaderCache.isUpToDate(file, 17, header.lastModified() + 1000));
+			} finally {
+				pdom.releaseReadLock();
+			}
+		} finally {
+			cache.close();
+		}
+	}
+
+	public void testHeaderIsCachedWithItsIncludes() throws Exception {
+		fDirectory.mkdirs();
+		File header= new File(fDirectory, "config.h");
+		writeFile(header, "#include \"other.h\"");
+		File otherHeader= new File(fDirectory, "other.h");
+		writeFile(otherHeader, "#define OTHER");
+		IIndexFileLocation location= IndexLocationFactory.getExternalIFL(new Path(header.getAbsolutePath()));
+		IIndexFileLocation external= IndexLocationFactory.getExternalIFL(new Path(otherHeader.getAbsolutePath()));
+		IIndexFileLocation workspaceFile= new IndexFileLocation(new File(fDirectory, "local.h").toURI(), "/project/local.h");
+		assertTrue(PDOMHeaderCache.canStore(external));
+		assertFalse(PDOMHeaderCache.canStore(workspaceFile));
+
+		PDOMHeaderCache cache= open();
+		WritablePDOM project= new WritablePDOM(new File(fDirectory, "project.pdom"), new URIConverter(),
+				LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+		try {
+			WritablePDOM partition= cache.getPDOM(17);
+			Map<Integer, IWritableIndexFragment> partitions= new HashMap<Integer, IWritableIndexFragment>();
+			partitions.put(17, partition);
+			WritableCIndex index= new WritableCIndex(new IWritableIndexFragment[] {project}, null,
+					partitions, new IIndexFragment[0]);
+			index.acquireWriteLock(0);
+			try {
+				index.setConfigurationSignature(17);
+				// the included header is not in the cache, yet.
+				IIndexFragmentFile file= index.addUncommittedFile(ILinkage.CPP_LINKAGE_ID, location, includes(external));
+				assertSame(project, file.getIndexFragment());
+				index.clearUncommittedFile();
+
+				file= index.addUncommittedFile(ILinkage.CPP_LINKAGE_ID, external, new IncludeInformation[0]);
+				assertSame(partition, file.getIndexFragment());
+				file.setTimestamp(otherHeader.lastModified());
+				IIndexFragmentFile otherFile= index.commitUncommittedFile();
+				assertEquals(17, otherFile.getScannerConfigurationHashcode());
+
+				file= index.addUncommittedFile(ILinkage.CPP_LINKAGE_ID, location, includes(external));
+				assertSame(partition, file.getIndexFragment());
+				file.setTimestamp(header.lastModified());
+				file= index.commitUncommittedFile();
+				assertEquals(PDOMHeaderCache.addToKey(17, otherFile), file.getScannerConfigurationHashcode());
+
+				// the cache cannot store the include, the header is stored with the project.
+				file= index.addUncommittedFile(ILinkage.CPP_LINKAGE_ID, location, includes(workspaceFile));
+				assertSame(project, file.getIndexFragment());
+				index.clearUncommittedFile();
+
+				// there is no partition for the configuration.
+				index.setConfigurationSignature(18);
+				file= index.addUncommittedFile(ILinkage.CPP_LINKAGE_ID, external, new IncludeInformation[0]);
+				assertSame(project, file.getIndexFragment());
+				index.clearUncommittedFile();
+			} finally {
+				index.releaseWriteLock(0);
+			}
+		} finally {
+			project.close();
+			cache.close();
+		}
+	}
+
+	private static IncludeInformation[] includes(IIndexFileLocation location) {
+		IncludeInformation include= new IncludeInformation();
+		include.fLocation= location;
+		return new IncludeInformation[] {include};
+	}
+
+	private static class URIConverter implements IIndexLocationConverter {
+		public IIndexFileLocation fromInternalFormat(String raw) {
+			return new IndexFileLocation(URI.create(raw), null);
+		}
+
+		public String toInternalFormat(IIndexFileLocation location) {
+			return location.getURI().toString();
+		}
+	}
+
+	private void writeFile(File file, String content) throws Exception {
+		FileWriter writer= new FileWriter(file);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -39,6 +39,7 @@ public class PDOMTests extends TestSuite {
 		suite.addTest(OverloadsWithinSingleTUTests.suite());
 		suite.addTest(OverloadsWithinCommonHeaderTests.suite());
 		suite.addTest(BTreeTests.suite());
+		suite.addTest(PDOMHeaderCacheTest.suite());
 		suite.addTest(FilesOnReindexTests.suite());		
 		suite.addTest(GeneratePDOMApplicationTest.suite());
 		
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.Random;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Measures the throughput of name lookups in a b-tree, comparing names via string objects with
+ * comparing them in place, for strings stored with two bytes and with one byte per character.
+ * The cache holds the entire database and a warm-up round precedes the measured lookups, such
+ * that the numbers reflect the cost of the comparisons and the garbage they create, not I/O.
+ */
+public class StringLookupBenchmark extends BaseTestCase {
+	private static final int NAMES= 200000;
+	private static final int LOOKUPS= 1000000;
+	private static final int WARMUP_LOOKUPS= 200000;
+	private static final long CACHE_SIZE= 64 * 1024 * 1024;
+
+	public static Test suite() {
+		return suite(StringLookupBenchmark.class);
+	}
+
+	public void testStringObjects() throws Exception {
+		runBenchmark(false, false);
+	}
+
+	public void testInPlace() throws Exception {
+		runBenchmark(false, true);
+	}
+
+	public void testCompactStringObjects() throws Exception {
+		runBenchmark(true, false);
+	}
+
+	public void testCompactInPlace() throws Exception {
+		runBenchmark(true, true);
+	}
+
+	private void runBenchmark(boolean compact, final boolean inPlace) throws Exception {
+		File file= File.createTempFile("stringbench", ".pdom");
+		try {
+			String[] names= createNames(new Random(90210));
+			final Database db= new Database(file, new ChunkCache(CACHE_SIZE), 0, false);
+			db.setExclusiveLock();
+			db.setCompactStrings(compact);
+			BTree btree= new BTree(db, Database.DATA_AREA, new IBTreeComparator() {
+				public int compare(long record1, long record2) throws CoreException {
+					return db.compareStringsCompatibleWithIgnoreCase(db.getRecPtr(record1), db.getRecPtr(record2));
+				}
+			});
+			long[] records= new long[names.length];
+			for (int i = 0; i < names.length; i++) {
+				records[i]= db.malloc(Database.PTR_SIZE);
+				db.putRecPtr(records[i], db.newString(names[i]).getRecord());
+			}
+			btree.bulkInsert(records, records.length);
+			db.flush();
+			final long size= db.getSizeBytes();
+			db.giveUpExclusiveLock(true);
+
+			char[][] keys= new char[names.length][];
+			for (int i = 0; i < keys.length; i++) {
+				keys[i]= names[i].toCharArray();
+			}
+			lookup(db, btree, keys, inPlace, WARMUP_LOOKUPS);
+			Runtime.getRuntime().gc();
+			final long memory= Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+			long time= System.currentTimeMillis();
+			lookup(db, btree, keys, inPlace, LOOKUPS);
+			time= System.currentTimeMillis() - time;
+			final long allocated= Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory() - memory;
+
+			System.out.println((compact ? "compact" : "utf-16") + (inPlace ? " in place" : " string objects")
+					+ ", " + NAMES + " names, db size " + size + ": " + LOOKUPS + " lookups " + time + "ms, "
+					+ (LOOKUPS * 1000L / Math.max(1, time)) + " lookups/s, ~" + allocated / 1024 + "kB allocated");
+			db.setExclusiveLock();
+			db.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	private void lookup(final Database db, BTree btree, char[][] keys, final boolean inPlace, int count)
+			throws CoreException {
+		Random random= new Random(314159265);
+		for (int i = 0; i < count; i++) {
+			final char[] key= keys[random.nextInt(keys.length)];
+			final long[] result= {0};
+			btree.accept(new IBTreeVisitor() {
+				public int compare(long record) throws CoreException {
+					final long name= db.getRecPtr(record);
+					if (inPlace)
+						return db.compareStringCompatibleWithIgnoreCase(name, key);
+					return db.getString(name).compareCompatibleWithIgnoreCase(key);
+				}
+				public boolean visit(long record) throws CoreException {
+					result[0]= record;
+					return false;
+				}
+			});
+			assertTrue(result[0] != 0);
+		}
+	}
+
+	private String[] createNames(Random random) {
+		String[] result= new String[NAMES];
+		StringBuilder buf= new StringBuilder();
+		for (int i = 0; i < result.length; i++) {
+			buf.setLength(0);
+			buf.append("name_");
+			int len= 4 + random.nextInt(20);
+			for (int j = 0; j < len; j++) {
+				buf.append((char) ('a' + random.nextInt(26)));
+			}
+			buf.append(i);
+			result[i]= buf.toString();
+		}
+		return result;
+	}
+}
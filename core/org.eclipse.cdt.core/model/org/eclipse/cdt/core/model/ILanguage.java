@@ -82,6 +82,15 @@ public interface ILanguage extends IAdaptable {
 	 */
 	public final static int OPTION_PARSE_INACTIVE_CODE= 0x20;
 
+	/**
+	 * Option for {@link #getASTTranslationUnit(FileContent, IScannerInfo, IncludeFileContentProvider, IIndex, int, IParserLogService)}
+	 * Instructs the parser to defer the parsing of function and method bodies until their statements
+	 * are accessed, e.g. by a visitor or when selecting a node within the body. The option has no
+	 * effect in combination with {@link #OPTION_SKIP_FUNCTION_BODIES}.
+	 * @since 5.4
+	 */
+	public final static int OPTION_DEFER_FUNCTION_BODIES= 0x40;
+
 	/**
 	 * Return the language id for this language.
 	 * This is to differentiate languages from each other.
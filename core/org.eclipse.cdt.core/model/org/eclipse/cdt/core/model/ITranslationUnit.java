@@ -110,6 +110,15 @@ public interface ITranslationUnit extends ICElement, IParent, IOpenable, ISource
 	 */
 	public final static int AST_PARSE_INACTIVE_CODE= 0x80;
 
+	/**
+	 * Style constant for {@link #getAST(IIndex, int)}. 
+	 * Instructs the parser to defer the parsing of function and method bodies until their statements
+	 * are accessed, e.g. by a visitor or when selecting a node within the body. The style has no
+	 * effect in combination with {@link #AST_SKIP_FUNCTION_BODIES}.
+	 * @since 5.4
+	 */
+	public final static int AST_DEFER_FUNCTION_BODIES= 0x100;
+
 	/**
 	 * Creates and returns an include declaration in this translation unit
 	 * with the given name.
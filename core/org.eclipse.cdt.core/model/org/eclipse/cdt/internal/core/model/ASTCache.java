@@ -11,13 +11,22 @@
  ******************************************************************************/
 package org.eclipse.cdt.internal.core.model;
 
+import java.util.Collection;
+import java.util.LinkedList;
+
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ElementChangedEvent;
+import org.eclipse.cdt.core.model.ICElementDelta;
+import org.eclipse.cdt.core.model.IElementChangedListener;
 import org.eclipse.cdt.core.model.ILanguage;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.util.ILRUCacheable;
+import org.eclipse.cdt.internal.core.util.LRUCache;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -26,9 +35,13 @@ import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 /**
- * Provides a shared AST of a single translation unit at a time.
+ * Provides a shared AST of the active translation unit. In addition the ASTs of recently used
+ * translation units are kept, as long as they fit into a memory budget that can be configured
+ * in megabytes with the system property <code>org.eclipse.cdt.core.model.astCacheSize</code>.
+ * A size of <code>0</code> restricts the cache to the AST of the active translation unit.
  * 
  * @since 4.0
  */
@@ -39,6 +52,14 @@ public class ASTCache {
 	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.cdt.core/debug/ASTCache"));  //$NON-NLS-1$//$NON-NLS-2$
 	private static final String DEBUG_PREFIX= "[ASTCache] "; //$NON-NLS-1$
 
+	private static final String CACHE_SIZE_PROPERTY= "org.eclipse.cdt.core.model.astCacheSize"; //$NON-NLS-1$
+	private static final int DEFAULT_CACHE_SIZE_MB= 64;
+	/**
+	 * Average memory used by an AST per character of the parsed code, including nodes, names,
+	 * bindings and locations.
+	 */
+	private static final int BYTES_PER_CHARACTER= 24;
+
 	/** Full parse mode (no PDOM) */
 	public static int PARSE_MODE_FULL = ITranslationUnit.AST_CONFIGURE_USING_SOURCE_CONTEXT
 			| ITranslationUnit.AST_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS
@@ -65,6 +86,26 @@ public class ASTCache {
 		 */
 		IStatus runOnAST(ILanguage lang, IASTTranslationUnit ast) throws CoreException;
 	}
+
+	/**
+	 * An AST of an inactive translation unit together with the timestamp of the last index
+	 * write access at the time it was cached.
+	 */
+	private static final class CachedAST implements ILRUCacheable {
+		final IASTTranslationUnit fAST;
+		final long fLastWriteOnIndex;
+		final int fFootprint;
+
+		CachedAST(IASTTranslationUnit ast, long lastWriteOnIndex) {
+			fAST= ast;
+			fLastWriteOnIndex= lastWriteOnIndex;
+			fFootprint= computeFootprint(ast);
+		}
+
+		public int getCacheFootprint() {
+			return fFootprint;
+		}
+	}
 	
 	private final int fParseMode;
 	private final Object fCacheMutex= new Object();
@@ -81,12 +122,37 @@ public class ASTCache {
 	private long fLastWriteOnIndex;
 	/** Indicates whether the AST is currently being computed */
 	private boolean fIsReconciling;
+	/**
+	 * The ASTs of recently used translation units other than the active one, limited by their
+	 * estimated size in kilobytes, or <code>null</code> if they are not cached.
+	 */
+	private final LRUCache<ITranslationUnit, CachedAST> fInactiveASTs;
+	/** Translation units waiting to be parsed in the background */
+	private final LinkedList<ITranslationUnit> fPreparseQueue= new LinkedList<ITranslationUnit>();
+	private Job fPreparseJob;
+	/** Removes the ASTs of working copies that are destroyed, registered while ASTs are cached */
+	private IElementChangedListener fRemovalListener;
 
 	/**
 	 * Create a new AST cache.
 	 */
 	public ASTCache() {
+		this(Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE_MB).intValue() * 1024);
+	}
+
+	/**
+	 * Create a new AST cache.
+	 * @param sizeLimit the maximum estimated size of the ASTs of inactive translation units in
+	 * kilobytes, <code>0</code> restricts the cache to the AST of the active translation unit.
+	 */
+	public ASTCache(int sizeLimit) {
 		fParseMode= PARSE_MODE_FAST;
+		if (sizeLimit > 0) {
+			fInactiveASTs= new LRUCache<ITranslationUnit, CachedAST>();
+			fInactiveASTs.setSpaceLimit(sizeLimit);
+		} else {
+			fInactiveASTs= null;
+		}
 	}
 
 	/**
@@ -116,6 +182,17 @@ public class ASTCache {
 			synchronized (fCacheMutex) {
 				isActiveElement= tUnit.equals(fActiveTU);
 				if (isActiveElement) {
+					if (fAST == null && !fIsReconciling) {
+						// the AST may have been cached while the translation unit was inactive
+						CachedAST cached= removeInactiveAST(tUnit, index);
+						if (cached != null) {
+							if (DEBUG)
+								System.out.println(DEBUG_PREFIX + getThreadName() + "activating cached AST:" + toString(cached.fAST) + " for: " + tUnit.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+							fAST= cached.fAST;
+							fLastWriteOnIndex= cached.fLastWriteOnIndex;
+							return fAST;
+						}
+					}
 					if (fAST != null) {
 						// AST is cached
 						if (fLastWriteOnIndex < index.getLastWriteAccess()) {
@@ -136,6 +213,14 @@ public class ASTCache {
 						return null;
 					}
 				}
+				if (!isActiveElement) {
+					final IASTTranslationUnit ast= getInactiveAST(tUnit, index);
+					if (ast != null) {
+						if (DEBUG)
+							System.out.println(DEBUG_PREFIX + getThreadName() + "returning cached AST of inactive element:" + toString(ast) + " for: " + tUnit.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+						return ast;
+					}
+				}
 				// no cached AST, but wait
 				if (isActiveElement && isReconciling(tUnit)) {
 					try {
@@ -181,6 +266,11 @@ public class ASTCache {
 						reconciled(fAST, tUnit);
 					} else
 						reconciled(ast, tUnit);
+				} else if (ast != null) {
+					synchronized (fCacheMutex) {
+						if (!tUnit.equals(fActiveTU))
+							cacheInactiveAST(tUnit, ast);
+					}
 				}
 			}
 			return ast;
@@ -319,6 +409,23 @@ public class ASTCache {
 		}
 	}
 
+	/**
+	 * Disposes the cached AST of the given translation unit if it is not the active one, and
+	 * stops parsing it in the background. To be called when the editor of the translation unit
+	 * is closed.
+	 *
+	 * @param tUnit  the translation unit
+	 */
+	public void disposeAST(ITranslationUnit tUnit) {
+		synchronized (fCacheMutex) {
+			fPreparseQueue.remove(tUnit);
+			if (fInactiveASTs != null && fInactiveASTs.removeKey(tUnit) != null) {
+				if (DEBUG)
+					System.out.println(DEBUG_PREFIX + getThreadName() + "disposing AST of inactive element: " + toString(tUnit)); //$NON-NLS-1$
+			}
+		}
+	}
+
 	/**
 	 * Creates a new translation unit AST.
 	 * 
@@ -364,6 +471,12 @@ public class ASTCache {
 			return;
 		}
 		synchronized (fCacheMutex) {
+			if (fAST != null && fActiveTU != null) {
+				// keep the AST of the previously active translation unit
+				final CachedAST cached= new CachedAST(fAST, fLastWriteOnIndex);
+				fAST= null;
+				cacheInactiveAST(fActiveTU, cached);
+			}
 			fIsReconciling= false;
 			fActiveTU= tUnit;
 			cache(null, tUnit);
@@ -395,6 +508,10 @@ public class ASTCache {
 			return;
 		
 		synchronized (fCacheMutex) {
+			if (fInactiveASTs != null) {
+				// the content of the translation unit is about to change
+				fInactiveASTs.removeKey(tUnit);
+			}
 			if (fActiveTU == null || !fActiveTU.equals(tUnit)) {
 				return;
 			}
@@ -416,8 +533,11 @@ public class ASTCache {
 	public void reconciled(IASTTranslationUnit ast, ITranslationUnit tUnit) {
 		synchronized (fCacheMutex) {
 			if (tUnit == null || !tUnit.equals(fActiveTU)) {
-				if (DEBUG)
+				if (tUnit != null && ast != null) {
+					cacheInactiveAST(tUnit, ast);
+				} else if (DEBUG) {
 					System.out.println(DEBUG_PREFIX + getThreadName() + "ignoring AST of out-dated element"); //$NON-NLS-1$
+				}
 				return;
 			}
 			if (DEBUG)
@@ -444,6 +564,174 @@ public class ASTCache {
 		}
 	}
 
+	/**
+	 * Schedules the given translation units to be parsed by a background job with low priority,
+	 * such that their ASTs are available when they are needed. Translation units that are active
+	 * or whose AST is cached are skipped, parsing stops when the cache is full.
+	 * 
+	 * @param tUnits  the translation units to parse
+	 */
+	public void schedulePreparse(Collection<ITranslationUnit> tUnits) {
+		if (fInactiveASTs == null)
+			return;
+
+		synchronized (fCacheMutex) {
+			fPreparseQueue.clear();
+			fPreparseQueue.addAll(tUnits);
+			if (fPreparseJob == null) {
+				fPreparseJob= new Job("Parsing recently used files") { //$NON-NLS-1$
+					@Override
+					protected IStatus run(IProgressMonitor monitor) {
+						return preparse(monitor);
+					}
+				};
+				fPreparseJob.setSystem(true);
+				fPreparseJob.setPriority(Job.DECORATE);
+			}
+		}
+		fPreparseJob.schedule();
+	}
+
+	/**
+	 * Removes the ASTs of all inactive translation units and stops parsing in the background.
+	 */
+	public void flush() {
+		final Job job;
+		final IElementChangedListener listener;
+		synchronized (fCacheMutex) {
+			fPreparseQueue.clear();
+			if (fInactiveASTs != null) {
+				fInactiveASTs.flush();
+			}
+			job= fPreparseJob;
+			listener= fRemovalListener;
+			fRemovalListener= null;
+		}
+		if (job != null) {
+			job.cancel();
+		}
+		if (listener != null) {
+			CoreModel.getDefault().removeElementChangedListener(listener);
+		}
+	}
+
+	/**
+	 * Disposes the ASTs of the translation units that have been removed, this includes working
+	 * copies that are destroyed.
+	 */
+	private void removeASTs(ICElementDelta delta) {
+		if (delta.getKind() == ICElementDelta.REMOVED && delta.getElement() instanceof ITranslationUnit) {
+			disposeAST((ITranslationUnit) delta.getElement());
+			return;
+		}
+		for (ICElementDelta child : delta.getAffectedChildren()) {
+			removeASTs(child);
+		}
+	}
+
+	private IStatus preparse(IProgressMonitor monitor) {
+		while (!monitor.isCanceled()) {
+			final ITranslationUnit tUnit;
+			synchronized (fCacheMutex) {
+				if (fPreparseQueue.isEmpty() || 
+						fInactiveASTs.getCurrentSpace() >= fInactiveASTs.getSpaceLimit()) {
+					fPreparseQueue.clear();
+					return Status.OK_STATUS;
+				}
+				tUnit= fPreparseQueue.removeFirst();
+				if (tUnit.equals(fActiveTU) || fInactiveASTs.get(tUnit) != null)
+					continue;
+			}
+			IIndex index;
+			try {
+				index= CCorePlugin.getIndexManager().getIndex(tUnit.getCProject(), IIndexManager.ADD_DEPENDENCIES);
+				index.acquireReadLock();
+			} catch (CoreException e) {
+				continue;
+			} catch (InterruptedException e) {
+				return Status.CANCEL_STATUS;
+			}
+			try {
+				if (DEBUG)
+					System.out.println(DEBUG_PREFIX + getThreadName() + "pre-parsing " + toString(tUnit)); //$NON-NLS-1$
+				final IASTTranslationUnit ast= createAST(tUnit, index, monitor);
+				if (ast != null && !monitor.isCanceled()) {
+					synchronized (fCacheMutex) {
+						if (!tUnit.equals(fActiveTU))
+							cacheInactiveAST(tUnit, ast);
+					}
+				}
+			} finally {
+				index.releaseReadLock();
+			}
+		}
+		return Status.CANCEL_STATUS;
+	}
+
+	/**
+	 * Returns the cached AST of an inactive translation unit, or <code>null</code>.
+	 */
+	private IASTTranslationUnit getInactiveAST(ITranslationUnit tUnit, IIndex index) {
+		assert Thread.holdsLock(fCacheMutex);
+		if (fInactiveASTs == null)
+			return null;
+		final CachedAST cached= (CachedAST) fInactiveASTs.get(tUnit);
+		if (cached == null)
+			return null;
+		if (cached.fLastWriteOnIndex < index.getLastWriteAccess()) {
+			// AST has been invalidated by index write access
+			fInactiveASTs.removeKey(tUnit);
+			return null;
+		}
+		return cached.fAST;
+	}
+
+	/**
+	 * Removes the AST of the given translation unit from the cache of inactive ones and returns
+	 * it, if it is still valid.
+	 */
+	private CachedAST removeInactiveAST(ITranslationUnit tUnit, IIndex index) {
+		assert Thread.holdsLock(fCacheMutex);
+		if (fInactiveASTs == null)
+			return null;
+		final CachedAST cached= fInactiveASTs.removeKey(tUnit);
+		if (cached == null || cached.fLastWriteOnIndex < index.getLastWriteAccess())
+			return null;
+		return cached;
+	}
+
+	private void cacheInactiveAST(ITranslationUnit tUnit, IASTTranslationUnit ast) {
+		cacheInactiveAST(tUnit, new CachedAST(ast, ast.getIndex().getLastWriteAccess()));
+	}
+
+	private void cacheInactiveAST(ITranslationUnit tUnit, CachedAST cached) {
+		assert Thread.holdsLock(fCacheMutex);
+		if (fInactiveASTs == null)
+			return;
+		if (DEBUG)
+			System.out.println(DEBUG_PREFIX + getThreadName() + "caching AST of inactive element: " + toString(cached.fAST) + " for: " + toString(tUnit)); //$NON-NLS-1$ //$NON-NLS-2$
+		fInactiveASTs.put(tUnit, cached);
+		if (fRemovalListener == null) {
+			fRemovalListener= new IElementChangedListener() {
+				public void elementChanged(ElementChangedEvent event) {
+					removeASTs(event.getDelta());
+				}
+			};
+			CoreModel.getDefault().addElementChangedListener(fRemovalListener);
+		}
+	}
+
+	/**
+	 * Estimates the memory used by the given AST in kilobytes. The AST is not traversed, which
+	 * would expand deferred function bodies and macro expansions. Instead the estimate is based
+	 * on the length of the parsed code, which includes the code of included files that was
+	 * parsed and the expansions of macros.
+	 */
+	private static int computeFootprint(IASTTranslationUnit ast) {
+		final long length= ((ASTTranslationUnit) ast).getLength();
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(1, length * BYTES_PER_CHARACTER / 1024));
+	}
+
 	private static String getThreadName() {
 		String name= Thread.currentThread().getName();
 		if (name != null)
@@ -138,6 +138,8 @@ public class CModelBuilder2 implements IContributedModelBuilder {
 				parseFlags |= ITranslationUnit.AST_SKIP_FUNCTION_BODIES;
 			} else {
 				parseFlags |= ITranslationUnit.AST_CONFIGURE_USING_SOURCE_CONTEXT;
+				// The bodies are needed only by clients of the shared ast, parse them on demand.
+				parseFlags |= ITranslationUnit.AST_DEFER_FUNCTION_BODIES;
 			}
 			parseFlags |= ITranslationUnit.AST_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS;
 			parseFlags |= ITranslationUnit.AST_PARSE_INACTIVE_CODE;
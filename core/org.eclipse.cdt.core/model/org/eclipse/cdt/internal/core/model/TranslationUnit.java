@@ -797,6 +797,9 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 		if ((style & AST_PARSE_INACTIVE_CODE) != 0) {
 			options |= ILanguage.OPTION_PARSE_INACTIVE_CODE;
 		}
+		if ((style & AST_DEFER_FUNCTION_BODIES) != 0) {
+			options |= ILanguage.OPTION_DEFER_FUNCTION_BODIES;
+		}
 		if (isSourceUnit()) {
 			options |= ILanguage.OPTION_IS_SOURCE_UNIT;
 		}
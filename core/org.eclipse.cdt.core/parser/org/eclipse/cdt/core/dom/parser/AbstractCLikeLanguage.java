@@ -203,6 +203,11 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 				((AbstractGNUSourceCodeParser) parser).setSkipTrivialExpressionsInAggregateInitializers(true);
 			}
 		}
+		if ((options & OPTION_DEFER_FUNCTION_BODIES) != 0) {
+			if (parser instanceof AbstractGNUSourceCodeParser) {
+				((AbstractGNUSourceCodeParser) parser).setDeferFunctionBodies(true);
+			}
+		}
 		return parser;
 	}
 	
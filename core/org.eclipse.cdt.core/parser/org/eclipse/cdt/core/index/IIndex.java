@@ -89,6 +89,26 @@ public interface IIndex {
 	 */
 	public void acquireReadLock() throws InterruptedException;
 
+	/**
+	 * Same as {@link #acquireReadLock()}, but gives up when the lock cannot be obtained within
+	 * the given time, e.g. because the indexer holds the write lock. A lock obtained by this method
+	 * must be released with {@link #releaseReadLock()}.
+	 * <pre>
+	 * if (index.tryAcquireReadLock(100)) {
+	 *    try {
+	 *       ....
+	 *    }
+	 *    finally {
+	 *       index.releaseReadLock();
+	 *    }
+	 * }
+	 * </pre>
+	 * @param timeoutMillis the maximum time to wait in milliseconds.
+	 * @return whether the lock was acquired.
+	 * @since 5.4
+	 */
+	public boolean tryAcquireReadLock(long timeoutMillis) throws InterruptedException;
+
 	/**
 	 * Any lock obtained by {@link #acquireReadLock()} must be released.
 	 */
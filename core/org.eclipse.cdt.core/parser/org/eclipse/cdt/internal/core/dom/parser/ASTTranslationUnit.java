@@ -56,6 +56,16 @@ import org.eclipse.core.runtime.CoreException;
  * Even 'get' methods may cause changes to the underlying object.
  */
 public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslationUnit, ISkippedIndexedFilesListener {
+	private static final ASTVisitor FREEZE = new ASTGenericVisitor(true) {
+		@Override
+		protected int genericVisit(IASTNode node) {
+			((ASTNode) node).setIsFrozen();
+			if (node instanceof IASTDeferredFunctionBody && !((IASTDeferredFunctionBody) node).isExpanded())
+				return PROCESS_SKIP;
+			return PROCESS_CONTINUE;
+		}
+	};
+
 	private static final IASTPreprocessorStatement[] EMPTY_PREPROCESSOR_STATEMENT_ARRAY = new IASTPreprocessorStatement[0];
 	private static final IASTPreprocessorMacroDefinition[] EMPTY_PREPROCESSOR_MACRODEF_ARRAY = new IASTPreprocessorMacroDefinition[0];
 	private static final IASTPreprocessorIncludeStatement[] EMPTY_PREPROCESSOR_INCLUSION_ARRAY = new IASTPreprocessorIncludeStatement[0];
@@ -437,13 +447,15 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 	}
 	
 	public final void freeze() {
-		accept(new ASTGenericVisitor(true) {
-			@Override
-			protected int genericVisit(IASTNode node) {
-				((ASTNode) node).setIsFrozen();
-				return PROCESS_CONTINUE;
-			}
-		});
+		freeze(this);
+	}
+
+	/**
+	 * Makes the given node and its descendants immutable. Function bodies that have not yet
+	 * been parsed are frozen when they are expanded.
+	 */
+	public static void freeze(IASTNode node) {
+		node.accept(FREEZE);
 	}
 
 	/*
@@ -181,6 +181,7 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
     
     protected boolean functionCallCanBeLValue= false;
 	protected boolean skipTrivialExpressionsInAggregateInitializers= false; 
+	protected boolean deferFunctionBodies= false;
 
     
     /**
@@ -232,6 +233,14 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
 		skipTrivialExpressionsInAggregateInitializers= val;
 	}
 
+	/**
+	 * Instructs the parser to record the tokens of function bodies rather than parsing them. The
+	 * bodies are parsed when their statements are accessed for the first time.
+	 */
+	public void setDeferFunctionBodies(boolean val) {
+		deferFunctionBodies= val;
+	}
+
     private AbstractParserLogService wrapLogService(IParserLogService logService) {
 		if (logService instanceof AbstractParserLogService) {
 			return (AbstractParserLogService) logService;
@@ -1439,9 +1448,40 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
         } 
 
         // full parse
+        if (deferFunctionBodies && isActiveCode()) {
+            IToken first = LA(1);
+            try {
+                IToken last = skipOverCompoundStatement();
+                IASTCompoundStatement cs = createDeferredFunctionBody(new TokenListScanner(first, last));
+                setRange(cs, first.getOffset(), last.getEndOffset());
+                return cs;
+            } catch (EndOfFileException e) {
+                // the body is incomplete, parse what is there.
+                backup(first);
+            }
+        }
         return functionBody();
     }
 
+    /**
+     * Creates the placeholder for a function body that is parsed from the given tokens when it
+     * is accessed.
+     */
+    protected abstract IASTCompoundStatement createDeferredFunctionBody(IScanner tokens);
+
+    /**
+     * Parses the body of a function from the tokens recorded for a deferred function body, or
+     * returns <code>null</code> if the body cannot be parsed.
+     */
+    protected final IASTCompoundStatement deferredFunctionBody() {
+    	try {
+    		return functionBody();
+    	} catch (EndOfFileException e) {
+    	} catch (BacktrackException e) {
+    	}
+    	return null;
+    }
+
     /**
      * Parses a function body.
      * 
@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser;
+
+import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
+
+/**
+ * Body of a function definition whose statements are parsed on first access rather than together
+ * with the translation unit. Visitors that must not trigger the parsing, e.g. the ambiguity
+ * resolution, visit statements and skip the bodies that have not yet been expanded.
+ */
+public interface IASTDeferredFunctionBody extends IASTCompoundStatement {
+	/**
+	 * Returns whether the statements of the body have been parsed or are being parsed.
+	 */
+	public boolean isExpanded();
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+import org.eclipse.cdt.core.parser.EndOfFileException;
+import org.eclipse.cdt.core.parser.IScanner;
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.internal.core.parser.scanner.ILocationResolver;
+import org.eclipse.cdt.internal.core.parser.scanner.Token;
+
+/**
+ * Scanner replaying a sequence of tokens recorded by a parser, used to parse the bodies of
+ * functions after the parsing of the translation unit has completed. The tokens are copies of
+ * the ones delivered by the preprocessor, such that the recorded sequence does not keep the
+ * rest of the token stream alive. Tokens for boundaries of inactive code are not recorded.
+ */
+public final class TokenListScanner implements IScanner {
+	private final IToken[] fTokens;
+	private int fNext;
+
+	/**
+	 * Records the tokens from <code>first</code> up to and including <code>last</code>.
+	 */
+	public TokenListScanner(IToken first, IToken last) {
+		ArrayList<IToken> tokens= new ArrayList<IToken>();
+		for (IToken t= first; t != null; t= t.getNext()) {
+			switch (t.getType()) {
+			case IToken.tINACTIVE_CODE_START:
+			case IToken.tINACTIVE_CODE_SEPARATOR:
+			case IToken.tINACTIVE_CODE_END:
+				break;
+			default:
+				IToken copy= (IToken) ((Token) t).clone();
+				copy.setNext(null);
+				tokens.add(copy);
+				break;
+			}
+			if (t == last)
+				break;
+		}
+		fTokens= tokens.toArray(new IToken[tokens.size()]);
+	}
+
+	public IToken nextToken() throws EndOfFileException {
+		if (fNext >= fTokens.length) {
+			throw new EndOfFileException(fTokens.length == 0 ? 0 : fTokens[fTokens.length - 1].getEndOffset());
+		}
+		return fTokens[fNext++];
+	}
+
+	public Map<String, IMacroBinding> getMacroDefinitions() {
+		return Collections.emptyMap();
+	}
+
+	public boolean isOnTopContext() {
+		return true;
+	}
+
+	public void cancel() {
+	}
+
+	public ILocationResolver getLocationResolver() {
+		return null;
+	}
+
+	public void setContentAssistMode(int offset) {
+	}
+
+	public void setSplitShiftROperator(boolean val) {
+		// The recorded tokens have already been split.
+	}
+
+	public void setComputeImageLocations(boolean val) {
+	}
+
+	public void setProcessInactiveCode(boolean val) {
+	}
+
+	public void skipInactiveCode() {
+	}
+
+	public int getCodeBranchNesting() {
+		return 0;
+	}
+
+	@Deprecated
+	public void setScanComments(boolean val) {
+	}
+}
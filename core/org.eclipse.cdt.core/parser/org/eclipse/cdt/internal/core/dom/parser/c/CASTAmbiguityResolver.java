@@ -17,9 +17,11 @@ import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
 import org.eclipse.cdt.core.dom.ast.IASTExpression;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTParameterDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IScope;
 import org.eclipse.cdt.core.dom.ast.c.ICCompositeTypeScope;
 import org.eclipse.cdt.internal.core.dom.parser.ASTAmbiguousNode;
+import org.eclipse.cdt.internal.core.dom.parser.IASTDeferredFunctionBody;
 
 /**
  * Visitor to resolve ast ambiguities in the right order, which is simply a depth
@@ -30,6 +32,23 @@ public final class CASTAmbiguityResolver extends ASTVisitor {
 		super(false);
 		includeInactiveNodes= true;
 		shouldVisitAmbiguousNodes= true;
+		shouldVisitStatements= true;
+	}
+
+	/**
+	 * Resolves the ambiguities of the given node, which is part of an ast whose remaining
+	 * ambiguities have already been resolved.
+	 */
+	public void resolveAmbiguities(IASTNode node) {
+		node.accept(this);
+	}
+
+	@Override
+	public int visit(IASTStatement statement) {
+		// Function bodies that have not been parsed are resolved when they are expanded.
+		if (statement instanceof IASTDeferredFunctionBody && !((IASTDeferredFunctionBody) statement).isExpanded())
+			return PROCESS_SKIP;
+		return PROCESS_CONTINUE;
 	}
 
 	@Override
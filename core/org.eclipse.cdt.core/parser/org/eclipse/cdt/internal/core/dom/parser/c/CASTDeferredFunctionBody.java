@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.c;
+
+import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.parser.c.ICParserExtensionConfiguration;
+import org.eclipse.cdt.core.parser.IScanner;
+import org.eclipse.cdt.core.parser.NullLogService;
+import org.eclipse.cdt.core.parser.ParserMode;
+import org.eclipse.cdt.core.parser.util.ArrayUtil;
+import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.IASTDeferredFunctionBody;
+
+/**
+ * Body of a function definition that is parsed when its statements are accessed.
+ */
+public class CASTDeferredFunctionBody extends CASTCompoundStatement implements IASTDeferredFunctionBody {
+	private static final int DEFERRED= 0, EXPANDING= 1, EXPANDED= 2;
+
+	private IScanner fTokens;
+	private ICParserExtensionConfiguration fConfig;
+	private IASTStatement[] fStatements;
+	private volatile int fState= DEFERRED;
+
+	public CASTDeferredFunctionBody(IScanner tokens, ICParserExtensionConfiguration config) {
+		fTokens= tokens;
+		fConfig= config;
+	}
+
+	public boolean isExpanded() {
+		return fState != DEFERRED;
+	}
+
+	@Override
+	public IASTStatement[] getStatements() {
+		if (fState != EXPANDED)
+			expand();
+		if (fStatements == null)
+			return IASTStatement.EMPTY_STATEMENT_ARRAY;
+		return (IASTStatement[]) ArrayUtil.trim(IASTStatement.class, fStatements);
+	}
+
+	@Override
+	public void addStatement(IASTStatement statement) {
+		assertNotFrozen();
+		if (fState != EXPANDED)
+			expand();
+		appendStatement(statement);
+	}
+
+	private void appendStatement(IASTStatement statement) {
+		fStatements= (IASTStatement[]) ArrayUtil.append(IASTStatement.class, fStatements, statement);
+		if (statement != null) {
+			statement.setParent(this);
+			statement.setPropertyInParent(NESTED_STATEMENT);
+		}
+	}
+
+	@Override
+	public void replace(IASTNode child, IASTNode other) {
+		if (fStatements == null)
+			return;
+		for (int i = 0; i < fStatements.length; ++i) {
+			if (fStatements[i] == child) {
+				other.setParent(this);
+				other.setPropertyInParent(child.getPropertyInParent());
+				fStatements[i]= (IASTStatement) other;
+			}
+		}
+	}
+
+	/**
+	 * Parses the statements of the body, resolves their ambiguities and freezes them together
+	 * with the rest of the ast. Calls made from within the expansion see the statements parsed
+	 * so far, calls from other threads wait for the expansion to complete.
+	 */
+	private synchronized void expand() {
+		if (fState != DEFERRED)
+			return;
+		fState= EXPANDING;
+		try {
+			GNUCSourceParser parser= new GNUCSourceParser(fTokens, ParserMode.COMPLETE_PARSE,
+					new NullLogService(), fConfig);
+			IASTCompoundStatement body= parser.parseDeferredFunctionBody(getTranslationUnit());
+			fTokens= null;
+			fConfig= null;
+			if (body != null) {
+				for (IASTStatement statement : body.getStatements()) {
+					appendStatement(statement);
+				}
+				new CASTAmbiguityResolver().resolveAmbiguities(this);
+			}
+			if (isFrozen()) {
+				ASTTranslationUnit.freeze(this);
+			}
+		} finally {
+			fState= EXPANDED;
+		}
+	}
+}
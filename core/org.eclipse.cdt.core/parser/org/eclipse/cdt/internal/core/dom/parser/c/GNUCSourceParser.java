@@ -103,6 +103,7 @@ public class GNUCSourceParser extends AbstractGNUSourceCodeParser {
 
     private final boolean supportGCCStyleDesignators;
 	private IIndex index;
+	private final ICParserExtensionConfiguration config;
     protected IASTTranslationUnit translationUnit;
 
     private int fPreventKnrCheck= 0;
@@ -130,9 +131,28 @@ public class GNUCSourceParser extends AbstractGNUSourceCodeParser {
         supportExtendedSizeofOperator= config.supportExtendedSizeofOperator();
         supportFunctionStyleAsm= config.supportFunctionStyleAssembler();
         this.index= index;
+        this.config= config;
         this.nodeFactory = CNodeFactory.getDefault();
     }
 
+    @Override
+	protected IASTCompoundStatement createDeferredFunctionBody(IScanner tokens) {
+		return new CASTDeferredFunctionBody(tokens, config);
+	}
+
+	/**
+	 * Parses a deferred function body of the given translation unit from the tokens provided
+	 * by the scanner.
+	 */
+	IASTCompoundStatement parseDeferredFunctionBody(IASTTranslationUnit tu) {
+		translationUnit= tu;
+		try {
+			return deferredFunctionBody();
+		} finally {
+			translationUnit= null;
+		}
+	}
+
     @Override
 	protected IASTInitializer optionalInitializer(IASTDeclarator dtor, DeclarationOptions options) throws EndOfFileException, BacktrackException {
         if (LTcatchEOF(1) == IToken.tASSIGN) {
@@ -27,6 +27,7 @@ import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTParameterDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IScope;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTCompositeTypeSpecifier;
@@ -36,6 +37,7 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTTemplateId;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTTemplateSpecialization;
 import org.eclipse.cdt.internal.core.dom.parser.ASTAmbiguousNode;
 import org.eclipse.cdt.internal.core.dom.parser.ASTQueries;
+import org.eclipse.cdt.internal.core.dom.parser.IASTDeferredFunctionBody;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPSemantics;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
 
@@ -55,9 +57,19 @@ public final class CPPASTAmbiguityResolver extends ASTVisitor {
 		shouldVisitDeclarations= true;
 		shouldVisitDeclSpecifiers= true;
 		shouldVisitInitializers= true;
+		shouldVisitStatements= true;
 		shouldVisitTranslationUnit= true;
 	}
 
+	/**
+	 * Resolves the ambiguities of the given node, which is part of an ast whose remaining
+	 * ambiguities have already been resolved.
+	 */
+	public void resolveAmbiguities(IASTNode node) {
+		node.accept(this);
+		processDeferredNodes();
+	}
+
 	@Override
 	public int visit(ASTAmbiguousNode astAmbiguousNode) {
 		IASTNode node= astAmbiguousNode.resolveAmbiguity(this);
@@ -176,25 +188,46 @@ public final class CPPASTAmbiguityResolver extends ASTVisitor {
 		return PROCESS_CONTINUE;
 	}
 
+	@Override
+	public int visit(IASTStatement statement) {
+		// Function bodies that have not been parsed are resolved when they are expanded.
+		if (statement instanceof IASTDeferredFunctionBody && !((IASTDeferredFunctionBody) statement).isExpanded())
+			return PROCESS_SKIP;
+		return PROCESS_CONTINUE;
+	}
+
 	@Override
 	public int leave(IASTTranslationUnit tu) {
+		processDeferredNodes();
+		return PROCESS_CONTINUE;
+	}
+
+	private void processDeferredNodes() {
 		while (!fDeferredNodes.isEmpty()) {
 			fDeferFunctions= 0;
 			fDeferredNodes.removeFirst().accept(this);
 		}
-		return PROCESS_CONTINUE;
 	}
 
 	private void repopulateScope(IASTDeclaration declaration) {
 		IScope scope= CPPVisitor.getContainingNonTemplateScope(declaration);
 		if (scope instanceof ICPPASTInternalScope) {
 			CPPSemantics.populateCache((ICPPASTInternalScope) scope, declaration);
+			clearLookupCache(declaration);
 		}
 	}
 	private void repopulateScope(IASTParameterDeclaration declaration) {
 		IScope scope= CPPVisitor.getContainingNonTemplateScope(declaration);
 		if (scope instanceof ICPPASTInternalScope) {
 			CPPSemantics.populateCache((ICPPASTInternalScope) scope, declaration);
+			clearLookupCache(declaration);
+		}
+	}
+	private void clearLookupCache(IASTNode node) {
+		// Instances computed with the previous content of the scope may no longer be valid.
+		IASTTranslationUnit tu= node.getTranslationUnit();
+		if (tu instanceof CPPASTTranslationUnit) {
+			((CPPASTTranslationUnit) tu).getLookupCache().clearInstances();
 		}
 	}
 }
@@ -32,6 +32,7 @@ import org.eclipse.cdt.internal.core.dom.Linkage;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.IASTAmbiguityParent;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.LookupCache;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 
@@ -42,6 +43,7 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
     private CPPNamespaceScope fScope = null;
     private ICPPNamespace fBinding = null;
 	private final CPPScopeMapper fScopeMapper= new CPPScopeMapper(this);
+	private LookupCache fLookupCache;
 	
 	public CPPASTTranslationUnit() {
 	}
@@ -177,6 +179,16 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 		fScopeMapper.handleAdditionalDirectives(scope);
 	}
 
+	/**
+	 * Returns the cache for results of name resolution in this AST.
+	 */
+	public LookupCache getLookupCache() {
+		if (fLookupCache == null) {
+			fLookupCache= new LookupCache(this);
+		}
+		return fLookupCache;
+	}
+
 	@Override
 	public void resolveAmbiguities() {
 		accept(new CPPASTAmbiguityResolver()); 
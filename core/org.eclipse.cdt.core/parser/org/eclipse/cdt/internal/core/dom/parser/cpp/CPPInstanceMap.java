@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+
+/**
+ * Maps template argument lists to instances. The printed form of an argument list serves as hash
+ * key, only. Argument lists are compared with {@link ICPPTemplateArgument#isSameValue}, because
+ * distinct types may print the same, e.g. local classes with the same name in different functions.
+ */
+public final class CPPInstanceMap<V> {
+	private static final class Entry<V> {
+		final ICPPTemplateArgument[] fArguments;
+		V fValue;
+		Entry<V> fNext;
+
+		Entry(ICPPTemplateArgument[] arguments, V value, Entry<V> next) {
+			fArguments= arguments;
+			fValue= value;
+			fNext= next;
+		}
+	}
+
+	private final LinkedHashMap<String, Entry<V>> fEntries= new LinkedHashMap<String, Entry<V>>(4);
+	private int fSize;
+
+	/**
+	 * Returns the value stored for the given arguments, or <code>null</code>.
+	 */
+	public V get(ICPPTemplateArgument[] arguments) {
+		for (Entry<V> e= fEntries.get(getKey(arguments)); e != null; e= e.fNext) {
+			if (isSameArguments(e.fArguments, arguments))
+				return e.fValue;
+		}
+		return null;
+	}
+
+	/**
+	 * Stores a value for the given arguments, replacing the value stored for the same arguments.
+	 */
+	public void put(ICPPTemplateArgument[] arguments, V value) {
+		final String key= getKey(arguments);
+		final Entry<V> first= fEntries.get(key);
+		for (Entry<V> e= first; e != null; e= e.fNext) {
+			if (isSameArguments(e.fArguments, arguments)) {
+				e.fValue= value;
+				return;
+			}
+		}
+		fEntries.put(key, new Entry<V>(arguments, value, first));
+		fSize++;
+	}
+
+	public int size() {
+		return fSize;
+	}
+
+	/**
+	 * Returns the stored values.
+	 */
+	public List<V> values() {
+		List<V> result= new ArrayList<V>(fSize);
+		for (Entry<V> first : fEntries.values()) {
+			for (Entry<V> e= first; e != null; e= e.fNext) {
+				result.add(e.fValue);
+			}
+		}
+		return result;
+	}
+
+	private static String getKey(ICPPTemplateArgument[] arguments) {
+		return ASTTypeUtil.getArgumentListString(arguments, true);
+	}
+
+	private static boolean isSameArguments(ICPPTemplateArgument[] args1, ICPPTemplateArgument[] args2) {
+		if (args1.length != args2.length)
+			return false;
+		for (int i = 0; i < args1.length; i++) {
+			if (!args1[i].isSameValue(args2[i]))
+				return false;
+		}
+		return true;
+	}
+}
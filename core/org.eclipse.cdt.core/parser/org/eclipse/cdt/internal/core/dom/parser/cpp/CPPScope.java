@@ -44,6 +44,7 @@ import org.eclipse.cdt.internal.core.dom.parser.ASTInternal;
 import org.eclipse.cdt.internal.core.dom.parser.ProblemBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPSemantics;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.LookupCache;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.LookupData;
 import org.eclipse.cdt.internal.core.parser.util.ContentAssistMatcherFactory;
 import org.eclipse.core.runtime.CoreException;
@@ -213,9 +214,19 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 					try {
 						IndexFilter filter = IndexFilter.CPP_DECLARED_OR_IMPLICIT_NO_INSTANCE;
 						final char[] nchars = name.getLookupKey();
-						IBinding[] bindings = prefixLookup ?
-								index.findBindingsForContentAssist(nchars, true, filter, null) :
-								index.findBindings(nchars, filter, null);
+						IBinding[] bindings;
+						if (prefixLookup) {
+							bindings= index.findBindingsForContentAssist(nchars, true, filter, null);
+						} else {
+							final LookupCache cache= getLookupCache(tu);
+							bindings= cache == null ? null : cache.getIndexBindings(this, nchars);
+							if (bindings == null) {
+								bindings= index.findBindings(nchars, filter, null);
+								if (cache != null) {
+									cache.putIndexBindings(this, nchars, bindings);
+								}
+							}
+						}
 						if (fileSet != null) {
 							bindings= fileSet.filterFileLocalBindings(bindings);
 						}
@@ -226,10 +237,20 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 				} else if (physicalNode instanceof ICPPASTNamespaceDefinition) {
 					ICPPASTNamespaceDefinition ns = (ICPPASTNamespaceDefinition) physicalNode;
 					try {
-						IIndexBinding binding = index.findBinding(ns.getName());
-						if (binding instanceof ICPPNamespace) {
-							ICPPNamespaceScope indexNs = ((ICPPNamespace)binding).getNamespaceScope();
-							IBinding[] bindings = indexNs.getBindings(name, resolve, prefixLookup);
+						final LookupCache cache= prefixLookup ? null : getLookupCache(tu);
+						final char[] nchars = name.getLookupKey();
+						IBinding[] bindings= cache == null ? null : cache.getIndexBindings(this, nchars);
+						if (bindings == null) {
+							IIndexBinding binding = index.findBinding(ns.getName());
+							if (binding instanceof ICPPNamespace) {
+								ICPPNamespaceScope indexNs = ((ICPPNamespace)binding).getNamespaceScope();
+								bindings = indexNs.getBindings(name, resolve, prefixLookup);
+							}
+							if (cache != null) {
+								cache.putIndexBindings(this, nchars, bindings);
+							}
+						}
+						if (bindings != null && bindings.length > 0) {
 							if (fileSet != null) {
 								bindings= fileSet.filterFileLocalBindings(bindings);
 							}
@@ -245,6 +266,13 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 		return (IBinding[]) ArrayUtil.trim(IBinding.class, result);
 	}
 
+	private static LookupCache getLookupCache(IASTTranslationUnit tu) {
+		if (tu instanceof CPPASTTranslationUnit) {
+			return ((CPPASTTranslationUnit) tu).getLookupCache();
+		}
+		return null;
+	}
+
 
 	public IBinding[] getBindingsInAST(IASTName name, boolean forceResolve, boolean prefixLookup, 
 			boolean checkPointOfDecl) {
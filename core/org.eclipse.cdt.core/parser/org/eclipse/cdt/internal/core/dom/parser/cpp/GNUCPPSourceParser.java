@@ -160,6 +160,7 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
     private final boolean supportAutoTypeSpecifier;
 
 	private final IIndex index;
+	private final ICPPParserExtensionConfiguration config;
     protected ICPPASTTranslationUnit translationUnit;
 
     private int functionBodyCount= 0;
@@ -192,10 +193,29 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
         functionCallCanBeLValue= true;
         supportAutoTypeSpecifier= true;
         this.index= index;
+        this.config= config;
         this.nodeFactory = CPPNodeFactory.getDefault();
         scanner.setSplitShiftROperator(true);
     }
 
+    @Override
+	protected IASTCompoundStatement createDeferredFunctionBody(IScanner tokens) {
+		return new CPPASTDeferredFunctionBody(tokens, config);
+	}
+
+	/**
+	 * Parses a deferred function body of the given translation unit from the tokens provided
+	 * by the scanner.
+	 */
+	IASTCompoundStatement parseDeferredFunctionBody(ICPPASTTranslationUnit tu) {
+		translationUnit= tu;
+		try {
+			return deferredFunctionBody();
+		} finally {
+			translationUnit= null;
+		}
+	}
+
     @Override
 	protected IASTName identifier() throws EndOfFileException, BacktrackException {
     	switch (LT(1)) {
@@ -1232,7 +1232,20 @@ public class CPPSemantics {
 					}
 				}
 			}
-		} else { 
+		} else if (scope instanceof IIndexScope && scope instanceof ICPPNamespaceScope && data.tu != null
+				&& !data.prefixLookup) {
+			// For index scopes the point of declaration is ignored, the result for a namespace
+			// depends on the name, only.
+			final LookupCache cache= data.tu.getLookupCache();
+			final char[] key= data.astName.getLookupKey();
+			IBinding[] cached= cache.getIndexBindings(scope, key);
+			if (cached == null) {
+				cached= scope.getBindings(data.astName, true, false, fileSet);
+				cache.putIndexBindings(scope, key, cached);
+			}
+			// The caller may modify the array.
+			bindings= cached == null ? null : cached.clone();
+		} else {
 			// For index scopes the point of declaration is ignored.
 			bindings= scope.getBindings(data.astName, true, data.prefixLookup, fileSet);
 		}
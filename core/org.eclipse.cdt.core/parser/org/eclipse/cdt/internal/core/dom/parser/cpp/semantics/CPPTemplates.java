@@ -35,6 +35,7 @@ import org.eclipse.cdt.core.dom.ast.IASTInitializerClause;
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IASTTypeId;
 import org.eclipse.cdt.core.dom.ast.IArrayType;
 import org.eclipse.cdt.core.dom.ast.IBinding;
@@ -99,6 +100,7 @@ import org.eclipse.cdt.internal.core.dom.parser.ProblemBinding;
 import org.eclipse.cdt.internal.core.dom.parser.ProblemType;
 import org.eclipse.cdt.internal.core.dom.parser.Value;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTName;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPArrayType;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPClassInstance;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPClassSpecialization;
@@ -667,7 +669,13 @@ public class CPPTemplates {
 
 			final ICPPClassTemplate classTemplate = (ICPPClassTemplate) template;
 			ICPPTemplateArgument[] args= createTemplateArgumentArray(id);
-			if (hasDependentArgument(args)) {
+			final LookupCache cache= getLookupCache(id);
+			if (cache != null && (isDecl || isDef)) {
+				// A specialization may change the instance selected for an argument list.
+				cache.clearInstances();
+			}
+			final boolean isDependent= hasDependentArgument(args);
+			if (isDependent) {
 				ICPPASTTemplateDeclaration tdecl= getTemplateDeclaration(id);
 				if (tdecl != null) {
 					if (argsAreTrivial(classTemplate.getTemplateParameters(), args)) {
@@ -689,7 +697,17 @@ public class CPPTemplates {
 				}
 			}
 			if (result == null) {
+				final boolean useCache= cache != null && !isDecl && !isDef && !isDependent;
+				if (useCache) {
+					result= cache.getInstance(classTemplate, args);
+					if (result != null) {
+						return CPPSemantics.postResolution(result, id);
+					}
+				}
 				result= instantiate(classTemplate, args, isDef);
+				if (useCache && !(result instanceof IProblemBinding)) {
+					cache.putInstance(classTemplate, args, result);
+				}
 				if (result instanceof ICPPInternalBinding) {
 					if (isDecl) {
 						ASTInternal.addDeclaration(result, id);
@@ -704,6 +722,14 @@ public class CPPTemplates {
 		}
 	}
 
+	private static LookupCache getLookupCache(IASTNode node) {
+		IASTTranslationUnit tu= node.getTranslationUnit();
+		if (tu instanceof CPPASTTranslationUnit) {
+			return ((CPPASTTranslationUnit) tu).getLookupCache();
+		}
+		return null;
+	}
+
 	static boolean isClassTemplate(ICPPASTTemplateId id) {
 		IASTNode parentOfName = id.getParent();
 
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp.semantics;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassTemplate;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.parser.util.CharArrayObjectMap;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
+
+/**
+ * Memoizes results of name resolution for a single AST.
+ * <p>
+ * Lookups in the index do not depend on the point of declaration of the name being resolved,
+ * their results are stored per scope and name. They are discarded when the index is written to.
+ * <p>
+ * Class template instances requested by template-ids are stored per template and argument list,
+ * such that the selection of partial specializations is not repeated for every template-id.
+ * Argument lists are compared by the identity of their types and values, see {@link CPPInstanceMap}.
+ * They are discarded when a specialization is declared or when ambiguity resolution changes the
+ * declarations of a scope.
+ */
+public final class LookupCache {
+	private static final AtomicLong fgLookupHits= new AtomicLong();
+	private static final AtomicLong fgLookupMisses= new AtomicLong();
+	private static final AtomicLong fgInstanceHits= new AtomicLong();
+	private static final AtomicLong fgInstanceMisses= new AtomicLong();
+
+	private final IASTTranslationUnit fTranslationUnit;
+	private long fLastWriteAccess;
+	private HashMap<Object, CharArrayObjectMap> fIndexBindings;
+	private HashMap<ICPPClassTemplate, CPPInstanceMap<IBinding>> fInstances;
+
+	public LookupCache(IASTTranslationUnit tu) {
+		fTranslationUnit= tu;
+	}
+
+	/**
+	 * Returns the bindings found in the index for the given scope and name, or <code>null</code>
+	 * if the lookup has not been performed, yet. The returned array must not be modified.
+	 * @param scope the scope the lookup is performed for.
+	 */
+	public IBinding[] getIndexBindings(Object scope, char[] name) {
+		validateIndexBindings();
+		if (fIndexBindings != null) {
+			CharArrayObjectMap map= fIndexBindings.get(scope);
+			if (map != null) {
+				IBinding[] result= (IBinding[]) map.get(name);
+				if (result != null) {
+					fgLookupHits.incrementAndGet();
+					return result;
+				}
+			}
+		}
+		fgLookupMisses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores the bindings found in the index for the given scope and name.
+	 */
+	public void putIndexBindings(Object scope, char[] name, IBinding[] bindings) {
+		validateIndexBindings();
+		if (fIndexBindings == null) {
+			fIndexBindings= new HashMap<Object, CharArrayObjectMap>();
+		}
+		CharArrayObjectMap map= fIndexBindings.get(scope);
+		if (map == null) {
+			map= new CharArrayObjectMap(8);
+			fIndexBindings.put(scope, map);
+		}
+		map.put(name, bindings == null ? IBinding.EMPTY_BINDING_ARRAY : bindings);
+	}
+
+	/**
+	 * Returns the binding previously computed for the instance of the given template with the
+	 * given arguments, or <code>null</code>.
+	 */
+	public IBinding getInstance(ICPPClassTemplate template, ICPPTemplateArgument[] args) {
+		if (fInstances != null) {
+			CPPInstanceMap<IBinding> instances= fInstances.get(template);
+			IBinding result= instances == null ? null : instances.get(args);
+			if (result != null) {
+				fgInstanceHits.incrementAndGet();
+				return result;
+			}
+		}
+		fgInstanceMisses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores the binding computed for the instance of the given template with the given arguments.
+	 */
+	public void putInstance(ICPPClassTemplate template, ICPPTemplateArgument[] args, IBinding instance) {
+		if (fInstances == null) {
+			fInstances= new HashMap<ICPPClassTemplate, CPPInstanceMap<IBinding>>();
+		}
+		CPPInstanceMap<IBinding> instances= fInstances.get(template);
+		if (instances == null) {
+			instances= new CPPInstanceMap<IBinding>();
+			fInstances.put(template, instances);
+		}
+		instances.put(args, instance);
+	}
+
+	/**
+	 * Discards the stored instances, needs to be called when the declarations of the AST change.
+	 */
+	public void clearInstances() {
+		fInstances= null;
+	}
+
+	private void validateIndexBindings() {
+		final IIndex index= fTranslationUnit.getIndex();
+		final long lastWriteAccess= index == null ? 0 : index.getLastWriteAccess();
+		if (lastWriteAccess != fLastWriteAccess) {
+			fLastWriteAccess= lastWriteAccess;
+			fIndexBindings= null;
+		}
+	}
+
+	/**
+	 * Returns the number of index lookups that were served from the caches of all ASTs.
+	 */
+	public static long getLookupHitCount() {
+		return fgLookupHits.get();
+	}
+
+	/**
+	 * Returns the number of index lookups that had to be performed.
+	 */
+	public static long getLookupMissCount() {
+		return fgLookupMisses.get();
+	}
+
+	/**
+	 * Returns the number of class template instances that were served from the caches of all ASTs.
+	 */
+	public static long getInstanceHitCount() {
+		return fgInstanceHits.get();
+	}
+
+	/**
+	 * Returns the number of class template instances that had to be computed.
+	 */
+	public static long getInstanceMissCount() {
+		return fgInstanceMisses.get();
+	}
+}
@@ -73,6 +73,13 @@ public class CIndex implements IIndex {
 		this(fragments, fragments.length);
 	}
 
+	/**
+	 * Creates an index on the same fragments, with a read lock of its own.
+	 */
+	CIndex createIndexOnSameFragments() {
+		return new CIndex(fFragments, fPrimaryFragmentCount);
+	}
+
 	public IIndexBinding findBinding(IName name) throws CoreException {
 		if (name instanceof IIndexFragmentName) {
 			return adaptBinding(((IIndexFragmentName) name).getBinding());
@@ -348,6 +355,31 @@ public class CIndex implements IIndex {
 		}
 	}
 
+	public synchronized boolean tryAcquireReadLock(long timeoutMillis) throws InterruptedException {
+		if (++fReadLock == 1) {
+			final long deadline= System.currentTimeMillis() + timeoutMillis;
+			int i= 0;
+			try {
+				for (i = 0; i < fFragments.length; i++) {
+					final long remaining= Math.max(0, deadline - System.currentTimeMillis());
+					if (!fFragments[i].tryAcquireReadLock(remaining)) {
+						break;
+					}
+				}
+			} finally {
+				if (i < fFragments.length) {
+					// rollback
+					fReadLock--;
+					while (--i >= 0) {
+						fFragments[i].releaseReadLock();
+					}
+				}
+			}
+			return fReadLock > 0;
+		}
+		return true;
+	}
+
 	public synchronized void releaseReadLock() {
 		if (--fReadLock == 0) {
 			for (IIndexFragment fragment : fFragments) {
@@ -660,6 +692,14 @@ public class CIndex implements IIndex {
 		return result;
 	}
 
+	public long getCacheEvictions() {
+		long result= 0;
+		for (IIndexFragment fragment : fFragments) {
+			result += fragment.getCacheEvictions();
+		}
+		return result;
+	}
+
 	public void resetCacheCounters() {
 		for (IIndexFragment fragment : fFragments) {
 			fragment.resetCacheCounters();
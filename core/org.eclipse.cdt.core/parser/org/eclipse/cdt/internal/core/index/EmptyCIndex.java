@@ -85,6 +85,10 @@ final public class EmptyCIndex implements IIndex {
 	public void acquireReadLock() {
 	}
 
+	public boolean tryAcquireReadLock(long timeoutMillis) {
+		return true;
+	}
+
 	public void releaseReadLock() {
 	}
 
@@ -194,6 +194,13 @@ public interface IIndexFragment {
 	 */
 	void acquireReadLock() throws InterruptedException;
 
+	/**
+	 * Acquires a read lock, unless it cannot be obtained within the given time.
+	 * @return whether the lock was acquired.
+	 * @throws InterruptedException
+	 */
+	boolean tryAcquireReadLock(long timeoutMillis) throws InterruptedException;
+
 	/**
 	 * Releases a read lock.
 	 */
@@ -271,6 +278,11 @@ public interface IIndexFragment {
 	 */
 	long getCacheMisses();
 
+	/**
+	 * Returns the number of evictions from the cache since last reset of counters.
+	 */
+	long getCacheEvictions();
+
 	/**
 	 * Creates an empty file set for this fragment
 	 * @since 5.0
@@ -33,6 +33,24 @@ public interface IIndexFragmentFile extends IIndexFile {
 	 */
 	void setContentsHash(long hash) throws CoreException;
 
+	/**
+	 * Returns the macro guarding the file, or <code>null</code> if the file is not guarded by
+	 * a macro.
+	 */
+	char[] getIncludeGuard() throws CoreException;
+
+	/**
+	 * Returns whether the file is protected by <code>#pragma once</code>.
+	 */
+	boolean hasPragmaOnce() throws CoreException;
+
+	/**
+	 * Sets the include guard of the file.
+	 * @param guard the macro guarding the file, or <code>null</code>.
+	 * @param pragmaOnce whether the file is protected by <code>#pragma once</code>.
+	 */
+	void setIncludeGuard(char[] guard, boolean pragmaOnce) throws CoreException;
+
 	/**
 	 * Sets the hash-code of the scanner configuration.
 	 * @param hashcode a hash-code or <code>0</code> if it is unknown.
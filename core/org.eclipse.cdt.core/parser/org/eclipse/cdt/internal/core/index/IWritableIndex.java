@@ -39,6 +39,13 @@ public interface IWritableIndex extends IIndex {
 		public boolean fIsContext= false;
 	}
 	
+	/**
+	 * Creates an index on the fragments of this index, for a thread that reads the index
+	 * while another thread writes to it. The returned index has a read lock of its own, the
+	 * writer has to wait while it is held.
+	 */
+	IIndex createReaderIndex();
+
 	/**
 	 * Checks whether the given file can be written to in this index.
 	 */
@@ -71,12 +78,15 @@ public interface IWritableIndex extends IIndex {
 
 	/**
 	 * Creates a uncommitted file object for the given location.
+	 * @param includes the includes of the file, they determine whether the file can be stored
+	 *     in the header cache.
 	 */
-	IIndexFragmentFile addUncommittedFile(int linkageID, IIndexFileLocation location) throws CoreException;
+	IIndexFragmentFile addUncommittedFile(int linkageID, IIndexFileLocation location,
+			IncludeInformation[] includes) throws CoreException;
 
 	/**
 	 * Makes an uncommitted file that was created earlier by calling
-	 * {@link #addUncommittedFile(int, IIndexFileLocation)} method visible in the index.
+	 * {@link #addUncommittedFile(int, IIndexFileLocation, IncludeInformation[])} method visible in the index.
 	 *
 	 * @return The file that was updated.
 	 * @throws CoreException
@@ -98,6 +108,25 @@ public interface IWritableIndex extends IIndex {
 			IASTPreprocessorStatement[] macros, IASTName[][] names,
 			ASTFilePathResolver resolver, YieldableIndexLock lock) throws CoreException, InterruptedException;
 
+	/**
+	 * Checks whether the given file is stored in the shared header cache.
+	 */
+	boolean isHeaderCacheFile(IIndexFile file);
+
+	/**
+	 * Sets the signature of the configuration the files added next have been parsed with. It
+	 * selects the partition of the shared header cache receiving the files and is part of their
+	 * keys in the cache.
+	 */
+	void setConfigurationSignature(int signature);
+
+	/**
+	 * Returns whether the content of the given file may be stored in this index. While the
+	 * shards of a sharded index are rebuilt in parallel, the index of each shard claims the
+	 * files it stores, such that the content of a file is stored in one shard, only.
+	 */
+	boolean claimFile(IIndexFileLocation location);
+
 	/**
 	 * Clears the entire index.
 	 */
@@ -136,6 +165,11 @@ public interface IWritableIndex extends IIndex {
 	 */
 	long getCacheMisses();
 
+	/**
+	 * Returns the number of evictions from the cache since last reset of counters.
+	 */
+	long getCacheEvictions();
+
 	/**
 	 * Returns the primary writable fragment, or <code>null</code> if there is 
 	 * no writable fragment.
@@ -147,6 +181,12 @@ public interface IWritableIndex extends IIndex {
 	 */
 	void flush() throws CoreException;
 
+	/**
+	 * Starts or ends building the writable fragments in bulk, caller needs to hold a write-lock.
+	 * @see IWritableIndexFragment#setBulkBuild(boolean)
+	 */
+	void setBulkBuild(boolean bulk) throws CoreException;
+
 	/**
 	 * Returns the size of the database in bytes.
 	 */
@@ -108,6 +108,13 @@ public interface IWritableIndexFragment extends IIndexFragment {
 	 */
 	void flush() throws CoreException;
 
+	/**
+	 * Starts or ends building the fragment in bulk, which is more efficient when a cleared
+	 * fragment is filled. Ending the bulk build completes the fragment's indexes.
+	 * Caller needs to hold a write lock.
+	 */
+	void setBulkBuild(boolean bulk) throws CoreException;
+
 	/**
 	 * @return the size of the database in bytes
 	 */
@@ -28,6 +28,7 @@ import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.core.index.IIndexInclude;
 import org.eclipse.cdt.core.index.IIndexMacro;
 import org.eclipse.cdt.core.parser.IncludeFileContentProvider;
+import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent.InclusionKind;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
@@ -53,6 +54,7 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 	private final AbstractIndexerTask fRelatedIndexerTask;
 	private boolean fSupportFillGapFromContextToHeader= false;
 	private long fFileSizeLimit= 0;
+	private int fConfigSignature;
 	
 	public IndexBasedFileContentProvider(IIndex index,
 			ASTFilePathResolver pathResolver, int linkage, IncludeFileContentProvider fallbackFactory) {
@@ -76,6 +78,14 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 		fFileSizeLimit= limit;
 	}
 
+	/**
+	 * Sets the signature of the configuration of the translation unit parsed next, it is used
+	 * to check whether headers from the header cache can be used.
+	 */
+	public void setConfigurationSignature(int signature) {
+		fConfigSignature= signature;
+	}
+
 	public void setLinkage(int linkageID) {
 		fLinkage= linkageID;
 	}
@@ -101,6 +111,21 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 		return fIncludedFiles.contains(ifl);
 	}
 	
+	@Override
+	public char[] getIncludeGuard(String path) {
+		IIndexFileLocation ifl= fPathResolver.resolveASTPath(path);
+		try {
+			IIndexFile file= fIndex.getFile(fLinkage, ifl);
+			if (file instanceof IIndexFragmentFile) {
+				IIndexFragmentFile fragmentFile= (IIndexFragmentFile) file;
+				return fragmentFile.hasPragmaOnce() ? CPreprocessor.PRAGMA_ONCE : fragmentFile.getIncludeGuard();
+			}
+		} catch (CoreException e) {
+			CCorePlugin.log(e);
+		}
+		return null;
+	}
+
 	@Override
 	public InternalFileContent getContentForInclusion(String path) {
 		IIndexFileLocation ifl= fPathResolver.resolveIncludeFile(path);
@@ -164,7 +189,7 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 		}
 		IndexFileContent content;
 		if (fRelatedIndexerTask != null) {
-			content= fRelatedIndexerTask.getFileContent(fLinkage, ifl);
+			content= fRelatedIndexerTask.getFileContent(fLinkage, ifl, fConfigSignature);
 			if (content == null) {
 				throw new NeedToParseException();
 			}
@@ -65,6 +65,12 @@ public class IndexFactory {
 			IIndexFragment pdom= fPDOMManager.getPDOM(cproject);
 			if (pdom != null) {
 				safeAddFragment(fragments, pdom);
+				for (IIndexFragment shard : fPDOMManager.getPDOMShards(cproject)) {
+					safeAddFragment(fragments, shard);
+				}
+				for (IIndexFragment headerCache : fPDOMManager.getHeaderCaches(cproject).values()) {
+					safeAddFragment(fragments, headerCache);
+				}
 
 				if (!skipProvided) {
 					safeAddProvidedFragments(cproject, fragments);
@@ -85,6 +91,12 @@ public class IndexFactory {
 			for (ICProject cproject : selectedProjects) {
 				IIndexFragment pdom= fPDOMManager.getPDOM(cproject);
 				safeAddFragment(fragments, pdom);
+				for (IIndexFragment shard : fPDOMManager.getPDOMShards(cproject)) {
+					safeAddFragment(fragments, shard);
+				}
+				for (IIndexFragment headerCache : fPDOMManager.getHeaderCaches(cproject).values()) {
+					safeAddFragment(fragments, headerCache);
+				}
 
 				if (!skipProvided) {
 					safeAddProvidedFragments(cproject, fragments);
@@ -97,6 +109,15 @@ public class IndexFactory {
 	}
 
 	public IWritableIndex getWritableIndex(ICProject project) throws CoreException {
+		return getWritableIndex(project, -1);
+	}
+
+	/**
+	 * Returns an index writing the given shard of the project's index, or all of its shards
+	 * if <code>shardIndex</code> is negative.
+	 * @see WritableCIndex#WritableCIndex(IWritableIndexFragment, IndexShardLayout, int, IIndexFragment[])
+	 */
+	public IWritableIndex getWritableIndex(ICProject project, int shardIndex) throws CoreException {
 		Map<String, IIndexFragment> readOnlyFrag= new LinkedHashMap<String, IIndexFragment>();
 		IWritableIndexFragment pdom= (IWritableIndexFragment) fPDOMManager.getPDOM(project);
 		if (pdom == null) {
@@ -104,6 +125,7 @@ public class IndexFactory {
 					NLS.bind(Messages.IndexFactory_errorNoSuchPDOM0, project.getElementName())));
 		}
 		safeAddProvidedFragments(project, readOnlyFrag);
+		Map<Integer, IWritableIndexFragment> headerCaches= fPDOMManager.getHeaderCaches(project);
 
 		Collection<ICProject> selectedProjects= getProjects(new ICProject[] {project}, true, false,
 				new HashMap<IProject, Integer>(), new Integer(1));
@@ -111,10 +133,37 @@ public class IndexFactory {
 
 		for (ICProject cproject : selectedProjects) {
 			safeAddFragment(readOnlyFrag, fPDOMManager.getPDOM(cproject));
+			for (IIndexFragment shard : fPDOMManager.getPDOMShards(cproject)) {
+				safeAddFragment(readOnlyFrag, shard);
+			}
+			// Partitions of the header cache shared with the project are written by the index.
+			for (Map.Entry<Integer, IWritableIndexFragment> entry : fPDOMManager.getHeaderCaches(cproject).entrySet()) {
+				if (!headerCaches.containsKey(entry.getKey())) {
+					safeAddFragment(readOnlyFrag, entry.getValue());
+				}
+			}
 		}
 
 		Collection<IIndexFragment> readOnlyFragments= readOnlyFrag.values();
-		return new WritableCIndex(pdom, readOnlyFragments.toArray(new IIndexFragment[readOnlyFragments.size()]));
+		IIndexFragment[] readOnly= readOnlyFragments.toArray(new IIndexFragment[readOnlyFragments.size()]);
+		IWritableIndexFragment[] shards= fPDOMManager.getPDOMShards(project);
+		IndexShardLayout layout= fPDOMManager.getShardLayout(project);
+		if (shards.length == 0 || layout == null) {
+			if (shardIndex > 0) {
+				throw new CoreException(CCorePlugin.createStatus(
+						NLS.bind(Messages.IndexFactory_errorNoSuchPDOM0, project.getElementName())));
+			}
+			return new WritableCIndex(new IWritableIndexFragment[] {pdom}, null, headerCaches, readOnly);
+		}
+		IWritableIndexFragment[] writables= new IWritableIndexFragment[shards.length + 1];
+		writables[0]= pdom;
+		System.arraycopy(shards, 0, writables, 1, shards.length);
+		if (shardIndex >= 0) {
+			// Neither the other shards nor the header cache are part of the index, such that the
+			// indexes of the shards can be written in parallel.
+			return new WritableCIndex(writables[shardIndex], layout, shardIndex, readOnly);
+		}
+		return new WritableCIndex(writables, layout, headerCaches, readOnly);
 	}
 
 	private Collection<ICProject> getProjects(ICProject[] projects, boolean addDependencies,
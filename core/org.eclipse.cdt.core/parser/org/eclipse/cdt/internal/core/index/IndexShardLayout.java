@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.index;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Assigns files to the shards of a sharded index. The content of a file stays in the shard that
+ * holds it, which is looked up in a map from the locations to the shards. New files below one of
+ * the root folders are stored in the shard of the innermost such root, all other new files in the
+ * primary shard <code>0</code>.
+ */
+public final class IndexShardLayout {
+	private final String[] fRoots;
+	private final ConcurrentHashMap<IIndexFileLocation, Integer> fContentShards=
+			new ConcurrentHashMap<IIndexFileLocation, Integer>();
+
+	/**
+	 * @param roots workspace paths of the root folders of the shards <code>1</code> to
+	 * <code>roots.length</code>.
+	 */
+	public IndexShardLayout(IPath[] roots) {
+		fRoots= new String[roots.length];
+		for (int i = 0; i < roots.length; i++) {
+			fRoots[i]= roots[i].addTrailingSeparator().toString();
+		}
+	}
+
+	/**
+	 * Returns the number of shards including the primary one.
+	 */
+	public int getShardCount() {
+		return fRoots.length + 1;
+	}
+
+	/**
+	 * Returns the shard that holds or receives the content of the given file.
+	 */
+	public int getShard(IIndexFileLocation location) {
+		final Integer shard= fContentShards.get(location);
+		return shard != null ? shard : getRootShard(location);
+	}
+
+	/**
+	 * Returns the shard of the innermost root folder containing the given file.
+	 */
+	public int getRootShard(IIndexFileLocation location) {
+		final String path= location.getFullPath();
+		int result= 0;
+		if (path != null) {
+			int length= 0;
+			for (int i = 0; i < fRoots.length; i++) {
+				final String root= fRoots[i];
+				if (root.length() > length && path.startsWith(root)) {
+					result= i + 1;
+					length= root.length();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Records that the given shard holds the content of the file.
+	 */
+	public void setContentShard(IIndexFileLocation location, int shard) {
+		fContentShards.put(location, shard);
+	}
+
+	/**
+	 * Claims the given file for the given shard, unless another shard already holds or claimed
+	 * its content. Used when the shards are rebuilt in parallel, such that the content of each
+	 * file is stored once.
+	 * @return whether the shard may store the content of the file.
+	 */
+	public boolean claim(IIndexFileLocation location, int shard) {
+		final Integer previous= fContentShards.putIfAbsent(location, shard);
+		return previous == null || previous == shard;
+	}
+
+	/**
+	 * Forgets the shards of all files, to be called when the shards are cleared.
+	 */
+	public void clearContentShards() {
+		fContentShards.clear();
+	}
+
+	/**
+	 * Records the files with content of the given shard, the caller needs to hold a lock on it.
+	 */
+	public void readContentShards(IIndexFragment fragment, int shard) throws CoreException {
+		for (IIndexFragmentFile file : fragment.getAllFiles()) {
+			if (file.hasContent()) {
+				fContentShards.put(file.getLocation(), shard);
+			}
+		}
+	}
+}
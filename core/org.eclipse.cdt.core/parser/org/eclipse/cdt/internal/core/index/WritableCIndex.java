@@ -13,82 +13,282 @@
 package org.eclipse.cdt.internal.core.index;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorStatement;
+import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexFile;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.internal.core.pdom.ASTFilePathResolver;
+import org.eclipse.cdt.internal.core.pdom.PDOMHeaderCache;
 import org.eclipse.cdt.internal.core.pdom.YieldableIndexLock;
 import org.eclipse.core.runtime.CoreException;
 
 public class WritableCIndex extends CIndex implements IWritableIndex {
+	private static final Map<Integer, IWritableIndexFragment> NO_HEADER_CACHES= Collections.emptyMap();
+
 	final private IWritableIndexFragment fWritableFragment;
+	final private IWritableIndexFragment[] fWritableFragments;
+	final private IndexShardLayout fShardLayout;
+	final private Map<Integer, IWritableIndexFragment> fHeaderCaches;
+	final private IWritableIndexFragment[] fLockedFragments;
+	final private IndexShardLayout fClaimLayout;
+	final private int fClaimShard;
+	private IWritableIndexFragment fUncommittedFragment;
+	private IIndexFragmentFile fUncommittedFile;
+	private long fUncommittedContentsHash;
+	private int fUncommittedKey;
+	private int fConfigSignature;
 	private boolean fIsWriteLocked= false;
 	private Object fThread;
 
 	public WritableCIndex(IWritableIndexFragment writable, IIndexFragment[] readonly) {
-		super(concat(writable, readonly));
-		fWritableFragment= writable;
+		this(new IWritableIndexFragment[] {writable}, null, null, readonly);
+	}
+
+	/**
+	 * Creates an index that stores the files in multiple writable fragments (shards). The
+	 * content of a file stays in the shard that already contains the file, the shard for new
+	 * files is determined by the layout.
+	 * @param writables the shards, the first one is the primary fragment of the index.
+	 * @param layout the layout of the shards, or <code>null</code> for a single writable fragment.
+	 * @param headerCaches the partitions of the shared header cache receiving the content of
+	 * headers outside of the workspace by the signatures of their configurations, or
+	 * <code>null</code>.
+	 * @param readonly additional fragments that are not modified.
+	 */
+	public WritableCIndex(IWritableIndexFragment[] writables, IndexShardLayout layout,
+			Map<Integer, IWritableIndexFragment> headerCaches, IIndexFragment[] readonly) {
+		this(writables, layout, headerCaches, readonly, null, 0);
+	}
+
+	/**
+	 * Creates an index that writes a single shard of a sharded index, while the shards are
+	 * rebuilt in parallel. The other shards are not part of the index, such that the indexes
+	 * of the shards do not lock each other out. The content of a file is stored in the shard
+	 * that claims it first, see {@link #claimFile(IIndexFileLocation)}.
+	 * @param shard the shard to write.
+	 * @param layout the layout of the sharded index.
+	 * @param shardIndex the index of the shard in the layout.
+	 * @param readonly additional fragments that are not modified.
+	 */
+	public WritableCIndex(IWritableIndexFragment shard, IndexShardLayout layout, int shardIndex,
+			IIndexFragment[] readonly) {
+		this(new IWritableIndexFragment[] {shard}, null, null, readonly, layout, shardIndex);
+	}
+
+	private WritableCIndex(IWritableIndexFragment[] writables, IndexShardLayout layout,
+			Map<Integer, IWritableIndexFragment> headerCaches, IIndexFragment[] readonly,
+			IndexShardLayout claimLayout, int claimShard) {
+		super(concat(concat(writables, headerCaches), readonly));
+		assert layout == null ? writables.length == 1 : writables.length == layout.getShardCount();
+		fWritableFragment= writables[0];
+		fWritableFragments= writables;
+		fShardLayout= layout;
+		fHeaderCaches= headerCaches != null ? headerCaches : NO_HEADER_CACHES;
+		fLockedFragments= concat(writables, headerCaches);
+		fClaimLayout= claimLayout;
+		fClaimShard= claimShard;
 	}
 
-	private static IIndexFragment[] concat(IIndexFragment writable, IIndexFragment[] readonly) {
-		IIndexFragment[] result= new IIndexFragment[1 + readonly.length];
-		result[0]= writable;
-		System.arraycopy(readonly, 0, result, 1, readonly.length);
+	private static IIndexFragment[] concat(IIndexFragment[] writables, IIndexFragment[] readonly) {
+		IIndexFragment[] result= new IIndexFragment[writables.length + readonly.length];
+		System.arraycopy(writables, 0, result, 0, writables.length);
+		System.arraycopy(readonly, 0, result, writables.length, readonly.length);
 		return result;
 	}
 
+	private static IWritableIndexFragment[] concat(IWritableIndexFragment[] writables,
+			Map<Integer, IWritableIndexFragment> fragments) {
+		if (fragments == null || fragments.isEmpty())
+			return writables;
+		IWritableIndexFragment[] result= new IWritableIndexFragment[writables.length + fragments.size()];
+		System.arraycopy(writables, 0, result, 0, writables.length);
+		int i= writables.length;
+		for (IWritableIndexFragment fragment : fragments.values()) {
+			result[i++]= fragment;
+		}
+		return result;
+	}
+
+	public IIndex createReaderIndex() {
+		return createIndexOnSameFragments();
+	}
+
 	public IWritableIndexFragment getWritableFragment() {
 		return fWritableFragment;
 	}
+
+	/**
+	 * Returns the shards of the index, the first one is the primary fragment.
+	 */
+	public IWritableIndexFragment[] getWritableFragments() {
+		return fWritableFragments;
+	}
+
+	/**
+	 * Returns the shard that holds or receives the content of the given file. Other shards may
+	 * contain files without content for the same location, these serve as targets of includes.
+	 */
+	private IWritableIndexFragment getFragmentFor(IIndexFileLocation location) {
+		if (fShardLayout == null)
+			return fWritableFragment;
+		return fWritableFragments[fShardLayout.getShard(location)];
+	}
+
+	public boolean claimFile(IIndexFileLocation location) {
+		return fClaimLayout == null || fClaimLayout.claim(location, fClaimShard);
+	}
 	
 	public IIndexFragmentFile getWritableFile(int linkageID, IIndexFileLocation location) throws CoreException {
-		return fWritableFragment.getFile(linkageID, location);
+		return getFragmentFor(location).getFile(linkageID, location);
 	}
 	
 	public IIndexFragmentFile[] getWritableFiles(IIndexFileLocation location) throws CoreException {
-		return fWritableFragment.getFiles(location);
+		return getFragmentFor(location).getFiles(location);
 	}
 
 	public IIndexFragmentFile addFile(int linkageID, IIndexFileLocation location) throws CoreException {
-		return fWritableFragment.addFile(linkageID, location);
+		return getFragmentFor(location).addFile(linkageID, location);
+	}
+
+	/**
+	 * Returns the fragment that receives new content for the given file. Headers outside of the
+	 * workspace are stored in the partition of the header cache for the current configuration,
+	 * unless the index already holds content for them, or the header includes a file whose
+	 * content is not in the same partition.
+	 */
+	private IWritableIndexFragment getTargetFragment(int linkageID, IIndexFileLocation location,
+			IncludeInformation[] includes) throws CoreException {
+		final IWritableIndexFragment fragment= getFragmentFor(location);
+		final IWritableIndexFragment headerCache= fHeaderCaches.get(fConfigSignature);
+		if (headerCache == null || !PDOMHeaderCache.canStore(location))
+			return fragment;
+
+		for (IncludeInformation include : includes) {
+			if (include.fLocation != null && !PDOMHeaderCache.canStore(include.fLocation))
+				return fragment;
+		}
+
+		IIndexFragmentFile file= fragment.getFile(linkageID, location);
+		if (file != null && file.hasContent())
+			return fragment;
+
+		// The included headers have been stored before the header itself.
+		int key= fConfigSignature;
+		for (IncludeInformation include : includes) {
+			if (include.fLocation != null && (include.fStatement == null || include.fStatement.isActive())) {
+				IIndexFragmentFile target= headerCache.getFile(linkageID, include.fLocation);
+				if (target == null || !target.hasContent())
+					return fragment;
+				key= PDOMHeaderCache.addToKey(key, target);
+			}
+		}
+
+		final long hash= PDOMHeaderCache.computeContentsHash(location);
+		if (hash == 0)
+			return fragment;
+
+		fUncommittedContentsHash= hash;
+		fUncommittedKey= key;
+		return headerCache;
 	}
 
-	public IIndexFragmentFile addUncommittedFile(int linkageID, IIndexFileLocation location) throws CoreException {
-		return fWritableFragment.addUncommittedFile(linkageID, location);
+	public IIndexFragmentFile addUncommittedFile(int linkageID, IIndexFileLocation location,
+			IncludeInformation[] includes) throws CoreException {
+		fUncommittedFragment= getTargetFragment(linkageID, location, includes);
+		fUncommittedFile= fUncommittedFragment.addUncommittedFile(linkageID, location);
+		return fUncommittedFile;
 	}
 
 	public IIndexFragmentFile commitUncommittedFile() throws CoreException {
-		return fWritableFragment.commitUncommittedFile();
+		if (fUncommittedFragment == null)
+			return null;
+		try {
+			final boolean isHeaderCache= isHeaderCache(fUncommittedFragment);
+			if (isHeaderCache) {
+				// The entries of the cache are keyed by the content of the header itself, the
+				// configuration it has been parsed with and the entries of its includes.
+				fUncommittedFile.setContentsHash(fUncommittedContentsHash);
+				fUncommittedFile.setScannerConfigurationHashcode(fUncommittedKey);
+			}
+			final IIndexFragmentFile file= fUncommittedFragment.commitUncommittedFile();
+			if (file != null && fShardLayout != null && !isHeaderCache) {
+				for (int i = 0; i < fWritableFragments.length; i++) {
+					if (fWritableFragments[i] == fUncommittedFragment) {
+						fShardLayout.setContentShard(file.getLocation(), i);
+					}
+				}
+			}
+			return file;
+		} finally {
+			fUncommittedFragment= null;
+			fUncommittedFile= null;
+		}
 	}
 
 	public void clearUncommittedFile() throws CoreException {
-		fWritableFragment.clearUncommittedFile();
+		if (fUncommittedFragment != null) {
+			try {
+				fUncommittedFragment.clearUncommittedFile();
+			} finally {
+				fUncommittedFragment= null;
+				fUncommittedFile= null;
+			}
+		}
+	}
+
+	public void setConfigurationSignature(int signature) {
+		fConfigSignature= signature;
+	}
+
+	public boolean isHeaderCacheFile(IIndexFile file) {
+		return file instanceof IIndexFragmentFile && isHeaderCache(((IIndexFragmentFile) file).getIndexFragment());
+	}
+
+	private boolean isHeaderCache(IIndexFragment frag) {
+		return frag != null && fHeaderCaches.containsValue(frag);
 	}
 
 	private boolean isWritableFragment(IIndexFragment frag) {
-		return frag == fWritableFragment;
+		for (IWritableIndexFragment fragment : fWritableFragments) {
+			if (frag == fragment)
+				return true;
+		}
+		return false;
+	}
+
+	private boolean isModifiableFragment(IIndexFragment frag) {
+		return isWritableFragment(frag) || isHeaderCache(frag);
 	}
 
 	public void setFileContent(IIndexFragmentFile file, int linkageID, IncludeInformation[] includes,
 			IASTPreprocessorStatement[] macros, IASTName[][] names, ASTFilePathResolver resolver,
 			YieldableIndexLock lock) throws CoreException, InterruptedException {
 		IIndexFragment indexFragment = file.getIndexFragment();
-		if (!isWritableFragment(indexFragment)) {
+		if (!isModifiableFragment(indexFragment)) {
 			assert false : "Attempt to update file of read-only fragment"; //$NON-NLS-1$
 		} else {
+			// The targets of the includes have to be stored in the fragment of the including file.
+			final IWritableIndexFragment fragment= (IWritableIndexFragment) indexFragment;
 			for (IncludeInformation ii : includes) {
 				if (ii.fLocation != null) {
-					ii.fTargetFile= addFile(linkageID, ii.fLocation);
+					ii.fTargetFile= fragment.addFile(linkageID, ii.fLocation);
 				}
 			}
-			((IWritableIndexFragment) indexFragment).addFileContent(file, includes, macros, names, resolver, lock);
+			fragment.addFileContent(file, includes, macros, names, resolver, lock);
 		}
 	}
 
 	public void clear() throws CoreException {
-		fWritableFragment.clear();
+		for (IWritableIndexFragment fragment : fWritableFragments) {
+			fragment.clear();
+		}
+		if (fShardLayout != null) {
+			fShardLayout.clearContentShards();
+		}
 	}
 
 	public boolean isWritableFile(IIndexFile file) {
@@ -98,7 +298,7 @@ public class WritableCIndex extends CIndex implements IWritableIndex {
 	
 	public void clearFile(IIndexFragmentFile file, Collection<IIndexFileLocation> clearedContexts) throws CoreException {
 		IIndexFragment indexFragment = file.getIndexFragment();
-		if (!isWritableFragment(indexFragment)) {
+		if (!isModifiableFragment(indexFragment)) {
 			assert false : "Attempt to clear file of read-only fragment"; //$NON-NLS-1$
 		} else {
 			((IWritableIndexFragment) indexFragment).clearFile(file, clearedContexts);
@@ -112,6 +312,13 @@ public class WritableCIndex extends CIndex implements IWritableIndex {
 		super.acquireReadLock();
 	}
 
+	@Override
+	public boolean tryAcquireReadLock(long timeoutMillis) throws InterruptedException {
+		checkThread();
+		assert !fIsWriteLocked: "Read locks are not allowed while write-locked."; //$NON-NLS-1$
+		return super.tryAcquireReadLock(timeoutMillis);
+	}
+
 	@Override
 	public void releaseReadLock() {
 		checkThread();
@@ -126,7 +333,19 @@ public class WritableCIndex extends CIndex implements IWritableIndex {
 		assert !fIsWriteLocked: "Multiple write locks is not allowed"; //$NON-NLS-1$
 		assert giveupReadlockCount == getReadLockCount(): "Unexpected read lock is not allowed"; //$NON-NLS-1$
 		
-		fWritableFragment.acquireWriteLock(giveupReadlockCount);
+		// Lock the shards and the header cache in a fixed order, such that writers cannot deadlock.
+		int locked= 0;
+		try {
+			for (; locked < fLockedFragments.length; locked++) {
+				fLockedFragments[locked].acquireWriteLock(giveupReadlockCount);
+			}
+		} finally {
+			if (locked < fLockedFragments.length) {
+				while (--locked >= 0) {
+					fLockedFragments[locked].releaseWriteLock(giveupReadlockCount, false);
+				}
+			}
+		}
 		fIsWriteLocked= true;
 	}
 
@@ -145,7 +364,9 @@ public class WritableCIndex extends CIndex implements IWritableIndex {
 		}
 
 		fIsWriteLocked= false;
-		fWritableFragment.releaseWriteLock(establishReadlockCount, flush);
+		for (int i = fLockedFragments.length; --i >= 0;) {
+			fLockedFragments[i].releaseWriteLock(establishReadlockCount, flush);
+		}
 		
 		if (establishReadlockCount == 0) {
 			fThread= null;
@@ -168,13 +389,26 @@ public class WritableCIndex extends CIndex implements IWritableIndex {
 
 	public void flush() throws CoreException {
 		assert !fIsWriteLocked;
-		fWritableFragment.flush();
+		for (IWritableIndexFragment fragment : fLockedFragments) {
+			fragment.flush();
+		}
+	}
+
+	public void setBulkBuild(boolean bulk) throws CoreException {
+		assert fIsWriteLocked: "Need to hold a write lock to start or end a bulk build"; //$NON-NLS-1$
+		for (IWritableIndexFragment fragment : fWritableFragments) {
+			fragment.setBulkBuild(bulk);
+		}
 	}
 
 	/* (non-Javadoc)
 	 * @see org.eclipse.cdt.internal.core.index.IWritableIndex#getDatabaseSizeBytes()
 	 */
 	public long getDatabaseSizeBytes() {
-		return fWritableFragment.getDatabaseSizeBytes();
+		long result= 0;
+		for (IWritableIndexFragment fragment : fWritableFragments) {
+			result+= fragment.getDatabaseSizeBytes();
+		}
+		return result;
 	}
 }
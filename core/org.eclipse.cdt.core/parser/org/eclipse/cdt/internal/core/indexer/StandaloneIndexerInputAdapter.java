@@ -41,7 +41,7 @@ public class StandaloneIndexerInputAdapter extends IndexerInputAdapter {
 
 	public StandaloneIndexerInputAdapter(StandaloneIndexer indexer) {
 		fIndexer= indexer;
-		fExistsCache= new FileExistsCache(isCaseInsensitiveFileSystem());
+		fExistsCache= FileExistsCache.getShared(isCaseInsensitiveFileSystem());
 	}
 	
 	@Override
@@ -153,6 +153,7 @@ public abstract class StandaloneIndexerTask extends AbstractIndexerTask {
 			
 			trace(name + " Timings: "  //$NON-NLS-1$
 					+ (System.currentTimeMillis() - start) + " total, " //$NON-NLS-1$
+					+ fStatistics.fSelectionTime + " selection, " //$NON-NLS-1$
 					+ fStatistics.fParsingTime + " parser, " //$NON-NLS-1$
 					+ fStatistics.fResolutionTime + " resolution, " //$NON-NLS-1$
 					+ fStatistics.fAddToIndexTime + " index update."); //$NON-NLS-1$
@@ -166,6 +167,8 @@ public abstract class StandaloneIndexerTask extends AbstractIndexerTask {
 					+ fStatistics.fReferenceCount + " references, " //$NON-NLS-1$
 					+ fStatistics.fErrorCount + " errors, " //$NON-NLS-1$
 					+ fStatistics.fProblemBindingCount + "(" + nf.format(problemPct) + ") problems.");  //$NON-NLS-1$ //$NON-NLS-2$
+			trace(name + " Include guards: " //$NON-NLS-1$
+					+ fStatistics.fIncludeGuardSkipCount + " inclusions skipped."); //$NON-NLS-1$
 						
 			IWritableIndex index = fIndexer.getIndex();
 			if (index != null) {
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+/**
+ * Implementation of {@link AbstractCharArray} for content consisting of ASCII characters, only.
+ * The bytes read from the file are used without decoding them into a char[].
+ */
+public final class ASCIICharArray extends AbstractCharArray {
+	private final byte[] fBytes;
+	private final int fOffset;
+	private final int fLength;
+	private long hash64;
+
+	/**
+	 * @param bytes array containing the content, all bytes in the range must be less than 0x80.
+	 */
+	public ASCIICharArray(byte[] bytes, int offset, int length) {
+		fBytes= bytes;
+		fOffset= offset;
+		fLength= length;
+	}
+
+	/**
+	 * Checks whether all of the bytes in the given range are ASCII characters.
+	 */
+	public static boolean isASCII(byte[] bytes, int offset, int length) {
+		final int end= offset + length;
+		for (int i = offset; i < end; i++) {
+			if (bytes[i] < 0)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int getLength() {
+		return fLength;
+	}
+
+	@Override
+	public int tryGetLength() {
+		return fLength;
+	}
+
+	@Override
+	public char get(int pos) {
+		return (char) fBytes[fOffset + pos];
+	}
+
+	@Override
+	public void arraycopy(int offset, char[] destination, int destPos, int length) {
+		final int start= fOffset + offset;
+		for (int i = 0; i < length; i++) {
+			destination[destPos + i]= (char) fBytes[start + i];
+		}
+	}
+
+	@Override
+	public boolean isValidOffset(int offset) {
+		return offset < fLength;
+	}
+
+	@Override
+	public long getContentsHash() {
+		if (hash64 == 0 && fLength != 0) {
+			StreamHasher hasher = new StreamHasher();
+			hasher.addChunk(fBytes, fOffset, fLength);
+			hash64 = hasher.computeHash();
+		}
+		return hash64;
+	}
+}
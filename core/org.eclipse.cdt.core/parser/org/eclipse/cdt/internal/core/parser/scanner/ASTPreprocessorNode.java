@@ -590,6 +590,7 @@ class ASTFileLocation implements IASTFileLocation {
 class ASTMacroExpansion extends ASTPreprocessorNode implements IASTPreprocessorMacroExpansion {
 
 	private LocationCtxMacroExpansion fContext;
+	private ASTMacroReferenceName fMacroReference;
 
 	public ASTMacroExpansion(IASTNode parent, int startNumber, int endNumber) {
 		super(parent, IASTTranslationUnit.MACRO_EXPANSION, startNumber, endNumber);
@@ -599,11 +600,15 @@ class ASTMacroExpansion extends ASTPreprocessorNode implements IASTPreprocessorM
 		fContext= expansionCtx;
 	}
 
+	void setMacroReference(ASTMacroReferenceName name) {
+		fMacroReference= name;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroExpansion#getName()
 	 */
 	public ASTMacroReferenceName getMacroReference() {
-		return fContext.getMacroReference();
+		return fMacroReference;
 	}
 
 	/* (non-Javadoc)
@@ -41,7 +41,6 @@ import org.eclipse.cdt.core.parser.OffsetLimitReachedException;
 import org.eclipse.cdt.core.parser.ParseError;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.util.CharArrayIntMap;
-import org.eclipse.cdt.core.parser.util.CharArrayMap;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.internal.core.dom.IIncludeFileResolutionHeuristics;
 import org.eclipse.cdt.internal.core.parser.EmptyFilesProvider;
@@ -74,6 +73,14 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 	
     private static final char[] EMPTY_CHAR_ARRAY = new char[0];
     private static final char[] ONE = "1".toCharArray(); //$NON-NLS-1$
+    private static final char[] ONCE = "once".toCharArray(); //$NON-NLS-1$
+    private static final char[] NO_INCLUDE_GUARD = new char[0];
+
+    /**
+     * Marker used in place of the include guard of files that are marked with <code>#pragma once</code>.
+     * It is compared by identity, the index stores a flag instead.
+     */
+    public static final char[] PRAGMA_ONCE = "#pragma once".toCharArray(); //$NON-NLS-1$
 
 
     // standard built-ins
@@ -99,7 +106,13 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 
 	final private IIncludeFileTester<InternalFileContent> createCodeReaderTester= new IIncludeFileTester<InternalFileContent>() {
     	public InternalFileContent checkFile(String path, boolean isHeuristicMatch, IncludeSearchPathElement onPath) {
-			final InternalFileContent fc= fFileContentProvider.getContentForInclusion(path);
+    		final InternalFileContent fc;
+    		if (isProtectedByIncludeGuard(path)) {
+    			fLocationMap.skippedByIncludeGuard();
+    			fc= new InternalFileContent(path, InclusionKind.SKIP_FILE);
+    		} else {
+    			fc= fFileContentProvider.getContentForInclusion(path);
+    		}
 			if (fc != null) {
 				fc.setFoundByHeuristics(isHeuristicMatch);
 				fc.setFoundOnPath(onPath);
@@ -166,19 +179,25 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     final private CharArrayIntMap fKeywords;
     final private CharArrayIntMap fPPKeywords;
     private IncludeSearchPathElement[] fIncludeSearchPath;
+    private int fIncludeSearchPathID;
     private String[][] fPreIncludedFiles= null;
+    final private LexedFileCache fLexedFileCache= LexedFileCache.getInstance();
+    final private IncludeResolutionCache fIncludeResolutionCache= IncludeResolutionCache.getInstance();
 
     private int fContentAssistLimit= -1;
 	private boolean fHandledCompletion= false;
 	private boolean fSplitShiftRightOperator= false;
 
     // state information
-    private final CharArrayMap<PreprocessorMacro> fMacroDictionary = new CharArrayMap<PreprocessorMacro>(512);
+    private final MacroDictionary<PreprocessorMacro> fMacroDictionary = new MacroDictionary<PreprocessorMacro>(512);
     private final LocationMap fLocationMap;
 
     /** Set of already included files */
     private final HashSet<String> fAllIncludedFiles= new HashSet<String>();
 
+    /** Include guards of files, {@link #NO_INCLUDE_GUARD} for files without a guard */
+    private final HashMap<String, char[]> fIncludeGuards= new HashMap<String, char[]>();
+
 	private final Lexer fRootLexer;
 	private final ScannerContext fRootContext;
 	protected ScannerContext fCurrentContext;
@@ -311,6 +330,12 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         for (String path : searchPath) {
 			fIncludeSearchPath[idx++]= new IncludeSearchPathElement(makeAbsolute(directory, path), false);
 		}
+
+        StringBuilder key= new StringBuilder();
+        for (IncludeSearchPathElement path : fIncludeSearchPath) {
+        	key.append(path.isForQuoteIncludesOnly() ? '"' : '<').append(path.getPath()).append(File.pathSeparatorChar);
+		}
+        fIncludeSearchPathID= fIncludeResolutionCache.getSearchPathID(key.toString(), fIncludeSearchPath);
 	}
 
 	private String makeAbsolute(File directory, String inlcudePath) {
@@ -705,6 +730,9 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         		continue;
 
         	case Lexer.tOTHER_CHARACTER:
+        		if ((options & STOP_AT_NL) == 0) {
+        			fCurrentContext.guardTokenEncountered();
+        		}
         		handleProblem(IProblem.SCANNER_BAD_CHARACTER, ppToken.getCharImage(),
         				ppToken.getOffset(), ppToken.getEndOffset());
         		ppToken= fCurrentContext.nextPPToken();
@@ -715,6 +743,12 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         			return ppToken;
         		}
             	final ILocationCtx locationCtx = fCurrentContext.getLocationCtx();
+            	if (fCurrentContext.isDetectingIncludeGuard()) {
+            		final String path= locationCtx.getFilePath();
+            		final char[] guard= fCurrentContext.getIncludeGuard();
+            		fIncludeGuards.put(path, guard == null ? NO_INCLUDE_GUARD : guard);
+            		fLocationMap.encounterIncludeGuard(path, guard);
+            	}
             	fLocationMap.popContext(locationCtx);
         		fCurrentContext= fCurrentContext.getParent();
         		assert fCurrentContext != null;
@@ -734,6 +768,9 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
                	}
         	
         	case IToken.tIDENTIFIER:
+        		if ((options & STOP_AT_NL) == 0) {
+        			fCurrentContext.guardTokenEncountered();
+        		}
         		fCurrentContext.nextPPToken(); // consume the identifier
         		if ((options & NO_EXPANSION) == 0) {
         			final Lexer lexer= fCurrentContext.getLexer();
@@ -762,6 +799,9 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         		}
         		break;
         	}
+			if ((options & STOP_AT_NL) == 0) {
+				fCurrentContext.guardTokenEncountered();
+			}
 			fCurrentContext.nextPPToken();
         	return ppToken;
         }
@@ -930,16 +970,33 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 			}
 		}
 
+        String currentDir= null;
         if (currentFile != null && quoteInclude && !includeNext) {
+        	final File dir= new File(currentFile).getParentFile();
+        	if (dir != null) {
+        		currentDir= dir.getAbsolutePath();
+        	}
+        }
+
+        // Try the candidate the directive has been resolved to before
+        if (!includeNext) {
+        	final int candidate= fIncludeResolutionCache.get(includeDirective, quoteInclude, currentDir, fIncludeSearchPathID);
+        	if (candidate != IncludeResolutionCache.UNKNOWN) {
+        		reader= checkCandidate(candidate, includeDirective, currentDir, tester);
+        		if (reader != null) {
+        			return reader;
+        		}
+        	}
+        }
+
+        if (currentDir != null) {
             // Check to see if we find a match in the current directory
-    		final File currentDir= new File(currentFile).getParentFile();
-    		if (currentDir != null) {
-        		final String fileLocation = ScannerUtility.createReconciledPath(currentDir.getAbsolutePath(), includeDirective);
-    			reader = tester.checkFile(fileLocation, false, null);
-    			if (reader != null) {
-    				return reader;
-    			}
-    		}
+        	reader= checkCandidate(IncludeResolutionCache.CURRENT_DIRECTORY, includeDirective, currentDir, tester);
+        	if (reader != null) {
+        		fIncludeResolutionCache.put(includeDirective, quoteInclude, currentDir, fIncludeSearchPathID,
+        				IncludeResolutionCache.CURRENT_DIRECTORY);
+        		return reader;
+        	}
         }
         
         // Now we need to search for the file on the include search path.
@@ -958,18 +1015,19 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         	}
         }
 
-        for (IncludeSearchPathElement path : fIncludeSearchPath) {
+        for (int i = 0; i < fIncludeSearchPath.length; i++) {
+        	final IncludeSearchPathElement path= fIncludeSearchPath[i];
         	if (searchAfter != null) {
         		if (searchAfter.equals(path)) {
         			searchAfter= null;
         		}
         	} else if (quoteInclude || !path.isForQuoteIncludesOnly()) {
-        		String fileLocation = path.getLocation(includeDirective);
-        		if (fileLocation != null) {
-        			reader= tester.checkFile(fileLocation, false, path);
-        			if (reader != null) {
-        				return reader;
+        		reader= checkCandidate(i, includeDirective, currentDir, tester);
+        		if (reader != null) {
+        			if (!includeNext) {
+        				fIncludeResolutionCache.put(includeDirective, quoteInclude, currentDir, fIncludeSearchPathID, i);
         			}
+        			return reader;
         		}
         	}
         }
@@ -982,6 +1040,22 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
         return null;
     }
 
+    private <T> T checkCandidate(int candidate, String includeDirective, String currentDir,
+    		IIncludeFileTester<T> tester) {
+    	if (candidate == IncludeResolutionCache.CURRENT_DIRECTORY) {
+    		if (currentDir == null)
+    			return null;
+    		return tester.checkFile(ScannerUtility.createReconciledPath(currentDir, includeDirective), false, null);
+    	}
+    	if (candidate < 0 || candidate >= fIncludeSearchPath.length)
+    		return null;
+    	final IncludeSearchPathElement path= fIncludeSearchPath[candidate];
+    	final String fileLocation= path.getLocation(includeDirective);
+    	if (fileLocation == null)
+    		return null;
+    	return tester.checkFile(fileLocation, false, path);
+    }
+
     private IncludeSearchPathElement findFileInIncludePath(String file, String includeDirective) {
         for (IncludeSearchPathElement path : fIncludeSearchPath) {
     		String fileLocation = path.getLocation(includeDirective);
@@ -1048,6 +1122,7 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 
     	case IToken.tEND_OF_INPUT:
     	case IToken.tINTEGER:
+    		fCurrentContext.guardTokenEncountered();
     		lexer.consumeLine(ORIGIN_PREPROCESSOR_DIRECTIVE);
     		return;
 
@@ -1055,6 +1130,7 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     		break;
 
     	default:
+    		fCurrentContext.guardTokenEncountered();
     		int endOffset= lexer.consumeLine(ORIGIN_PREPROCESSOR_DIRECTIVE);
     		handleProblem(IProblem.PREPROCESSOR_INVALID_DIRECTIVE, ident.getCharImage(), startOffset, endOffset);
     		return;
@@ -1065,6 +1141,20 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     	final int type = fPPKeywords.get(name);
     	int condEndOffset;
     	switch (type) {
+    	case IPreprocessorDirective.ppIf:
+    	case IPreprocessorDirective.ppIfdef:
+    	case IPreprocessorDirective.ppIfndef:
+    	case IPreprocessorDirective.ppElif:
+    	case IPreprocessorDirective.ppElse:
+    	case IPreprocessorDirective.ppEndif:
+    	case IPreprocessorDirective.ppPragma:
+    		// conditionals and '#pragma once' are checked when they are executed
+    		break;
+    	default:
+    		fCurrentContext.guardTokenEncountered();
+    		break;
+    	}
+    	switch (type) {
     	case IPreprocessorDirective.ppImport:
     	case IPreprocessorDirective.ppInclude:
     		executeInclude(lexer, startOffset, false, fCurrentContext.getCodeState() == CodeState.eActive, withinExpansion);
@@ -1132,7 +1222,8 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     		}
     		break;
     	case IPreprocessorDirective.ppPragma:
-    		condOffset= lexer.nextToken().getOffset();
+    		final Token pragma= lexer.nextToken();
+    		condOffset= pragma.getOffset();
     		condEndOffset= lexer.consumeLine(ORIGIN_PREPROCESSOR_DIRECTIVE);
     		// Missing argument
 			if (condEndOffset < condOffset) {
@@ -1141,6 +1232,14 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     		if (fCurrentContext.getCodeState() == CodeState.eActive) {
     			int endOffset= lexer.currentToken().getEndOffset();
     			fLocationMap.encounterPoundPragma(startOffset, condOffset, condEndOffset, endOffset);
+    			if (pragma.getType() == IToken.tIDENTIFIER && condEndOffset == pragma.getEndOffset() 
+    					&& CharArrayUtils.equals(ONCE, pragma.getCharImage())) {
+    				fCurrentContext.guardPragmaOnce();
+    			} else {
+    				fCurrentContext.guardTokenEncountered();
+    			}
+    		} else {
+    			fCurrentContext.guardTokenEncountered();
     		}
     		break;
     	case IPreprocessorDirective.ppIgnore:
@@ -1155,6 +1254,19 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     	}
     }
 
+    /**
+     * Checks whether the file has been processed before and is protected by an include guard that
+     * prevents it from contributing to the translation unit once more.
+     */
+    private boolean isProtectedByIncludeGuard(String path) {
+    	final char[] guard= fIncludeGuards.get(path);
+    	if (guard == null || guard == NO_INCLUDE_GUARD)
+    		return false;
+    	if (guard == PRAGMA_ONCE)
+    		return hasFileBeenIncluded(path);
+    	return fMacroDictionary.get(guard) != null;
+    }
+
     private boolean hasFileBeenIncluded(String location) {
     	Boolean itHas= fFileContentProvider.hasFileBeenIncludedInCurrentTranslationUnit(location);
     	if (itHas != null) {
@@ -1259,6 +1371,10 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 				switch (fi.getKind()) {
 				case FOUND_IN_INDEX:
 					processInclusionFromIndex(poundOffset, path, fi);
+					if (!fIncludeGuards.containsKey(path)) {
+						final char[] guard= fFileContentProvider.getIncludeGuard(path);
+						fIncludeGuards.put(path, guard == null ? NO_INCLUDE_GUARD : guard);
+					}
 					break;
 				case USE_SOURCE:
 					AbstractCharArray source= fi.getSource();
@@ -1267,9 +1383,12 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 						fAllIncludedFiles.add(path);
 						ILocationCtx ctx= fLocationMap.pushInclusion(poundOffset, nameOffsets[0], nameOffsets[1],
 								condEndOffset, source, path, headerName, userInclude, isHeuristic, fi.isSource());
-						ScannerContext fctx= new ScannerContext(ctx, fCurrentContext, new Lexer(source,
-								fLexOptions, this, this));
+						LexedFile lexed= fLexedFileCache.get(path, source, fLexOptions);
+						Lexer includeLexer= lexed != null ? new Lexer(source, lexed, fLexOptions, this, this) :
+								new Lexer(source, fLexOptions, this, this);
+						ScannerContext fctx= new ScannerContext(ctx, fCurrentContext, includeLexer);
 						fctx.setFoundOnPath(fi.getFoundOnPath(), includeDirective);
+						fctx.startIncludeGuardDetection();
 						fCurrentContext= fctx;
 					}
 					fLocationMap.replacingFile(fFileContentProvider, fi);
@@ -1383,6 +1502,7 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 		boolean isActive= false;
 		PreprocessorMacro macro= null;
 		final Conditional conditional= fCurrentContext.newBranch(BranchKind.eIf, withinExpansion);
+		fCurrentContext.guardIf(isIfndef && tt == IToken.tIDENTIFIER && !withinExpansion ? name.getCharImage() : null);
 		if (conditional.canHaveActiveBranch(withinExpansion)) {
 	    	// we need an identifier
 			if (tt != IToken.tIDENTIFIER) {
@@ -1415,6 +1535,7 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 			char[] name= lexer.currentToken().getCharImage();
 			int condEndOffset= lexer.consumeLine(ORIGIN_PREPROCESSOR_DIRECTIVE);
 			handleProblem(IProblem.PREPROCESSOR_UNBALANCE_CONDITION, name, startOffset, condEndOffset);
+			fCurrentContext.guardTokenEncountered();
 			return fCurrentContext.getCodeState();
 		}
 		
@@ -1422,11 +1543,15 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 		IASTName[] refs= IASTName.EMPTY_NAME_ARRAY;
 		int condOffset= lexer.nextToken().getOffset();
 		int condEndOffset, endOffset;
+		char[] guardMacro= null;
 
 		if (cond.canHaveActiveBranch(withinExpansion)) {
 			TokenList condition= new TokenList();
 			condEndOffset= getTokensWithinPPDirective(true, condition, withinExpansion);
 			endOffset= lexer.currentToken().getEndOffset();
+			if (!isElif && !withinExpansion) {
+				guardMacro= getIncludeGuardMacro(condition);
+			}
 			
 			if (condition.first() == null) {
 				handleProblem(IProblem.SCANNER_EXPRESSION_SYNTAX_ERROR, null, startOffset, endOffset);
@@ -1445,22 +1570,52 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 		}
 
 		if (isElif) {
+			fCurrentContext.guardElse();
 			fLocationMap.encounterPoundElif(startOffset, condOffset, condEndOffset, endOffset, isActive, refs);
 		} else {
+			fCurrentContext.guardIf(guardMacro);
 			fLocationMap.encounterPoundIf(startOffset, condOffset, condEndOffset, endOffset, isActive, refs);
 		}
 		return fCurrentContext.setBranchState(cond, isActive, withinExpansion, startOffset);
     }
 
+    /**
+     * Returns the macro for conditions of the form <code>!defined X</code> or 
+     * <code>!defined(X)</code>, or <code>null</code>.
+     */
+    private char[] getIncludeGuardMacro(TokenList condition) {
+    	Token t= condition.first();
+    	if (t == null || t.getType() != IToken.tNOT)
+    		return null;
+    	t= (Token) t.getNext();
+    	if (t == null || t.getType() != tDEFINED)
+    		return null;
+    	t= (Token) t.getNext();
+    	if (t != null && t.getType() == IToken.tLPAREN) {
+    		final Token macro= (Token) t.getNext();
+    		if (macro == null || macro.getType() != IToken.tIDENTIFIER)
+    			return null;
+    		t= (Token) macro.getNext();
+    		if (t == null || t.getType() != IToken.tRPAREN || t.getNext() != null)
+    			return null;
+    		return macro.getCharImage();
+    	}
+    	if (t == null || t.getType() != IToken.tIDENTIFIER || t.getNext() != null)
+    		return null;
+    	return t.getCharImage();
+    }
+
 	private CodeState executeElse(final Lexer lexer, final int startOffset,boolean withinExpansion)
 			throws OffsetLimitReachedException {
 		final int endOffset= lexer.consumeLine(ORIGIN_PREPROCESSOR_DIRECTIVE);
 		Conditional cond= fCurrentContext.newBranch(BranchKind.eElse, withinExpansion);
 		if (cond == null) {
 			handleProblem(IProblem.PREPROCESSOR_UNBALANCE_CONDITION, Keywords.cELSE, startOffset, endOffset);
+			fCurrentContext.guardTokenEncountered();
     		return fCurrentContext.getCodeState();
 		}
 		
+		fCurrentContext.guardElse();
 		final boolean isActive= cond.canHaveActiveBranch(withinExpansion);
 		fLocationMap.encounterPoundElse(startOffset, endOffset, isActive);
 		return fCurrentContext.setBranchState(cond, isActive, withinExpansion, startOffset);
@@ -1471,7 +1626,9 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 		final Conditional cond= fCurrentContext.newBranch(BranchKind.eEnd, withinExpansion);
 		if (cond == null) {
 			handleProblem(IProblem.PREPROCESSOR_UNBALANCE_CONDITION, Keywords.cENDIF, startOffset, endOffset);
+			fCurrentContext.guardTokenEncountered();
 		} else {
+			fCurrentContext.guardEndif();
 			fLocationMap.encounterPoundEndIf(startOffset, endOffset);
 		}
 		return fCurrentContext.setBranchEndState(cond, withinExpansion, startOffset);
@@ -18,7 +18,6 @@ import java.util.ArrayList;
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.parser.IProblem;
 import org.eclipse.cdt.core.parser.IToken;
-import org.eclipse.cdt.core.parser.util.CharArrayMap;
 
 /**
  * Used to evaluate expressions in preprocessor directives.
@@ -43,14 +42,14 @@ public class ExpressionEvaluator {
     }
 
 	private Token fTokens;
-	private CharArrayMap<PreprocessorMacro> fDictionary;
+	private MacroDictionary<PreprocessorMacro> fDictionary;
 	private ArrayList<IASTName> fMacrosInDefinedExpressions= new ArrayList<IASTName>();
 	private LocationMap fLocationMap;
 
 	ExpressionEvaluator() {
 	}
 
-	public boolean evaluate(TokenList condition, CharArrayMap<PreprocessorMacro> macroDictionary, LocationMap map) throws EvalException {
+	public boolean evaluate(TokenList condition, MacroDictionary<PreprocessorMacro> macroDictionary, LocationMap map) throws EvalException {
 		fTokens= condition.first();
 		fDictionary= macroDictionary;
 		fLocationMap= map;
@@ -17,19 +17,25 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.cdt.core.CCorePlugin;
 
 /**
  * Implementation of char array for a file referencing content via 
  * soft references.
+ * For charsets that encode ASCII characters in single bytes, content consisting of ASCII
+ * characters, only, is not decoded. Such files or chunks keep the bytes read from the file.
  */
 public class FileCharArray extends LazyCharArray {
 	private static final String UTF8_CHARSET_NAME = "UTF-8"; //$NON-NLS-1$
+	private static final Map<String, Boolean> fgASCIICompatible= new ConcurrentHashMap<String, Boolean>();
 
 	public static AbstractCharArray create(String fileName, String charSet, InputStream in) throws IOException {
 		// no support for non-local files
@@ -54,6 +60,10 @@ public class FileCharArray extends LazyCharArray {
 		channel.read(byteBuffer);
 		byteBuffer.flip();
 		skipUTF8ByteOrderMark(byteBuffer, charSet);
+		if (isASCIICompatible(charSet) &&
+				ASCIICharArray.isASCII(byteBuffer.array(), byteBuffer.position(), byteBuffer.remaining())) {
+			return new ASCIICharArray(byteBuffer.array(), byteBuffer.position(), byteBuffer.remaining());
+		}
 		
 		CharBuffer charBuffer = Charset.forName(charSet).decode(byteBuffer);
 		char[] buf= extractChars(charBuffer);
@@ -70,6 +80,38 @@ public class FileCharArray extends LazyCharArray {
 		}
 	}
 	
+	/**
+	 * Checks whether the bytes 0x00 to 0x7F are decoded to the same ASCII characters in the given
+	 * charset, such that content consisting of these bytes, only, does not need to be decoded.
+	 */
+	static boolean isASCIICompatible(String charSet) {
+		Boolean result= fgASCIICompatible.get(charSet);
+		if (result == null) {
+			final byte[] bytes= new byte[128];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i]= (byte) i;
+			}
+			boolean compatible= false;
+			try {
+				CharBuffer chars= Charset.forName(charSet).newDecoder().decode(ByteBuffer.wrap(bytes));
+				if (chars.remaining() == bytes.length) {
+					compatible= true;
+					for (int i = 0; i < bytes.length; i++) {
+						if (chars.get(i) != i) {
+							compatible= false;
+							break;
+						}
+					}
+				}
+			} catch (CharacterCodingException e) {
+				// Not compatible.
+			}
+			result= Boolean.valueOf(compatible);
+			fgASCIICompatible.put(charSet, result);
+		}
+		return result.booleanValue();
+	}
+
 	private static char[] extractChars(CharBuffer charBuffer) {
 		if (charBuffer.hasArray() && charBuffer.arrayOffset() == 0) {
 			char[] buf = charBuffer.array();
@@ -83,6 +125,7 @@ public class FileCharArray extends LazyCharArray {
 
 	private String fFileName;
 	private String fCharSet;
+	private final boolean fASCIICompatible;
 	private FileChannel fChannel;
 	private long fNextFileOffset= 0;
 	private int fNextCharOffset= 0;
@@ -92,6 +135,7 @@ public class FileCharArray extends LazyCharArray {
 	private FileCharArray(String fileName, String charSet) {
 		fFileName= fileName;
 		fCharSet= charSet;
+		fASCIICompatible= isASCIICompatible(charSet);
 	}
 
 	@Override
@@ -122,6 +166,12 @@ public class FileCharArray extends LazyCharArray {
 		
 		try {
 			assert fChannel != null;
+			if (fASCIICompatible) {
+				Chunk chunk= nextASCIIChunk();
+				if (chunk != null)
+					return chunk;
+			}
+
 			final Charset charset = Charset.forName(fCharSet);
 			final CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
 			.onUnmappableCharacter(CodingErrorAction.REPLACE);
@@ -168,6 +218,38 @@ public class FileCharArray extends LazyCharArray {
 		}
 	}
 
+	/**
+	 * Reads the next chunk and returns it, in case it consists of ASCII characters, only.
+	 * Otherwise <code>null</code> is returned and the chunk needs to be decoded.
+	 */
+	private Chunk nextASCIIChunk() throws IOException {
+		final ByteBuffer in= ByteBuffer.allocate(CHUNK_SIZE);
+		fChannel.position(fNextFileOffset);
+		fChannel.read(in);
+		final boolean eof= in.remaining() > 0;
+		in.flip();
+		if (fNextFileOffset == 0) {
+			skipUTF8ByteOrderMark(in, fCharSet);
+		}
+		final int length= in.remaining();
+		if (length == 0 || !ASCIICharArray.isASCII(in.array(), in.position(), length))
+			return null;
+
+		byte[] bytes= in.array();
+		if (length < bytes.length) {
+			bytes= new byte[length];
+			in.get(bytes);
+		}
+		final long fileEndOffset= fNextFileOffset + in.limit();
+		Chunk chunk= newChunk(fNextFileOffset, fileEndOffset, fNextCharOffset, bytes);
+		fNextFileOffset= fileEndOffset;
+		fNextCharOffset+= length;
+		if (eof) {
+			fReachedEOF= true;
+		}
+		return chunk;
+	}
+
 	@Override
 	protected void rereadChunkData(Chunk chunk, char[] dest) {
 		FileInputStream fis;
@@ -190,20 +272,45 @@ public class FileCharArray extends LazyCharArray {
 		}
 	}
 
+	@Override
+	protected void rereadChunkData(Chunk chunk, byte[] dest) {
+		FileInputStream fis;
+		try {
+			fis = new FileInputStream(fFileName);
+		} catch (FileNotFoundException e1) {
+			// File has been deleted in the meantime
+			return;
+		}
+		try {
+			FileChannel channel = fis.getChannel();
+			ByteBuffer in= read(channel, chunk.fSourceOffset, chunk.fSourceEndOffset);
+			in.get(dest, 0, Math.min(dest.length, in.remaining()));
+		} catch (IOException e) {
+			// File cannot be read
+		} finally {
+			try {
+				fis.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
 	private void decode(FileChannel channel, long fileOffset, long fileEndOffset, CharBuffer dest) throws IOException {
 		final Charset charset = Charset.forName(fCharSet);
 		final CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
 				.onUnmappableCharacter(CodingErrorAction.REPLACE);
 
+		decoder.decode(read(channel, fileOffset, fileEndOffset), dest, true);
+	}
+
+	private ByteBuffer read(FileChannel channel, long fileOffset, long fileEndOffset) throws IOException {
 		final ByteBuffer in = ByteBuffer.allocate((int) (fileEndOffset - fileOffset));
-		
-		in.clear();
 		channel.position(fileOffset);
 		channel.read(in);
 		in.flip();
 		if (fileOffset == 0) {
 			skipUTF8ByteOrderMark(in, fCharSet);
 		}
-		decoder.decode(in, dest, true);
+		return in;
 	}
 }
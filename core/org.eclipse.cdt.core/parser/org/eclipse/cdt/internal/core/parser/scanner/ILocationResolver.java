@@ -182,4 +182,17 @@ public interface ILocationResolver {
 	 * Returns the lexer options that have been used by the preprocessor.
 	 */
 	LexerOptions getLexerOptions();
+
+	/**
+	 * Returns the macro guarding the file with the given path, {@link CPreprocessor#PRAGMA_ONCE} 
+	 * for files marked with <code>#pragma once</code>, or <code>null</code> if the file has not been 
+	 * parsed or is not protected by an include guard.
+	 */
+	char[] getIncludeGuard(String filePath);
+
+	/**
+	 * Returns the number of inclusions that were skipped without reading the file, because the
+	 * include guard of the file was already defined.
+	 */
+	int getIncludeGuardSkipCount();
 }
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.io.File;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of include resolutions shared by the preprocessors of all translation units. For an
+ * include directive, the include search path and the directory of the including file it stores
+ * which candidate the directive has been resolved to, such that the preprocessor does not need
+ * to probe all directories of the search path again.
+ * <p>
+ * Resolutions have to be invalidated when files are added to or removed from the directories
+ * probed for them, see {@link #invalidate(Collection)}. In addition entries expire after a
+ * validation interval, which can be configured in milliseconds with the system property
+ * <code>org.eclipse.cdt.core.parser.includeCacheValidationInterval</code>.
+ */
+public final class IncludeResolutionCache {
+	private static final String VALIDATION_INTERVAL_PROPERTY= "org.eclipse.cdt.core.parser.includeCacheValidationInterval"; //$NON-NLS-1$
+	private static final long DEFAULT_VALIDATION_INTERVAL= 30000;
+
+	/**
+	 * The time in milliseconds after which cached information about the file system needs to be
+	 * validated.
+	 */
+	public static final long VALIDATION_INTERVAL=
+			Long.getLong(VALIDATION_INTERVAL_PROPERTY, DEFAULT_VALIDATION_INTERVAL).longValue();
+
+	/** Returned by {@link #get} when the resolution is not known */
+	public static final int UNKNOWN= -2;
+	/** Candidate for a file in the directory of the including file */
+	public static final int CURRENT_DIRECTORY= -1;
+
+	private static final IncludeResolutionCache INSTANCE= new IncludeResolutionCache(VALIDATION_INTERVAL);
+
+	private static final class Key {
+		final String fDirective;
+		final String fCurrentDirectory;
+		final int fSearchPathID;
+		final boolean fQuoteInclude;
+
+		Key(String directive, boolean quoteInclude, String currentDirectory, int searchPathID) {
+			fDirective= directive;
+			fQuoteInclude= quoteInclude;
+			fCurrentDirectory= currentDirectory;
+			fSearchPathID= searchPathID;
+		}
+
+		@Override
+		public int hashCode() {
+			int result= fDirective.hashCode() * 31 + fSearchPathID;
+			if (fCurrentDirectory != null)
+				result= result * 31 + fCurrentDirectory.hashCode();
+			return fQuoteInclude ? result : ~result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fSearchPathID == other.fSearchPathID && fQuoteInclude == other.fQuoteInclude
+					&& fDirective.equals(other.fDirective)
+					&& (fCurrentDirectory == null ? other.fCurrentDirectory == null :
+						fCurrentDirectory.equals(other.fCurrentDirectory));
+		}
+	}
+
+	private static final class Resolution {
+		final int fCandidate;
+		final long fTime;
+
+		Resolution(int candidate, long time) {
+			fCandidate= candidate;
+			fTime= time;
+		}
+	}
+
+	private final long fValidationInterval;
+	private final ConcurrentHashMap<String, Integer> fSearchPathIDs= new ConcurrentHashMap<String, Integer>();
+	private final ConcurrentHashMap<Integer, IncludeSearchPathElement[]> fSearchPaths= new ConcurrentHashMap<Integer, IncludeSearchPathElement[]>();
+	private final AtomicInteger fNextSearchPathID= new AtomicInteger();
+	private volatile Reference<ConcurrentHashMap<Key, Resolution>> fResolutions;
+	private final AtomicLong fHits= new AtomicLong();
+	private final AtomicLong fMisses= new AtomicLong();
+
+	/**
+	 * Returns the cache shared by all preprocessors.
+	 */
+	public static IncludeResolutionCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param validationInterval time in milliseconds after which a resolution expires.
+	 */
+	public IncludeResolutionCache(long validationInterval) {
+		fValidationInterval= validationInterval;
+	}
+
+	/**
+	 * Returns a small number identifying the given include search path.
+	 * @param searchPath a string representation of the include search path
+	 * @param elements the elements of the search path, used to determine the directories a
+	 * resolution depends on. May be <code>null</code>, then resolutions to elements of the search
+	 * path are invalidated with any directory.
+	 */
+	public int getSearchPathID(String searchPath, IncludeSearchPathElement[] elements) {
+		Integer id= fSearchPathIDs.get(searchPath);
+		if (id == null) {
+			Integer newID= fNextSearchPathID.getAndIncrement();
+			id= fSearchPathIDs.putIfAbsent(searchPath, newID);
+			if (id == null) {
+				id= newID;
+				if (elements != null) {
+					fSearchPaths.put(id, elements);
+				}
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the candidate the include directive was resolved to, i.e. {@link #CURRENT_DIRECTORY}
+	 * or the index of an element of the include search path, or {@link #UNKNOWN}.
+	 * @param currentDirectory the directory of the including file, or <code>null</code> if not
+	 * relevant for the directive.
+	 */
+	public int get(String directive, boolean quoteInclude, String currentDirectory, int searchPathID) {
+		final Key key= new Key(directive, quoteInclude, currentDirectory, searchPathID);
+		final ConcurrentHashMap<Key, Resolution> map= getResolutions();
+		final Resolution resolution= map.get(key);
+		if (resolution != null) {
+			if (System.currentTimeMillis() - resolution.fTime <= fValidationInterval) {
+				fHits.incrementAndGet();
+				return resolution.fCandidate;
+			}
+			map.remove(key, resolution);
+		}
+		fMisses.incrementAndGet();
+		return UNKNOWN;
+	}
+
+	/**
+	 * Stores the candidate an include directive has been resolved to.
+	 */
+	public void put(String directive, boolean quoteInclude, String currentDirectory, int searchPathID,
+			int candidate) {
+		getResolutions().put(new Key(directive, quoteInclude, currentDirectory, searchPathID),
+				new Resolution(candidate, System.currentTimeMillis()));
+	}
+
+	/**
+	 * Removes all resolutions.
+	 */
+	public synchronized void clear() {
+		fResolutions= null;
+	}
+
+	/**
+	 * Removes the resolutions for which one of the given directories has been probed, needs to
+	 * be called when files are added to or removed from the directories.
+	 * @param directories absolute paths of directories in the format of {@link File#getParent()}.
+	 */
+	public void invalidate(Collection<String> directories) {
+		if (directories.isEmpty())
+			return;
+		final ConcurrentHashMap<Key, Resolution> map= getResolutions();
+		for (Iterator<Map.Entry<Key, Resolution>> it= map.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<Key, Resolution> entry= it.next();
+			if (dependsOn(entry.getKey(), entry.getValue().fCandidate, directories)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether one of the directories probed up to the given candidate is among the given
+	 * directories.
+	 */
+	private boolean dependsOn(Key key, int candidate, Collection<String> directories) {
+		if (key.fCurrentDirectory != null) {
+			if (isInDirectory(ScannerUtility.createReconciledPath(key.fCurrentDirectory, key.fDirective), directories))
+				return true;
+		}
+		if (candidate == CURRENT_DIRECTORY)
+			return false;
+		final IncludeSearchPathElement[] searchPath= fSearchPaths.get(key.fSearchPathID);
+		if (searchPath == null)
+			return true;
+		for (int i= 0; i <= candidate && i < searchPath.length; i++) {
+			final IncludeSearchPathElement element= searchPath[i];
+			if (key.fQuoteInclude || !element.isForQuoteIncludesOnly()) {
+				final String location= element.getLocation(key.fDirective);
+				if (location != null && isInDirectory(location, directories))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isInDirectory(String location, Collection<String> directories) {
+		final String parent= new File(location).getParent();
+		return parent != null && directories.contains(parent);
+	}
+
+	/**
+	 * Returns the number of lookups that were served from the cache.
+	 */
+	public long getHitCount() {
+		return fHits.get();
+	}
+
+	/**
+	 * Returns the number of lookups that required probing the include search path.
+	 */
+	public long getMissCount() {
+		return fMisses.get();
+	}
+
+	private ConcurrentHashMap<Key, Resolution> getResolutions() {
+		Reference<ConcurrentHashMap<Key, Resolution>> ref= fResolutions;
+		ConcurrentHashMap<Key, Resolution> result= ref == null ? null : ref.get();
+		if (result == null) {
+			result= createResolutions();
+		}
+		return result;
+	}
+
+	private synchronized ConcurrentHashMap<Key, Resolution> createResolutions() {
+		ConcurrentHashMap<Key, Resolution> result= fResolutions == null ? null : fResolutions.get();
+		if (result == null) {
+			result= new ConcurrentHashMap<Key, Resolution>();
+			// Before running out of memory the entire map will be thrown away.
+			fResolutions= new SoftReference<ConcurrentHashMap<Key, Resolution>>(result);
+		}
+		return result;
+	}
+}
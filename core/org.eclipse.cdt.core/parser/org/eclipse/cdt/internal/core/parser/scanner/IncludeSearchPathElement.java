@@ -36,6 +36,10 @@ final class IncludeSearchPathElement {
 		}
 	}
 	
+	public String getPath() {
+		return fPath;
+	}
+
 	public boolean isForQuoteIncludesOnly() {
 		return fForQuoteIncludesOnly;
 	}
@@ -66,6 +66,14 @@ public abstract class InternalFileContentProvider extends IncludeFileContentProv
 		return null;
 	}
 
+	/**
+	 * Returns the include guard stored for a file whose content was provided from the index, 
+	 * or <code>null</code> if it is not known. See {@link ILocationResolver#getIncludeGuard(String)}.
+	 */
+	public char[] getIncludeGuard(String path) {
+		return null;
+	}
+
 	/**
 	 * Returns a strategy for heuristically resolving includes, or <code>null</code> if this shall not
 	 * be done.
@@ -19,6 +19,8 @@ import java.util.List;
  * Implementation of char array for a file referencing content via 
  * soft references.
  * Because of bug 320157 we need to deal with chunks of different length.
+ * Chunks consisting of ASCII characters, only, keep the bytes of the file rather than
+ * decoded characters.
  */
 public abstract class LazyCharArray extends AbstractCharArray {
 	private final static int CHUNK_BITS= 16;  // 2^16 == 64K
@@ -30,6 +32,7 @@ public abstract class LazyCharArray extends AbstractCharArray {
 		final long fSourceOffset;
 		final long fSourceEndOffset;
 		private SoftReference<char[]> fCharsReference;
+		private SoftReference<byte[]> fBytesReference;
 
 		private Chunk(long sourceOffset, long sourceEndOffset, int charOffset, char[] chars) {
 			fCharOffset= charOffset;
@@ -38,14 +41,27 @@ public abstract class LazyCharArray extends AbstractCharArray {
 			fSourceEndOffset= sourceEndOffset;
 			fCharsReference= new SoftReference<char[]>(chars);
 		}
+
+		private Chunk(long sourceOffset, long sourceEndOffset, int charOffset, byte[] asciiBytes) {
+			fCharOffset= charOffset;
+			fCharEndOffset= charOffset+ asciiBytes.length;
+			fSourceOffset= sourceOffset;
+			fSourceEndOffset= sourceEndOffset;
+			fBytesReference= new SoftReference<byte[]>(asciiBytes);
+		}
+
+		final boolean isASCII() {
+			return fBytesReference != null;
+		}
 	}
 
 	private int fLength= -1;
 	private List<Chunk> fChunks= new ArrayList<Chunk>();
 	private StreamHasher fHasher;
 	private long fHash64;
-	// Make a reference to the currently used char[], such that it is not collected.
+	// Make a reference to the currently used char[] or byte[], such that it is not collected.
 	private char[] fCurrentChars;
+	private byte[] fCurrentBytes;
 
 	protected LazyCharArray() {
 		fHasher = new StreamHasher();
@@ -87,6 +103,8 @@ public abstract class LazyCharArray extends AbstractCharArray {
 	public final char get(int offset) {
 		Chunk chunk= getChunkForOffset(offset);
 		if (chunk != null) {
+			if (chunk.isASCII())
+				return (char) getChunkBytes(chunk)[offset - chunk.fCharOffset];
 			return getChunkData(chunk)[offset - chunk.fCharOffset];
 		}
 		return 0;
@@ -96,12 +114,17 @@ public abstract class LazyCharArray extends AbstractCharArray {
 	public final void arraycopy(int offset, char[] destination, int destinationPos, int length) {
 		final Chunk chunk= getChunkForOffset(offset);
 		final int offsetInChunk= offset-chunk.fCharOffset;
-		final char[] data= getChunkData(chunk);
-		final int maxLenInChunk = data.length - offsetInChunk;
-		if (length <= maxLenInChunk) {
-			System.arraycopy(data, offsetInChunk, destination, destinationPos, length);
+		final int maxLenInChunk = chunk.fCharEndOffset - offset;
+		final int lenInChunk= Math.min(length, maxLenInChunk);
+		if (chunk.isASCII()) {
+			final byte[] data= getChunkBytes(chunk);
+			for (int i = 0; i < lenInChunk; i++) {
+				destination[destinationPos + i]= (char) data[offsetInChunk + i];
+			}
 		} else {
-			System.arraycopy(data, offsetInChunk, destination, destinationPos, maxLenInChunk);
+			System.arraycopy(getChunkData(chunk), offsetInChunk, destination, destinationPos, lenInChunk);
+		}
+		if (length > maxLenInChunk) {
 			arraycopy(offset+maxLenInChunk, destination, destinationPos+maxLenInChunk, length-maxLenInChunk);
 		}
 	}
@@ -150,8 +173,13 @@ public abstract class LazyCharArray extends AbstractCharArray {
 				break;
 			}
 			if (fHasher != null) {
-				final char[] chunkData = getChunkData(chunk);
-				fHasher.addChunk(chunkData);
+				if (chunk.isASCII()) {
+					final byte[] chunkData = getChunkBytes(chunk);
+					fHasher.addChunk(chunkData, 0, chunkData.length);
+				} else {
+					final char[] chunkData = getChunkData(chunk);
+					fHasher.addChunk(chunkData);
+				}
 			}
 			fChunks.add(chunk);
 		}
@@ -170,6 +198,14 @@ public abstract class LazyCharArray extends AbstractCharArray {
 		return new Chunk(sourceOffset, sourceEndOffset, charOffset, chars);
 	}
 
+	/**
+	 * Creates a new chunk for a range of the source consisting of ASCII characters, only.
+	 */
+	protected Chunk newChunk(long sourceOffset, long sourceEndOffset, int charOffset, byte[] asciiBytes) {
+		fCurrentBytes= asciiBytes;
+		return new Chunk(sourceOffset, sourceEndOffset, charOffset, asciiBytes);
+	}
+
 	/**
 	 * Read the next chunk from the input.
 	 */
@@ -185,20 +221,42 @@ public abstract class LazyCharArray extends AbstractCharArray {
 		return fCurrentChars= data;
 	}
 
+	private byte[] getChunkBytes(Chunk chunk) {
+		byte[] data= chunk.fBytesReference.get();
+		if (data == null) {
+			data= new byte[chunk.fCharEndOffset - chunk.fCharOffset];
+			rereadChunkData(chunk, data);
+			chunk.fBytesReference= new SoftReference<byte[]>(data);
+		}
+		return fCurrentBytes= data;
+	}
+
 	/**
 	 * Reread the data for the chunk. In case the source range no longer (fully) exists,
 	 * read as much as possible.
 	 */
 	protected abstract void rereadChunkData(Chunk chunk, char[] data);
 
+	/**
+	 * Reread the bytes for a chunk created for ASCII characters. In case the source range no
+	 * longer (fully) exists, read as much as possible.
+	 */
+	protected abstract void rereadChunkData(Chunk chunk, byte[] data);
+
 	/** 
 	 * For testing purposes: Simulates that all the data gets collected.
 	 */
 	public void testClearData() {
 		for (Chunk chunk : fChunks) {
-			chunk.fCharsReference= new SoftReference<char[]>(null);
+			if (chunk.isASCII()) {
+				chunk.fBytesReference= new SoftReference<byte[]>(null);
+			} else {
+				chunk.fCharsReference= new SoftReference<char[]>(null);
+			}
 		}
 		if (fCurrentChars != null)
 			fCurrentChars= null;
+		if (fCurrentBytes != null)
+			fCurrentBytes= null;
 	}
 }
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.util.BitSet;
+
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.core.parser.OffsetLimitReachedException;
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+import org.eclipse.cdt.internal.core.util.ILRUCacheable;
+
+/**
+ * The preprocessor tokens of a file together with the comments and problems reported while
+ * lexing it. Allows the {@link Lexer} to replay the tokens of a file that is included by many
+ * translation units, rather than lexing its characters again.
+ * <p>
+ * The tokens do not depend on the macros defined when the file is included, directives are
+ * executed by the preprocessor on the replayed tokens as usual. Instances are immutable and
+ * can be shared between threads.
+ */
+public final class LexedFile implements ILRUCacheable {
+	private static final int BLOCK_COMMENT= -1;
+	private static final int LINE_COMMENT= -2;
+
+	/**
+	 * Collects the tokens and events of a file while it is lexed.
+	 */
+	private static final class Recorder implements ILexerLog {
+		int[] fKinds= new int[256];
+		int[] fOffsets= new int[256];
+		int[] fEndOffsets= new int[256];
+		char[][] fImages= new char[256][];
+		BitSet fDigraphs= new BitSet();
+		int fTokenCount;
+
+		int[] fEventTokens= new int[16];
+		int[] fEventKinds= new int[16];
+		int[] fEventOffsets= new int[16];
+		int[] fEventEndOffsets= new int[16];
+		char[][] fEventArgs= new char[16][];
+		int fEventCount;
+
+		void addToken(Token t) {
+			if (fTokenCount == fKinds.length) {
+				final int newLength= fTokenCount * 2;
+				fKinds= grow(fKinds, newLength);
+				fOffsets= grow(fOffsets, newLength);
+				fEndOffsets= grow(fEndOffsets, newLength);
+				char[][] images= new char[newLength][];
+				System.arraycopy(fImages, 0, images, 0, fTokenCount);
+				fImages= images;
+			}
+			fKinds[fTokenCount]= t.getType();
+			fOffsets[fTokenCount]= t.getOffset();
+			fEndOffsets[fTokenCount]= t.getEndOffset();
+			if (t instanceof TokenWithImage) {
+				fImages[fTokenCount]= t.getCharImage();
+			} else if (t instanceof TokenForDigraph) {
+				fDigraphs.set(fTokenCount);
+			}
+			fTokenCount++;
+		}
+
+		private void addEvent(int kind, char[] arg, int offset, int endOffset) {
+			if (fEventCount == fEventKinds.length) {
+				final int newLength= fEventCount * 2;
+				fEventTokens= grow(fEventTokens, newLength);
+				fEventKinds= grow(fEventKinds, newLength);
+				fEventOffsets= grow(fEventOffsets, newLength);
+				fEventEndOffsets= grow(fEventEndOffsets, newLength);
+				char[][] args= new char[newLength][];
+				System.arraycopy(fEventArgs, 0, args, 0, fEventCount);
+				fEventArgs= args;
+			}
+			fEventTokens[fEventCount]= fTokenCount;
+			fEventKinds[fEventCount]= kind;
+			fEventOffsets[fEventCount]= offset;
+			fEventEndOffsets[fEventCount]= endOffset;
+			fEventArgs[fEventCount]= arg;
+			fEventCount++;
+		}
+
+		public void handleComment(boolean isBlockComment, int offset, int endOffset) {
+			addEvent(isBlockComment ? BLOCK_COMMENT : LINE_COMMENT, null, offset, endOffset);
+		}
+
+		public void handleProblem(int problemID, char[] info, int offset, int endOffset) {
+			addEvent(problemID, info, offset, endOffset);
+		}
+
+		private static int[] grow(int[] array, int length) {
+			int[] result= new int[length];
+			System.arraycopy(array, 0, result, 0, array.length);
+			return result;
+		}
+	}
+
+	private final int[] fKinds;
+	private final int[] fOffsets;
+	private final int[] fEndOffsets;
+	private final char[][] fImages;
+	private final BitSet fDigraphs;
+	private final int fTokenCount;
+
+	// Comments and problems, each of them is reported before the token with index fEventTokens[i].
+	private final int[] fEventTokens;
+	private final int[] fEventKinds;
+	private final int[] fEventOffsets;
+	private final int[] fEventEndOffsets;
+	private final char[][] fEventArgs;
+	private final int fEventCount;
+
+	private final int fFootprint;
+
+	private LexedFile(Recorder r) {
+		fKinds= r.fKinds;
+		fOffsets= r.fOffsets;
+		fEndOffsets= r.fEndOffsets;
+		fImages= r.fImages;
+		fDigraphs= r.fDigraphs;
+		fTokenCount= r.fTokenCount;
+		fEventTokens= r.fEventTokens;
+		fEventKinds= r.fEventKinds;
+		fEventOffsets= r.fEventOffsets;
+		fEventEndOffsets= r.fEventEndOffsets;
+		fEventArgs= r.fEventArgs;
+		fEventCount= r.fEventCount;
+
+		long bytes= 16L * fKinds.length + 20L * fEventKinds.length;
+		for (int i = 0; i < fTokenCount; i++) {
+			final char[] image= fImages[i];
+			if (image != null) {
+				bytes+= 16 + 2 * image.length;
+			}
+		}
+		fFootprint= (int) Math.min(Integer.MAX_VALUE, bytes / 1024 + 1);
+	}
+
+	/**
+	 * Lexes the entire input with the given options and returns the result, or <code>null</code>
+	 * if the input cannot be lexed.
+	 */
+	public static LexedFile create(AbstractCharArray input, LexerOptions options) {
+		Recorder recorder= new Recorder();
+		Lexer lexer= new Lexer(input, options, recorder, null);
+		try {
+			Token t;
+			do {
+				t= lexer.nextToken();
+				recorder.addToken(t);
+			} while (t.getType() != IToken.tEND_OF_INPUT);
+		} catch (OffsetLimitReachedException e) {
+			// Does not happen outside of content assist mode.
+			return null;
+		}
+		return new LexedFile(recorder);
+	}
+
+	/**
+	 * Returns the number of tokens, including the trailing end-of-input token.
+	 */
+	public int getTokenCount() {
+		return fTokenCount;
+	}
+
+	public int getTokenType(int i) {
+		return fKinds[i];
+	}
+
+	/**
+	 * Creates a new token for the one with the given index, the preprocessor modifies the tokens
+	 * it is passed.
+	 */
+	public Token createToken(int i, Object source) {
+		final char[] image= fImages[i];
+		if (image != null)
+			return new TokenWithImage(fKinds[i], source, fOffsets[i], fEndOffsets[i], image);
+		if (fDigraphs.get(i))
+			return new TokenForDigraph(fKinds[i], source, fOffsets[i], fEndOffsets[i]);
+		return new Token(fKinds[i], source, fOffsets[i], fEndOffsets[i]);
+	}
+
+	/**
+	 * Returns the index of the token with the given type and offset, or <code>-1</code> if there
+	 * is no such token.
+	 */
+	public int findToken(int type, int offset) {
+		int low= 0;
+		int high= fTokenCount - 1;
+		while (low <= high) {
+			final int mid= (low + high) >>> 1;
+			final int midOffset= fOffsets[mid];
+			if (midOffset < offset) {
+				low= mid + 1;
+			} else if (midOffset > offset) {
+				high= mid - 1;
+			} else {
+				return fKinds[mid] == type ? mid : -1;
+			}
+		}
+		return -1;
+	}
+
+	public int getEventCount() {
+		return fEventCount;
+	}
+
+	/**
+	 * Returns the index of the first event that is reported after the given token.
+	 */
+	public int findEventAfter(int token) {
+		int low= 0;
+		int high= fEventCount;
+		while (low < high) {
+			final int mid= (low + high) >>> 1;
+			if (fEventTokens[mid] <= token) {
+				low= mid + 1;
+			} else {
+				high= mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the token the event with the given index is reported before.
+	 */
+	public int getEventToken(int i) {
+		return fEventTokens[i];
+	}
+
+	/**
+	 * Reports the event with the given index to the log.
+	 */
+	public void replayEvent(int i, ILexerLog log) {
+		switch (fEventKinds[i]) {
+		case BLOCK_COMMENT:
+			log.handleComment(true, fEventOffsets[i], fEventEndOffsets[i]);
+			break;
+		case LINE_COMMENT:
+			log.handleComment(false, fEventOffsets[i], fEventEndOffsets[i]);
+			break;
+		default:
+			log.handleProblem(fEventKinds[i], fEventArgs[i], fEventOffsets[i], fEventEndOffsets[i]);
+			break;
+		}
+	}
+
+	/**
+	 * Returns the approximate memory used by this object in kilobytes.
+	 */
+	public int getCacheFootprint() {
+		return fFootprint;
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+import org.eclipse.cdt.internal.core.util.LRUCache;
+
+/**
+ * Cache of lexed files shared by the preprocessors of all translation units. A file is
+ * identified by its path, the hash of its content and the options it is lexed with, such that
+ * modified files and unsaved editor content are never replayed from a stale entry.
+ * <p>
+ * The size of the shared cache can be configured in megabytes with the system property
+ * <code>org.eclipse.cdt.core.parser.lexedFileCacheSize</code>, a size of <code>0</code> disables
+ * the cache.
+ */
+public final class LexedFileCache {
+	private static final String SIZE_PROPERTY= "org.eclipse.cdt.core.parser.lexedFileCacheSize"; //$NON-NLS-1$
+	private static final int DEFAULT_SIZE_MB= 32;
+
+	private static final LexedFileCache INSTANCE=
+			new LexedFileCache(Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE_MB).intValue() * 1024);
+
+	private static final class Key {
+		final String fPath;
+		final long fContentsHash;
+		final int fOptions;
+
+		Key(String path, long contentsHash, int options) {
+			fPath= path;
+			fContentsHash= contentsHash;
+			fOptions= options;
+		}
+
+		@Override
+		public int hashCode() {
+			return fPath.hashCode() ^ (int) fContentsHash ^ (int) (fContentsHash >>> 32) ^ fOptions;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fContentsHash == other.fContentsHash && fOptions == other.fOptions &&
+					fPath.equals(other.fPath);
+		}
+	}
+
+	private final LRUCache<Key, LexedFile> fCache;
+	private final int fSizeLimit;
+	private int fHits;
+	private int fMisses;
+
+	/**
+	 * Returns the cache shared by all preprocessors.
+	 */
+	public static LexedFileCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param sizeLimit the maximum size of the cache in kilobytes, <code>0</code> disables the cache.
+	 */
+	public LexedFileCache(int sizeLimit) {
+		fSizeLimit= Math.max(0, sizeLimit);
+		if (fSizeLimit > 0) {
+			// The default constructor keeps the hash table from being sized in kilobytes.
+			fCache= new LRUCache<Key, LexedFile>();
+			fCache.setSpaceLimit(fSizeLimit);
+		} else {
+			fCache= null;
+		}
+	}
+
+	/**
+	 * Returns the lexed content of the given file, lexing and caching it if necessary. Returns
+	 * <code>null</code> when the cache is disabled or the file cannot be lexed.
+	 */
+	public LexedFile get(String path, AbstractCharArray input, LexerOptions options) {
+		if (fCache == null || path == null)
+			return null;
+
+		final Key key= new Key(path, input.getContentsHash(), encode(options));
+		synchronized (this) {
+			LexedFile result= (LexedFile) fCache.get(key);
+			if (result != null) {
+				fHits++;
+				return result;
+			}
+			fMisses++;
+		}
+		// Lex outside of the lock, two threads may lex the same file at the same time.
+		LexedFile result= LexedFile.create(input, options);
+		if (result != null && result.getCacheFootprint() <= fSizeLimit) {
+			synchronized (this) {
+				fCache.put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public synchronized void clear() {
+		if (fCache != null) {
+			fCache.flush();
+		}
+	}
+
+	/**
+	 * Returns the number of requests that were served from the cache.
+	 */
+	public synchronized int getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * Returns the number of requests that required lexing the file.
+	 */
+	public synchronized int getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * Returns the fraction of requests served from the cache, or <code>0</code> if there were none.
+	 */
+	public synchronized double getHitRate() {
+		final int total= fHits + fMisses;
+		return total == 0 ? 0 : (double) fHits / total;
+	}
+
+	/**
+	 * Encodes the options that influence the tokens, image locations are computed by the
+	 * preprocessor and do not matter.
+	 */
+	private static int encode(LexerOptions options) {
+		int result= 0;
+		if (options.fSupportDollarInIdentifiers)
+			result |= 0x1;
+		if (options.fSupportAtSignInIdentifiers)
+			result |= 0x2;
+		if (options.fSupportMinAndMax)
+			result |= 0x4;
+		if (options.fSupportSlashPercentComments)
+			result |= 0x8;
+		if (options.fSupportUTFLiterals)
+			result |= 0x10;
+		return result;
+	}
+}
@@ -89,6 +89,11 @@ final public class Lexer implements ITokenSequence {
 	private int fMarkOffset;
 	private int fMarkEndOffset;
 	private int fMarkPrefetchedChar;
+
+	// replay of the tokens of a file that has been lexed before
+	private LexedFile fLexed;
+	private int fLexedToken;	// index of the next token, -1 while lexing characters
+	private int fLexedEvent;
 	
 	public Lexer(char[] input, LexerOptions options, ILexerLog log, Object source) {
 		this(new CharArray(input), 0, input.length, options, log, source);
@@ -108,6 +113,15 @@ final public class Lexer implements ITokenSequence {
 		fLastToken= fToken= new Token(tBEFORE_INPUT, source, start, start);
 		nextCharPhase3();
 	}
+
+	/**
+	 * Creates a lexer that replays the tokens of the lexed file rather than lexing the characters
+	 * of the input. The lexed file must have been created for the same input and options.
+	 */
+	public Lexer(AbstractCharArray input, LexedFile lexed, LexerOptions options, ILexerLog log, Object source) {
+		this(input, options, log, source);
+		fLexed= lexed;
+	}
 	
 	private boolean isValidOffset(int pos) {
 		if (fLimit < 0)
@@ -128,6 +142,7 @@ final public class Lexer implements ITokenSequence {
 	 */
 	public void setContentAssistMode(int offset) {
 		fSupportContentAssist= true;
+		fLexed= null;
 		if (isValidOffset(offset)) {
 			fLimit= offset;
 		}
@@ -146,6 +161,12 @@ final public class Lexer implements ITokenSequence {
 	 */
 	public void setInsideIncludeDirective(boolean val) {
 		fInsideIncludeDirective= val;
+		if (val && fLexed != null && fLexedToken >= 0) {
+			// Header names are not among the replayed tokens, lex the rest of the directive.
+			fLexedToken= -1;
+			fEndOffset= fToken.getEndOffset();
+			nextCharPhase3();
+		}
 	}
 	
 	/** 
@@ -219,6 +240,20 @@ final public class Lexer implements ITokenSequence {
 	 */
 	public Token nextDirective() throws OffsetLimitReachedException {
 		fInsideIncludeDirective= false;
+		if (fLexed != null) {
+			if (fLexedToken >= 0) 
+				return replayDirective();
+			
+			final Token t= lexDirective();
+			if (t.getType() != IToken.tEND_OF_INPUT) {
+				resumeReplay(t);
+			}
+			return t;
+		}
+		return lexDirective();
+	}
+
+	private Token lexDirective() throws OffsetLimitReachedException {
 		final Token t= fToken;
 		boolean haveNL= t==null || t.getType() == tNEWLINE;
 		while (true) {
@@ -342,6 +377,85 @@ final public class Lexer implements ITokenSequence {
 	 * Computes the next token.
 	 */
 	private Token fetchToken() throws OffsetLimitReachedException {
+		if (fLexed != null) {
+			if (fLexedToken >= 0)
+				return replayToken();
+			
+			final Token t= lexToken();
+			if (t.getType() == tNEWLINE) {
+				resumeReplay(t);
+			}
+			return t;
+		}
+		return lexToken();
+	}
+
+	/**
+	 * Returns a new copy of the next token of the lexed file.
+	 */
+	private Token replayToken() {
+		final int i= fLexedToken;
+		replayEvents(i);
+		if (i < fLexed.getTokenCount() - 1) {
+			// stay at end of input
+			fLexedToken= i + 1;
+		}
+		return fLexed.createToken(i, fSource);
+	}
+
+	/**
+	 * Advances to the next pound token of the lexed file that starts a directive.
+	 */
+	private Token replayDirective() {
+		final LexedFile lexed= fLexed;
+		final int last= lexed.getTokenCount() - 1;
+		boolean haveNL= fToken.getType() == tNEWLINE;
+		int i= fLexedToken;
+		for (; i < last; i++) {
+			final int type= lexed.getTokenType(i);
+			if (haveNL && type == IToken.tPOUND)
+				break;
+			haveNL= type == tNEWLINE;
+		}
+		replayEvents(i);
+		fToken= lexed.createToken(i, fSource);
+		if (i < last) {
+			fLastToken= new Token(tNEWLINE, fSource, 0, fToken.getOffset()); // offset not significant
+			fLexedToken= i + 1;
+		} else {
+			fLastToken= fToken;
+		}
+		return fToken;
+	}
+
+	/**
+	 * Reports the comments and problems of the lexed file that precede the given token.
+	 */
+	private void replayEvents(int token) {
+		final LexedFile lexed= fLexed;
+		final int count= lexed.getEventCount();
+		int e= fLexedEvent;
+		while (e < count && lexed.getEventToken(e) <= token) {
+			lexed.replayEvent(e++, fLog);
+		}
+		fLexedEvent= e;
+	}
+
+	/**
+	 * Continues replaying after a token that has been lexed from the characters. Lexing the 
+	 * characters continues when the token is not part of the lexed file. 
+	 */
+	private void resumeReplay(Token t) {
+		final int i= fLexed.findToken(t.getType(), t.getOffset());
+		if (i < 0) {
+			fLexed= null;
+		} else {
+			fLexedToken= i + 1;
+			fLexedEvent= fLexed.findEventAfter(i);
+		}
+	}
+
+	private Token lexToken() throws OffsetLimitReachedException {
 		while (true) {
 			final int start= fOffset;
 			final int c= fCharPhase3;
@@ -31,7 +31,14 @@ class LocationCtxContainer extends LocationCtx {
 	 */
 	private int fChildSequenceLength;
 
-	private ArrayList<LocationCtx> fChildren;
+	private LocationCtx[] fChildren;
+	private int fChildCount;
+	/**
+	 * The sequence numbers of the children and the ones of the characters replaced by them,
+	 * allows for searching a child without accessing the child objects.
+	 */
+	private int[] fChildSequenceNumbers;
+	private int[] fChildReplacedSequenceNumbers;
 	private AbstractCharArray fSource;
 	private int[] fLineOffsets;
 	
@@ -42,17 +49,36 @@ class LocationCtxContainer extends LocationCtx {
 	
 	@Override
 	public Collection<LocationCtx> getChildren() {
-		if (fChildren == null) {
+		if (fChildCount == 0) {
 			return Collections.emptyList();
 		}
-		return fChildren;
+		return Arrays.asList(fChildren).subList(0, fChildCount);
 	}
 
 	public void addChild(LocationCtx locationCtx) {
 		if (fChildren == null) {
-			fChildren= new ArrayList<LocationCtx>();
+			fChildren= new LocationCtx[4];
+			fChildSequenceNumbers= new int[4];
+			fChildReplacedSequenceNumbers= new int[4];
+		} else if (fChildCount == fChildren.length) {
+			final int newLength= fChildCount * 2;
+			LocationCtx[] children= new LocationCtx[newLength];
+			System.arraycopy(fChildren, 0, children, 0, fChildCount);
+			fChildren= children;
+			fChildSequenceNumbers= grow(fChildSequenceNumbers, newLength);
+			fChildReplacedSequenceNumbers= grow(fChildReplacedSequenceNumbers, newLength);
 		}
-		fChildren.add(locationCtx);
+		fChildren[fChildCount]= locationCtx;
+		fChildSequenceNumbers[fChildCount]= locationCtx.fSequenceNumber;
+		fChildReplacedSequenceNumbers[fChildCount]= 
+			locationCtx.fSequenceNumber - (locationCtx.fEndOffsetInParent - locationCtx.fOffsetInParent);
+		fChildCount++;
+	}
+
+	private static int[] grow(int[] array, int length) {
+		int[] result= new int[length];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
 	}
 
 	public char[] getSource(int offset, int length) {
@@ -72,9 +98,9 @@ class LocationCtxContainer extends LocationCtx {
 	@Override
 	public final int getSequenceNumberForOffset(int offset, boolean checkChildren) {
 		int result= fSequenceNumber + fChildSequenceLength + offset;
-		if (checkChildren && fChildren != null) {
-			for (int i= fChildren.size()-1; i >= 0; i--) {
-				final LocationCtx child= fChildren.get(i);
+		if (checkChildren) {
+			for (int i= fChildCount-1; i >= 0; i--) {
+				final LocationCtx child= fChildren[i];
 				if (child.fEndOffsetInParent > offset) {	// child was inserted behind the offset, adjust sequence number
 					result-= child.getSequenceLength();
 				}
@@ -140,10 +166,10 @@ class LocationCtxContainer extends LocationCtx {
 	@Override
 	public boolean collectLocations(int sequenceNumber, final int length, ArrayList<IASTNodeLocation> locations) {
 		final int endSequenceNumber= sequenceNumber+length;
-		if (fChildren != null) {
+		if (fChildCount > 0) {
 			int childIdx= Math.max(0, findChildIdxLessOrEqualThan(sequenceNumber, false));
-			for (; childIdx < fChildren.size(); childIdx++) {
-				final LocationCtx child= fChildren.get(childIdx);
+			for (; childIdx < fChildCount; childIdx++) {
+				final LocationCtx child= fChildren[childIdx];
 
 				// create the location between start and the child
 				if (sequenceNumber < child.fSequenceNumber) {
@@ -194,19 +220,12 @@ class LocationCtxContainer extends LocationCtx {
 	}
 
 	final int findChildIdxLessOrEqualThan(int sequenceNumber, boolean beforeReplacedChars) {
-		if (fChildren == null) {
-			return -1;
-		}
-		int upper= fChildren.size();
+		final int[] childSequenceNumbers= beforeReplacedChars ? fChildReplacedSequenceNumbers : fChildSequenceNumbers;
+		int upper= fChildCount;
 		int lower= 0;
 		while (upper > lower) {
 			int middle= (upper+lower)/2;
-			LocationCtx child= fChildren.get(middle);
-			int childSequenceNumber= child.fSequenceNumber;
-			if (beforeReplacedChars) {
-				childSequenceNumber-= child.fEndOffsetInParent-child.fOffsetInParent; 
-			}
-			if (childSequenceNumber <= sequenceNumber) {
+			if (childSequenceNumbers[middle] <= sequenceNumber) {
 				lower= middle+1;
 			}
 			else {
@@ -218,19 +237,18 @@ class LocationCtxContainer extends LocationCtx {
 
 	final LocationCtx findChildLessOrEqualThan(final int sequenceNumber, boolean beforeReplacedChars) {
 		final int idx= findChildIdxLessOrEqualThan(sequenceNumber, beforeReplacedChars);
-		return idx >= 0 ? fChildren.get(idx) : null;
+		return idx >= 0 ? fChildren[idx] : null;
 	}
 
 	@Override
 	public void getInclusions(ArrayList<IASTInclusionNode> result) {
-		if (fChildren != null) {
-			for (LocationCtx ctx : fChildren) {
-				if (ctx.getInclusionStatement() != null) {
-					result.add(new ASTInclusionNode(ctx));
-				}
-				else {
-					ctx.getInclusions(result);
-				}
+		for (int i= 0; i < fChildCount; i++) {
+			final LocationCtx ctx= fChildren[i];
+			if (ctx.getInclusionStatement() != null) {
+				result.add(new ASTInclusionNode(ctx));
+			}
+			else {
+				ctx.getInclusions(result);
 			}
 		}
 	}
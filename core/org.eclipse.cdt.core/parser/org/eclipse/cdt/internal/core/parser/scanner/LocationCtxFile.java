@@ -119,7 +119,7 @@ class LocationCtxFile extends LocationCtxContainer {
 			if (ctx instanceof LocationCtxMacroExpansion) {
 				// expansion must end after the search start
 				if (ctx.fEndOffsetInParent > offset) {
-					list.add((IASTPreprocessorMacroExpansion) ((LocationCtxMacroExpansion)ctx).getMacroReference().getParent());
+					list.add(((LocationCtxMacroExpansion) ctx).getExpansion());
 				}
 			}
 		}
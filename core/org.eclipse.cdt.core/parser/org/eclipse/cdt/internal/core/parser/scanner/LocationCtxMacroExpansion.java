@@ -15,7 +15,6 @@ import java.util.ArrayList;
 import org.eclipse.cdt.core.dom.ast.IASTImageLocation;
 import org.eclipse.cdt.core.dom.ast.IASTNodeLocation;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroDefinition;
-import org.eclipse.cdt.core.dom.ast.IMacroBinding;
 
 /**
  * A location context representing macro expansions.
@@ -25,18 +24,21 @@ class LocationCtxMacroExpansion extends LocationCtx {
 	private final LocationMap fLocationMap;
 	private final int fLength;
 	private final ImageLocationInfo[] fLocationInfos;
-	private ASTMacroReferenceName fExpansionName;
+	/**
+	 * Index of the expansion in the location map, the AST nodes for it are created on demand.
+	 */
+	private final int fIndex;
 
+	/**
+	 * @param imageLocations the image-locations for the context, or <code>null</code> if there are none.
+	 */
 	public LocationCtxMacroExpansion(LocationMap map, LocationCtxContainer parent, int parentOffset, int parentEndOffset,
-			int sequenceNumber, int length, ImageLocationInfo[] imageLocations,	ASTMacroReferenceName expansionName) {
+			int sequenceNumber, int length, ImageLocationInfo[] imageLocations, int index) {
 		super(parent, parentOffset, parentEndOffset, sequenceNumber);
 		fLocationMap= map;
 		fLength= length;
 		fLocationInfos= imageLocations;
-		fExpansionName= expansionName;
-		if (expansionName.getParent() instanceof ASTMacroExpansion == false) {
-			throw new IllegalArgumentException(expansionName.toString() + " is not a macro expansion name"); //$NON-NLS-1$
-		}
+		fIndex= index;
 	}
 
 	@Override
@@ -59,15 +61,15 @@ class LocationCtxMacroExpansion extends LocationCtx {
 	}	
 	
 	public ASTMacroExpansion getExpansion() {
-		return (ASTMacroExpansion) fExpansionName.getParent();
+		return fLocationMap.getMacroExpansion(fIndex);
 	}
 	
 	public ASTMacroReferenceName getMacroReference() {
-		return fExpansionName;
+		return getExpansion().getMacroReference();
 	}
 	
 	public IASTPreprocessorMacroDefinition getMacroDefinition() {
-		return fLocationMap.getMacroDefinition((IMacroBinding) fExpansionName.getBinding());
+		return fLocationMap.getMacroDefinition(fLocationMap.getMacroExpansionBinding(fIndex));
 	}
 	
 	@Override
@@ -76,7 +78,7 @@ class LocationCtxMacroExpansion extends LocationCtx {
 	}
 
 	public IASTImageLocation getImageLocation(int offset, int length) {
-		if (length == 0) {
+		if (length == 0 || fLocationInfos == null) {
 			return null;
 		}
 		final int end= offset+length;
@@ -106,7 +108,7 @@ class LocationCtxMacroExpansion extends LocationCtx {
 	}
 
 	public ASTPreprocessorName[] getNestedMacroReferences() {
-		return fLocationMap.getNestedMacroReferences((ASTMacroExpansion) fExpansionName.getParent());
+		return fLocationMap.getNestedMacroReferences(fIndex);
 	}
 }
 
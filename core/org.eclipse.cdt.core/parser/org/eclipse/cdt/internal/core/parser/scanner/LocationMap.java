@@ -11,6 +11,7 @@
 package org.eclipse.cdt.internal.core.parser.scanner;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -20,7 +21,6 @@ import org.eclipse.cdt.core.dom.ast.IASTComment;
 import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
 import org.eclipse.cdt.core.dom.ast.IASTImageLocation;
 import org.eclipse.cdt.core.dom.ast.IASTName;
-import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTNodeLocation;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorIncludeStatement;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroDefinition;
@@ -52,11 +52,17 @@ public class LocationMap implements ILocationResolver {
     private ArrayList<ASTProblem> fProblems= new ArrayList<ASTProblem>();
     private ArrayList<ASTComment> fComments= new ArrayList<ASTComment>();
     private ArrayList<ASTMacroDefinition> fBuiltinMacros= new ArrayList<ASTMacroDefinition>();
+	// references in directives, the ones created by macro expansions are stored in fMacroExpansions.
 	private ArrayList<ASTPreprocessorName> fMacroReferences= new ArrayList<ASTPreprocessorName>();
+	private MacroExpansionTable fMacroExpansions= new MacroExpansionTable();
 	
     private LocationCtxFile fRootContext= null;
     private LocationCtx fCurrentContext= null;
 	private int fLastChildInsertionOffset;
+	private HashMap<String, char[]> fIncludeGuards= new HashMap<String, char[]>();
+	// Counted by the single thread that parses the translation unit, the indexer sums up the
+	// counts of the translation units on the thread writing to the index.
+	private int fIncludeGuardSkipCount;
 
 	// stuff computed on demand
 	private IdentityHashMap<IBinding, IASTPreprocessorMacroDefinition> fMacroDefinitionMap= null;
@@ -178,18 +184,16 @@ public class LocationMap implements ILocationResolver {
 		int endNumber= getSequenceNumberForOffset(endOffset);
 		final int length= endNumber-nameNumber;
 		
-		ASTMacroExpansion expansion= new ASTMacroExpansion(fTranslationUnit, nameNumber, endNumber);
-		ASTMacroReferenceName explicitRef= new ASTMacroReferenceName(expansion, IASTPreprocessorMacroExpansion.EXPANSION_NAME, nameNumber, nameEndNumber, macro, null);
-		addMacroReference(explicitRef);
 		for (IASTName implicitMacroReference : implicitMacroReferences) {
 			ASTMacroReferenceName name = (ASTMacroReferenceName) implicitMacroReference;
-			name.setParent(expansion);
 			name.setOffsetAndLength(nameNumber, length);
-			addMacroReference(name);
 		}
-		
-		LocationCtxMacroExpansion expansionCtx= new LocationCtxMacroExpansion(this, (LocationCtxContainer) fCurrentContext, nameOffset, endOffset, endNumber, contextLength, imageLocations, explicitRef);
-		expansion.setContext(expansionCtx);
+		// The AST nodes for the expansion are created on demand, see getMacroExpansion(int).
+		final int index= fMacroExpansions.add(nameNumber, nameEndNumber, endNumber, macro,
+				implicitMacroReferences.length == 0 ? null : implicitMacroReferences);
+		LocationCtxMacroExpansion expansionCtx= new LocationCtxMacroExpansion(this, (LocationCtxContainer) fCurrentContext, nameOffset, endOffset, endNumber, contextLength, 
+				imageLocations.length == 0 ? null : imageLocations, index);
+		fMacroExpansions.setContext(index, expansionCtx);
 		fCurrentContext= expansionCtx;
 		fLastChildInsertionOffset= 0;
 		return fCurrentContext;
@@ -507,36 +511,37 @@ public class LocationMap implements ILocationResolver {
 			directive.findNode(nodeSpec);
 		}
 		
-		// check macro references and expansions
-		from= findLastMacroReferenceBefore(fMacroReferences, sequenceStart);
+		// check macro references in directives
+		from= findLastNodeBefore(fMacroReferences, sequenceStart);
 		for (int i= from+1; i < fMacroReferences.size(); i++) {
 			ASTPreprocessorNode macroRef= fMacroReferences.get(i);
 			if (macroRef.getOffset() > sequenceEnd) {
 				break;
 			}
-			if (macroRef.getPropertyInParent() == IASTPreprocessorMacroExpansion.NESTED_EXPANSION_NAME) {
-				continue;
-			}
 			nodeSpec.visit(macroRef);
-			IASTNode parent= macroRef.getParent();
-			if (parent instanceof ASTMacroExpansion) {
-				ASTMacroExpansion expansion= (ASTMacroExpansion) parent;
-				assert expansion.getMacroReference() == macroRef;
-
-				if (nodeSpec.canContainMatches(expansion)) {
-					nodeSpec.visit(expansion);
-					if (!nodeSpec.requiresClass(IASTPreprocessorMacroExpansion.class)) {
-						LocationCtxMacroExpansion ctx= expansion.getContext();
-						if (fTranslationUnit != null) {
-							FindNodeByImageLocation visitor= new FindNodeByImageLocation(ctx.fSequenceNumber, ctx.getSequenceLength(), nodeSpec);
-							fTranslationUnit.accept(visitor);
-						}
-						ASTPreprocessorName[] nestedMacros= expansion.getNestedMacroReferences();
-						for (ASTPreprocessorName nested : nestedMacros) {
-							IASTImageLocation imgLoc= nested.getImageLocation();
-							if (imgLoc != null && imgLoc.getLocationKind() == IASTImageLocation.ARGUMENT_TO_MACRO_EXPANSION) {
-								nodeSpec.visit(nested, imgLoc);
-							}
+		}
+
+		// check macro expansions, only the ones in the range are created.
+		final int count= fMacroExpansions.getCount();
+		for (int i= fMacroExpansions.findLastEndingBefore(sequenceStart)+1; i < count; i++) {
+			if (fMacroExpansions.getNameNumber(i) > sequenceEnd) {
+				break;
+			}
+			ASTMacroExpansion expansion= getMacroExpansion(i);
+			nodeSpec.visit(expansion.getMacroReference());
+			if (nodeSpec.canContainMatches(expansion)) {
+				nodeSpec.visit(expansion);
+				if (!nodeSpec.requiresClass(IASTPreprocessorMacroExpansion.class)) {
+					LocationCtxMacroExpansion ctx= expansion.getContext();
+					if (fTranslationUnit != null) {
+						FindNodeByImageLocation visitor= new FindNodeByImageLocation(ctx.fSequenceNumber, ctx.getSequenceLength(), nodeSpec);
+						fTranslationUnit.accept(visitor);
+					}
+					ASTPreprocessorName[] nestedMacros= expansion.getNestedMacroReferences();
+					for (ASTPreprocessorName nested : nestedMacros) {
+						IASTImageLocation imgLoc= nested.getImageLocation();
+						if (imgLoc != null && imgLoc.getLocationKind() == IASTImageLocation.ARGUMENT_TO_MACRO_EXPANSION) {
+							nodeSpec.visit(nested, imgLoc);
 						}
 					}
 				}
@@ -560,26 +565,6 @@ public class LocationMap implements ILocationResolver {
     	return lower;
 	}
 
-    private int findLastMacroReferenceBefore(ArrayList<? extends ASTPreprocessorName> nodes, int sequenceStart) {
-    	int lower=-1;
-    	int upper= nodes.size()-1;
-    	while(lower < upper) {
-    		int middle= (lower+upper+1)/2;
-    		ASTPreprocessorNode candidate= nodes.get(middle);
-    		IASTNode parent= candidate.getParent();
-    		if (parent instanceof ASTMacroExpansion) {
-    			candidate= (ASTMacroExpansion) parent;
-    		}
-    		if (candidate.getOffset() + candidate.getLength() >= sequenceStart) {
-    			upper= middle-1;
-    		}
-    		else {
-    			lower= middle;
-    		}
-    	}
-    	return lower;
-	}
-
 	public int getSequenceNumberForFileOffset(String filePath, int fileOffset) {
 		LocationCtx ctx= fRootContext;
 		if (filePath != null) {
@@ -666,6 +651,33 @@ public class LocationMap implements ILocationResolver {
 	public int getScannerProblemsCount() {
 		return fProblems.size();
 	}	
+
+	/**
+	 * Reports the include guard detected while processing a file, or <code>null</code> if the
+	 * file is not guarded.
+	 */
+	public void encounterIncludeGuard(String filePath, char[] guard) {
+		if (guard == null) {
+			fIncludeGuards.remove(filePath);
+		} else {
+			fIncludeGuards.put(filePath, guard);
+		}
+	}
+
+	/**
+	 * Reports an inclusion that was skipped without reading the file, because of its include guard.
+	 */
+	public void skippedByIncludeGuard() {
+		fIncludeGuardSkipCount++;
+	}
+
+	public char[] getIncludeGuard(String filePath) {
+		return fIncludeGuards.get(filePath);
+	}
+
+	public int getIncludeGuardSkipCount() {
+		return fIncludeGuardSkipCount;
+	}
 	
 	public IASTName[] getDeclarations(IMacroBinding binding) {
 		IASTPreprocessorMacroDefinition def = getMacroDefinition(binding);
@@ -694,28 +706,83 @@ public class LocationMap implements ILocationResolver {
 	}
 
 	public IASTName[] getReferences(IMacroBinding binding) {
+		return collectMacroReferences(binding);
+	}
+	
+	public IASTName[] getMacroReferences() {
+		return collectMacroReferences(null);
+	}
+
+	/**
+	 * Returns the references to the given macro in the order of their sequence numbers, or all
+	 * references if the binding is <code>null</code>. Creates the AST nodes for the expansions
+	 * that contain a reference.
+	 */
+	private IASTName[] collectMacroReferences(IMacroBinding binding) {
 		List<IASTName> result= new ArrayList<IASTName>();
-		for (IASTName name : fMacroReferences) {
-			if (name.getBinding() == binding) {
-				result.add(name);
+		final int count= fMacroExpansions.getCount();
+		int j= 0;
+		for (int i= 0; i <= count; i++) {
+			final int nameNumber= i < count ? fMacroExpansions.getNameNumber(i) : Integer.MAX_VALUE;
+			for (; j < fMacroReferences.size() && fMacroReferences.get(j).getOffset() <= nameNumber; j++) {
+				final IASTName name= fMacroReferences.get(j);
+				if (binding == null || name.getBinding() == binding) {
+					result.add(name);
+				}
+			}
+			if (i < count) {
+				if (binding == null || fMacroExpansions.getMacro(i) == binding) {
+					result.add(getMacroExpansion(i).getMacroReference());
+				}
+				final IASTName[] nested= fMacroExpansions.getNestedReferences(i);
+				if (nested != null) {
+					for (IASTName name : nested) {
+						if (binding == null || name.getBinding() == binding) {
+							getMacroExpansion(i);
+							result.add(name);
+						}
+					}
+				}
 			}
 		}
 		return result.toArray(new IASTName[result.size()]);
 	}
-	
-	public IASTName[] getMacroReferences() {
-		return fMacroReferences.toArray(new IASTName[fMacroReferences.size()]);
-	}
 
-	public ASTPreprocessorName[] getNestedMacroReferences(ASTMacroExpansion expansion) {
-		final IASTName explicitRef= expansion.getMacroReference(); 
-		List<ASTPreprocessorName> result= new ArrayList<ASTPreprocessorName>();
-		for (ASTPreprocessorName name : fMacroReferences) {
-			if (name.getParent() == expansion && name != explicitRef) {
-				result.add(name);
+	/**
+	 * Returns the AST node for the macro expansion with the given index, creates it on first access.
+	 */
+	ASTMacroExpansion getMacroExpansion(int index) {
+		ASTMacroExpansion expansion= fMacroExpansions.getNode(index);
+		if (expansion == null) {
+			final int nameNumber= fMacroExpansions.getNameNumber(index);
+			expansion= new ASTMacroExpansion(fTranslationUnit, nameNumber, fMacroExpansions.getEndNumber(index));
+			expansion.setContext(fMacroExpansions.getContext(index));
+			expansion.setMacroReference(new ASTMacroReferenceName(expansion, IASTPreprocessorMacroExpansion.EXPANSION_NAME,
+					nameNumber, fMacroExpansions.getNameEndNumber(index), fMacroExpansions.getMacro(index), null));
+			final IASTName[] nested= fMacroExpansions.getNestedReferences(index);
+			if (nested != null) {
+				for (IASTName name : nested) {
+					((ASTMacroReferenceName) name).setParent(expansion);
+				}
 			}
+			fMacroExpansions.setNode(index, expansion);
+		}
+		return expansion;
+	}
+
+	IMacroBinding getMacroExpansionBinding(int index) {
+		return fMacroExpansions.getMacro(index);
+	}
+
+	ASTPreprocessorName[] getNestedMacroReferences(int index) {
+		final IASTName[] nested= fMacroExpansions.getNestedReferences(index);
+		if (nested == null) {
+			return new ASTPreprocessorName[0];
 		}
-		return result.toArray(new ASTPreprocessorName[result.size()]);
+		getMacroExpansion(index);
+		ASTPreprocessorName[] result= new ASTPreprocessorName[nested.length];
+		System.arraycopy(nested, 0, result, 0, nested.length);
+		return result;
 	}
 
 	public IDependencyTree getDependencyTree() {
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the names of macros to their definitions. Every identifier of a translation unit is looked
+ * up in the dictionary, therefore it uses open addressing on parallel arrays of names, their hash
+ * codes and the macros. Lookups do not allocate key objects and compare the characters of a name
+ * only when the hash codes match. The dictionary is public for testing, only.
+ */
+public final class MacroDictionary<M> {
+	private char[][] fNames;
+	private int[] fHashes;
+	private Object[] fMacros;
+	private int fSize;
+
+	/**
+	 * @param expectedSize the number of macros that can be stored without resizing the dictionary.
+	 */
+	public MacroDictionary(int expectedSize) {
+		int capacity= 8;
+		while (capacity >> 1 < expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	public int size() {
+		return fSize;
+	}
+
+	public M get(char[] name) {
+		return get(name, 0, name.length);
+	}
+
+	/**
+	 * Returns the macro for the name stored in the given section of the buffer, or <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public M get(char[] buffer, int offset, int length) {
+		final int index= find(buffer, offset, length, hash(buffer, offset, length));
+		return index < 0 ? null : (M) fMacros[index];
+	}
+
+	/**
+	 * Stores a macro for the given name, returns the macro previously stored for the name or
+	 * <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public M put(char[] name, M macro) {
+		final int hash= hash(name, 0, name.length);
+		final int mask= fNames.length - 1;
+		int i= hash & mask;
+		for (; fNames[i] != null; i= (i + 1) & mask) {
+			if (fHashes[i] == hash && equals(fNames[i], name, 0, name.length)) {
+				M old= (M) fMacros[i];
+				fMacros[i]= macro;
+				return old;
+			}
+		}
+		fNames[i]= name;
+		fHashes[i]= hash;
+		fMacros[i]= macro;
+		if (++fSize > fNames.length >> 1) {
+			rehash(fNames.length << 1);
+		}
+		return null;
+	}
+
+	public M remove(char[] name) {
+		return remove(name, 0, name.length);
+	}
+
+	/**
+	 * Removes the macro for the name stored in the given section of the buffer and returns it,
+	 * or <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public M remove(char[] buffer, int offset, int length) {
+		final int index= find(buffer, offset, length, hash(buffer, offset, length));
+		if (index < 0)
+			return null;
+
+		final M old= (M) fMacros[index];
+		fNames[index]= null;
+		fMacros[index]= null;
+		fSize--;
+		closeGap(index);
+		return old;
+	}
+
+	/**
+	 * Returns the names of the stored macros, in no particular order.
+	 */
+	public List<char[]> keys() {
+		List<char[]> result= new ArrayList<char[]>(fSize);
+		for (char[] name : fNames) {
+			if (name != null) {
+				result.add(name);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the stored macros, in no particular order.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<M> values() {
+		List<M> result= new ArrayList<M>(fSize);
+		for (int i = 0; i < fNames.length; i++) {
+			if (fNames[i] != null) {
+				result.add((M) fMacros[i]);
+			}
+		}
+		return result;
+	}
+
+	private int find(char[] buffer, int offset, int length, int hash) {
+		final int mask= fNames.length - 1;
+		for (int i= hash & mask; ; i= (i + 1) & mask) {
+			final char[] name= fNames[i];
+			if (name == null)
+				return -1;
+			if (fHashes[i] == hash && equals(name, buffer, offset, length))
+				return i;
+		}
+	}
+
+	private void closeGap(int gap) {
+		final int mask= fNames.length - 1;
+		for (int i= (gap + 1) & mask; fNames[i] != null; i= (i + 1) & mask) {
+			final int home= fHashes[i] & mask;
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				fNames[gap]= fNames[i];
+				fHashes[gap]= fHashes[i];
+				fMacros[gap]= fMacros[i];
+				fNames[i]= null;
+				fMacros[i]= null;
+				gap= i;
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		final char[][] names= fNames;
+		final int[] hashes= fHashes;
+		final Object[] macros= fMacros;
+		allocate(capacity);
+		final int mask= capacity - 1;
+		for (int j = 0; j < names.length; j++) {
+			if (names[j] != null) {
+				int i= hashes[j] & mask;
+				while (fNames[i] != null) {
+					i= (i + 1) & mask;
+				}
+				fNames[i]= names[j];
+				fHashes[i]= hashes[j];
+				fMacros[i]= macros[j];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		fNames= new char[capacity][];
+		fHashes= new int[capacity];
+		fMacros= new Object[capacity];
+	}
+
+	private static int hash(char[] buffer, int offset, int length) {
+		int h= 0;
+		final int end= offset + length;
+		for (int i = offset; i < end; i++) {
+			h= 31 * h + buffer[i];
+		}
+		h*= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equals(char[] name, char[] buffer, int offset, int length) {
+		if (name.length != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (name[i] != buffer[offset + i])
+				return false;
+		}
+		return true;
+	}
+}
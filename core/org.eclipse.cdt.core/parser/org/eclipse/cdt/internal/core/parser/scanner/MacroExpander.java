@@ -20,7 +20,6 @@ import org.eclipse.cdt.core.parser.IProblem;
 import org.eclipse.cdt.core.parser.IToken;
 import org.eclipse.cdt.core.parser.Keywords;
 import org.eclipse.cdt.core.parser.OffsetLimitReachedException;
-import org.eclipse.cdt.core.parser.util.CharArrayMap;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 import org.eclipse.cdt.internal.core.parser.scanner.ImageLocationInfo.MacroImageLocationInfo;
 import org.eclipse.cdt.internal.core.parser.scanner.ImageLocationInfo.ParameterImageLocationInfo;
@@ -123,7 +122,7 @@ public class MacroExpander {
 
 	private final ILexerLog fLog;
 	private final MacroDefinitionParser fDefinitionParser;
-	private final CharArrayMap<PreprocessorMacro> fDictionary;
+	private final MacroDictionary<PreprocessorMacro> fDictionary;
 	private final LocationMap fLocationMap;
 	private final LexerOptions fLexOptions;
 	private ArrayList<IASTName> fImplicitMacroExpansions= new ArrayList<IASTName>();
@@ -137,7 +136,7 @@ public class MacroExpander {
 	private int fFixedLineNumber;
 	private char[] fFixedInput;
 	
-	public MacroExpander(ILexerLog log, CharArrayMap<PreprocessorMacro> macroDictionary, LocationMap locationMap, LexerOptions lexOptions) {
+	public MacroExpander(ILexerLog log, MacroDictionary<PreprocessorMacro> macroDictionary, LocationMap locationMap, LexerOptions lexOptions) {
 		fDictionary= macroDictionary;
 		fLocationMap= locationMap;
 		fDefinitionParser= new MacroDefinitionParser();
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+
+/**
+ * Stores the macro expansions of a translation unit in columns of arrays, ordered by sequence
+ * number. The AST nodes for an expansion are created by the {@link LocationMap} when they are
+ * requested, such that translation units with many expansions do not pay for nodes nobody looks at.
+ */
+final class MacroExpansionTable {
+	private static final int INITIAL_CAPACITY= 64;
+
+	private int fCount;
+	private int[] fNameNumbers= new int[INITIAL_CAPACITY];
+	private int[] fNameEndNumbers= new int[INITIAL_CAPACITY];
+	private int[] fEndNumbers= new int[INITIAL_CAPACITY];
+	private IMacroBinding[] fMacros= new IMacroBinding[INITIAL_CAPACITY];
+	private IASTName[][] fNestedReferences= new IASTName[INITIAL_CAPACITY][];
+	private LocationCtxMacroExpansion[] fContexts= new LocationCtxMacroExpansion[INITIAL_CAPACITY];
+	private ASTMacroExpansion[] fNodes= new ASTMacroExpansion[INITIAL_CAPACITY];
+
+	/**
+	 * Adds an expansion and returns its index.
+	 * @param nestedReferences the implicit macro references of the expansion, or <code>null</code>.
+	 */
+	public int add(int nameNumber, int nameEndNumber, int endNumber, IMacroBinding macro,
+			IASTName[] nestedReferences) {
+		if (fCount == fNameNumbers.length) {
+			grow(fCount * 2);
+		}
+		final int index= fCount++;
+		fNameNumbers[index]= nameNumber;
+		fNameEndNumbers[index]= nameEndNumber;
+		fEndNumbers[index]= endNumber;
+		fMacros[index]= macro;
+		fNestedReferences[index]= nestedReferences;
+		return index;
+	}
+
+	public void setContext(int index, LocationCtxMacroExpansion ctx) {
+		fContexts[index]= ctx;
+	}
+
+	public int getCount() {
+		return fCount;
+	}
+
+	public int getNameNumber(int index) {
+		return fNameNumbers[index];
+	}
+
+	public int getNameEndNumber(int index) {
+		return fNameEndNumbers[index];
+	}
+
+	public int getEndNumber(int index) {
+		return fEndNumbers[index];
+	}
+
+	public IMacroBinding getMacro(int index) {
+		return fMacros[index];
+	}
+
+	/**
+	 * Returns the implicit macro references of the expansion, or <code>null</code> if there are none.
+	 */
+	public IASTName[] getNestedReferences(int index) {
+		return fNestedReferences[index];
+	}
+
+	public LocationCtxMacroExpansion getContext(int index) {
+		return fContexts[index];
+	}
+
+	/**
+	 * Returns the AST node of the expansion, or <code>null</code> if it has not been created, yet.
+	 */
+	public ASTMacroExpansion getNode(int index) {
+		return fNodes[index];
+	}
+
+	public void setNode(int index, ASTMacroExpansion node) {
+		fNodes[index]= node;
+	}
+
+	/**
+	 * Returns the index of the last expansion that ends before the given sequence number, or
+	 * <code>-1</code>.
+	 */
+	public int findLastEndingBefore(int sequenceNumber) {
+		int lower= -1;
+		int upper= fCount - 1;
+		while (lower < upper) {
+			final int middle= (lower + upper + 1) >>> 1;
+			if (fEndNumbers[middle] >= sequenceNumber) {
+				upper= middle - 1;
+			} else {
+				lower= middle;
+			}
+		}
+		return lower;
+	}
+
+	private void grow(int capacity) {
+		fNameNumbers= grow(fNameNumbers, capacity);
+		fNameEndNumbers= grow(fNameEndNumbers, capacity);
+		fEndNumbers= grow(fEndNumbers, capacity);
+
+		IMacroBinding[] macros= new IMacroBinding[capacity];
+		System.arraycopy(fMacros, 0, macros, 0, fCount);
+		fMacros= macros;
+
+		IASTName[][] nestedReferences= new IASTName[capacity][];
+		System.arraycopy(fNestedReferences, 0, nestedReferences, 0, fCount);
+		fNestedReferences= nestedReferences;
+
+		LocationCtxMacroExpansion[] contexts= new LocationCtxMacroExpansion[capacity];
+		System.arraycopy(fContexts, 0, contexts, 0, fCount);
+		fContexts= contexts;
+
+		ASTMacroExpansion[] nodes= new ASTMacroExpansion[capacity];
+		System.arraycopy(fNodes, 0, nodes, 0, fCount);
+		fNodes= nodes;
+	}
+
+	private static int[] grow(int[] array, int capacity) {
+		int[] result= new int[capacity];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+}
@@ -22,6 +22,7 @@ import org.eclipse.cdt.core.parser.OffsetLimitReachedException;
 final class ScannerContext {
 	enum BranchKind {eIf, eElif, eElse, eEnd}
 	enum CodeState {eActive, eParseInactive, eSkipInactive}
+	enum GuardState {eStart, eInside, eClosed, eNone}
 	final static class Conditional {
 		private CodeState fInitialState;
 		private BranchKind fLast;
@@ -44,6 +45,10 @@ final class ScannerContext {
 	private CodeState fCurrentState= CodeState.eActive;
 	private IncludeSearchPathElement fFoundOnPath;
 	private String fFoundViaDirective;
+	private GuardState fGuardState= null;
+	private char[] fGuardMacro;
+	private int fGuardDepth;
+	private boolean fPragmaOnce;
 
 	/**
 	 * @param ctx 
@@ -290,4 +295,88 @@ final class ScannerContext {
 		fFoundOnPath= foundOnPath;
 		fFoundViaDirective= viaDirective;
 	}
+
+	/**
+	 * Starts detecting whether the file of this context is protected by an include guard, i.e.
+	 * whether all of its code is enclosed in <code>#ifndef GUARD</code> or
+	 * <code>#if !defined GUARD</code> ... <code>#endif</code>.
+	 */
+	public void startIncludeGuardDetection() {
+		fGuardState= GuardState.eStart;
+	}
+
+	/**
+	 * Returns whether {@link #startIncludeGuardDetection()} has been called for this context.
+	 */
+	public boolean isDetectingIncludeGuard() {
+		return fGuardState != null;
+	}
+
+	/**
+	 * Needs to be called for tokens and directives that are neither part of the conditional
+	 * of the include guard, nor <code>#pragma once</code>.
+	 */
+	public final void guardTokenEncountered() {
+		if (fGuardState == GuardState.eStart || fGuardState == GuardState.eClosed) {
+			fGuardState= GuardState.eNone;
+		}
+	}
+
+	/**
+	 * Needs to be called after a new conditional has been started with {@link #newBranch}.
+	 * @param guardMacro the macro that is tested for being undefined by the condition, or 
+	 * <code>null</code>.
+	 */
+	public void guardIf(char[] guardMacro) {
+		if (fGuardState == GuardState.eStart && guardMacro != null) {
+			fGuardState= GuardState.eInside;
+			fGuardMacro= guardMacro;
+			fGuardDepth= fConditionals.size();
+		} else {
+			guardTokenEncountered();
+		}
+	}
+
+	/**
+	 * Needs to be called after an <code>#elif</code> or <code>#else</code> has been passed 
+	 * to {@link #newBranch}.
+	 */
+	public void guardElse() {
+		if (fGuardState == GuardState.eInside && fConditionals.size() == fGuardDepth) {
+			fGuardState= GuardState.eNone;
+		} else {
+			guardTokenEncountered();
+		}
+	}
+
+	/**
+	 * Needs to be called after an <code>#endif</code> has been passed to {@link #newBranch}.
+	 */
+	public void guardEndif() {
+		if (fGuardState == GuardState.eInside && fConditionals.size() < fGuardDepth) {
+			fGuardState= GuardState.eClosed;
+		} else {
+			guardTokenEncountered();
+		}
+	}
+
+	/**
+	 * Needs to be called for an active <code>#pragma once</code>.
+	 */
+	public void guardPragmaOnce() {
+		fPragmaOnce= true;
+	}
+
+	/**
+	 * Returns the macro guarding the file of this context, {@link CPreprocessor#PRAGMA_ONCE} if
+	 * the file is marked with <code>#pragma once</code>, or <code>null</code>. The result is valid 
+	 * after the context has been processed completely.
+	 */
+	public char[] getIncludeGuard() {
+		if (fPragmaOnce)
+			return CPreprocessor.PRAGMA_ONCE;
+		if (fGuardState == GuardState.eClosed)
+			return fGuardMacro;
+		return null;
+	}
 }
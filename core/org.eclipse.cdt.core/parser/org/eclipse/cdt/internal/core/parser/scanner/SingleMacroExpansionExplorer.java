@@ -17,7 +17,6 @@ import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IBinding;
 import org.eclipse.cdt.core.dom.ast.IMacroBinding;
 import org.eclipse.cdt.core.dom.rewrite.MacroExpansionExplorer;
-import org.eclipse.cdt.core.parser.util.CharArrayMap;
 import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
 import org.eclipse.text.edits.ReplaceEdit;
 
@@ -27,7 +26,7 @@ import org.eclipse.text.edits.ReplaceEdit;
  */
 public class SingleMacroExpansionExplorer extends MacroExpansionExplorer {
 	private final String fInput;
-	private final CharArrayMap<PreprocessorMacro> fDictionary;
+	private final MacroDictionary<PreprocessorMacro> fDictionary;
 	private MacroExpansionStep fFullExpansion;
 	private int fExpansionCount;
 	private final String fFilePath;
@@ -49,15 +48,15 @@ public class SingleMacroExpansionExplorer extends MacroExpansionExplorer {
 		fLexerOptions.fCreateImageLocations= false;
 	}
 
-	private CharArrayMap<PreprocessorMacro> createDictionary(IASTName[] refs) {
-		CharArrayMap<PreprocessorMacro> map= new CharArrayMap<PreprocessorMacro>(refs.length);
+	private MacroDictionary<PreprocessorMacro> createDictionary(IASTName[] refs) {
+		MacroDictionary<PreprocessorMacro> map= new MacroDictionary<PreprocessorMacro>(refs.length);
 		for (IASTName name : refs) {
 			addMacroDefinition(map, name);
 		}
 		return map;
 	}
 
-	private void addMacroDefinition(CharArrayMap<PreprocessorMacro> map, IASTName name) {
+	private void addMacroDefinition(MacroDictionary<PreprocessorMacro> map, IASTName name) {
 		IBinding binding= name.getBinding();
 		if (binding instanceof PreprocessorMacro) {
 			map.put(name.getSimpleID(), (PreprocessorMacro) binding);
@@ -84,31 +84,49 @@ public final class StreamHasher {
 	 * @param chunk Contents of the chunk.
 	 */
 	public void addChunk(char[] chunk) {
-		for (int pos = 0; pos < chunk.length; pos++, hashedOffset++) {
-			char cc = chunk[pos];
-			switch (state++) {
-			case -1:
-				throw new IllegalStateException("addChunk is called after computeHash."); //$NON-NLS-1$
-			case 0:
-			case 2:
-			case 4:
-				previousCharacter = cc;
-				break;
-			case 1:
-				a += previousCharacter | (cc << 16);
-				break;
-			case 3:
-				b += previousCharacter | (cc << 16);
-				break;
-			case 5:
-				c += previousCharacter | (cc << 16);
-				mix();
-				state = 0;
-				break;
-			}
+		for (int pos = 0; pos < chunk.length; pos++) {
+			addCharacter(chunk[pos]);
 		}
 	}
 
+	/**
+	 * Adds a chunk of ASCII encoded data to the hasher. The resulting hash value is the same as
+	 * for the chunk of characters the bytes represent.
+	 * @param chunk Array containing the bytes of the chunk, all of them must be less than 0x80.
+	 * @param offset Offset of the first byte of the chunk.
+	 * @param length Number of bytes in the chunk.
+	 */
+	public void addChunk(byte[] chunk, int offset, int length) {
+		final int end = offset + length;
+		for (int pos = offset; pos < end; pos++) {
+			addCharacter((char) chunk[pos]);
+		}
+	}
+
+	private void addCharacter(char cc) {
+		switch (state++) {
+		case -1:
+			throw new IllegalStateException("addChunk is called after computeHash."); //$NON-NLS-1$
+		case 0:
+		case 2:
+		case 4:
+			previousCharacter = cc;
+			break;
+		case 1:
+			a += previousCharacter | (cc << 16);
+			break;
+		case 3:
+			b += previousCharacter | (cc << 16);
+			break;
+		case 5:
+			c += previousCharacter | (cc << 16);
+			mix();
+			state = 0;
+			break;
+		}
+		hashedOffset++;
+	}
+
 	/**
 	 * Computes and returns the hash value. Must be called once after the last chunk.
 	 * @return The hash value of the character stream.
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Map from int keys to objects, using open addressing with linear probing. Keys and values are
+ * stored in parallel arrays, neither the entries nor the lookups allocate objects.
+ * <code>null</code> cannot be used as a value. The map is not synchronized.
+ */
+public final class IntObjectMap<V> {
+	private int[] fKeys;
+	private Object[] fValues;
+	private int fSize;
+
+	public IntObjectMap() {
+		this(4);
+	}
+
+	/**
+	 * @param expectedSize the number of entries that can be stored without resizing the map.
+	 */
+	public IntObjectMap(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	public int size() {
+		return fSize;
+	}
+
+	public boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	public boolean containsKey(int key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Returns the value stored for the key, or <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		final int mask= fKeys.length - 1;
+		for (int i= hash(key) & mask; ; i= (i + 1) & mask) {
+			final Object value= fValues[i];
+			if (value == null)
+				return null;
+			if (fKeys[i] == key)
+				return (V) value;
+		}
+	}
+
+	/**
+	 * Stores the value for the key and returns the value previously stored, or <code>null</code>.
+	 * @throws NullPointerException if the value is <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (value == null)
+			throw new NullPointerException();
+
+		final int mask= fKeys.length - 1;
+		int i= hash(key) & mask;
+		for (; fValues[i] != null; i= (i + 1) & mask) {
+			if (fKeys[i] == key) {
+				V old= (V) fValues[i];
+				fValues[i]= value;
+				return old;
+			}
+		}
+		fKeys[i]= key;
+		fValues[i]= value;
+		if (++fSize > fKeys.length >> 1) {
+			rehash(fKeys.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the value stored for the key and returns it, or <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		final int mask= fKeys.length - 1;
+		for (int i= hash(key) & mask; fValues[i] != null; i= (i + 1) & mask) {
+			if (fKeys[i] == key) {
+				V old= (V) fValues[i];
+				fValues[i]= null;
+				fSize--;
+				closeGap(i);
+				return old;
+			}
+		}
+		return null;
+	}
+
+	public void clear() {
+		if (fSize > 0) {
+			allocate(capacityFor(0));
+			fSize= 0;
+		}
+	}
+
+	/**
+	 * Returns the keys of the map, in no particular order.
+	 */
+	public int[] keys() {
+		int[] result= new int[fSize];
+		int j= 0;
+		for (int i = 0; i < fValues.length; i++) {
+			if (fValues[i] != null) {
+				result[j++]= fKeys[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a list of the values of the map, in no particular order.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		List<V> result= new ArrayList<V>(fSize);
+		for (Object value : fValues) {
+			if (value != null) {
+				result.add((V) value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Moves the entries following a removed one, such that they can still be found from
+	 * their home slots.
+	 */
+	private void closeGap(int gap) {
+		final int mask= fKeys.length - 1;
+		for (int i= (gap + 1) & mask; fValues[i] != null; i= (i + 1) & mask) {
+			final int home= hash(fKeys[i]) & mask;
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				fKeys[gap]= fKeys[i];
+				fValues[gap]= fValues[i];
+				fValues[i]= null;
+				gap= i;
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		final int[] keys= fKeys;
+		final Object[] values= fValues;
+		allocate(capacity);
+		final int mask= capacity - 1;
+		for (int j = 0; j < values.length; j++) {
+			if (values[j] != null) {
+				int i= hash(keys[j]) & mask;
+				while (fValues[i] != null) {
+					i= (i + 1) & mask;
+				}
+				fKeys[i]= keys[j];
+				fValues[i]= values[j];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		fKeys= new int[capacity];
+		fValues= new Object[capacity];
+	}
+
+	static int capacityFor(int expectedSize) {
+		int capacity= 8;
+		while (capacity >> 1 < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	static int hash(int key) {
+		final int h= key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
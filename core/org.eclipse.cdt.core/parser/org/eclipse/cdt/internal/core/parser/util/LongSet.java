@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.util;
+
+/**
+ * Set of long values, e.g. database records, using open addressing with linear probing.
+ * The values are stored in a single array without boxing them. The set is not synchronized.
+ */
+public final class LongSet {
+	private long[] fValues;
+	private int fSize;
+	// Zero marks the free slots, it is tracked separately.
+	private boolean fContainsZero;
+
+	public LongSet() {
+		this(4);
+	}
+
+	/**
+	 * @param expectedSize the number of values that can be stored without resizing the set.
+	 */
+	public LongSet(int expectedSize) {
+		fValues= new long[IntObjectMap.capacityFor(expectedSize)];
+	}
+
+	public int size() {
+		return fContainsZero ? fSize + 1 : fSize;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public boolean contains(long value) {
+		if (value == 0)
+			return fContainsZero;
+
+		final int mask= fValues.length - 1;
+		for (int i= hash(value) & mask; ; i= (i + 1) & mask) {
+			final long v= fValues[i];
+			if (v == value)
+				return true;
+			if (v == 0)
+				return false;
+		}
+	}
+
+	/**
+	 * Adds the value to the set, returns whether it was not contained before.
+	 */
+	public boolean add(long value) {
+		if (value == 0) {
+			final boolean added= !fContainsZero;
+			fContainsZero= true;
+			return added;
+		}
+
+		final int mask= fValues.length - 1;
+		int i= hash(value) & mask;
+		for (long v; (v= fValues[i]) != 0; i= (i + 1) & mask) {
+			if (v == value)
+				return false;
+		}
+		fValues[i]= value;
+		if (++fSize > fValues.length >> 1) {
+			rehash(fValues.length << 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the value from the set, returns whether it was contained.
+	 */
+	public boolean remove(long value) {
+		if (value == 0) {
+			final boolean removed= fContainsZero;
+			fContainsZero= false;
+			return removed;
+		}
+
+		final int mask= fValues.length - 1;
+		for (int i= hash(value) & mask; fValues[i] != 0; i= (i + 1) & mask) {
+			if (fValues[i] == value) {
+				fValues[i]= 0;
+				fSize--;
+				closeGap(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void clear() {
+		if (size() > 0) {
+			fValues= new long[IntObjectMap.capacityFor(0)];
+			fSize= 0;
+			fContainsZero= false;
+		}
+	}
+
+	/**
+	 * Returns the values of the set, in no particular order.
+	 */
+	public long[] toArray() {
+		long[] result= new long[size()];
+		int j= 0;
+		for (long v : fValues) {
+			if (v != 0) {
+				result[j++]= v;
+			}
+		}
+		// If zero is contained, it is represented by the last element of the result.
+		return result;
+	}
+
+	private void closeGap(int gap) {
+		final int mask= fValues.length - 1;
+		for (int i= (gap + 1) & mask; fValues[i] != 0; i= (i + 1) & mask) {
+			final int home= hash(fValues[i]) & mask;
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				fValues[gap]= fValues[i];
+				fValues[i]= 0;
+				gap= i;
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		final long[] values= fValues;
+		fValues= new long[capacity];
+		final int mask= capacity - 1;
+		for (long v : values) {
+			if (v != 0) {
+				int i= hash(v) & mask;
+				while (fValues[i] != 0) {
+					i= (i + 1) & mask;
+				}
+				fValues[i]= v;
+			}
+		}
+	}
+
+	private static int hash(long value) {
+		return IntObjectMap.hash((int) (value ^ (value >>> 32)));
+	}
+}
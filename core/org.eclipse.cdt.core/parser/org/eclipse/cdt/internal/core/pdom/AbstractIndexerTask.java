@@ -9,6 +9,7 @@
  *     Markus Schorn - initial API and implementation
  *     IBM Corporation
  *     Sergey Prigogin (Google)
+ *     NVIDIA - parallel parsing of sources
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom;
 
@@ -20,24 +21,42 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.IPDOMIndexerTask;
+import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IFunction;
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+import org.eclipse.cdt.core.dom.ast.ITypedef;
+import org.eclipse.cdt.core.dom.ast.IVariable;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorIncludeStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit.IDependencyTree;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit.IDependencyTree.IASTInclusionNode;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPUsingDirective;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexBinding;
 import org.eclipse.cdt.core.index.IIndexFile;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
 import org.eclipse.cdt.core.index.IIndexInclude;
 import org.eclipse.cdt.core.index.IIndexMacro;
 import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.index.IIndexName;
 import org.eclipse.cdt.core.index.IndexLocationFactory;
 import org.eclipse.cdt.core.model.AbstractLanguage;
 import org.eclipse.cdt.core.model.ILanguage;
@@ -48,13 +67,16 @@ import org.eclipse.cdt.core.parser.IScannerInfo;
 import org.eclipse.cdt.core.parser.IncludeFileContentProvider;
 import org.eclipse.cdt.core.parser.ParserUtil;
 import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.core.parser.util.ObjectMap;
 import org.eclipse.cdt.internal.core.dom.IIncludeFileResolutionHeuristics;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IndexBasedFileContentProvider;
+import org.eclipse.cdt.internal.core.parser.scanner.ILocationResolver;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.scanner.StreamHasher;
+import org.eclipse.cdt.internal.core.parser.util.IntObjectMap;
 import org.eclipse.cdt.utils.EFSExtensionManager;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -75,27 +97,6 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	}
 	private static final int MAX_ERRORS = 500;
 	
-	private static class FileKey {
-		final URI fUri;
-		final int fLinkageID;
-		
-		public FileKey(int linkageID, URI uri) {
-			fUri= uri;
-			fLinkageID= linkageID;
-		}
-
-		@Override
-		public int hashCode() {
-			return fUri.hashCode() * 31 + fLinkageID;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			FileKey other = (FileKey) obj;
-			return fLinkageID == other.fLinkageID && fUri.equals(other.fUri);
-		}
-	}
-
 	public static class IndexFileContent {
 		private IIndexFile fIndexFile;
 		private boolean fRequestUpdate;
@@ -172,18 +173,116 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
+	/**
+	 * Result of parsing a source file on a worker thread, handed over to the thread writing
+	 * to the index.
+	 */
+	private static class ParseResult {
+		IASTTranslationUnit fAST;
+		long fContentsHash;
+		long fParsingTime;
+		int fIncludeGuardSkipCount;
+		// Headers the parser did not take from the index.
+		List<IIndexFileLocation> fParsedHeaders;
+		Throwable fError;
+	}
+
+	/**
+	 * A header that is updated, together with the definitions it contained before.
+	 */
+	private static class ChangedHeader {
+		final int fLinkageID;
+		final IIndexFileLocation fLocation;
+		final Map<String, String> fDefinitions;
+
+		ChangedHeader(int linkageID, IIndexFileLocation ifl, Map<String, String> definitions) {
+			fLinkageID= linkageID;
+			fLocation= ifl;
+			fDefinitions= definitions;
+		}
+	}
+
+	/**
+	 * A source file that has been scheduled for parsing. The future is <code>null</code> for
+	 * files that do not need to be parsed.
+	 */
+	private static class PendingSource {
+		final Object fTU;
+		final IIndexFileLocation fLocation;
+		final IScannerInfo fScannerInfo;
+		final Future<ParseResult> fFuture;
+
+		PendingSource(Object tu, IIndexFileLocation ifl, IScannerInfo scannerInfo, Future<ParseResult> future) {
+			fTU= tu;
+			fLocation= ifl;
+			fScannerInfo= scannerInfo;
+			fFuture= future;
+		}
+
+		boolean isDone() {
+			return fFuture == null || fFuture.isDone();
+		}
+	}
+
+	/**
+	 * State of a parser thread. The thread reads the index through an index of its own, such
+	 * that it locks the fragments independently of the thread writing to the index.
+	 */
+	private static class ParserThreadState {
+		IIndex fIndex;
+		InternalFileContentProvider fContentProvider;
+	}
+
+	/**
+	 * Gives the thread writing to the index priority over the parser threads. The lock of the
+	 * index lets readers go first, therefore no parse is started while results are written. The
+	 * writer waits for the parses that are running, only.
+	 */
+	private static class ParserGate {
+		private boolean fClosed;
+
+		synchronized void close() {
+			fClosed= true;
+		}
+
+		synchronized void open() {
+			fClosed= false;
+			notifyAll();
+		}
+
+		synchronized void waitUntilOpen() throws InterruptedException {
+			while (fClosed) {
+				wait();
+			}
+		}
+	}
+
+	private static final ThreadFactory WORKER_THREAD_FACTORY= new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread= new Thread(r, "Indexer Parser"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	};
+
 	protected enum MessageKind { parsingFileTask, errorWhileParsing, tooManyIndexProblems }
 	
 	private int fUpdateFlags= IIndexManager.UPDATE_ALL;
 	private UnusedHeaderStrategy fIndexHeadersWithoutContext= UnusedHeaderStrategy.useDefaultLanguage;
 	private boolean fIndexFilesWithoutConfiguration= true;
-	private HashMap<FileKey, IndexFileContent> fFileInfos= new HashMap<FileKey, IndexFileContent>();
+	// File infos per linkage ID and location URI, the maps do not allocate objects per entry.
+	private final IntObjectMap<ObjectMap> fFileInfos= new IntObjectMap<ObjectMap>();
+	private final List<ChangedHeader> fChangedHeaders= new ArrayList<ChangedHeader>();
 
 	private Object[] fFilesToUpdate;
 	private List<Object> fFilesToRemove = new ArrayList<Object>();
 	private List<String> fFilesUpFront= new ArrayList<String>();
 	private int fASTOptions;
 	private int fForceNumberFiles= 0;
+	private int fParserThreads= 1;
+	// Headers parsed on a parser thread, because they could not be taken from the index.
+	private final ThreadLocal<List<IIndexFileLocation>> fParsedHeaders= new ThreadLocal<List<IIndexFileLocation>>();
 	
 	protected IWritableIndex fIndex;
 	private ITodoTaskUpdater fTodoTaskUpdater;
@@ -240,6 +339,15 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		fFileSizeLimit= limit;
 	}
 
+	/**
+	 * Sets the number of threads used for parsing source files. With more than one thread
+	 * the sources are parsed concurrently, while the results are written to the index in the
+	 * same order as with a single thread.
+	 */
+	public final void setParserThreads(int threads) {
+		fParserThreads= Math.max(1, threads);
+	}
+
 	protected abstract IWritableIndex createIndex();
 	protected abstract IIncludeFileResolutionHeuristics createIncludeHeuristics();
 	protected abstract IncludeFileContentProvider createReaderFactory();
@@ -283,39 +391,66 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	private final IASTTranslationUnit createAST(AbstractLanguage language, FileContent codeReader,
 			IScannerInfo scanInfo, int options, boolean inContext, IProgressMonitor pm) throws CoreException {
+		if (isTooLarge(codeReader)) {
+			return null;
+		}
+		fCodeReaderFactory= prepareContentProvider(fCodeReaderFactory, fIndex, language, inContext);
+		return createAST(fCodeReaderFactory, fIndex, language, codeReader, scanInfo, options, pm);
+	}
+
+	private final IASTTranslationUnit createAST(InternalFileContentProvider contentProvider, IIndex index,
+			AbstractLanguage language, FileContent codeReader, IScannerInfo scanInfo, int options,
+			IProgressMonitor pm) throws CoreException {
+		if (fIsFastIndexer) {
+			((IndexBasedFileContentProvider) contentProvider).setConfigurationSignature(
+					PDOMHeaderCache.computeConfigurationSignature(scanInfo));
+		}
+		try {
+			IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, contentProvider,
+					index, options, getLogService());
+			if (pm.isCanceled()) {
+				return null;
+			}
+			return ast;
+		} finally {
+			if (fIsFastIndexer) {
+				((IndexBasedFileContentProvider) contentProvider).cleanupAfterTranslationUnit();
+			}
+		}
+	}
+
+	private boolean isTooLarge(FileContent codeReader) {
 		if (fFileSizeLimit > 0 && fResolver.getFileSize(codeReader.getFileLocation()) > fFileSizeLimit) {
 			if (fShowActivity) {
 				trace("Indexer: Skipping large file " + codeReader.getFileLocation());  //$NON-NLS-1$ 
 			}
-			return null;
+			return true;
 		}
-		if (fCodeReaderFactory == null) {
+		return false;
+	}
+
+	/**
+	 * Creates the content provider on first use, or prepares an existing one for parsing
+	 * another file with the given language. A new content provider reads the given index.
+	 */
+	private InternalFileContentProvider prepareContentProvider(InternalFileContentProvider contentProvider,
+			IIndex index, AbstractLanguage language, boolean inContext) {
+		if (contentProvider == null) {
 			InternalFileContentProvider fileContentProvider = createInternalFileContentProvider();
 			if (fIsFastIndexer) {
-				IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
+				IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(index, fResolver,
 						language.getLinkageID(), fileContentProvider, this);
 				ibfcp.setSupportFillGapFromContextToHeader(inContext);
 				ibfcp.setFileSizeLimit(fFileSizeLimit);
-				fCodeReaderFactory= ibfcp;
+				contentProvider= ibfcp;
 			} else {
-				fCodeReaderFactory= fileContentProvider;
+				contentProvider= fileContentProvider;
 			}
 		} else if (fIsFastIndexer) {
-			((IndexBasedFileContentProvider) fCodeReaderFactory).setLinkage(language.getLinkageID());
-		}
-		fCodeReaderFactory.setIncludeResolutionHeuristics(createIncludeHeuristics());
-		try {
-			IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fCodeReaderFactory,
-					fIndex, options, getLogService());
-			if (pm.isCanceled()) {
-				return null;
-			}
-			return ast;
-		} finally {
-			if (fIsFastIndexer) {
-				((IndexBasedFileContentProvider) fCodeReaderFactory).cleanupAfterTranslationUnit();
-			}
+			((IndexBasedFileContentProvider) contentProvider).setLinkage(language.getLinkageID());
 		}
+		contentProvider.setIncludeResolutionHeuristics(createIncludeHeuristics());
+		return contentProvider;
 	}
 
 	private InternalFileContentProvider createInternalFileContentProvider() {
@@ -463,82 +598,124 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	private void extractFiles(HashMap<Integer, List<Object>> files, List<IIndexFragmentFile> iFilesToRemove,
 			IProgressMonitor monitor) throws CoreException {
+		final long start= System.currentTimeMillis();
+		try {
+			doExtractFiles(files, iFilesToRemove, monitor);
+		} finally {
+			fStatistics.fSelectionTime += System.currentTimeMillis() - start;
+		}
+	}
+
+	/**
+	 * Selects the files that need to be parsed. The definitions of the changed headers are
+	 * recorded, such that the files including them can be selected once it is known what
+	 * has changed, see {@link #selectAffectedIncluders(int, Map)}.
+	 */
+	private void doExtractFiles(HashMap<Integer, List<Object>> files, List<IIndexFragmentFile> iFilesToRemove,
+			IProgressMonitor monitor) throws CoreException {
 		final boolean forceAll= (fUpdateFlags & IIndexManager.UPDATE_ALL) != 0;
-		final boolean checkTimestamps= (fUpdateFlags & IIndexManager.UPDATE_CHECK_TIMESTAMPS) != 0;
-		final boolean checkFileContentsHash = (fUpdateFlags & IIndexManager.UPDATE_CHECK_CONTENTS_HASH) != 0;
-		final boolean checkConfig= (fUpdateFlags & IIndexManager.UPDATE_CHECK_CONFIGURATION) != 0;
 
 		int count= 0;
-		int forceFirst= fForceNumberFiles;
-		for (final Object tu : fFilesToUpdate) {
+		List<IIndexFragmentFile> changedHeaders= new ArrayList<IIndexFragmentFile>();
+		for (int i = 0; i < fFilesToUpdate.length; i++) {
 			if (monitor.isCanceled())
 				return;
-
-			final boolean force= forceAll || --forceFirst >= 0;
-			final IIndexFileLocation ifl= fResolver.resolveFile(tu);
-			if (ifl == null)
-				continue;
-			
-			final IIndexFragmentFile[] indexFiles= fIndex.getWritableFiles(ifl);
-			if (!fResolver.isIndexedOnlyIfIncluded(tu)) {
-				final boolean isSourceUnit= fResolver.isSourceUnit(tu);
-				final boolean isExcludedSource= isSourceUnit && !fIndexFilesWithoutConfiguration && !fResolver.isFileBuildConfigured(tu);
-
-				if ((isSourceUnit && !isExcludedSource) || fIndexHeadersWithoutContext != UnusedHeaderStrategy.skip ||
-						fResolver.isIndexedUnconditionally(ifl)) {
-					// Headers or sources required with a specific linkage
-					AbstractLanguage[] langs= fResolver.getLanguages(tu, fIndexHeadersWithoutContext == UnusedHeaderStrategy.useBoth);
-					for (AbstractLanguage lang : langs) {
-						int linkageID = lang.getLinkageID();
-						IIndexFragmentFile ifile= getFile(linkageID, indexFiles);
-						if (ifile == null || !ifile.hasContent()) {
-							store(tu, linkageID, isSourceUnit, files);
-							requestUpdate(linkageID, ifl, null);
-							count++;
-						} else {
-							takeFile(ifile, indexFiles);
-							boolean update= false;
-							if (checkConfig) {
-								update= isSourceUnit ? isSourceUnitConfigChange(tu, ifile) : isHeaderConfigChange(tu, ifile);
-							}
-							update= update || force || isModified(checkTimestamps, checkFileContentsHash, ifl, tu, ifile);
-							if (update) {
-								requestUpdate(linkageID, ifl, ifile);
-								store(tu, linkageID, isSourceUnit, files);
-								count++;
-							}
-						}
-					}
-				}
+			count+= extractFile(fFilesToUpdate[i], forceAll || i < fForceNumberFiles, files, iFilesToRemove,
+					changedHeaders);
+		}
+		if (!forceAll) {
+			for (IIndexFragmentFile header : changedHeaders) {
+				fChangedHeaders.add(new ChangedHeader(header.getLinkageID(), header.getLocation(),
+						collectDefinitions(header)));
 			}
-			
-			// handle other files present in index
-			for (IIndexFragmentFile ifile : indexFiles) {
-				if (ifile != null) {
-					IIndexInclude ctx= ifile.getParsedInContext();
-					if (ctx == null && !fResolver.isIndexedUnconditionally(ifile.getLocation())) {
-						iFilesToRemove.add(ifile);
+		}
+		synchronized (this) {
+			incrementRequestedFilesCount(count - fFilesToUpdate.length);
+			fFilesToUpdate= null;
+		}
+	}
+
+	/**
+	 * Checks whether the given file needs to be updated and returns the number of files
+	 * that have been selected or marked for removal. Headers that are going to be updated
+	 * are added to the list of changed headers.
+	 */
+	private int extractFile(Object tu, boolean force, HashMap<Integer, List<Object>> files,
+			List<IIndexFragmentFile> iFilesToRemove, List<IIndexFragmentFile> changedHeaders) throws CoreException {
+		final boolean checkTimestamps= (fUpdateFlags & IIndexManager.UPDATE_CHECK_TIMESTAMPS) != 0;
+		final boolean checkFileContentsHash = (fUpdateFlags & IIndexManager.UPDATE_CHECK_CONTENTS_HASH) != 0;
+		final boolean checkConfig= (fUpdateFlags & IIndexManager.UPDATE_CHECK_CONFIGURATION) != 0;
+
+		final IIndexFileLocation ifl= fResolver.resolveFile(tu);
+		if (ifl == null)
+			return 0;
+
+		int count= 0;
+		final IIndexFragmentFile[] indexFiles= fIndex.getWritableFiles(ifl);
+		if (!fResolver.isIndexedOnlyIfIncluded(tu)) {
+			final boolean isSourceUnit= fResolver.isSourceUnit(tu);
+			final boolean isExcludedSource= isSourceUnit && !fIndexFilesWithoutConfiguration && !fResolver.isFileBuildConfigured(tu);
+
+			if ((isSourceUnit && !isExcludedSource) || fIndexHeadersWithoutContext != UnusedHeaderStrategy.skip ||
+					fResolver.isIndexedUnconditionally(ifl)) {
+				// Headers or sources required with a specific linkage
+				AbstractLanguage[] langs= fResolver.getLanguages(tu, fIndexHeadersWithoutContext == UnusedHeaderStrategy.useBoth);
+				for (AbstractLanguage lang : langs) {
+					int linkageID = lang.getLinkageID();
+					IIndexFragmentFile ifile= getFile(linkageID, indexFiles);
+					if (ifile == null || !ifile.hasContent()) {
+						store(tu, linkageID, isSourceUnit, files);
+						requestUpdate(linkageID, ifl, null);
 						count++;
 					} else {
+						takeFile(ifile, indexFiles);
 						boolean update= false;
 						if (checkConfig) {
-							update= isHeaderConfigChange(tu, ifile);
+							update= isSourceUnit ? isSourceUnitConfigChange(tu, ifile) : isHeaderConfigChange(tu, ifile);
 						}
 						update= update || force || isModified(checkTimestamps, checkFileContentsHash, ifl, tu, ifile);
 						if (update) {
-							final int linkageID = ifile.getLinkageID();
 							requestUpdate(linkageID, ifl, ifile);
-							store(tu, linkageID, false, files);
+							store(tu, linkageID, isSourceUnit, files);
+							if (!isSourceUnit) {
+								changedHeaders.add(ifile);
+							}
 							count++;
 						}
 					}
 				}
 			}
 		}
-		synchronized (this) {
-			incrementRequestedFilesCount(count - fFilesToUpdate.length);
-			fFilesToUpdate= null;
+
+		// handle other files present in index
+		for (IIndexFragmentFile ifile : indexFiles) {
+			if (ifile != null) {
+				IIndexInclude ctx= ifile.getParsedInContext();
+				if (ctx == null && !fResolver.isIndexedUnconditionally(ifile.getLocation())) {
+					iFilesToRemove.add(ifile);
+					count++;
+				} else {
+					boolean update= false;
+					if (checkConfig) {
+						update= isHeaderConfigChange(tu, ifile);
+					}
+					update= update || force || isModified(checkTimestamps, checkFileContentsHash, ifl, tu, ifile);
+					if (update) {
+						final int linkageID = ifile.getLinkageID();
+						requestUpdate(linkageID, ifl, ifile);
+						store(tu, linkageID, false, files);
+						changedHeaders.add(ifile);
+						count++;
+					}
+				}
+			}
 		}
+		return count;
+	}
+
+	private boolean isRequested(int linkageID, IIndexFileLocation ifl) {
+		IndexFileContent info= getFileInfo(linkageID, ifl);
+		return info != null && info.fRequestUpdate;
 	}
 
 	private boolean isModified(boolean checkTimestamps, boolean checkFileContentsHash, IIndexFileLocation ifl,
@@ -556,38 +733,53 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	}
 
 	private void requestUpdate(int linkageID, IIndexFileLocation ifl, IIndexFragmentFile ifile) {
-		FileKey key= new FileKey(linkageID, ifl.getURI());
-		IndexFileContent info= fFileInfos.get(key);
-		if (info == null) {
-			info= createFileInfo(key, null);
+		synchronized (fFileInfos) {
+			IndexFileContent info= getFileInfo(linkageID, ifl);
+			if (info == null) {
+				info= createFileInfo(linkageID, ifl, null);
+			}
+			info.fIndexFile= ifile;
+			info.fDirectives= null;
+			info.fPreprocessingDirectives= null;
+			info.fRequestUpdate= true;
+			info.fIsUpdated= false;
 		}
-		info.fIndexFile= ifile;
-		info.fDirectives= null;
-		info.fPreprocessingDirectives= null;
-		info.fRequestUpdate= true;
-		info.fIsUpdated= false;
 	}
 	
 	private void setIndexed(int linkageID, IIndexFileLocation ifl) {
-		FileKey key= new FileKey(linkageID, ifl.getURI());
-		IndexFileContent info= fFileInfos.get(key);
-		if (info == null) {
-			info= createFileInfo(key, null);
+		synchronized (fFileInfos) {
+			IndexFileContent info= getFileInfo(linkageID, ifl);
+			if (info == null) {
+				info= createFileInfo(linkageID, ifl, null);
+			}
+			info.fIsUpdated= true;
+			info.clearCaches();
 		}
-		info.fIsUpdated= true;
-		info.clearCaches();
 	}
 
-	private IndexFileContent createFileInfo(FileKey key, IIndexFile ifile) {
+	/*
+	 * The file infos are accessed by the parser threads, therefore all access is synchronized
+	 * on fFileInfos.
+	 */
+	private IndexFileContent createFileInfo(int linkageID, IIndexFileLocation ifl, IIndexFile ifile) {
 		IndexFileContent info = new IndexFileContent();
-		fFileInfos.put(key, info);
+		synchronized (fFileInfos) {
+			ObjectMap infos= fFileInfos.get(linkageID);
+			if (infos == null) {
+				infos= new ObjectMap(16);
+				fFileInfos.put(linkageID, infos);
+			}
+			infos.put(ifl.getURI(), info);
+		}
 		info.fIndexFile= ifile;
 		return info;
 	}
 
 	private IndexFileContent getFileInfo(int linkageID, IIndexFileLocation ifl) {
-		FileKey key= new FileKey(linkageID, ifl.getURI());
-		return fFileInfos.get(key);
+		synchronized (fFileInfos) {
+			ObjectMap infos= fFileInfos.get(linkageID);
+			return infos == null ? null : (IndexFileContent) infos.get(ifl.getURI());
+		}
 	}
 
 	private boolean isSourceUnitConfigChange(Object tu, IIndexFragmentFile ifile) {
@@ -616,7 +808,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
-	private void store(Object tu, int linkageID, boolean isSourceUnit, HashMap<Integer, List<Object>> files) {
+	private void store(Object tu, int linkageID, boolean isSourceUnit, Map<Integer, List<Object>> files) {
 		Integer key = getFileListKey(linkageID, isSourceUnit);
 		List<Object> list= files.get(key);
 		if (list == null) {
@@ -692,6 +884,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 						long start= System.currentTimeMillis();
 						IASTTranslationUnit ast= createAST(code, lang, scanInfo, fASTOptions, monitor);
 						fStatistics.fParsingTime += System.currentTimeMillis() - start;
+						fStatistics.fIncludeGuardSkipCount += getIncludeGuardSkipCount(ast);
 						if (ast != null) {
 							if (fShowActivity || fShowInclusionProblems) {
 								IASTNode node= ast.getNodeSelector(null).findEnclosingNode(0,6);
@@ -709,8 +902,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 									}
 								}
 							}
-							writeToIndex(linkageID, ast, StreamHasher.hash(code), computeHashCode(scanInfo),
-									monitor);
+							writeToIndex(linkageID, ast, StreamHasher.hash(code), scanInfo, monitor);
 							updateFileCount(0, 0, 1);
 						}
 					}
@@ -724,11 +916,29 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		fFilesUpFront.clear();
 	}
 	
+	/**
+	 * Parses the files of the given linkage. Files including a changed header are parsed, too,
+	 * if they are affected by the changes, the headers updated this way may in turn affect the
+	 * files including them.
+	 */
 	private void parseLinkage(int linkageID, Map<Integer, List<Object>> fileListMap, IProgressMonitor monitor)
 			throws CoreException, InterruptedException {
+		do {
+			parseFiles(linkageID, fileListMap, monitor);
+			if (monitor.isCanceled() || hasUrgentTasks())
+				return;
+		} while (selectAffectedIncluders(linkageID, fileListMap) > 0);
+	}
+
+	private void parseFiles(int linkageID, Map<Integer, List<Object>> fileListMap, IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
 		// Sources
 		List<Object> files= fileListMap.get(getFileListKey(linkageID, true));
-		if (files != null) {
+		if (files != null && fParserThreads > 1) {
+			parseSourcesConcurrently(linkageID, files, monitor);
+			if (!files.isEmpty())
+				return;
+		} else if (files != null) {
 			for (Iterator<Object> iter = files.iterator(); iter.hasNext();) {
 				Object tu = iter.next();
 				if (monitor.isCanceled() || hasUrgentTasks())
@@ -754,6 +964,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		HashMap<IIndexFragmentFile, Object> contextMap= new HashMap<IIndexFragmentFile, Object>();
 		files= fileListMap.get(getFileListKey(linkageID, false));
 		if (files != null) {
+			parseHeadersWithSharedContext(linkageID, files, contextMap, monitor);
 			for (Iterator<Object> iter = files.iterator(); iter.hasNext();) {
 				if (monitor.isCanceled() || hasUrgentTasks())
 					return;
@@ -802,6 +1013,418 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
+	/**
+	 * Updates headers that share the same context. The include graph stored in the index maps
+	 * each of the headers to the source file it has been parsed in. Sources that are the context
+	 * of more than one of the headers are parsed once, which updates all of these headers.
+	 * The headers that remain are parsed in their context one by one.
+	 */
+	private void parseHeadersWithSharedContext(int linkageID, List<Object> headers,
+			HashMap<IIndexFragmentFile, Object> contextMap, IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
+		final long start= System.currentTimeMillis();
+		LinkedHashMap<Object, List<IndexFileContent>> contextToHeaders= new LinkedHashMap<Object, List<IndexFileContent>>();
+		for (Object header : headers) {
+			final IIndexFileLocation ifl = fResolver.resolveFile(header);
+			final IndexFileContent info= getFileInfo(linkageID, ifl);
+			if (info != null && info.fRequestUpdate && !info.fIsUpdated &&
+					info.fIndexFile != null && fIndex.isWritableFile(info.fIndexFile)) {
+				Object tu= findContext(linkageID, (IIndexFragmentFile) info.fIndexFile, contextMap);
+				if (tu != null) {
+					List<IndexFileContent> list= contextToHeaders.get(tu);
+					if (list == null) {
+						list= new ArrayList<IndexFileContent>();
+						contextToHeaders.put(tu, list);
+					}
+					list.add(info);
+				}
+			}
+		}
+		fStatistics.fSelectionTime += System.currentTimeMillis() - start;
+
+		for (Map.Entry<Object, List<IndexFileContent>> entry : contextToHeaders.entrySet()) {
+			final List<IndexFileContent> infos= entry.getValue();
+			if (infos.size() < 2)
+				continue;
+			if (monitor.isCanceled() || hasUrgentTasks())
+				return;
+
+			final Object tu= entry.getKey();
+			final IIndexFileLocation ifl= fResolver.resolveFile(tu);
+			if (ifl == null)
+				continue;
+			for (IndexFileContent info : infos) {
+				info.fRequestIsCounted= false;
+			}
+			final IScannerInfo scannerInfo= fResolver.getBuildConfiguration(linkageID, tu);
+			parseFile(tu, linkageID, ifl, scannerInfo, false, monitor);
+			for (IndexFileContent info : infos) {
+				if (info.fIsUpdated) {
+					updateFileCount(0, 1, 1);	// a header was parsed in context
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compares the definitions of the changed headers of the given linkage that have been
+	 * updated with the ones recorded before, and selects the files including the headers that
+	 * refer to a macro or a binding whose definition has changed. Sources are selected for
+	 * parsing, headers for an update in their context. Returns the number of selected files.
+	 */
+	private int selectAffectedIncluders(int linkageID, Map<Integer, List<Object>> fileListMap)
+			throws CoreException {
+		final long start= System.currentTimeMillis();
+		int count= 0;
+		try {
+			final List<ChangedHeader> changedHeaders= new ArrayList<ChangedHeader>();
+			for (Iterator<ChangedHeader> iter= fChangedHeaders.iterator(); iter.hasNext();) {
+				final ChangedHeader header= iter.next();
+				if (header.fLinkageID == linkageID) {
+					final IndexFileContent info= getFileInfo(linkageID, header.fLocation);
+					if (info == null || info.fIsUpdated) {
+						changedHeaders.add(header);
+						iter.remove();
+					}
+				}
+			}
+			for (ChangedHeader header : changedHeaders) {
+				final IIndexFragmentFile ifile= fIndex.getWritableFile(linkageID, header.fLocation);
+				if (ifile == null)
+					continue;
+				final Set<String> changedNames= getChangedNames(header.fDefinitions, collectDefinitions(ifile));
+				if (!changedNames.isEmpty()) {
+					count+= selectAffectedIncluders(ifile, changedNames, fileListMap);
+				}
+			}
+		} finally {
+			fStatistics.fSelectionTime += System.currentTimeMillis() - start;
+		}
+		if (count > 0) {
+			incrementRequestedFilesCount(count);
+		}
+		return count;
+	}
+
+	/**
+	 * Walks the includes stored in the index in reverse, starting from the given header, and
+	 * selects the files that refer to one of the given names.
+	 */
+	private int selectAffectedIncluders(IIndexFragmentFile header, Set<String> changedNames,
+			Map<Integer, List<Object>> fileListMap) throws CoreException {
+		final int linkageID= header.getLinkageID();
+		int count= 0;
+		HashSet<IIndexFileLocation> visited= new HashSet<IIndexFileLocation>();
+		LinkedList<IIndexFragmentFile> queue= new LinkedList<IIndexFragmentFile>();
+		visited.add(header.getLocation());
+		queue.add(header);
+		while (!queue.isEmpty()) {
+			for (IIndexInclude include : fIndex.findIncludedBy(queue.removeFirst())) {
+				final IIndexFile includer= include.getIncludedBy();
+				if (!(includer instanceof IIndexFragmentFile) || !fIndex.isWritableFile(includer))
+					continue;
+				final IIndexFileLocation ifl= includer.getLocation();
+				if (!visited.add(ifl))
+					continue;
+				final IIndexFragmentFile includerFile= (IIndexFragmentFile) includer;
+				queue.add(includerFile);
+				if (isRequested(linkageID, ifl) || !refersToName(includerFile, changedNames))
+					continue;
+
+				final Object tu= fResolver.getInputFile(ifl);
+				if (tu == null || fResolver.isIndexedOnlyIfIncluded(tu))
+					continue;
+				final boolean isSourceUnit= fResolver.isSourceUnit(tu);
+				if (isSourceUnit && !fIndexFilesWithoutConfiguration && !fResolver.isFileBuildConfigured(tu))
+					continue;
+				if (!isSourceUnit) {
+					fChangedHeaders.add(new ChangedHeader(linkageID, ifl, collectDefinitions(includerFile)));
+				}
+				requestUpdate(linkageID, ifl, includerFile);
+				store(tu, linkageID, isSourceUnit, fileListMap);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Collects the definitions of the macros and of the bindings declared in the given file.
+	 * The strings change with the expansion of a macro or the type of a binding, they are
+	 * mapped to the name of the macro or binding.
+	 */
+	private Map<String, String> collectDefinitions(IIndexFragmentFile file) throws CoreException {
+		Map<String, String> result= new HashMap<String, String>();
+		for (IIndexMacro macro : file.getMacros()) {
+			StringBuilder buf= new StringBuilder();
+			buf.append('#').append(macro.getNameCharArray());
+			if (macro.isFunctionStyle()) {
+				buf.append('(');
+				for (char[] parameter : macro.getParameterList()) {
+					buf.append(parameter).append(',');
+				}
+				buf.append(')');
+			}
+			buf.append('=').append(macro.getExpansion());
+			result.put(buf.toString(), macro.getName());
+		}
+		for (IIndexName name : file.findNames(0, Integer.MAX_VALUE)) {
+			if (name.isDeclaration() || name.isDefinition()) {
+				final IIndexBinding binding= fIndex.findBinding(name);
+				if (binding == null || binding instanceof IMacroBinding)
+					continue;
+				StringBuilder buf= new StringBuilder();
+				for (String segment : binding.getQualifiedName()) {
+					buf.append(segment).append("::"); //$NON-NLS-1$
+				}
+				buf.append(getDescription(binding));
+				result.put(buf.toString(), binding.getName());
+			}
+		}
+		return result;
+	}
+
+	private static String getDescription(IBinding binding) {
+		if (binding instanceof IVariable)
+			return ASTTypeUtil.getType(((IVariable) binding).getType());
+		if (binding instanceof IFunction)
+			return ASTTypeUtil.getType(((IFunction) binding).getType());
+		if (binding instanceof ITypedef)
+			return ASTTypeUtil.getType(((ITypedef) binding).getType());
+		return binding.getClass().getSimpleName();
+	}
+
+	/**
+	 * Returns the names of the macros and bindings whose definitions differ.
+	 */
+	private static Set<String> getChangedNames(Map<String, String> oldDefinitions, Map<String, String> newDefinitions) {
+		Set<String> result= new HashSet<String>();
+		for (Map.Entry<String, String> entry : oldDefinitions.entrySet()) {
+			if (!newDefinitions.containsKey(entry.getKey())) {
+				result.add(entry.getValue());
+			}
+		}
+		for (Map.Entry<String, String> entry : newDefinitions.entrySet()) {
+			if (!oldDefinitions.containsKey(entry.getKey())) {
+				result.add(entry.getValue());
+			}
+		}
+		return result;
+	}
+
+	private static boolean refersToName(IIndexFragmentFile file, Set<String> names) throws CoreException {
+		for (IIndexName name : file.findNames(0, Integer.MAX_VALUE)) {
+			if (names.contains(new String(name.getSimpleID())))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Parses the source files with a pool of parser threads, while the results are written to
+	 * the index on the calling thread. The results are written in the order of the list, a
+	 * bounded number of files is parsed ahead. Files are removed from the list when they are
+	 * written, such that a list that is not empty on return contains the files that still
+	 * need to be indexed.
+	 */
+	private void parseSourcesConcurrently(final int linkageID, List<Object> files, final IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
+		final ExecutorService executor= Executors.newFixedThreadPool(fParserThreads, WORKER_THREAD_FACTORY);
+		final ThreadLocal<ParserThreadState> states= new ThreadLocal<ParserThreadState>();
+		final ParserGate gate= new ParserGate();
+		final int maxPending= 2 * fParserThreads;
+		final LinkedList<PendingSource> pending= new LinkedList<PendingSource>();
+		final Object[] tus= files.toArray();
+		int next= 0;
+		try {
+			while (true) {
+				while (pending.size() < maxPending && next < tus.length && !monitor.isCanceled() && !hasUrgentTasks()) {
+					pending.add(scheduleSource(linkageID, tus[next++], executor, states, gate, monitor));
+				}
+				if (pending.isEmpty() || monitor.isCanceled() || hasUrgentTasks())
+					return;
+
+				// wait for the next result while the parser threads are running, then write it
+				// together with the results that follow it and are available, too.
+				final PendingSource first= pending.getFirst();
+				if (first.fFuture != null) {
+					getParseResult(first.fFuture);
+				}
+				gate.close();
+				try {
+					do {
+						final PendingSource source= pending.removeFirst();
+						if (source.fFuture != null) {
+							final IndexFileContent info= getFileInfo(linkageID, source.fLocation);
+							final ParseResult result= getParseResult(source.fFuture);
+							// the file may have been indexed as part of a translation unit written before.
+							if (info.fRequestUpdate && !info.fIsUpdated) {
+								info.fRequestIsCounted= false;
+								if (isParsedAheadOfIndex(linkageID, result)) {
+									// Parse the file again, such that it sees the same index content
+									// as in single-threaded mode.
+									fStatistics.fParsingTime += result.fParsingTime;
+									parseFile(source.fTU, linkageID, source.fLocation, source.fScannerInfo,
+											false, monitor);
+								} else {
+									writeParseResult(linkageID, source, result, monitor);
+								}
+								if (info.fIsUpdated) {
+									updateFileCount(1, 0, 0);	// a source file was parsed
+								}
+							}
+						}
+						files.remove(0);
+					} while (!pending.isEmpty() && pending.getFirst().isDone() && !monitor.isCanceled()
+							&& !hasUrgentTasks());
+				} finally {
+					gate.open();
+				}
+			}
+		} finally {
+			for (PendingSource source : pending) {
+				if (source.fFuture != null) {
+					// do not interrupt, that would close the channel of the database. 
+					source.fFuture.cancel(false);
+				}
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private PendingSource scheduleSource(final int linkageID, final Object tu, ExecutorService executor,
+			final ThreadLocal<ParserThreadState> states, final ParserGate gate, final IProgressMonitor monitor) {
+		final IIndexFileLocation ifl = fResolver.resolveFile(tu);
+		if (ifl == null)
+			return new PendingSource(tu, null, null, null);
+		final IndexFileContent info= getFileInfo(linkageID, ifl);
+		if (info == null || !info.fRequestUpdate || info.fIsUpdated)
+			return new PendingSource(tu, ifl, null, null);
+		final AbstractLanguage lang= getLanguage(tu, linkageID);
+		if (lang == null)
+			return new PendingSource(tu, ifl, null, null);
+
+		final IScannerInfo scannerInfo= fResolver.getBuildConfiguration(linkageID, tu);
+		int options= fASTOptions;
+		if (fResolver.isSourceUnit(tu)) {
+			options |= ILanguage.OPTION_IS_SOURCE_UNIT;
+		}
+		final int astOptions= options;
+		Future<ParseResult> future= executor.submit(new Callable<ParseResult>() {
+			public ParseResult call() throws Exception {
+				ParseResult result= new ParseResult();
+				if (monitor.isCanceled())
+					return result;
+
+				ParserThreadState state= states.get();
+				if (state == null) {
+					state= new ParserThreadState();
+					state.fIndex= fIndex.createReaderIndex();
+					states.set(state);
+				}
+				gate.waitUntilOpen();
+				long start= System.currentTimeMillis();
+				result.fParsedHeaders= new ArrayList<IIndexFileLocation>();
+				fParsedHeaders.set(result.fParsedHeaders);
+				// the index must not be modified while the parser is accessing it.
+				state.fIndex.acquireReadLock();
+				try {
+					FileContent codeReader= fResolver.getCodeReader(tu);
+					if (codeReader != null && !isTooLarge(codeReader)) {
+						state.fContentProvider= prepareContentProvider(state.fContentProvider, state.fIndex,
+								lang, false);
+						result.fAST= createAST(state.fContentProvider, state.fIndex, lang, codeReader,
+								scannerInfo, astOptions, monitor);
+						result.fContentsHash= codeReader.getContentsHash();
+						result.fIncludeGuardSkipCount= getIncludeGuardSkipCount(result.fAST);
+					}
+				} catch (CoreException e) {
+					result.fError= e;
+				} catch (RuntimeException e) {
+					result.fError= e;
+				} catch (StackOverflowError e) {
+					result.fError= e;
+				} catch (AssertionError e) {
+					result.fError= e;
+				} catch (OutOfMemoryError e) {
+					result.fAST= null;
+					result.fError= e;
+				} finally {
+					state.fIndex.releaseReadLock();
+					fParsedHeaders.remove();
+				}
+				result.fParsingTime= System.currentTimeMillis() - start;
+				return result;
+			}
+		});
+		return new PendingSource(tu, ifl, scannerInfo, future);
+	}
+
+	/**
+	 * Checks whether the parser thread parsed a header that has been written to the index
+	 * before the result is written. A single parser thread would have taken the content of
+	 * such a header from the index.
+	 */
+	private boolean isParsedAheadOfIndex(int linkageID, ParseResult result) {
+		if (result.fParsedHeaders == null)
+			return false;
+		synchronized (fFileInfos) {
+			for (IIndexFileLocation ifl : result.fParsedHeaders) {
+				final IndexFileContent info= getFileInfo(linkageID, ifl);
+				if (info != null && info.fIsUpdated)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private ParseResult getParseResult(Future<ParseResult> future) throws CoreException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			final Throwable cause= e.getCause();
+			if (cause instanceof Error)
+				throw (Error) cause;
+			ParseResult result= new ParseResult();
+			result.fError= cause;
+			return result;
+		}
+	}
+
+	private void writeParseResult(int linkageID, PendingSource source, ParseResult result, IProgressMonitor pm)
+			throws CoreException, InterruptedException {
+		IPath path= getPathForLabel(source.fLocation);
+		Throwable th= result.fError;
+		fStatistics.fParsingTime += result.fParsingTime;
+		fStatistics.fIncludeGuardSkipCount += result.fIncludeGuardSkipCount;
+		if (th == null && result.fAST != null) {
+			try {
+				if (fShowActivity) {
+					trace("Indexer: parsing " + path.toOSString()); //$NON-NLS-1$
+				}
+				pm.subTask(getMessage(MessageKind.parsingFileTask,
+						path.lastSegment(), path.removeLastSegments(1).toString()));
+				writeToIndex(linkageID, result.fAST, result.fContentsHash, source.fScannerInfo, pm);
+			} catch (CoreException e) {
+				th= e;
+			} catch (RuntimeException e) {
+				th= e;
+			} catch (StackOverflowError e) {
+				th= e;
+			} catch (AssertionError e) {
+				th= e;
+			} catch (OutOfMemoryError e) {
+				th= e;
+			}
+		}
+		if (th != null) {
+			if (th instanceof OutOfMemoryError && --fSwallowOutOfMemoryError < 0)
+				throw (OutOfMemoryError) th;
+			swallowError(path, th);
+		}
+	}
+
 	private synchronized boolean hasUrgentTasks() {
 		return !fUrgentTasks.isEmpty();
 	}
@@ -852,14 +1475,7 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private void parseFile(Object tu, int linkageID, IIndexFileLocation ifl, IScannerInfo scanInfo,
 			boolean inContext, IProgressMonitor pm) throws CoreException, InterruptedException {
 		IPath path= getPathForLabel(ifl);
-		AbstractLanguage[] langs= fResolver.getLanguages(tu, true);
-		AbstractLanguage lang= null;
-		for (AbstractLanguage lang2 : langs) {
-			if (lang2.getLinkageID() == linkageID) {
-				lang= lang2;
-				break;
-			}
-		}
+		AbstractLanguage lang= getLanguage(tu, linkageID);
 		if (lang == null) {
 			return;
 		}
@@ -875,8 +1491,9 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			FileContent codeReader= fResolver.getCodeReader(tu);
 			IASTTranslationUnit ast= createAST(tu, lang, codeReader, scanInfo, fASTOptions, inContext, pm);
 			fStatistics.fParsingTime += System.currentTimeMillis() - start;
+			fStatistics.fIncludeGuardSkipCount += getIncludeGuardSkipCount(ast);
 			if (ast != null) {
-				writeToIndex(linkageID, ast, codeReader.getContentsHash(), computeHashCode(scanInfo), pm);
+				writeToIndex(linkageID, ast, codeReader.getContentsHash(), scanInfo, pm);
 			}
 		} catch (CoreException e) {
 			th= e;
@@ -896,8 +1513,32 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 	
+	/**
+	 * Returns the number of inclusions skipped because of an include guard while the given
+	 * translation unit was parsed. The count is taken on the thread that created the AST and
+	 * summed up in the statistics by the thread writing to the index.
+	 */
+	private static int getIncludeGuardSkipCount(IASTTranslationUnit ast) {
+		if (ast == null)
+			return 0;
+		ILocationResolver resolver= (ILocationResolver) ast.getAdapter(ILocationResolver.class);
+		return resolver == null ? 0 : resolver.getIncludeGuardSkipCount();
+	}
+
+	private AbstractLanguage getLanguage(Object tu, int linkageID) {
+		AbstractLanguage[] langs= fResolver.getLanguages(tu, true);
+		for (AbstractLanguage lang : langs) {
+			if (lang.getLinkageID() == linkageID) {
+				return lang;
+			}
+		}
+		return null;
+	}
+
 	private void writeToIndex(final int linkageID, IASTTranslationUnit ast, long fileContentsHash,
-			int configHash, IProgressMonitor pm) throws CoreException, InterruptedException {
+			IScannerInfo scanInfo, IProgressMonitor pm) throws CoreException, InterruptedException {
+		final int configHash= computeHashCode(scanInfo);
+		final int configSignature= PDOMHeaderCache.computeConfigurationSignature(scanInfo);
 		HashSet<IIndexFileLocation> enteredFiles= new HashSet<IIndexFileLocation>();
 		ArrayList<IIndexFileLocation> orderedIFLs= new ArrayList<IIndexFileLocation>();
 		
@@ -906,28 +1547,31 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		IDependencyTree tree= ast.getDependencyTree();
 		IASTInclusionNode[] inclusions= tree.getInclusions();
 		for (IASTInclusionNode inclusion : inclusions) {
-			collectOrderedIFLs(linkageID, inclusion, enteredFiles, orderedIFLs);
+			collectOrderedIFLs(linkageID, inclusion, configSignature, enteredFiles, orderedIFLs);
 		}
 		
 		IndexFileContent info= getFileInfo(linkageID, topIfl);
-		if (info != null && info.fRequestUpdate && !info.fIsUpdated) {
+		if (info != null && info.fRequestUpdate && !info.fIsUpdated && fIndex.claimFile(topIfl)) {
 			orderedIFLs.add(topIfl);
 		}
 		
 		IIndexFileLocation[] ifls= orderedIFLs.toArray(new IIndexFileLocation[orderedIFLs.size()]);
 		try {
+			fIndex.setConfigurationSignature(configSignature);
 			addSymbols(ast, ifls, fIndex, 1, false, fileContentsHash, configHash, fTodoTaskUpdater, pm);
 		} finally {
 			// mark as updated in any case, to avoid parsing files that caused an exception to be thrown.
-			for (IIndexFileLocation ifl : ifls) {
-				info= getFileInfo(linkageID, ifl);
-				Assert.isNotNull(info);
-				info.fIsUpdated= true;
+			synchronized (fFileInfos) {
+				for (IIndexFileLocation ifl : ifls) {
+					info= getFileInfo(linkageID, ifl);
+					Assert.isNotNull(info);
+					info.fIsUpdated= true;
+				}
 			}
 		}
 	}
 
-	private void collectOrderedIFLs(final int linkageID, IASTInclusionNode inclusion,
+	private void collectOrderedIFLs(final int linkageID, IASTInclusionNode inclusion, int configSignature,
 			HashSet<IIndexFileLocation> enteredFiles, ArrayList<IIndexFileLocation> orderedIFLs) throws CoreException {
 		final IASTPreprocessorIncludeStatement id= inclusion.getIncludeDirective();
 		if (id.isActive() && id.isResolved()) {
@@ -935,38 +1579,59 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			final boolean isFirstEntry= enteredFiles.add(ifl);
 			IASTInclusionNode[] nested= inclusion.getNestedInclusions();
 			for (IASTInclusionNode element : nested) {
-				collectOrderedIFLs(linkageID, element, enteredFiles, orderedIFLs);
+				collectOrderedIFLs(linkageID, element, configSignature, enteredFiles, orderedIFLs);
 			}
-			if (isFirstEntry && needToUpdateHeader(linkageID, ifl)) {
+			// A header claimed by another shard is parsed, but stored by the other shard.
+			if (isFirstEntry && needToUpdateHeader(linkageID, ifl, configSignature) && fIndex.claimFile(ifl)) {
 				orderedIFLs.add(ifl);
 			}
 		}
 	}
 
-	public final boolean needToUpdateHeader(int linkageID, IIndexFileLocation ifl) throws CoreException {
+	/**
+	 * Checks whether the given header needs to be parsed, or whether its content can be taken
+	 * from the index.
+	 * @param configSignature signature of the configuration of the file including the header,
+	 * content from the header cache is used only if it has been parsed with the same configuration.
+	 */
+	public final boolean needToUpdateHeader(int linkageID, IIndexFileLocation ifl, int configSignature)
+			throws CoreException {
 		IndexFileContent info= getFileInfo(linkageID, ifl);
 		if (info == null) {
 			IIndexFile ifile= null;
 			if (fResolver.canBePartOfSDK(ifl)) {
 				ifile= fIndex.getFile(linkageID, ifl);
+				if (ifile != null && fIndex.isHeaderCacheFile(ifile) &&
+						!PDOMHeaderCache.isUpToDate((IIndexFragmentFile) ifile, configSignature,
+								fResolver.getLastModified(ifl))) {
+					ifile= null;
+				}
 			} else {
 				IIndexFragmentFile fragFile= fIndex.getWritableFile(linkageID, ifl);
 				if (fragFile != null && fragFile.hasContent()) {
 					ifile= fragFile;
 				}
 			}
-			info= createFileInfo(new FileKey(linkageID, ifl.getURI()), ifile);
-			if (ifile == null) {
-				info.fRequestIsCounted= false;
-				info.fRequestUpdate= true;
+			synchronized (fFileInfos) {
+				// another parser thread may have been faster.
+				info= getFileInfo(linkageID, ifl);
+				if (info == null) {
+					info= createFileInfo(linkageID, ifl, ifile);
+					if (ifile == null) {
+						info.fRequestIsCounted= false;
+						info.fRequestUpdate= true;
+					}
+				}
 			}
 		}
-		final boolean needUpdate= !info.fIsUpdated && info.fRequestUpdate;
-		if (needUpdate && info.fRequestIsCounted) {
-			updateFileCount(0, 1, 0);	// total headers will be counted when written to db
-			info.fRequestIsCounted= false;
+		synchronized (fFileInfos) {
+			final boolean needUpdate= !info.fIsUpdated && info.fRequestUpdate;
+			if (needUpdate && info.fRequestIsCounted) {
+				updateFileCount(0, 1, 0);	// total headers will be counted when written to db
+				info.fRequestIsCounted= false;
+			}
+			return needUpdate;
 		}
-		return needUpdate;
 	}
 
 	private IPath getPathForLabel(IIndexFileLocation ifl) {
@@ -1086,18 +1751,25 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		return codeReader != null ? codeReader.getContentsHash() : 0;
 	}
 
-	public final IndexFileContent getFileContent(int linkageID, IIndexFileLocation ifl) throws CoreException {
-		if (!needToUpdateHeader(linkageID, ifl)) {
+	public final IndexFileContent getFileContent(int linkageID, IIndexFileLocation ifl, int configSignature)
+			throws CoreException {
+		if (!needToUpdateHeader(linkageID, ifl, configSignature)) {
 			IndexFileContent info= getFileInfo(linkageID, ifl);
 			Assert.isNotNull(info);
-			if (info.fIndexFile == null) {
-				info.fIndexFile= fIndex.getFile(linkageID, ifl);
+			synchronized (fFileInfos) {
 				if (info.fIndexFile == null) {
-					return null;
+					info.fIndexFile= fIndex.getFile(linkageID, ifl);
+					if (info.fIndexFile == null) {
+						return null;
+					}
 				}
 			}
 			return info;
 		}
+		final List<IIndexFileLocation> parsedHeaders= fParsedHeaders.get();
+		if (parsedHeaders != null) {
+			parsedHeaders.add(ifl);
+		}
 		return null;
 	}
 	
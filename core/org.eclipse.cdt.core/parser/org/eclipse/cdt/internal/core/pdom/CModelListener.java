@@ -11,8 +11,10 @@
 package org.eclipse.cdt.internal.core.pdom;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.IPDOMIndexer;
@@ -24,9 +26,14 @@ import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.IElementChangedListener;
 import org.eclipse.cdt.core.model.ITranslationUnit;
 import org.eclipse.cdt.internal.core.pdom.indexer.DeltaAnalyzer;
+import org.eclipse.cdt.internal.core.pdom.indexer.FileExistsCache;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 
 /**
  * CModel listener used for the PDOMManager.
@@ -154,6 +161,47 @@ public class CModelListener implements IElementChangedListener, IResourceChangeL
 	public void resourceChanged(IResourceChangeEvent event) {
 		if (event.getType() == IResourceChangeEvent.POST_BUILD) {
 			fManager.handlePostBuildEvent();
+		} else if (event.getType() == IResourceChangeEvent.POST_CHANGE) {
+			invalidateFileExistsCache(event.getDelta());
+		}
+	}
+
+	/**
+	 * Invalidates the cached listings of directories in which files have been added or removed.
+	 * Derived and team-private resources are not included by sources, changes to them are ignored.
+	 */
+	private void invalidateFileExistsCache(IResourceDelta delta) {
+		if (delta == null)
+			return;
+		final Set<String> directories= new HashSet<String>();
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta d) throws CoreException {
+					final IResource resource= d.getResource();
+					if (resource.isDerived() || resource.isTeamPrivateMember())
+						return false;
+					switch (d.getKind()) {
+					case IResourceDelta.ADDED:
+					case IResourceDelta.REMOVED:
+						final IPath location= resource.getLocation();
+						if (location != null) {
+							directories.add(location.removeLastSegments(1).toOSString());
+							if (resource.getType() != IResource.FILE) {
+								// Visit the nested resources to collect the nested directories.
+								directories.add(location.toOSString());
+								return true;
+							}
+						}
+						return false;
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			CCorePlugin.log(e);
+		}
+		if (!directories.isEmpty()) {
+			FileExistsCache.invalidateShared(directories);
 		}
 	}
 }
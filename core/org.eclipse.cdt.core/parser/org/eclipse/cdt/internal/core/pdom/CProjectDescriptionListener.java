@@ -42,6 +42,9 @@ public class CProjectDescriptionListener implements	ICProjectDescriptionListener
 	}
 
 	public void handleEvent(CProjectDescriptionEvent event) {
+		if (event.getProject() != null) {
+			fIndexManager.resetConfigurationSignatures(event.getProject());
+		}
 		ICProjectDescription old= event.getOldCProjectDescription();
 		ICProjectDescription act= event.getNewCProjectDescription();
 		if (act != null) {
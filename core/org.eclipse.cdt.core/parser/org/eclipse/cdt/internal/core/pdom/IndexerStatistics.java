@@ -12,6 +12,8 @@
 package org.eclipse.cdt.internal.core.pdom;
 
 public class IndexerStatistics {
+	/** Time spent deciding which files need to be parsed */
+	public int fSelectionTime;
 	public int fResolutionTime;
 	public int fParsingTime;
 	public int fAddToIndexTime;
@@ -22,4 +24,6 @@ public class IndexerStatistics {
 	public int fUnresolvedIncludesCount= 0;
 	public int fPreprocessorProblemCount= 0;
 	public int fSyntaxProblemsCount= 0;
+	/** Number of inclusions skipped without reading the file, because of an include guard */
+	public int fIncludeGuardSkipCount= 0;
 }
@@ -15,10 +15,14 @@ import org.eclipse.osgi.util.NLS;
 public class Messages extends NLS {
 	private static final String BUNDLE_NAME = "org.eclipse.cdt.internal.core.pdom.messages"; //$NON-NLS-1$
 	public static String Checksums_taskComputeChecksums;
+	public static String PDOMManager_cannotExportShardedIndex;
 	public static String PDOMManager_ClosePDOMJob;
 	public static String PDOMManager_creationOfIndexInterrupted;
 	public static String PDOMManager_ExistingFileCollides;
+	public static String PDOMManager_headerCacheInUse;
 	public static String PDOMManager_indexMonitorDetail;
+	public static String PDOMManager_migratingToCoarseFormat;
+	public static String PDOMManager_databaseTooLarge;
 	public static String PDOMManager_notifyJob_label;
 	public static String PDOMManager_notifyTask_message;
 	public static String PDOMManager_StartJob_name;
@@ -209,10 +209,12 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 *  
 	 *  CDT 9.0 development
 	 *  120.0 - added support for "extended bits" in declarations
+	 *  121.0 - compact storage of Latin-1 strings, include guards of files, types that do not
+	 *          fit into a binding are stored once per linkage.
 	 */
-	private static final int MIN_SUPPORTED_VERSION= version(120, 0);
-	private static final int MAX_SUPPORTED_VERSION= version(120, Short.MAX_VALUE);
-	private static final int DEFAULT_VERSION = version(120, 0);
+	private static final int MIN_SUPPORTED_VERSION= version(121, 0);
+	private static final int MAX_SUPPORTED_VERSION= version(121, Short.MAX_VALUE);
+	private static final int DEFAULT_VERSION = version(121, 0);
 
 	private static int version(int major, int minor) {
 		return (major << 16) + minor;
@@ -241,9 +243,9 @@ public class PDOM extends PlatformObject implements IPDOM {
 	}
 
 	public static final int LINKAGES = Database.DATA_AREA;
-	public static final int FILE_INDEX = Database.DATA_AREA + 4;
-	public static final int PROPERTIES = Database.DATA_AREA + 8;
-	public static final int END= Database.DATA_AREA + 12;
+	public static final int FILE_INDEX = LINKAGES + Database.PTR_SIZE;
+	public static final int PROPERTIES = FILE_INDEX + Database.PTR_SIZE;
+	public static final int END= PROPERTIES + Database.PTR_SIZE;
 	static {
 		assert END <= Database.CHUNK_SIZE;
 	}
@@ -799,27 +801,55 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private long lastWriteAccess= 0;
 	private long lastReadAccess= 0;
 	private long timeWriteLockAcquired;
+	private final PDOMLockStatistics fLockStatistics= new PDOMLockStatistics();
 
 	public void acquireReadLock() throws InterruptedException {
-		long t = sDEBUG_LOCKS ? System.nanoTime() : 0;
+		acquireReadLock(false, 0);
+	}
+
+	/**
+	 * Acquires a read lock, unless the lock cannot be obtained within the given time.
+	 * @param timeoutMillis maximum time to wait for the lock in milliseconds.
+	 * @return whether the lock was acquired.
+	 */
+	public boolean tryAcquireReadLock(long timeoutMillis) throws InterruptedException {
+		return acquireReadLock(true, timeoutMillis);
+	}
+
+	private boolean acquireReadLock(boolean timed, long timeoutMillis) throws InterruptedException {
+		final long start= System.nanoTime();
 		synchronized (mutex) {
 			++waitingReaders;
 			try {
-				while (lockCount < 0)
-					mutex.wait();
+				if (timed) {
+					final long deadline= start + timeoutMillis * 1000000;
+					while (lockCount < 0) {
+						final long remaining= deadline - System.nanoTime();
+						if (remaining <= 0) {
+							fLockStatistics.recordReadLockTimeout();
+							return false;
+						}
+						mutex.wait((remaining + 999999) / 1000000);
+					}
+				} else {
+					while (lockCount < 0)
+						mutex.wait();
+				}
 			} finally {
 				--waitingReaders;
 			}
 			++lockCount;
 			db.setLocked(true);
 
+			final long t = (System.nanoTime() - start) / 1000000;
+			fLockStatistics.record(PDOMLockStatistics.READ_WAIT, t);
 			if (sDEBUG_LOCKS) {
-				t = (System.nanoTime() - t) / 1000000;
 				if (t >= LONG_READ_LOCK_WAIT_REPORT_THRESHOLD) {
 					System.out.println("Acquired index read lock after " + t + " ms wait."); //$NON-NLS-1$//$NON-NLS-2$
 				}
 				incReadLock(fLockDebugging);
 			}
+			return true;
 		}
 	}
 
@@ -876,6 +906,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 			}
 
 			// Let the readers go first
+			final long waitStart= System.nanoTime();
 			long start= sDEBUG_LOCKS ? System.currentTimeMillis() : 0;
 			while (lockCount > giveupReadLocks || waitingReaders > 0) {
 				mutex.wait(BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL);
@@ -884,8 +915,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 				}
 			}
 			lockCount= -1;
-			if (sDEBUG_LOCKS)
-				timeWriteLockAcquired = System.currentTimeMillis();
+			timeWriteLockAcquired = System.nanoTime();
+			fLockStatistics.record(PDOMLockStatistics.WRITE_WAIT, (timeWriteLockAcquired - waitStart) / 1000000);
 			db.setExclusiveLock();
 		}
 	}
@@ -894,6 +925,11 @@ public class PDOM extends PlatformObject implements IPDOM {
 		releaseWriteLock(0, true);
 	}
 
+	/**
+	 * Releases the write lock, establishing the given number of read locks. When the database
+	 * is flushed, the write lock is first downgraded to a read lock such that readers do not have
+	 * to wait for the chunks being written to disk.
+	 */
 	@SuppressWarnings("nls")
 	public void releaseWriteLock(int establishReadLocks, boolean flush) {
 		// When all locks are released we can clear the result cache.
@@ -901,7 +937,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 			clearResultCache();
 		}
 		try {
-			db.giveUpExclusiveLock(flush);
+			db.giveUpExclusiveLock(false);
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		}
@@ -910,8 +946,9 @@ public class PDOM extends PlatformObject implements IPDOM {
 		final ChangeEvent event= fEvent;
 		fEvent= new ChangeEvent();
 		synchronized (mutex) {
+			final long timeHeld = (System.nanoTime() - timeWriteLockAcquired) / 1000000;
+			fLockStatistics.record(PDOMLockStatistics.WRITE_HOLD, timeHeld);
 			if (sDEBUG_LOCKS) {
-				long timeHeld = lastWriteAccess - timeWriteLockAcquired;
 				if (timeHeld >= LONG_WRITE_LOCK_REPORT_THRESHOLD) {
 					System.out.println("Index write lock held for " + timeHeld + " ms");
 				}
@@ -920,9 +957,30 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 			if (lockCount < 0)
 				lockCount= establishReadLocks;
+			if (flush)
+				lockCount++;
 			mutex.notifyAll();
 			db.setLocked(lockCount != 0);
 		}
+		if (flush) {
+			try {
+				db.flush();
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			} finally {
+				// release the read lock held for flushing.
+				boolean clearCache;
+				synchronized (mutex) {
+					--lockCount;
+					mutex.notifyAll();
+					clearCache= lockCount == 0;
+					db.setLocked(lockCount != 0);
+				}
+				if (clearCache) {
+					clearResultCache();
+				}
+			}
+		}
 		fireChange(event);
 	}
 
@@ -940,6 +998,13 @@ public class PDOM extends PlatformObject implements IPDOM {
 		return lastReadAccess;
 	}
 
+	/**
+	 * Returns the histograms of wait and hold times for the locks of this PDOM.
+	 */
+	public PDOMLockStatistics getLockStatistics() {
+		return fLockStatistics;
+	}
+
 	protected PDOMLinkage adaptLinkage(ILinkage linkage) throws CoreException {
 		return fLinkageIDCache.get(linkage.getLinkageID());
 	}
@@ -1242,6 +1307,10 @@ public class PDOM extends PlatformObject implements IPDOM {
 		return db.getCacheMisses();
 	}
 
+	public long getCacheEvictions() {
+		return db.getCacheEvictions();
+	}
+
 	public void resetCacheCounters() {
 		db.resetCacheCounters();
 	}
@@ -10,18 +10,17 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.pdom;
 
-import java.util.HashSet;
-
 import org.eclipse.cdt.internal.core.index.IIndexFragmentBinding;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentFileSet;
+import org.eclipse.cdt.internal.core.parser.util.LongSet;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMFile;
 import org.eclipse.core.runtime.CoreException;
 
 public class PDOMFileSet implements IIndexFragmentFileSet {
 
-	private HashSet<Long> fFileIDs= new HashSet<Long>();
+	private LongSet fFileIDs= new LongSet();
 	
 	public void add(IIndexFragmentFile fragFile) {
 		PDOMFile pdomFile= (PDOMFile) fragFile;
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.dom.IPDOMLinkageFactory;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexInclude;
+import org.eclipse.cdt.core.index.IIndexLocationConverter;
+import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.IExtendedScannerInfo;
+import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.internal.core.index.IIndexFragment;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
+import org.eclipse.cdt.internal.core.index.IIndexFragmentInclude;
+import org.eclipse.cdt.internal.core.index.IndexFileLocation;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Databases with the index content of headers outside of the workspace, shared by the projects
+ * of all workspaces using the same cache directory. The cache is partitioned by the signature of
+ * the configuration (macros and include paths) the headers are parsed with, a project sees the
+ * partitions of its own configurations, only.
+ * <p>
+ * Within a partition an entry is keyed by the hash of the header's content, the configuration
+ * signature and the keys of the cached headers it includes. The entry is reused as long as the
+ * timestamp of the header and the keys of its includes are unchanged.
+ * <p>
+ * The databases are used by one process at a time, a second process opening the same directory
+ * does not use the cache.
+ */
+public final class PDOMHeaderCache {
+	private static final String DATABASE_PREFIX= "headers-"; //$NON-NLS-1$
+	private static final String DATABASE_SUFFIX= ".pdom"; //$NON-NLS-1$
+	private static final String LOCK_NAME= "headers.lock"; //$NON-NLS-1$
+	private static final String FRAGMENT_ID= CCorePlugin.PLUGIN_ID + ".pdom.headercache"; //$NON-NLS-1$
+
+	/**
+	 * Stores the locations of files outside of the workspace as URIs, files in the workspace
+	 * cannot be stored.
+	 */
+	private static final class LocationConverter implements IIndexLocationConverter {
+		public IIndexFileLocation fromInternalFormat(String raw) {
+			try {
+				return new IndexFileLocation(new URI(raw), null);
+			} catch (URISyntaxException e) {
+				return null;
+			}
+		}
+
+		public String toInternalFormat(IIndexFileLocation location) {
+			if (!canStore(location))
+				return null;
+			return location.getURI().toString();
+		}
+	}
+
+	private final File fDirectory;
+	private final Map<String, IPDOMLinkageFactory> fLinkageFactories;
+	private final RandomAccessFile fLockFile;
+	private final FileLock fLock;
+	private final Map<Integer, WritablePDOM> fPartitions= new HashMap<Integer, WritablePDOM>();
+
+	private PDOMHeaderCache(File directory, Map<String, IPDOMLinkageFactory> linkageFactories,
+			RandomAccessFile lockFile, FileLock lock) {
+		fDirectory= directory;
+		fLinkageFactories= linkageFactories;
+		fLockFile= lockFile;
+		fLock= lock;
+	}
+
+	/**
+	 * Opens the cache in the given directory, or returns <code>null</code> when the cache is
+	 * in use by another process.
+	 */
+	public static PDOMHeaderCache open(File directory, Map<String, IPDOMLinkageFactory> linkageFactories)
+			throws CoreException {
+		directory.mkdirs();
+		RandomAccessFile lockFile= null;
+		FileLock lock= null;
+		try {
+			lockFile= new RandomAccessFile(new File(directory, LOCK_NAME), "rw"); //$NON-NLS-1$
+			lock= lockFile.getChannel().tryLock();
+			if (lock == null) {
+				lockFile.close();
+				return null;
+			}
+			PDOMHeaderCache result= new PDOMHeaderCache(directory, linkageFactories, lockFile, lock);
+			lockFile= null;
+			return result;
+		} catch (OverlappingFileLockException e) {
+			// The cache is already in use within this process.
+			return null;
+		} catch (IOException e) {
+			throw new CoreException(CCorePlugin.createStatus(e.getMessage(), e));
+		} finally {
+			if (lockFile != null) {
+				try {
+					lockFile.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the cache can store the given file, files in the workspace cannot be stored.
+	 * A header is stored in the cache only if the files it includes can be stored, too.
+	 */
+	public static boolean canStore(IIndexFileLocation location) {
+		return location.getFullPath() == null;
+	}
+
+	/**
+	 * Computes the hash of the current content of the given file, or returns <code>0</code> if
+	 * the file cannot be read.
+	 */
+	public static long computeContentsHash(IIndexFileLocation location) {
+		FileContent content= FileContent.create(location);
+		return content != null ? content.getContentsHash() : 0;
+	}
+
+	/**
+	 * Computes the signature of a scanner configuration, it covers the defined macros, the macro
+	 * and include files and the include paths.
+	 */
+	public static int computeConfigurationSignature(IScannerInfo scannerInfo) {
+		int result= 0;
+		Map<String, String> macros= scannerInfo.getDefinedSymbols();
+		if (macros != null) {
+			result= macros.hashCode();
+		}
+		result= addToSignature(result, scannerInfo.getIncludePaths());
+		if (scannerInfo instanceof IExtendedScannerInfo) {
+			IExtendedScannerInfo extendedInfo= (IExtendedScannerInfo) scannerInfo;
+			result= addToSignature(result, extendedInfo.getLocalIncludePath());
+			result= addToSignature(result, extendedInfo.getMacroFiles());
+			result= addToSignature(result, extendedInfo.getIncludeFiles());
+		}
+		return result;
+	}
+
+	private static int addToSignature(int result, String[] values) {
+		if (values != null) {
+			for (String value : values) {
+				result= result * 31 + value.hashCode();
+			}
+		}
+		return result * 31 + 1;
+	}
+
+	/**
+	 * Adds the key of an included header to the key of an entry. The key of an entry starts
+	 * with the signature of its configuration and is stored as its scanner configuration hash.
+	 * @param include the entry of the included header, it has to have content.
+	 */
+	public static int addToKey(int key, IIndexFile include) throws CoreException {
+		final long hash= include.getContentsHash();
+		return (key * 31 + (int) (hash ^ (hash >>> 32))) * 31 + include.getScannerConfigurationHashcode();
+	}
+
+	/**
+	 * Checks whether a cached header can be used for parsing with the configuration of the given
+	 * signature. The entry is up-to-date when the header has not been modified since it has been
+	 * parsed and the entries of the headers it includes are unchanged.
+	 * @param timestamp the current timestamp of the header.
+	 */
+	public static boolean isUpToDate(IIndexFragmentFile file, int signature, long timestamp)
+			throws CoreException {
+		if (file.getTimestamp() != timestamp)
+			return false;
+		int key= signature;
+		for (IIndexInclude include : file.getIncludes()) {
+			if (include.isActive() && include.isResolved()) {
+				IIndexFragmentFile target= ((IIndexFragmentInclude) include).getIncludes();
+				if (target == null || !target.hasContent())
+					return false;
+				key= addToKey(key, target);
+			}
+		}
+		return key == file.getScannerConfigurationHashcode();
+	}
+
+	/**
+	 * Returns the partition of the cache for the configuration with the given signature, the
+	 * database is created if necessary.
+	 */
+	public synchronized WritablePDOM getPDOM(int signature) throws CoreException {
+		WritablePDOM pdom= fPartitions.get(signature);
+		if (pdom == null) {
+			final String name= Integer.toHexString(signature);
+			pdom= new WritablePDOM(new File(fDirectory, DATABASE_PREFIX + name + DATABASE_SUFFIX),
+					new LocationConverter(), fLinkageFactories);
+			try {
+				pdom.acquireWriteLock();
+				try {
+					if (!pdom.isSupportedVersion()) {
+						pdom.clear();
+					}
+					final String id= FRAGMENT_ID + '.' + name;
+					if (!id.equals(pdom.getProperty(IIndexFragment.PROPERTY_FRAGMENT_ID))) {
+						pdom.setProperty(IIndexFragment.PROPERTY_FRAGMENT_ID, id);
+					}
+				} finally {
+					pdom.releaseWriteLock();
+				}
+			} catch (InterruptedException e) {
+				pdom.close();
+				throw new CoreException(CCorePlugin.createStatus(Messages.PDOMManager_creationOfIndexInterrupted, e));
+			}
+			fPartitions.put(signature, pdom);
+		}
+		return pdom;
+	}
+
+	/**
+	 * Closes the databases and allows other processes to use the cache.
+	 */
+	public synchronized void close() {
+		for (WritablePDOM pdom : fPartitions.values()) {
+			try {
+				pdom.acquireWriteLock();
+				try {
+					pdom.close();
+				} finally {
+					pdom.releaseWriteLock();
+				}
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			} catch (InterruptedException e) {
+			}
+		}
+		fPartitions.clear();
+		try {
+			fLock.release();
+			fLockFile.close();
+		} catch (IOException e) {
+			CCorePlugin.log(e);
+		}
+	}
+}
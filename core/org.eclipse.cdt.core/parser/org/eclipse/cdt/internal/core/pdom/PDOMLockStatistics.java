@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+/**
+ * Histograms of the times threads wait for and hold the locks of a {@link PDOM}.
+ * <p>
+ * Bucket <code>0</code> counts durations below 1ms, bucket <code>i</code> counts durations
+ * of at least <code>2^(i-1)</code>ms and below <code>2^i</code>ms. The last bucket counts
+ * all longer durations.
+ */
+public final class PDOMLockStatistics {
+	/** Time spent waiting for a read lock */
+	public static final int READ_WAIT= 0;
+	/** Time spent waiting for the write lock */
+	public static final int WRITE_WAIT= 1;
+	/** Time the write lock was held */
+	public static final int WRITE_HOLD= 2;
+
+	public static final int BUCKET_COUNT= 16;
+
+	private static final int KIND_COUNT= 3;
+	private static final String[] KIND_NAMES= {"read-wait", "write-wait", "write-hold"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private final long[][] fBuckets= new long[KIND_COUNT][BUCKET_COUNT];
+	private final long[] fTotal= new long[KIND_COUNT];
+	private final long[] fMaximum= new long[KIND_COUNT];
+	private long fReadLockTimeouts;
+
+	synchronized void record(int kind, long millis) {
+		fBuckets[kind][getBucket(millis)]++;
+		fTotal[kind]+= millis;
+		if (millis > fMaximum[kind]) {
+			fMaximum[kind]= millis;
+		}
+	}
+
+	synchronized void recordReadLockTimeout() {
+		fReadLockTimeouts++;
+	}
+
+	private static int getBucket(long millis) {
+		int bucket= 0;
+		while (millis > 0 && bucket < BUCKET_COUNT-1) {
+			millis >>= 1;
+			bucket++;
+		}
+		return bucket;
+	}
+
+	/**
+	 * Returns the exclusive upper bound in milliseconds of the durations counted in the given bucket,
+	 * or {@link Long#MAX_VALUE} for the last bucket.
+	 */
+	public static long getBucketLimit(int bucket) {
+		return bucket < BUCKET_COUNT-1 ? 1L << bucket : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns a copy of the histogram for one of {@link #READ_WAIT}, {@link #WRITE_WAIT} or
+	 * {@link #WRITE_HOLD}.
+	 */
+	public synchronized long[] getHistogram(int kind) {
+		final long[] result= new long[BUCKET_COUNT];
+		System.arraycopy(fBuckets[kind], 0, result, 0, BUCKET_COUNT);
+		return result;
+	}
+
+	public synchronized long getCount(int kind) {
+		long result= 0;
+		for (long count : fBuckets[kind]) {
+			result+= count;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the sum of the recorded durations in milliseconds.
+	 */
+	public synchronized long getTotal(int kind) {
+		return fTotal[kind];
+	}
+
+	/**
+	 * Returns the longest recorded duration in milliseconds.
+	 */
+	public synchronized long getMaximum(int kind) {
+		return fMaximum[kind];
+	}
+
+	/**
+	 * Returns the number of timed read lock requests that gave up.
+	 */
+	public synchronized long getReadLockTimeouts() {
+		return fReadLockTimeouts;
+	}
+
+	public synchronized void reset() {
+		for (int i = 0; i < KIND_COUNT; i++) {
+			for (int j = 0; j < BUCKET_COUNT; j++) {
+				fBuckets[i][j]= 0;
+			}
+			fTotal[i]= fMaximum[i]= 0;
+		}
+		fReadLockTimeouts= 0;
+	}
+
+	@Override
+	@SuppressWarnings("nls")
+	public synchronized String toString() {
+		StringBuilder buf= new StringBuilder();
+		for (int kind = 0; kind < KIND_COUNT; kind++) {
+			if (kind > 0) {
+				buf.append('\n');
+			}
+			buf.append(KIND_NAMES[kind]).append(": ").append(getCount(kind)).append(" times, ")
+				.append(fTotal[kind]).append(" ms total, ").append(fMaximum[kind]).append(" ms max [");
+			int last= BUCKET_COUNT-1;
+			while (last > 0 && fBuckets[kind][last] == 0) {
+				last--;
+			}
+			for (int i = 0; i <= last; i++) {
+				if (i > 0) {
+					buf.append(", ");
+				}
+				if (i < BUCKET_COUNT-1) {
+					buf.append('<').append(getBucketLimit(i));
+				} else {
+					buf.append(">=").append(getBucketLimit(i-1));
+				}
+				buf.append("ms: ").append(fBuckets[kind][i]);
+			}
+			buf.append(']');
+		}
+		buf.append("\nread-lock timeouts: ").append(fReadLockTimeouts);
+		return buf.toString();
+	}
+}
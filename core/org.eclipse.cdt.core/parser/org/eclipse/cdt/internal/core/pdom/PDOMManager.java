@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -63,17 +64,22 @@ import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
 import org.eclipse.cdt.internal.core.CCoreInternals;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
+import org.eclipse.cdt.internal.core.index.IWritableIndexFragment;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
 import org.eclipse.cdt.internal.core.index.IndexChangeEvent;
 import org.eclipse.cdt.internal.core.index.IndexFactory;
+import org.eclipse.cdt.internal.core.index.IndexShardLayout;
 import org.eclipse.cdt.internal.core.index.IndexerStateEvent;
+import org.eclipse.cdt.internal.core.index.WritableCIndex;
 import org.eclipse.cdt.internal.core.index.provider.IndexProviderManager;
 import org.eclipse.cdt.internal.core.pdom.PDOM.IListener;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMLinkageFactory;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMProjectIndexLocationConverter;
 import org.eclipse.cdt.internal.core.pdom.indexer.AbstractPDOMIndexer;
 import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
+import org.eclipse.cdt.internal.core.pdom.indexer.PDOMIndexerTask;
 import org.eclipse.cdt.internal.core.pdom.indexer.PDOMNullIndexer;
 import org.eclipse.cdt.internal.core.pdom.indexer.PDOMRebuildTask;
 import org.eclipse.cdt.internal.core.pdom.indexer.PDOMUpdateTask;
@@ -90,6 +96,7 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
@@ -133,6 +140,32 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 
 	private static final QualifiedName dbNameProperty= new QualifiedName(CCorePlugin.PLUGIN_ID, "pdomName"); //$NON-NLS-1$
 
+	/**
+	 * Property of the primary database of a sharded index storing the names of the databases
+	 * of the other shards.
+	 */
+	private static final String PROPERTY_SHARDS= "org.eclipse.cdt.internal.core.pdom.shards"; //$NON-NLS-1$
+
+	/**
+	 * Directory of the header cache shared by the projects of all workspaces, by default no
+	 * header cache is used.
+	 * @see PDOMHeaderCache
+	 */
+	private static final String HEADER_CACHE_PROPERTY= "org.eclipse.cdt.core.parser.pdom.header.cache"; //$NON-NLS-1$
+
+	/**
+	 * The additional databases of a sharded project index.
+	 */
+	private static final class PDOMShards {
+		final WritablePDOM[] fShards;
+		final IndexShardLayout fLayout;
+
+		PDOMShards(WritablePDOM[] shards, IndexShardLayout layout) {
+			fShards= shards;
+			fLayout= layout;
+		}
+	}
+
 	public static final int[] IDS_FOR_LINKAGES_TO_INDEX = {
 		ILinkage.CPP_LINKAGE_ID, ILinkage.C_LINKAGE_ID, ILinkage.FORTRAN_LINKAGE_ID
 	};
@@ -156,7 +189,11 @@ public class PDOMManager implements IWritableIndexManager, IListener {
      * Stores mapping from pdom to project, used to serialize creation of new pdoms.
      */
     private Map<IProject, IPDOM> fProjectToPDOM= new HashMap<IProject, IPDOM>();
+    private Map<IProject, PDOMShards> fProjectToShards= new HashMap<IProject, PDOMShards>();
     private Map<File, ICProject> fFileToProject= new HashMap<File, ICProject>();
+    private PDOMHeaderCache fHeaderCache;
+    private boolean fHeaderCacheOpened;
+    private Map<IProject, int[]> fProjectToSignatures= new HashMap<IProject, int[]>();
 	private ListenerList fChangeListeners= new ListenerList();
 	private ListenerList fStateListeners= new ListenerList();
 	
@@ -234,7 +271,8 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		
 		fTraceIndexerSetup= String.valueOf(true).equals(Platform.getDebugOption(TRACE_INDEXER_SETUP));
 		final CoreModel model = CoreModel.getDefault();
-		ResourcesPlugin.getWorkspace().addResourceChangeListener(fCModelListener, IResourceChangeEvent.POST_BUILD);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(fCModelListener,
+				IResourceChangeEvent.POST_BUILD | IResourceChangeEvent.POST_CHANGE);
 		model.addElementChangedListener(fCModelListener);
 		LanguageManager.getInstance().registerLanguageChangeListener(fLanguageChangeListener);
 		final int types= CProjectDescriptionEvent.DATA_APPLIED;
@@ -269,6 +307,13 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			jobToCancel.cancelJobs(null, false);
 		}
 		Job.getJobManager().removeJobChangeListener(fJobChangeListener);
+		synchronized (fProjectToPDOM) {
+			if (fHeaderCache != null) {
+				fHeaderCache.close();
+				fHeaderCache= null;
+			}
+			fHeaderCacheOpened= false;
+		}
 	}
 
 	protected void onPreferenceChange(PreferenceChangeEvent event) {
@@ -387,6 +432,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			pdom.addListener(this);
 			
 			fFileToProject.put(dbFile, project);
+			createShards(project, pdom);
 			fProjectToPDOM.put(rproject, pdom);
 			if (pdomProxy instanceof PDOMProxy) {
 				((PDOMProxy) pdomProxy).setDelegate(pdom);
@@ -395,6 +441,211 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		}
 	}
 
+	/**
+	 * Opens or creates the additional databases for a project configured to use a sharded index,
+	 * see {@link IndexerPreferences#getShardRoots(IProject)}. The content of a file stays in the
+	 * shard it has been stored in, therefore the shard roots can be changed without clearing the
+	 * index. When a shard is removed or lost, the index is cleared and rebuilt.
+	 */
+	private void createShards(ICProject project, WritablePDOM pdom) throws CoreException {
+		assert Thread.holdsLock(fProjectToPDOM);
+		final IProject rproject= project.getProject();
+		final IPath[] roots= getShardRoots(rproject);
+		String[] names= {};
+		try {
+			pdom.acquireReadLock();
+			try {
+				String property= pdom.getProperty(PROPERTY_SHARDS);
+				if (property != null && property.length() > 0) {
+					names= property.split(","); //$NON-NLS-1$
+				}
+			} finally {
+				pdom.releaseReadLock();
+			}
+			if (roots.length == 0 && names.length == 0)
+				return;
+
+			pdom.acquireWriteLock();
+		} catch (InterruptedException e) {
+			throw new CoreException(CCorePlugin.createStatus(Messages.PDOMManager_creationOfIndexInterrupted, e));
+		}
+		try {
+			boolean lost= names.length > roots.length;
+			for (int i = 0; !lost && i < names.length; i++) {
+				lost= !fileFromDatabaseName(names[i]).exists();
+			}
+			if (lost) {
+				for (String name : names) {
+					fileFromDatabaseName(name).delete();
+				}
+				names= new String[0];
+				if (!pdom.isCreatedFromScratch()) {
+					pdom.clear();
+					pdom.setClearedBecauseOfVersionMismatch(true);
+					writeProjectPDOMProperties(pdom, rproject);
+				}
+			}
+			if (roots.length == 0)
+				return;
+
+			WritablePDOM[] shards= new WritablePDOM[roots.length];
+			final IndexShardLayout layout= new IndexShardLayout(roots);
+			layout.readContentShards(pdom, 0);
+			StringBuilder buf= new StringBuilder();
+			for (int i = 0; i < shards.length; i++) {
+				final boolean fromScratch= i >= names.length;
+				final String name= fromScratch ? createNewShardName(project) : names[i];
+				final File file= fileFromDatabaseName(name);
+				final WritablePDOM shard= new WritablePDOM(file, new PDOMProjectIndexLocationConverter(rproject), getLinkageFactories());
+				shard.acquireWriteLock();
+				try {
+					if (!shard.isSupportedVersion() || fromScratch) {
+						if (!fromScratch && !pdom.isCreatedFromScratch()) {
+							// The content of the shard is lost, rebuild the entire index.
+							pdom.setClearedBecauseOfVersionMismatch(true);
+						}
+						shard.clear();
+						writeShardPDOMProperties(shard, rproject, i + 1);
+					}
+					layout.readContentShards(shard, i + 1);
+				} finally {
+					shard.releaseWriteLock();
+				}
+				shard.setASTFilePathResolver(new ProjectIndexerInputAdapter(project, false));
+				shard.addListener(this);
+				fFileToProject.put(file, project);
+				shards[i]= shard;
+				if (i > 0) {
+					buf.append(',');
+				}
+				buf.append(name);
+			}
+			pdom.setProperty(PROPERTY_SHARDS, buf.toString());
+			fProjectToShards.put(rproject, new PDOMShards(shards, layout));
+		} catch (InterruptedException e) {
+			throw new CoreException(CCorePlugin.createStatus(Messages.PDOMManager_creationOfIndexInterrupted, e));
+		} finally {
+			pdom.releaseWriteLock();
+		}
+	}
+
+	private IPath[] getShardRoots(IProject project) {
+		List<IPath> result= new ArrayList<IPath>();
+		String roots= IndexerPreferences.getShardRoots(project);
+		if (roots != null) {
+			for (String root : roots.split(",")) { //$NON-NLS-1$
+				root= root.trim();
+				if (root.length() > 0) {
+					result.add(project.getFullPath().append(root));
+				}
+			}
+		}
+		return result.toArray(new IPath[result.size()]);
+	}
+
+	private String createNewShardName(ICProject project) {
+		String dbName;
+		long time= System.currentTimeMillis();
+		do {
+			dbName= project.getElementName() + "." + time++ + ".shard.pdom";  //$NON-NLS-1$//$NON-NLS-2$
+		}
+		while (fileFromDatabaseName(dbName).exists());
+		return dbName;
+	}
+
+	/**
+	 * Returns the additional databases of a sharded project index, or an empty array.
+	 */
+	public WritablePDOM[] getPDOMShards(ICProject project) {
+		synchronized (fProjectToPDOM) {
+			PDOMShards shards= fProjectToShards.get(project.getProject());
+			return shards == null ? new WritablePDOM[0] : shards.fShards;
+		}
+	}
+
+	/**
+	 * Returns the layout of a sharded project index, or <code>null</code>.
+	 */
+	public IndexShardLayout getShardLayout(ICProject project) {
+		synchronized (fProjectToPDOM) {
+			PDOMShards shards= fProjectToShards.get(project.getProject());
+			return shards == null ? null : shards.fLayout;
+		}
+	}
+
+	/**
+	 * Returns the partitions of the shared header cache for the configurations of the given
+	 * project by their signatures. The map is empty if no header cache is configured or the
+	 * cache is in use by another process.
+	 */
+	public Map<Integer, IWritableIndexFragment> getHeaderCaches(ICProject project) {
+		final PDOMHeaderCache headerCache= getHeaderCache();
+		if (headerCache == null)
+			return Collections.emptyMap();
+
+		Map<Integer, IWritableIndexFragment> result= new HashMap<Integer, IWritableIndexFragment>();
+		for (int signature : getConfigurationSignatures(project.getProject())) {
+			try {
+				result.put(signature, headerCache.getPDOM(signature));
+			} catch (CoreException e) {
+				CCorePlugin.log(e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the signatures of the scanner configurations of the project for C and C++ files.
+	 */
+	private int[] getConfigurationSignatures(IProject project) {
+		synchronized (fProjectToSignatures) {
+			int[] signatures= fProjectToSignatures.get(project);
+			if (signatures != null)
+				return signatures;
+		}
+		int[] signatures= {
+			PDOMHeaderCache.computeConfigurationSignature(
+					PDOMIndexerTask.getDefaultScannerConfig(project, ILinkage.CPP_LINKAGE_ID)),
+			PDOMHeaderCache.computeConfigurationSignature(
+					PDOMIndexerTask.getDefaultScannerConfig(project, ILinkage.C_LINKAGE_ID))
+		};
+		synchronized (fProjectToSignatures) {
+			fProjectToSignatures.put(project, signatures);
+		}
+		return signatures;
+	}
+
+	/**
+	 * Forgets the configuration signatures of the given project, such that they are computed
+	 * anew after the settings of the project have changed.
+	 */
+	void resetConfigurationSignatures(IProject project) {
+		synchronized (fProjectToSignatures) {
+			fProjectToSignatures.remove(project);
+		}
+	}
+
+	private PDOMHeaderCache getHeaderCache() {
+		synchronized (fProjectToPDOM) {
+			if (!fHeaderCacheOpened) {
+				fHeaderCacheOpened= true;
+				String dir= System.getProperty(HEADER_CACHE_PROPERTY);
+				if (dir != null && dir.length() > 0) {
+					try {
+						fHeaderCache= PDOMHeaderCache.open(new File(dir), getLinkageFactories());
+						if (fHeaderCache == null) {
+							CCorePlugin.log(new Status(IStatus.INFO, CCorePlugin.PLUGIN_ID,
+									MessageFormat.format(Messages.PDOMManager_headerCacheInUse, new Object[] {dir})));
+						}
+					} catch (CoreException e) {
+						CCorePlugin.log(e);
+					}
+				}
+			}
+			return fHeaderCache;
+		}
+	}
+
 	private Map<String, IPDOMLinkageFactory> getLinkageFactories() {
 		return LanguageManager.getInstance().getPDOMLinkageFactoryMappings();
 	}
@@ -853,33 +1104,47 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		}
     	unregisterPreferenceListener(cproject);
     	Object pdom= null;
+    	PDOMShards shards= null;
     	synchronized (fProjectToPDOM) {
     		pdom = fProjectToPDOM.remove(rproject);
+    		shards= fProjectToShards.remove(rproject);
+    		resetConfigurationSignatures(rproject);
     		// if the project is closed allow to reuse the pdom.
     		if (pdom instanceof WritablePDOM && !delete) {
     			fFileToProject.remove(((WritablePDOM) pdom).getDB().getLocation());
+    			if (shards != null) {
+    				for (WritablePDOM shard : shards.fShards) {
+    					fFileToProject.remove(shard.getDB().getLocation());
+    				}
+    			}
     		}
     	}
 
     	if (pdom instanceof WritablePDOM) {
-    		final WritablePDOM finalpdom= (WritablePDOM) pdom;
+    		final List<WritablePDOM> pdoms= new ArrayList<WritablePDOM>();
+    		pdoms.add((WritablePDOM) pdom);
+    		if (shards != null) {
+    			pdoms.addAll(Arrays.asList(shards.fShards));
+    		}
     		Job job= new Job(Messages.PDOMManager_ClosePDOMJob) {
     			@Override
 				protected IStatus run(IProgressMonitor monitor) {
-        			try {
-        				finalpdom.acquireWriteLock();
-        				try {
-        					finalpdom.close();
-        					if (delete) {
-        						finalpdom.getDB().getLocation().delete();
-        					}
-        				} catch (CoreException e) {
-        					CCorePlugin.log(e);
-        				} finally {
-        					finalpdom.releaseWriteLock();
-        				}
-        			} catch (InterruptedException e) {
-        			}
+    				for (WritablePDOM finalpdom : pdoms) {
+    					try {
+    						finalpdom.acquireWriteLock();
+    						try {
+    							finalpdom.close();
+    							if (delete) {
+    								finalpdom.getDB().getLocation().delete();
+    							}
+    						} catch (CoreException e) {
+    							CCorePlugin.log(e);
+    						} finally {
+    							finalpdom.releaseWriteLock();
+    						}
+    					} catch (InterruptedException e) {
+    					}
+    				}
     				return Status.OK_STATUS;
     			}
     		};
@@ -896,6 +1161,8 @@ public class PDOMManager implements IWritableIndexManager, IListener {
     	synchronized (fProjectToPDOM) {
 			IProject rproject= cproject.getProject();
 			fProjectToPDOM.remove(rproject);
+			fProjectToShards.remove(rproject);
+			resetConfigurationSignatures(rproject);
 			// don't remove the location, because it may not be reused when the project was deleted.
     	}
 	}
@@ -946,6 +1213,50 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		}
 	}
 
+	/**
+	 * Called by the indexer when the database of a project has exceeded the maximum size
+	 * of its record pointer format. Each exceeded database is handled once: a database that 
+	 * does not yet use the coarse format is rebuilt, clearing it switches it to the coarse format.
+	 * When the coarse format is exceeded as well, wide record pointers are recommended.
+	 * @return whether the index of the project is rebuilt.
+	 */
+	public boolean handleDatabaseTooLarge(ICProject project) {
+		final IPDOM pdom;
+		synchronized (fProjectToPDOM) {
+			pdom= fProjectToPDOM.get(project.getProject());
+		}
+		if (!(pdom instanceof WritablePDOM)) 
+			return false;
+		
+		boolean migrate= false;
+		boolean tooLarge= false;
+		List<WritablePDOM> pdoms= new ArrayList<WritablePDOM>();
+		pdoms.add((WritablePDOM) pdom);
+		pdoms.addAll(Arrays.asList(getPDOMShards(project)));
+		for (WritablePDOM candidate : pdoms) {
+			final Database db= candidate.getDB();
+			if (db.reportExceededMaxSize()) {
+				if (db.isCoarseFormat()) {
+					tooLarge= true;
+				} else {
+					migrate= true;
+				}
+			}
+		}
+		if (tooLarge) {
+			CCorePlugin.log(new Status(IStatus.WARNING, CCorePlugin.PLUGIN_ID, 
+					MessageFormat.format(Messages.PDOMManager_databaseTooLarge, 
+							new Object[] {project.getElementName(), Database.WIDE_RECPTRS_PROPERTY})));
+		}
+		if (!migrate)
+			return false;
+		
+		CCorePlugin.log(new Status(IStatus.INFO, CCorePlugin.PLUGIN_ID, 
+				MessageFormat.format(Messages.PDOMManager_migratingToCoarseFormat, new Object[] {project.getElementName()})));
+		reindex(project);
+		return true;
+	}
+
 	public void reindex(final ICProject project) {
 		Job job= new Job(Messages.PDOMManager_notifyJob_label) { 
 			@Override
@@ -1173,6 +1484,15 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		return fIndexFactory.getWritableIndex(project);
 	}
 
+	/**
+	 * Returns an index writing a single shard of a sharded project index, used to rebuild
+	 * the shards in parallel.
+	 * @see #getShardLayout(ICProject)
+	 */
+	public IWritableIndex getWritableIndex(ICProject project, int shard) throws CoreException {
+		return fIndexFactory.getWritableIndex(project, shard);
+	}
+
 	public IIndex getIndex(ICProject project) throws CoreException {
 		return fIndexFactory.getIndex(new ICProject[] {project}, 0);
 	}
@@ -1212,6 +1532,10 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		try {
 			// copy it
 			PDOM pdom= getOrCreatePDOM(cproject);
+			if (getPDOMShards(cproject).length > 0) {
+				throw new CoreException(CCorePlugin.createStatus(MessageFormat.format(
+						Messages.PDOMManager_cannotExportShardedIndex, new Object[] {cproject.getElementName()})));
+			}
 			pdom.acquireReadLock();
 			String oldID= null;
 			try {
@@ -1262,6 +1586,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 				version= (version << 8) + (b & 0xff);
 				out.write(b);
 			}
+			version= Database.getVersionFromHeader(version);
 			if (version > PDOM.getMaxSupportedVersion()) {
 				final IStatus status = new Status(IStatus.WARNING, CCorePlugin.PLUGIN_ID, 0, CCorePlugin.getResourceString("PDOMManager.unsupportedHigherVersion"), null); //$NON-NLS-1$
 				throw new CoreException(status); 
@@ -1289,10 +1614,43 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			pdom.reloadFromFile(newFile);
 			storeDatabaseName(project.getProject(), newName);
 			writeProjectPDOMProperties(pdom, project.getProject());
+			clearShards(project, pdom);
 		} finally {
 			pdom.releaseWriteLock();
 		}
 	}
+
+	/**
+	 * Clears the shards of a project after the primary database has been replaced, the
+	 * content of all files is then stored in the primary database.
+	 */
+	private void clearShards(ICProject project, WritablePDOM pdom) throws CoreException {
+		PDOMShards shards;
+		synchronized (fProjectToPDOM) {
+			shards= fProjectToShards.get(project.getProject());
+		}
+		final WritablePDOM[] shardPDOMs= shards == null ? new WritablePDOM[0] : shards.fShards;
+		int locked= 0;
+		try {
+			for (; locked < shardPDOMs.length; locked++) {
+				shardPDOMs[locked].acquireWriteLock();
+			}
+			for (WritablePDOM shard : shardPDOMs) {
+				shard.clear();
+			}
+			recordShards(pdom, shardPDOMs, project.getProject());
+			if (shards != null) {
+				shards.fLayout.clearContentShards();
+				shards.fLayout.readContentShards(pdom, 0);
+			}
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} finally {
+			while (--locked >= 0) {
+				shardPDOMs[locked].releaseWriteLock();
+			}
+		}
+	}
 	
 	public void export(ICProject project, String location, int options, IProgressMonitor monitor) throws CoreException {
 		TeamPDOMExportOperation operation= new TeamPDOMExportOperation(project);
@@ -1313,6 +1671,51 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		pdom.setProperty(IIndexFragment.PROPERTY_FRAGMENT_ID, id);
 	}
 
+	/**
+	 * Write metadata appropriate for a project index, which may consist of multiple pdoms.
+	 * @param index the index to write to, must be write-locked
+	 * @param project the project to write metadata about
+	 * @throws CoreException
+	 */
+	public static void writeProjectPDOMProperties(IWritableIndex index, IProject project) throws CoreException {
+		IWritableIndexFragment[] fragments= index instanceof WritableCIndex ?
+				((WritableCIndex) index).getWritableFragments() :
+				new IWritableIndexFragment[] {index.getWritableFragment()};
+		if (fragments[0] instanceof WritablePDOM) {
+			WritablePDOM pdom= (WritablePDOM) fragments[0];
+			writeProjectPDOMProperties(pdom, project);
+			List<WritablePDOM> shards= new ArrayList<WritablePDOM>();
+			for (int i = 1; i < fragments.length; i++) {
+				if (fragments[i] instanceof WritablePDOM) {
+					shards.add((WritablePDOM) fragments[i]);
+				}
+			}
+			recordShards(pdom, shards.toArray(new WritablePDOM[shards.size()]), project);
+		}
+	}
+
+	/**
+	 * Writes the metadata of the shards of a project index and records the shards in the
+	 * primary pdom. All pdoms need to be write-locked.
+	 */
+	private static void recordShards(WritablePDOM pdom, WritablePDOM[] shards, IProject project) throws CoreException {
+		StringBuilder names= new StringBuilder();
+		for (int i = 0; i < shards.length; i++) {
+			writeShardPDOMProperties(shards[i], project, i + 1);
+			if (i > 0) {
+				names.append(',');
+			}
+			names.append(shards[i].getDB().getLocation().getName());
+		}
+		pdom.setProperty(PROPERTY_SHARDS, names.toString());
+	}
+
+	private static void writeShardPDOMProperties(WritablePDOM shard, IProject project, int i) throws CoreException {
+		String DELIM = "\0"; //$NON-NLS-1$
+		String id= CCorePlugin.PLUGIN_ID + ".pdom.project." + DELIM + project.getName() + DELIM + "shard." + i; //$NON-NLS-1$ //$NON-NLS-2$
+		shard.setProperty(IIndexFragment.PROPERTY_FRAGMENT_ID, id);
+	}
+
 	public boolean isProjectIndexed(ICProject proj) {
 		return !IPDOMManager.ID_NO_INDEXER.equals(getIndexerId(proj));
 	}
@@ -64,6 +64,17 @@ public class PDOMProxy implements IPDOM {
 		}
 	}
 
+	public synchronized boolean tryAcquireReadLock(long timeoutMillis) throws InterruptedException {
+		if (fDelegate != null)
+			return fDelegate.tryAcquireReadLock(timeoutMillis);
+
+		fReadLockCount++;
+		if (PDOM.sDEBUG_LOCKS) {
+			PDOM.incReadLock(fLockDebugging);
+		}
+		return true;
+	}
+
 	public IIndexMacro[] findMacros(char[] name, boolean isPrefix, boolean caseSensitive,
 			IndexFilter filter, IProgressMonitor monitor) throws CoreException {
 		if (fDelegate != null)
@@ -152,6 +163,13 @@ public class PDOMProxy implements IPDOM {
 		return 0;
 	}
 
+	public synchronized long getCacheEvictions() {
+		if (fDelegate != null)
+			return fDelegate.getCacheEvictions();
+
+		return 0;
+	}
+
 	public synchronized IIndexFragmentFile getFile(int linkageID, IIndexFileLocation location) throws CoreException {
 		if (fDelegate != null)
 			return fDelegate.getFile(linkageID, location);
@@ -54,6 +54,8 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPUnknownBinding;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentFile;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndex.IncludeInformation;
+import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
+import org.eclipse.cdt.internal.core.parser.scanner.ILocationResolver;
 import org.eclipse.cdt.internal.core.parser.scanner.LocationMap;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMASTAdapter;
 import org.eclipse.cdt.internal.core.pdom.indexer.IndexerASTVisitor;
@@ -79,6 +81,7 @@ abstract public class PDOMWriter {
 		ArrayList<IASTName[]> fNames= new ArrayList<IASTName[]>();
 		ArrayList<IASTPreprocessorStatement> fMacros= new ArrayList<IASTPreprocessorStatement>();
 		ArrayList<IASTPreprocessorIncludeStatement> fIncludes= new ArrayList<IASTPreprocessorIncludeStatement>();
+		char[] fIncludeGuard;
 	}
 	private boolean fShowProblems;
 	protected boolean fShowInclusionProblems;
@@ -299,6 +302,7 @@ abstract public class PDOMWriter {
 			Collection<IASTPreprocessorIncludeStatement> contextIncludes) throws CoreException {
 		final HashSet<IIndexFileLocation> contextIFLs= new HashSet<IIndexFileLocation>();
 		final IIndexFileLocation astIFL = fResolver.resolveASTPath(ast.getFilePath());
+		final ILocationResolver locationResolver= (ILocationResolver) ast.getAdapter(ILocationResolver.class);
 
 		int unresolvedIncludes= 0;
 		IASTPreprocessorStatement[] stmts = ast.getAllPreprocessorStatements();
@@ -321,6 +325,9 @@ abstract public class PDOMWriter {
 						final IIndexFileLocation targetIFL= fResolver.resolveASTPath(include.getPath());
 						if (symbolMap.containsKey(targetIFL) && contextIFLs.add(targetIFL)) {
 							contextIncludes.add(include);
+							if (locationResolver != null) {
+								symbolMap.get(targetIFL).fIncludeGuard= locationResolver.getIncludeGuard(include.getPath());
+							}
 						}
 					}
 				}
@@ -470,10 +477,21 @@ abstract public class PDOMWriter {
 				}
 			}
 		}
-		file= index.addUncommittedFile(linkageID, location);
+		Symbols lists= symbolMap.get(location);
+		IncludeInformation[] includeInfos= new IncludeInformation[lists != null ? lists.fIncludes.size() : 0];
+		for (int i= 0; i < includeInfos.length; i++) {
+			final IASTPreprocessorIncludeStatement include = lists.fIncludes.get(i);
+			final IncludeInformation info= includeInfos[i]= new IncludeInformation();
+			info.fStatement= include;
+			if (include.isResolved()) {
+				info.fLocation= fResolver.resolveASTPath(include.getPath());
+				info.fIsContext= include.isActive() &&
+					(contextIncludes.contains(include) || clearedContexts.contains(info.fLocation));
+			}
+		}
+		file= index.addUncommittedFile(linkageID, location, includeInfos);
 		try {
 			file.setScannerConfigurationHashcode(configHash);
-			Symbols lists= symbolMap.get(location);
 			if (lists != null) {
 				IASTPreprocessorStatement[] macros= lists.fMacros.toArray(new IASTPreprocessorStatement[lists.fMacros.size()]);
 				IASTName[][] names= lists.fNames.toArray(new IASTName[lists.fNames.size()][]);
@@ -484,18 +502,10 @@ abstract public class PDOMWriter {
 					}
 				}
 
-				IncludeInformation[] includeInfos= new IncludeInformation[lists.fIncludes.size()];
-				for (int i= 0; i < lists.fIncludes.size(); i++) {
-					final IASTPreprocessorIncludeStatement include = lists.fIncludes.get(i);
-					final IncludeInformation info= includeInfos[i]= new IncludeInformation();
-					info.fStatement= include;
-					if (include.isResolved()) {
-						info.fLocation= fResolver.resolveASTPath(include.getPath());
-						info.fIsContext= include.isActive() &&
-							(contextIncludes.contains(include) || clearedContexts.contains(info.fLocation));
-					}
-				}
 				index.setFileContent(file, linkageID, includeInfos, macros, names, fResolver, lock);
+				// #pragma once is reported with a marker that is not a macro name.
+				final boolean pragmaOnce= lists.fIncludeGuard == CPreprocessor.PRAGMA_ONCE;
+				file.setIncludeGuard(pragmaOnce ? null : lists.fIncludeGuard, pragmaOnce);
 			}
 			file.setTimestamp(fResolver.getLastModified(location));
 			file.setEncodingHashcode(fResolver.getEncoding(location).hashCode());
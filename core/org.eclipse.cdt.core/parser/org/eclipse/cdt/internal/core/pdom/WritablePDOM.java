@@ -151,6 +151,10 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 	public void flush() throws CoreException {
 		super.flush();
 	}
+
+	public void setBulkBuild(boolean bulk) throws CoreException {
+		getDB().setBulkBuild(bulk);
+	}
 		
 	/*
 	 * (non-Javadoc)
@@ -166,7 +170,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 	
 	/**
 	 * Use the specified location converter to update each internal representation of a file location.
-	 * The file index is rebuilt with the new representations. Individual PDOMFile records are unmoved so
+	 * The file index is rebuilt from scratch with the new representations. Individual PDOMFile records are unmoved so
 	 * as to maintain referential integrity with other PDOM records.
 	 * 
 	 * <b>A write-lock must be obtained before calling this method</b>
@@ -189,15 +193,19 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 
 		clearFileIndex();
 		final List<PDOMFile> notConverted = new ArrayList<PDOMFile>();
+		final long[] converted= new long[pdomfiles.size()];
+		int convertedCount= 0;
 		for (PDOMFile file : pdomfiles) {
 			String internalFormat = newConverter.toInternalFormat(file.getLocation());
 			if (internalFormat != null) {
 				file.setInternalLocation(internalFormat);
-				getFileIndex().insert(file.getRecord());
+				converted[convertedCount++]= file.getRecord();
 			} else {
 				notConverted.add(file);
 			}
 		}
+		// the file index is empty, it is built in one go.
+		getFileIndex().bulkInsert(converted, convertedCount);
 
 		// remove content where converter returns null
 		for (PDOMFile file : notConverted) {
@@ -18,6 +18,12 @@ import org.eclipse.cdt.internal.core.index.IWritableIndex;
  * @since 5.2
  */
 public class YieldableIndexLock {
+	/**
+	 * Minimum time in milliseconds the lock is held before it is yielded to waiting readers.
+	 * Bounds the time readers wait for the indexer, larger values favor indexing throughput.
+	 */
+	private static final long YIELD_INTERVAL= Long.getLong("org.eclipse.cdt.core.parser.pdom.yieldInterval", 0); //$NON-NLS-1$
+
 	private final IWritableIndex index;
 	private final int readlockCount;
 	private final boolean flushIndex;
@@ -57,7 +63,7 @@ public class YieldableIndexLock {
 	 * @throws InterruptedException
 	 */
 	public void yield() throws InterruptedException {
-		if (index.hasWaitingReaders()) {
+		if (System.currentTimeMillis() - lastLockTime >= YIELD_INTERVAL && index.hasWaitingReaders()) {
 			index.releaseWriteLock(readlockCount, false);
 			cumulativeLockTime += System.currentTimeMillis() - lastLockTime;
 			lastLockTime = 0;
@@ -41,11 +41,22 @@ public class BTree {
 	protected final int MEDIAN_RECORD;
 
 	protected final IBTreeComparator cmp;
+	private final boolean supportsBulkBuild;
 	
 	public BTree(Database db, long rootPointer, IBTreeComparator cmp) {
 		this(db, rootPointer, 8, cmp);
 	}
 
+	/**
+	 * Creates a b-tree of the default degree, which if <code>supportsBulkBuild</code> is set
+	 * is built bottom-up when it is filled during a bulk build of the database.
+	 * The comparator must not depend on any b-tree that is built in bulk.
+	 * @see Database#setBulkBuild(boolean)
+	 */
+	public BTree(Database db, long rootPointer, IBTreeComparator cmp, boolean supportsBulkBuild) {
+		this(db, rootPointer, 8, cmp, supportsBulkBuild);
+	}
+
 	/**
 	 * Constructor.
 	 * 
@@ -53,18 +64,23 @@ public class BTree {
 	 * @param rootPointer offset into database of the pointer to the root node
 	 */
 	public BTree(Database db, long rootPointer, int degree, IBTreeComparator cmp) {
+		this(db, rootPointer, degree, cmp, false);
+	}
+
+	private BTree(Database db, long rootPointer, int degree, IBTreeComparator cmp, boolean supportsBulkBuild) {
 		if(degree<2)
 			throw new IllegalArgumentException(Messages.getString("BTree.IllegalDegree")); //$NON-NLS-1$
 
 		this.db = db;
 		this.rootPointer = rootPointer;
 		this.cmp = cmp;
+		this.supportsBulkBuild = supportsBulkBuild;
 		
 		this.DEGREE = degree;
 		this.MIN_RECORDS = DEGREE - 1;
 		this.MAX_RECORDS = 2*DEGREE - 1;
 		this.MAX_CHILDREN = 2*DEGREE;
-		this.OFFSET_CHILDREN = MAX_RECORDS * Database.INT_SIZE;
+		this.OFFSET_CHILDREN = MAX_RECORDS * Database.PTR_SIZE;
 		this.MEDIAN_RECORD = DEGREE - 1;
 	}
 
@@ -72,20 +88,28 @@ public class BTree {
 		return db.getRecPtr(rootPointer);
 	}
 
+	/**
+	 * Returns the buffer that holds the records of this tree during a bulk build of the
+	 * database, or <code>null</code>.
+	 */
+	private BTreeBuffer getBuffer(int newRecords) throws CoreException {
+		return supportsBulkBuild ? db.getBTreeBuffer(this, newRecords) : null;
+	}
+
 	protected final void putRecord(Chunk chunk, long node, int index, long record) {
-		chunk.putRecPtr(node + index * Database.INT_SIZE, record);
+		chunk.putRecPtr(node + index * Database.PTR_SIZE, record);
 	}
 
 	protected final long getRecord(Chunk chunk, long node, int index) {
-		return chunk.getRecPtr(node + index * Database.INT_SIZE);
+		return chunk.getRecPtr(node + index * Database.PTR_SIZE);
 	}
 
 	protected final void putChild(Chunk chunk, long node, int index, long child) {
-		chunk.putRecPtr(node + OFFSET_CHILDREN + index * Database.INT_SIZE, child);
+		chunk.putRecPtr(node + OFFSET_CHILDREN + index * Database.PTR_SIZE, child);
 	}
 
 	protected final long getChild(Chunk chunk, long node, int index) {
-		return chunk.getRecPtr(node + OFFSET_CHILDREN + index * Database.INT_SIZE);
+		return chunk.getRecPtr(node + OFFSET_CHILDREN + index * Database.PTR_SIZE);
 	}
 
 	/**
@@ -96,6 +120,10 @@ public class BTree {
 	 * @param record  offset of the record
 	 */
 	public long insert(long record) throws CoreException {
+		final BTreeBuffer buffer= getBuffer(1);
+		if (buffer != null)
+			return buffer.insert(record);
+
 		long root = getRoot();
 
 		// is this our first time in
@@ -213,7 +241,133 @@ public class BTree {
 	}
 
 	private long allocateNode() throws CoreException {
-		return db.malloc((2 * MAX_RECORDS + 1) * Database.INT_SIZE);
+		return db.malloc((2 * MAX_RECORDS + 1) * Database.PTR_SIZE);
+	}
+
+	/**
+	 * Inserts a batch of records into the b-tree. For an empty tree the records are sorted and
+	 * the tree is built bottom-up with packed nodes, which is much faster than inserting the
+	 * records one by one and results in a denser tree. For a tree that is not empty the records
+	 * are inserted one by one in sorted order.
+	 * <p>
+	 * As with {@link #insert(long)}, a record is not inserted if it compares equal to a record
+	 * that is already in the tree or that precedes it in the batch.
+	 *
+	 * @param records offsets of the records, the array is reordered by this method.
+	 * @param length the number of records to insert
+	 */
+	public void bulkInsert(long[] records, int length) throws CoreException {
+		if (length <= 0)
+			return;
+
+		final BTreeBuffer buffer= getBuffer(length);
+		if (buffer != null) {
+			for (int i = 0; i < length; i++) {
+				buffer.insert(records[i]);
+			}
+			return;
+		}
+
+		sort(records, new long[length], 0, length);
+		// Drop the duplicates, the sort is stable such that the first one is kept.
+		int count= 1;
+		for (int i = 1; i < length; i++) {
+			if (cmp.compare(records[count-1], records[i]) != 0) {
+				records[count++]= records[i];
+			}
+		}
+
+		if (getRoot() != 0) {
+			for (int i = 0; i < count; i++) {
+				insert(records[i]);
+			}
+			return;
+		}
+		build(records, count);
+	}
+
+	/**
+	 * Builds the empty tree bottom-up from records that are sorted and free of duplicates.
+	 */
+	void build(long[] records, int count) throws CoreException {
+		if (count <= 0)
+			return;
+
+		// Build the tree level by level, each level provides the separators and nodes
+		// that make up the records and children of the level above it.
+		long[] keys= records;
+		int keyCount= count;
+		long[] children= null;
+		while (true) {
+			// Distribute the keys evenly on as few nodes as possible, such that all
+			// nodes are at least half full.
+			final int childCount= keyCount + 1;
+			final int nodeCount= (childCount + MAX_RECORDS) / MAX_CHILDREN;
+			final long[] nodes= new long[nodeCount];
+			final long[] separators= new long[nodeCount - 1];
+			int k= 0;
+			for (int n = 0; n < nodeCount; n++) {
+				// number of children (or of records plus one for a leaf) of the node
+				final int share= childCount / nodeCount + (n < childCount % nodeCount ? 1 : 0);
+				final long node= allocateNode();
+				final Chunk chunk= db.getChunk(node);
+				for (int i = 0; i < share; i++) {
+					if (children != null) {
+						putChild(chunk, node, i, children[k + i]);
+					}
+					if (i < share - 1) {
+						putRecord(chunk, node, i, keys[k + i]);
+					}
+				}
+				k+= share;
+				if (n < nodeCount - 1) {
+					separators[n]= keys[k - 1];
+				}
+				nodes[n]= node;
+			}
+			if (nodeCount == 1) {
+				db.putRecPtr(rootPointer, nodes[0]);
+				return;
+			}
+			keys= separators;
+			keyCount= separators.length;
+			children= nodes;
+		}
+	}
+
+	/**
+	 * Stable merge sort of the records in the range [from, to) using the comparator of the tree.
+	 */
+	private void sort(long[] records, long[] tmp, int from, int to) throws CoreException {
+		final int length= to - from;
+		if (length < 8) {
+			// insertion sort for small ranges
+			for (int i = from + 1; i < to; i++) {
+				final long record= records[i];
+				int j= i;
+				while (j > from && cmp.compare(records[j - 1], record) > 0) {
+					records[j]= records[j - 1];
+					j--;
+				}
+				records[j]= record;
+			}
+			return;
+		}
+		final int middle= (from + to) >>> 1;
+		sort(records, tmp, from, middle);
+		sort(records, tmp, middle, to);
+		if (cmp.compare(records[middle - 1], records[middle]) <= 0)
+			return;
+
+		System.arraycopy(records, from, tmp, from, length);
+		int i= from, j= middle;
+		for (int k = from; k < to; k++) {
+			if (j >= to || (i < middle && cmp.compare(tmp[i], tmp[j]) <= 0)) {
+				records[k]= tmp[i++];
+			} else {
+				records[k]= tmp[j++];
+			}
+		}
 	}
 
 	/**
@@ -231,6 +385,11 @@ public class BTree {
 	 * @throws CoreException
 	 */
 	public void delete(long record) throws CoreException {
+		final BTreeBuffer buffer= getBuffer(0);
+		if (buffer != null) {
+			buffer.delete(record);
+			return;
+		}
 		try {
 			deleteImp(record, getRoot(), DELMODE_NORMAL);
 		} catch(BTreeKeyNotFoundException e) {
@@ -532,6 +691,11 @@ public class BTree {
 	 * @param visitor
 	 */
 	public void accept(IBTreeVisitor visitor) throws CoreException {
+		final BTreeBuffer buffer= getBuffer(0);
+		if (buffer != null) {
+			buffer.accept(visitor);
+			return;
+		}
 		accept(db.getRecPtr(rootPointer), visitor);
 	}
 
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import java.util.Comparator;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Keeps the records inserted into an empty {@link BTree} in memory while the database is built
+ * in bulk, such that the tree can be built bottom-up once all of its records are known. In the
+ * meantime lookups in the tree are served from the buffer.
+ */
+final class BTreeBuffer {
+	/**
+	 * Stands for the key of a lookup, it sorts before the first record the visitor does
+	 * not consider to be less than its key.
+	 */
+	private static final class Probe {
+		final IBTreeVisitor fVisitor;
+
+		Probe(IBTreeVisitor visitor) {
+			fVisitor= visitor;
+		}
+	}
+
+	/**
+	 * Transports a {@link CoreException} through the methods of {@link TreeMap}.
+	 */
+	private static final class WrappedCoreException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		WrappedCoreException(CoreException e) {
+			super(e);
+		}
+	}
+
+	private final BTree fTree;
+	private final TreeMap<Object, Long> fRecords;
+
+	BTreeBuffer(final BTree tree) {
+		fTree= tree;
+		fRecords= new TreeMap<Object, Long>(new Comparator<Object>() {
+			public int compare(Object o1, Object o2) {
+				try {
+					if (o1 instanceof Probe) {
+						return o2 instanceof Probe ? 0 : compareToProbe((Probe) o1, (Long) o2);
+					}
+					if (o2 instanceof Probe) {
+						return -compareToProbe((Probe) o2, (Long) o1);
+					}
+					return tree.cmp.compare((Long) o1, (Long) o2);
+				} catch (CoreException e) {
+					throw new WrappedCoreException(e);
+				}
+			}
+		});
+	}
+
+	private static int compareToProbe(Probe probe, Long record) throws CoreException {
+		return probe.fVisitor.compare(record) >= 0 ? -1 : 1;
+	}
+
+	/**
+	 * Returns the number of buffered records.
+	 */
+	int size() {
+		return fRecords.size();
+	}
+
+	/**
+	 * Same as {@link BTree#insert(long)}.
+	 */
+	long insert(long record) throws CoreException {
+		try {
+			// An equal key is kept by put(), such that only its value needs to be restored.
+			final Long existing= fRecords.put(record, record);
+			if (existing == null)
+				return record;
+			fRecords.put(existing, existing);
+			return existing;
+		} catch (WrappedCoreException e) {
+			throw (CoreException) e.getCause();
+		}
+	}
+
+	/**
+	 * Same as {@link BTree#delete(long)}.
+	 */
+	void delete(long record) throws CoreException {
+		try {
+			final Long existing= fRecords.get(record);
+			if (existing != null && existing == record) {
+				fRecords.remove(record);
+			}
+		} catch (WrappedCoreException e) {
+			throw (CoreException) e.getCause();
+		}
+	}
+
+	/**
+	 * Same as {@link BTree#accept(IBTreeVisitor)}.
+	 */
+	void accept(IBTreeVisitor visitor) throws CoreException {
+		try {
+			for (Long record : fRecords.tailMap(new Probe(visitor)).values()) {
+				final int compare= visitor.compare(record);
+				if (compare > 0 || (compare == 0 && !visitor.visit(record)))
+					return;
+			}
+		} catch (WrappedCoreException e) {
+			throw (CoreException) e.getCause();
+		}
+	}
+
+	/**
+	 * Builds the tree from the buffered records, the tree must still be empty.
+	 */
+	void flush() throws CoreException {
+		final long[] records= new long[fRecords.size()];
+		int i= 0;
+		for (Long record : fRecords.values()) {
+			records[i++]= record;
+		}
+		fRecords.clear();
+		fTree.build(records, records.length);
+	}
+}
@@ -18,15 +18,17 @@ import java.nio.ByteBuffer;
 import org.eclipse.core.runtime.CoreException;
 
 /**
- * Caches the content of a piece of the database.
+ * Caches the content of a piece of the database. The content is either held in a private
+ * heap buffer, or in a slice of a memory mapped window of the database file.
  */
 final class Chunk {
-	final private byte[] fBuffer= new byte[Database.CHUNK_SIZE];
+	final private ByteBuffer fBuffer;
+	final private boolean fMapped;
 
 	final Database fDatabase;
 	final int fSequenceNumber;
 	
-	boolean fCacheHitFlag= false;
+	int fCacheUsage= 0;		// usage count for the eviction, see ChunkCache.
 	boolean fDirty= false;
 	boolean fLocked= false;	// locked chunks must not be released from cache.
 	int fCacheIndex= -1;
@@ -34,11 +36,39 @@ final class Chunk {
 	Chunk(Database db, int sequenceNumber) {
 		fDatabase= db;
 		fSequenceNumber= sequenceNumber;
+		fBuffer= ByteBuffer.allocate(Database.CHUNK_SIZE);
+		fMapped= false;
+	}
+
+	/**
+	 * Creates a chunk operating directly on a slice of a mapped window of the database file.
+	 * Such a chunk does not need to be read or written, changes go straight to the mapping.
+	 */
+	Chunk(Database db, int sequenceNumber, ByteBuffer mappedSlice) {
+		assert mappedSlice.capacity() == Database.CHUNK_SIZE;
+		fDatabase= db;
+		fSequenceNumber= sequenceNumber;
+		fBuffer= mappedSlice;
+		fMapped= true;
+	}
+
+	/**
+	 * Records an access to this chunk for the eviction policy of the cache. May be called
+	 * without holding the lock of the cache, a lost update just makes eviction a bit less accurate.
+	 */
+	void recordAccess() {
+		final int usage= fCacheUsage;
+		if (usage < ChunkCache.MAX_USAGE) {
+			fCacheUsage= usage+1;
+		}
 	}
 
 	void read() throws CoreException {
+		if (fMapped)
+			return;
 		try {
-			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
+			final ByteBuffer buf= fBuffer.duplicate();
+			buf.clear();
 			fDatabase.read(buf, (long)fSequenceNumber*Database.CHUNK_SIZE);
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
@@ -46,12 +76,16 @@ final class Chunk {
 	}
 
 	void flush() throws CoreException {
-		try {
-			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.write(buf, (long)fSequenceNumber*Database.CHUNK_SIZE);
-		} catch (IOException e) {
-			throw new CoreException(new DBStatus(e));
+		if (!fMapped) {
+			try {
+				final ByteBuffer buf= fBuffer.duplicate();
+				buf.clear();
+				fDatabase.write(buf, (long)fSequenceNumber*Database.CHUNK_SIZE);
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
 		}
+		// mapped chunks are written back when the database forces its mapped windows.
 		fDirty= false;
 	}
 	private static int recPtrToIndex( final long offset ) {
@@ -61,30 +95,33 @@ final class Chunk {
 	public void putByte(final long offset, final byte value) {
 		assert fLocked;
 		fDirty= true;
-		fBuffer[recPtrToIndex( offset )]= value;
+		fBuffer.put(recPtrToIndex( offset ), value);
 	}
 	
 	public byte getByte(final long offset) {
-		return fBuffer[recPtrToIndex( offset )];
+		return fBuffer.get(recPtrToIndex( offset ));
 	}
 	
 	public byte[] getBytes(final long offset, final int length) {
 		final byte[] bytes = new byte[length];
-		System.arraycopy(fBuffer, recPtrToIndex( offset ), bytes, 0, length);
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(recPtrToIndex( offset ));
+		buf.get(bytes);
 		return bytes;
 	}
 	
 	public void putBytes(final long offset, final byte[] bytes) {
 		assert fLocked;
 		fDirty= true;
-		System.arraycopy(bytes, 0, fBuffer, recPtrToIndex( offset ), bytes.length);
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(recPtrToIndex( offset ));
+		buf.put(bytes);
 	}
 	
 	public void putInt(final long offset, final int value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex( offset );
-		putInt(value, fBuffer, idx);
+		fBuffer.putInt(recPtrToIndex( offset ), value);
 	}
 
 	static final void putInt(final int value, final byte[] buffer, int idx) {
@@ -96,7 +133,7 @@ final class Chunk {
 
 	
 	public int getInt(final long offset) {
-		return getInt(fBuffer, recPtrToIndex(offset));
+		return fBuffer.getInt(recPtrToIndex(offset));
 	}
 
 	static final int getInt(final byte[] buffer, int idx) {
@@ -111,10 +148,10 @@ final class Chunk {
 	 * A free Record Pointer is a pointer to a raw block, i.e. the
 	 * pointer is not moved past the BLOCK_HEADER_SIZE.
 	 */
-	private static int compressFreeRecPtr(final long value) {
+	private static long compressFreeRecPtr(final long value, final int shift) {
 		// This assert verifies the alignment. We expect the low bits to be clear.
-		assert (value & (Database.BLOCK_SIZE_DELTA - 1)) == 0;
-		final int dense = (int) (value >> Database.BLOCK_SIZE_DELTA_BITS);
+		assert (value & ((1 << shift) - 1)) == 0;
+		final long dense = value >> shift;
 		return dense;
 	}
 	
@@ -122,35 +159,77 @@ final class Chunk {
 	 * A free Record Pointer is a pointer to a raw block, i.e. the
 	 * pointer is not moved past the BLOCK_HEADER_SIZE.
 	 */
-	private static long expandToFreeRecPtr(int value) {
+	private static long expandToFreeRecPtr(long value, final int shift) {
+		return value << shift;
+	}
+
+	/**
+	 * Stores the compressed pointer in Database.PTR_SIZE bytes, the bytes in front of the last
+	 * four bytes hold the upper bits of a wide pointer.
+	 */
+	private static void putPtr(final long dense, final byte[] buffer, int idx) {
+		if (Database.PTR_SIZE != Database.INT_SIZE) {
+			buffer[idx++]= (byte) (dense >> Integer.SIZE);
+		}
+		putInt((int) dense, buffer, idx);
+	}
+
+	private static long getPtr(final byte[] buffer, int idx) {
 		/*
-		 * We need to properly manage the integer that was read. The value will be sign-extended 
-		 * so if the most significant bit is set, the resulting long will look negative. By 
-		 * masking it with ((long)1 << 32) - 1 we remove all the sign-extended bits and just 
-		 * have an unsigned 32-bit value as a long. This gives us one more useful bit in the 
-		 * stored record pointers.
+		 * The int that was read is sign-extended, so if the most significant bit is set, the
+		 * resulting long would look negative. By masking it with ((long)1 << 32) - 1 we remove
+		 * all the sign-extended bits and just have an unsigned 32-bit value as a long. This gives
+		 * us one more useful bit in the stored record pointers.
 		 */
-		long address = value & (((long) 1 << Integer.SIZE) - 1);
-		return address << Database.BLOCK_SIZE_DELTA_BITS;
+		if (Database.PTR_SIZE != Database.INT_SIZE) {
+			final long high= buffer[idx++] & 0xff;
+			return (high << Integer.SIZE) | (getInt(buffer, idx) & (((long) 1 << Integer.SIZE) - 1));
+		}
+		return getInt(buffer, idx) & (((long) 1 << Integer.SIZE) - 1);
+	}
+
+	private void putPtr(final long offset, final long dense) {
+		int idx= recPtrToIndex(offset);
+		if (Database.PTR_SIZE != Database.INT_SIZE) {
+			fBuffer.put(idx++, (byte) (dense >> Integer.SIZE));
+		}
+		fBuffer.putInt(idx, (int) dense);
 	}
 
+	private long getPtr(final long offset) {
+		// see getPtr(byte[], int) for the masking.
+		int idx= recPtrToIndex(offset);
+		if (Database.PTR_SIZE != Database.INT_SIZE) {
+			final long high= fBuffer.get(idx++) & 0xff;
+			return (high << Integer.SIZE) | (fBuffer.getInt(idx) & (((long) 1 << Integer.SIZE) - 1));
+		}
+		return fBuffer.getInt(idx) & (((long) 1 << Integer.SIZE) - 1);
+	}
 
 	/**
 	 * A Record Pointer is a pointer as returned by Database.malloc().
 	 * This is a pointer to a block + BLOCK_HEADER_SIZE.
+	 * @param shift the number of block size delta bits of the database the pointer belongs to.
 	 */
-	static void putRecPtr(final long value, byte[] buffer, int idx) {
-		final int denseValue = value == 0 ? 0 : compressFreeRecPtr(value - Database.BLOCK_HEADER_SIZE);
-		putInt(denseValue, buffer, idx);
+	static void putRecPtr(final long value, byte[] buffer, int idx, final int shift) {
+		putPtr(compressRecPtr(value, shift), buffer, idx);
+	}
+
+	private static long compressRecPtr(final long value, final int shift) {
+		return value == 0 ? 0 : compressFreeRecPtr(value - Database.BLOCK_HEADER_SIZE, shift);
 	}
 
 	/**
 	 * A Record Pointer is a pointer as returned by Database.malloc().
 	 * This is a pointer to a block + BLOCK_HEADER_SIZE.
+	 * @param shift the number of block size delta bits of the database the pointer belongs to.
 	 */
-	static long getRecPtr(byte[] buffer, final int idx) {
-		int value = getInt(buffer, idx);
-		long address = expandToFreeRecPtr(value);
+	static long getRecPtr(byte[] buffer, final int idx, final int shift) {
+		return expandRecPtr(getPtr(buffer, idx), shift);
+	}
+
+	private static long expandRecPtr(long value, final int shift) {
+		long address = expandToFreeRecPtr(value, shift);
 		return address != 0 ? (address + Database.BLOCK_HEADER_SIZE) : address;
 	}
 
@@ -161,8 +240,7 @@ final class Chunk {
 	public void putRecPtr(final long offset, final long value) {
 		assert fLocked;
 		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		putRecPtr(value, fBuffer, idx);
+		putPtr(offset, compressRecPtr(value, fDatabase.getBlockSizeDeltaBits()));
 	}
 
 	
@@ -173,92 +251,65 @@ final class Chunk {
 	public void putFreeRecPtr(final long offset, final long value) {
 		assert fLocked;
 		fDirty = true;
-		int idx = recPtrToIndex(offset);
-		putInt(compressFreeRecPtr(value), fBuffer, idx);
+		putPtr(offset, compressFreeRecPtr(value, fDatabase.getBlockSizeDeltaBits()));
 	}
 
 	public long getRecPtr(final long offset) {
-		final int idx = recPtrToIndex(offset);
-		return getRecPtr(fBuffer, idx);
+		return expandRecPtr(getPtr(offset), fDatabase.getBlockSizeDeltaBits());
 	}
 	
 	public long getFreeRecPtr(final long offset) {
-		final int idx = recPtrToIndex(offset);
-		int value = getInt(fBuffer, idx);
-		return expandToFreeRecPtr(value);
+		return expandToFreeRecPtr(getPtr(offset), fDatabase.getBlockSizeDeltaBits());
 	}
 	
 	public void put3ByteUnsignedInt(final long offset, final int value) {
 		assert fLocked;
 		fDirty= true;
 		int idx= recPtrToIndex( offset );
-		fBuffer[idx]= (byte)(value >> 16);
-		fBuffer[++idx]= (byte)(value >> 8);
-		fBuffer[++idx]= (byte)(value);
+		fBuffer.put(idx, (byte)(value >> 16));
+		fBuffer.put(++idx, (byte)(value >> 8));
+		fBuffer.put(++idx, (byte)(value));
 	}
 	
 	public int get3ByteUnsignedInt(final long offset) {
 		int idx= recPtrToIndex( offset );
-		return ((fBuffer[idx] & 0xff) << 16) |
-			((fBuffer[++idx] & 0xff) <<  8) |
-			((fBuffer[++idx] & 0xff) <<  0);
+		return ((fBuffer.get(idx) & 0xff) << 16) |
+			((fBuffer.get(++idx) & 0xff) <<  8) |
+			((fBuffer.get(++idx) & 0xff) <<  0);
 	}
 
 	public void putShort(final long offset, final short value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex( offset );
-		fBuffer[idx]= (byte)(value >> 8);
-		fBuffer[++idx]= (byte)(value);
+		fBuffer.putShort(recPtrToIndex( offset ), value);
 	}
 	
 	public short getShort(final long offset) {
-		int idx= recPtrToIndex( offset );
-		return (short) (((fBuffer[idx] << 8) | (fBuffer[++idx] & 0xff)));
+		return fBuffer.getShort(recPtrToIndex( offset ));
 	}
 
 	public long getLong(final long offset) {
-		int idx= recPtrToIndex( offset );
-		return ((((long)fBuffer[idx] & 0xff) << 56) |
-				(((long)fBuffer[++idx] & 0xff) << 48) |
-				(((long)fBuffer[++idx] & 0xff) << 40) |
-				(((long)fBuffer[++idx] & 0xff) << 32) |
-				(((long)fBuffer[++idx] & 0xff) << 24) |
-				(((long)fBuffer[++idx] & 0xff) << 16) |
-				(((long)fBuffer[++idx] & 0xff) <<  8) |
-				(((long)fBuffer[++idx] & 0xff) <<  0));
+		return fBuffer.getLong(recPtrToIndex( offset ));
 	}
 
 	public void putLong(final long offset, final long value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex( offset );
-
-		fBuffer[idx]=   (byte)(value >> 56);
-		fBuffer[++idx]= (byte)(value >> 48);
-		fBuffer[++idx]= (byte)(value >> 40);
-		fBuffer[++idx]= (byte)(value >> 32);
-		fBuffer[++idx]= (byte)(value >> 24);
-		fBuffer[++idx]= (byte)(value >> 16);
-		fBuffer[++idx]= (byte)(value >> 8);
-		fBuffer[++idx]= (byte)(value);
+		fBuffer.putLong(recPtrToIndex( offset ), value);
 	}
 	
 	public void putChar(final long offset, final char value) {
 		assert fLocked;
 		fDirty= true;
-		int idx= recPtrToIndex( offset );
-		fBuffer[idx]= (byte)(value >> 8);
-		fBuffer[++idx]= (byte)(value);
+		fBuffer.putChar(recPtrToIndex( offset ), value);
 	}
 	
 	public char getChar(final long offset) {
-		int idx= recPtrToIndex( offset );
-		return (char) (((fBuffer[idx] << 8) | (fBuffer[++idx] & 0xff)));
+		return fBuffer.getChar(recPtrToIndex( offset ));
 	}
 
 	public void getCharArray(final long offset, final char[] result) {
-		final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
+		final ByteBuffer buf= fBuffer.duplicate();
 		buf.position(recPtrToIndex( offset ));
 		buf.asCharBuffer().get(result);
 	}
@@ -269,26 +320,21 @@ final class Chunk {
 		int idx = recPtrToIndex(offset);
 		final int end = idx + length;
 		for (; idx < end; idx++) {
-			fBuffer[idx] = 0;
+			fBuffer.put(idx, (byte) 0);
 		}
 	}
 
 	void put(final long offset, final byte[] data, final int len) {
 		assert fLocked;
 		fDirty= true;
-		int idx = recPtrToIndex(offset);
-		int i=0;
-		while (i<len) {
-			fBuffer[idx++]= data[i++];
-		}
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.put(data, 0, len);
 	}
 	
 	public void get(final long offset, byte[] data) {
-		int idx = recPtrToIndex(offset);
-		final int end= idx + data.length;
-		int i= 0;
-		while (idx < end) {
-			data[i++]= fBuffer[idx++];
-		}
+		final ByteBuffer buf= fBuffer.duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.get(data);
 	}
 }
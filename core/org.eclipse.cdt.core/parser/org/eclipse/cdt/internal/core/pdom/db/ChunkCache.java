@@ -11,7 +11,21 @@
 
 package org.eclipse.cdt.internal.core.pdom.db;
 
+/**
+ * Cache of chunks shared between databases. Chunks are evicted using the GCLOCK algorithm, such that
+ * chunks accessed repeatedly survive a scan over a large number of chunks that are used once only.
+ * <p>
+ * The cache is modified while holding its monitor. Hits of readers do not need the monitor, they
+ * find the chunk in the table of their database and just record the access on the chunk, see
+ * {@link Database#getChunk(long)}.
+ */
 public final class ChunkCache {
+	/**
+	 * Maximum value of the usage count of a chunk. A chunk that has been accessed this often
+	 * survives as many sweeps of the clock hand.
+	 */
+	static final int MAX_USAGE= 3;
+
 	private static ChunkCache sSharedInstance= new ChunkCache();
 	
 	private Chunk[] fPageTable;
@@ -35,9 +49,10 @@ public final class ChunkCache {
 			chunk.fLocked= true;
 		}
 		if (chunk.fCacheIndex >= 0) {
-			chunk.fCacheHitFlag= true;
+			chunk.recordAccess();
 			return;
 		}
+		chunk.fCacheUsage= 0;
 		if (fTableIsFull) {
 			evictChunk();
 			chunk.fCacheIndex= fPointer;
@@ -62,16 +77,17 @@ public final class ChunkCache {
 	 */                                                                   
 	private void evictChunk() {
 		/*
-		 * Use the CLOCK algorithm to determine which chunk to evict.
+		 * Use the GCLOCK algorithm to determine which chunk to evict.
 		 * i.e., if the chunk in the current slot of the page table has been
-		 * recently referenced (i.e. the reference flag is set), unset the
-		 * reference flag and move to the next slot.  Otherwise, evict the
-		 * chunk in the current slot.
+		 * referenced since the clock hand passed it the last time (i.e. its usage
+		 * count is positive), decrement the usage count and move to the next slot.
+		 * Otherwise, evict the chunk in the current slot. As the usage count is
+		 * bounded, the loop terminates after at most MAX_USAGE+1 rounds.
 		 */
 		while (true) {
 			Chunk chunk = fPageTable[fPointer];
-			if (chunk.fCacheHitFlag) {
-				chunk.fCacheHitFlag= false;
+			if (chunk.fCacheUsage > 0) {
+				chunk.fCacheUsage--;
 				fPointer= (fPointer + 1) % fPageTable.length;
 			} else {
 				chunk.fDatabase.releaseChunk(chunk);
@@ -107,6 +123,14 @@ public final class ChunkCache {
 		return (long) fPageTable.length * Database.CHUNK_SIZE;
 	}
 
+	/**
+	 * Returns the number of bytes currently held by the chunk cache.
+	 */
+	public synchronized long getSize() {
+		final int length= fTableIsFull ? fPageTable.length : fPointer;
+		return (long) length * Database.CHUNK_SIZE;
+	}
+
 	/**                                                                           
 	 * Clears the page table and changes it to hold chunks with
 	 * maximum total memory of <code>maxSize</code>.       
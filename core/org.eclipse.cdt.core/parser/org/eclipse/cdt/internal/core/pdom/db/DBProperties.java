@@ -21,7 +21,7 @@ import org.eclipse.core.runtime.CoreException;
  */
 public class DBProperties {
 	static final int PROP_INDEX = 0;
-	static final int RECORD_SIZE = 4;
+	static final int RECORD_SIZE = PROP_INDEX + Database.PTR_SIZE;
 	
 	protected BTree index;
 	protected Database db;
@@ -154,9 +154,9 @@ public class DBProperties {
 	
 	private static class DBProperty {
 		static final int KEY = 0;
-		static final int VALUE = 4;
+		static final int VALUE = KEY + Database.PTR_SIZE;
 		@SuppressWarnings("hiding")
-		static final int RECORD_SIZE = 8;
+		static final int RECORD_SIZE = VALUE + Database.PTR_SIZE;
 		
 		Database db;
 		long record;
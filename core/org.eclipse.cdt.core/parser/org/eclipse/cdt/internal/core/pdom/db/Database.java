@@ -18,10 +18,14 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -46,9 +50,9 @@ import org.eclipse.osgi.util.NLS;
  * offset            content
  * 	                 _____________________________
  * 0                | version number
- * INT_SIZE         | pointer to head of linked list of blocks of size MIN_BLOCK_DELTAS*BLOCK_SIZE_DELTA
+ * PTR_SIZE         | pointer to head of linked list of blocks of size MIN_BLOCK_DELTAS*BLOCK_SIZE_DELTA
  * ..               | ...
- * INT_SIZE * m (1) | pointer to head of linked list of blocks of size (m+MIN_BLOCK_DELTAS) * BLOCK_SIZE_DELTA 
+ * PTR_SIZE * m (1) | pointer to head of linked list of blocks of size (m+MIN_BLOCK_DELTAS) * BLOCK_SIZE_DELTA 
  * DATA_AREA        | undefined (PDOM stores its own house-keeping data in this area) 
  * 
  * (1) where 2 <= m <= CHUNK_SIZE/BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 1
@@ -61,6 +65,40 @@ import org.eclipse.osgi.util.NLS;
  * PREV_OFFSET      | pointer to prev block (of same size) (only in free blocks)
  * NEXT_OFFSET      | pointer to next block (of same size) (only in free blocks)
  * 
+ * ===== record pointer formats
+ * 
+ * Record pointers are stored in PTR_SIZE bytes as multiples of the block size delta. By default
+ * pointers are 4 bytes wide, which limits the size of the database to 2^32 block size deltas.
+ * When the system property org.eclipse.cdt.core.parser.pdom.wide.recptr is set, pointers are
+ * WIDE_PTR_SIZE bytes wide, which raises the limit to 2^40 block size deltas at the expense of a
+ * larger index. The record layouts of the PDOM are expressed in terms of PTR_SIZE, so the width is
+ * the same for all databases of a session. It is stored in the upper bits of the version number
+ * in the header, a database written with a different width reports an unsupported version and is
+ * rebuilt.
+ * 
+ * Independent of the width, a database can use a coarse block size delta of 
+ * 1 << COARSE_BLOCK_SIZE_DELTA_BITS instead of BLOCK_SIZE_DELTA, which doubles its maximum size
+ * at the expense of a coarser allocation granularity. The granularity is stored in the header as
+ * well and chosen when the database is cleared: a database that has exceeded its maximum size, or
+ * that has used more than COARSE_FORMAT_THRESHOLD bytes before, uses the coarse granularity. This 
+ * allows to rebuild a project that has outgrown the default format without restarting.
+ * 
+ * ===== strings
+ * 
+ * Strings that fit into a block are stored as ShortString, longer ones as LongString. When
+ * compact strings are enabled, a ShortString consisting of Latin-1 characters only is stored
+ * with one byte per character and marked by a negative length. Strings in both layouts can
+ * always be read, whether new strings use the compact layout is decided by the owner of the
+ * database via its version.
+ * 
+ * ===== storage backends
+ * 
+ * By default chunks are copied to and from the file via the file channel. Optionally the file 
+ * can be mapped into memory in windows of WINDOW_SIZE bytes, in which case chunks operate 
+ * directly on slices of the mapping and no copies are made. The header chunk is always 
+ * accessed via the file channel, such that the protocol for marking the file incomplete is
+ * the same for both backends. Mapping a window grows the file to the end of the window, the
+ * empty chunks at the end are cut off when the database is closed or opened for writing.
  */
 public class Database {
 	// public for tests only, you shouldn't need these
@@ -70,39 +108,83 @@ public class Database {
 	public static final int BLOCK_HEADER_SIZE= 2;
 	public static final int BLOCK_SIZE_DELTA_BITS = 3;
 	public static final int BLOCK_SIZE_DELTA= 1 << BLOCK_SIZE_DELTA_BITS;
-	public static final int MIN_BLOCK_DELTAS = 2;	// a block must at least be 2 + 2*4 bytes to link the free blocks.
+	public static final int MIN_BLOCK_DELTAS = 2;	// a block must at least be 2 + 2*PTR_SIZE bytes to link the free blocks.
 	public static final int MAX_BLOCK_DELTAS = CHUNK_SIZE/BLOCK_SIZE_DELTA;	
 	public static final int MAX_MALLOC_SIZE = MAX_BLOCK_DELTAS*BLOCK_SIZE_DELTA - BLOCK_HEADER_SIZE;  
-	public static final int PTR_SIZE = 4;  // size of a pointer in the database in bytes  
+
+	/**
+	 * System property to store record pointers with {@link #WIDE_PTR_SIZE} bytes, rather than with 4 bytes.
+	 * Databases written with the other width are rebuilt.
+	 */
+	public static final String WIDE_RECPTRS_PROPERTY= "org.eclipse.cdt.core.parser.pdom.wide.recptr"; //$NON-NLS-1$
+	public static final boolean USE_WIDE_RECPTRS= Boolean.getBoolean(WIDE_RECPTRS_PROPERTY);
+	public static final int WIDE_PTR_SIZE = 5;
+	public static final int PTR_SIZE = USE_WIDE_RECPTRS ? WIDE_PTR_SIZE : INT_SIZE;  // size of a pointer in the database in bytes  
 	public static final int TYPE_SIZE = 2+PTR_SIZE;  // size of a type in the database in bytes
 	public static final int VALUE_SIZE = TYPE_SIZE;  // size of a value in the database in bytes
-	public static final long MAX_DB_SIZE= ((long) 1 << (Integer.SIZE + BLOCK_SIZE_DELTA_BITS));
+	public static final long MAX_DB_SIZE= getMaxSize(BLOCK_SIZE_DELTA_BITS);
+	public static final int COARSE_BLOCK_SIZE_DELTA_BITS = 4;
+	public static final long COARSE_FORMAT_THRESHOLD= MAX_DB_SIZE / 2;	// size above which a cleared database uses the coarse format
+	public static final int WINDOW_SIZE = CHUNK_SIZE * 1024 * 16;	// size of a mapped window, 64 MB
+	private static final int CHUNKS_PER_WINDOW = WINDOW_SIZE / CHUNK_SIZE;
 
+	/**
+	 * Whether databases use memory mapped windows of the file by default, rather than
+	 * copying chunks into heap buffers.
+	 */
+	public static final boolean USE_MAPPED_IO= Boolean.getBoolean("org.eclipse.cdt.core.parser.pdom.mmap"); //$NON-NLS-1$
+	/**
+	 * Maximum number of records kept in the b-tree buffers of a bulk build, about 30MB of heap.
+	 * When exceeded the buffered b-trees are built and the bulk build ends.
+	 */
+	private static final int MAX_BUFFERED_RECORDS= 500000;
+
+	// the record pointer format is stored in the upper bits of the version number.
+	private static final int FORMAT_SHIFT= 28;
+	private static final int VERSION_MASK= (1 << FORMAT_SHIFT) - 1;
+	private static final int FORMAT_COARSE= 1;
+	private static final int FORMAT_WIDE_RECPTRS= 2;
+	private static final int FORMAT_OF_SESSION= USE_WIDE_RECPTRS ? FORMAT_WIDE_RECPTRS : 0;
+	// version reported for a database written in a format this session cannot read.
+	private static final int UNREADABLE_VERSION= -1;
 
 	public static final int VERSION_OFFSET = 0;
-	public static final int DATA_AREA = (CHUNK_SIZE / BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 2) * INT_SIZE;
+	public static final int DATA_AREA = (CHUNK_SIZE / BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 2) * PTR_SIZE;
 	
 	private static final int BLOCK_PREV_OFFSET = BLOCK_HEADER_SIZE;
-	private static final int BLOCK_NEXT_OFFSET = BLOCK_HEADER_SIZE + INT_SIZE;
+	private static final int BLOCK_NEXT_OFFSET = BLOCK_HEADER_SIZE + PTR_SIZE;
 	
 	private final File fLocation;
 	private final boolean fReadOnly;
+	private final boolean fMapped;
 	private RandomAccessFile fFile;
+	private MappedByteBuffer[] fWindows;
 	private boolean fExclusiveLock= false;	// necessary for any write operation
 	private boolean fLocked;				// necessary for any operation.
 	private boolean fIsMarkedIncomplete= false;
 
 	private int fVersion;
+	private int fBlockSizeDeltaBits;
+	private int fBlockSizeDelta;
+	private int fMinBlockDeltas;
+	private int fMaxBlockDeltas;
+	private boolean fExceededMaxSize;
+	private boolean fReportedExceededMaxSize;
+	private boolean fCompactStrings= true;
+	private volatile Map<Long, BTreeBuffer> fBTreeBuffers;	// non-null during a bulk build
+	private int fBufferedRecords;
 	private final Chunk fHeaderChunk;
-	private Chunk[] fChunks;
+	private volatile AtomicReferenceArray<Chunk> fChunks;	// read without lock by readers, see getChunk()
 	private int fChunksUsed;
 	private int fChunksAllocated;
 	private ChunkCache fCache;
 	
 	private long malloced;
 	private long freed;
+	// statistics only, hits are counted without synchronization.
 	private long cacheHits;
 	private long cacheMisses;
+	private long cacheEvictions;
 	
 	/**
 	 * Construct a new Database object, creating a backing file if necessary.
@@ -113,24 +195,45 @@ public class Database {
 	 * @throws CoreException
 	 */
 	public Database(File location, ChunkCache cache, int version, boolean openReadOnly) throws CoreException {
+		this(location, cache, version, openReadOnly, USE_MAPPED_IO);
+	}
+
+	/**
+	 * Construct a new Database object, creating a backing file if necessary.
+	 * @param location the local file path for the database 
+	 * @param cache the cache to be used optimization
+	 * @param version the version number to store in the database (only applicable for new databases)
+	 * @param openReadOnly whether this Database object will ever need writing to
+	 * @param mapped whether to access the file via memory mapped windows rather than heap buffers
+	 * @throws CoreException
+	 */
+	public Database(File location, ChunkCache cache, int version, boolean openReadOnly, boolean mapped) throws CoreException {
 		try {
 			fLocation = location;
 			fReadOnly= openReadOnly;
+			fMapped= mapped;
+			fWindows= new MappedByteBuffer[0];
 			fCache= cache;
 			openFile();
 			
 			int nChunksOnDisk = (int) (fFile.length() / CHUNK_SIZE);
+			if (!fReadOnly && nChunksOnDisk > 1 && fFile.length() % WINDOW_SIZE == 0) {
+				// the file may have been grown by mapping a window and not been cut back,
+				// because it was not closed or the platform refused to truncate it.
+				nChunksOnDisk= truncateUnusedChunks(nChunksOnDisk);
+			}
 			fHeaderChunk= new Chunk(this, 0);
 			fHeaderChunk.fLocked= true;		// never makes it into the cache, needed to satisfy assertions
 			if (nChunksOnDisk <= 0) {
 				fVersion= version;
-				fChunks= new Chunk[1];
-				fChunksUsed = fChunksAllocated = fChunks.length;
+				setBlockSizeDeltaBits(BLOCK_SIZE_DELTA_BITS);
+				fChunks= new AtomicReferenceArray<Chunk>(1);
+				fChunksUsed = fChunksAllocated = fChunks.length();
 			}
 			else {
 				fHeaderChunk.read();
-				fVersion= fHeaderChunk.getInt(VERSION_OFFSET);
-				fChunks = new Chunk[nChunksOnDisk];	// chunk[0] is unused.
+				readHeaderVersion(fHeaderChunk.getInt(VERSION_OFFSET));
+				fChunks = new AtomicReferenceArray<Chunk>(nChunksOnDisk);	// chunk[0] is unused.
 				fChunksUsed = fChunksAllocated = nChunksOnDisk;
 			}
 		} catch (IOException e) {
@@ -138,6 +241,27 @@ public class Database {
 		}
 	}
 		
+	/**
+	 * Cuts off the empty chunks at the end of the file and returns the number of chunks that remain.
+	 * Every chunk in use starts with the header of a block, so an empty chunk starts with zeros.
+	 */
+	private int truncateUnusedChunks(int nChunksOnDisk) throws IOException {
+		final ByteBuffer buf= ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+		int nChunks= nChunksOnDisk;
+		while (nChunks > 1) {
+			buf.clear();
+			read(buf, (long) (nChunks-1) * CHUNK_SIZE);
+			if (buf.getShort(0) != 0) {
+				break;
+			}
+			nChunks--;
+		}
+		if (nChunks < nChunksOnDisk) {
+			fFile.getChannel().truncate((long) nChunks * CHUNK_SIZE);
+		}
+		return nChunks;
+	}
+
 	private void openFile() throws FileNotFoundException {
 		fFile = new RandomAccessFile(fLocation, fReadOnly ? "r" : "rw"); //$NON-NLS-1$ //$NON-NLS-2$
 	}
@@ -170,6 +294,84 @@ public class Database {
 		} while(true);
 	}
 
+	private MappedByteBuffer map(long position, long size) throws IOException {
+		final FileChannel.MapMode mode= fReadOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+		int retries= 0;
+		do {
+			try {
+				return fFile.getChannel().map(mode, position, size);
+			}
+			catch (ClosedChannelException e) {
+				// bug 219834 file may have be closed by interrupting a thread during an I/O operation.
+				reopen(e, ++retries);
+			} 
+		} while(true);
+	}
+
+	/**
+	 * Returns a buffer operating on the mapped content of the given chunk, maps the
+	 * window containing the chunk if necessary. Called while holding the lock on {@link #fCache}.
+	 */
+	private ByteBuffer getMappedSlice(int chunkIndex) throws CoreException {
+		assert fMapped;
+		final int windowIndex= chunkIndex / CHUNKS_PER_WINDOW;
+		if (windowIndex >= fWindows.length) {
+			MappedByteBuffer[] newWindows= new MappedByteBuffer[windowIndex+1];
+			System.arraycopy(fWindows, 0, newWindows, 0, fWindows.length);
+			fWindows= newWindows;
+		}
+		MappedByteBuffer window= fWindows[windowIndex];
+		if (window == null) {
+			try {
+				final long position= (long) windowIndex * WINDOW_SIZE;
+				long size= WINDOW_SIZE;
+				if (fReadOnly) {
+					// a read-only file cannot grow, map what is there.
+					size= Math.min(size, fFile.length() - position);
+				}
+				window= map(position, size);
+			} catch (IOException e) {
+				throw new CoreException(new DBStatus(e));
+			}
+			fWindows[windowIndex]= window;
+		}
+		final ByteBuffer slice= window.duplicate();
+		final int start= (chunkIndex % CHUNKS_PER_WINDOW) * CHUNK_SIZE;
+		slice.limit(start + CHUNK_SIZE);
+		slice.position(start);
+		return slice.slice();
+	}
+
+	private Chunk newChunk(int chunkIndex) throws CoreException {
+		if (fMapped) {
+			return new Chunk(this, chunkIndex, getMappedSlice(chunkIndex));
+		}
+		return new Chunk(this, chunkIndex);
+	}
+
+	/**
+	 * Drops the references to the mapped windows, they are unmapped by the garbage collector.
+	 */
+	private void releaseWindows() {
+		synchronized (fCache) {
+			fWindows= new MappedByteBuffer[0];
+		}
+	}
+
+	private void forceWindows() {
+		if (fMapped && !fReadOnly) {
+			final MappedByteBuffer[] windows;
+			synchronized (fCache) {
+				windows= fWindows;
+			}
+			for (MappedByteBuffer window : windows) {
+				if (window != null) {
+					window.force();
+				}
+			}
+		}
+	}
+
 	private void reopen(ClosedChannelException e, int attempt) throws ClosedChannelException, FileNotFoundException {
 		// only if the current thread was not interrupted we try to reopen the file.
 		if (e instanceof ClosedByInterruptException || attempt >= 20) {
@@ -195,30 +397,125 @@ public class Database {
         }
 	}
 	
+	private void setBlockSizeDeltaBits(int bits) {
+		fBlockSizeDeltaBits= bits;
+		fBlockSizeDelta= 1 << fBlockSizeDeltaBits;
+		// a block must at least be 2 + 2*PTR_SIZE bytes to link the free blocks.
+		fMinBlockDeltas= (BLOCK_HEADER_SIZE + 2*PTR_SIZE + fBlockSizeDelta - 1) / fBlockSizeDelta;
+		fMaxBlockDeltas= CHUNK_SIZE / fBlockSizeDelta;
+	}
+
+	private void readHeaderVersion(int header) {
+		final int format= header >>> FORMAT_SHIFT;
+		if ((format & ~FORMAT_COARSE) == FORMAT_OF_SESSION) {
+			fVersion= header & VERSION_MASK;
+			setBlockSizeDeltaBits((format & FORMAT_COARSE) != 0 ? COARSE_BLOCK_SIZE_DELTA_BITS : BLOCK_SIZE_DELTA_BITS);
+		} else {
+			// unknown format or pointers of a different width, will be reported as unsupported version.
+			fVersion= UNREADABLE_VERSION;
+			setBlockSizeDeltaBits(BLOCK_SIZE_DELTA_BITS);
+		}
+	}
+
+	private int getHeaderVersion() {
+		final int format= isCoarseFormat() ? FORMAT_OF_SESSION | FORMAT_COARSE : FORMAT_OF_SESSION;
+		return fVersion | (format << FORMAT_SHIFT);
+	}
+
+	/**
+	 * Extracts the version number from the first four bytes of a database file. For a database
+	 * that cannot be read in this session, a negative number is returned.
+	 */
+	public static int getVersionFromHeader(int header) {
+		return ((header >>> FORMAT_SHIFT) & ~FORMAT_COARSE) == FORMAT_OF_SESSION ? header & VERSION_MASK : UNREADABLE_VERSION;
+	}
+
 	public int getVersion() {
 		return fVersion;
 	}
 	
 	public void setVersion(int version) throws CoreException {
 		assert fExclusiveLock;
-		fHeaderChunk.putInt(VERSION_OFFSET, version);
 		fVersion= version;
+		fHeaderChunk.putInt(VERSION_OFFSET, getHeaderVersion());
+	}
+
+	/**
+	 * Returns the number of bits of the block size delta of the record pointer format.
+	 */
+	int getBlockSizeDeltaBits() {
+		return fBlockSizeDeltaBits;
+	}
+
+	/**
+	 * Returns whether the database uses the coarse block size delta.
+	 */
+	public boolean isCoarseFormat() {
+		return fBlockSizeDeltaBits != BLOCK_SIZE_DELTA_BITS;
+	}
+
+	/**
+	 * Returns the maximum size of the database in bytes for its record pointer format.
+	 */
+	public long getMaxSize() {
+		return getMaxSize(fBlockSizeDeltaBits);
+	}
+
+	private static long getMaxSize(int blockSizeDeltaBits) {
+		// the index of a chunk has to fit into an int, as well.
+		return Math.min((long) 1 << (PTR_SIZE * 8 + blockSizeDeltaBits), (long) Integer.MAX_VALUE * CHUNK_SIZE);
+	}
+
+	/**
+	 * Returns whether an allocation failed because the database has grown beyond its maximum size.
+	 */
+	public boolean hasExceededMaxSize() {
+		return fExceededMaxSize;
 	}
 
 	/**
-	 * Empty the contents of the Database, make it ready to start again
+	 * Returns whether the database has exceeded its maximum size and this has not been reported
+	 * before by this method. Allows to react to the condition once, although every subsequent
+	 * allocation fails, as well. Is reset when the database is cleared.
+	 */
+	public synchronized boolean reportExceededMaxSize() {
+		if (!fExceededMaxSize || fReportedExceededMaxSize)
+			return false;
+		fReportedExceededMaxSize= true;
+		return true;
+	}
+
+	/**
+	 * Empty the contents of the Database, make it ready to start again. The database is switched to
+	 * the coarse format, if it has exceeded its maximum size or has used more than
+	 * {@link #COARSE_FORMAT_THRESHOLD} bytes, because the new content will likely be as large.
 	 * @throws CoreException
 	 */
 	public void clear(int version) throws CoreException {
+		clear(version, isCoarseFormat() || fExceededMaxSize || getSizeBytes() > COARSE_FORMAT_THRESHOLD);
+	}
+
+	/**
+	 * Empty the contents of the Database, make it ready to start again using the default or the
+	 * coarse block size delta.
+	 * @throws CoreException
+	 */
+	public void clear(int version, boolean coarse) throws CoreException {
 		assert fExclusiveLock;
 		removeChunksFromCache();
 		
 		fVersion= version;
+		setBlockSizeDeltaBits(coarse ? COARSE_BLOCK_SIZE_DELTA_BITS : BLOCK_SIZE_DELTA_BITS);
+		synchronized (this) {
+			fExceededMaxSize= false;
+			fReportedExceededMaxSize= false;
+		}
 		// clear the first chunk.
 		fHeaderChunk.clear(0, CHUNK_SIZE);
 		// chunks have been removed from the cache, so we may just reset the array of chunks.
-		fChunks = new Chunk[] {null};
-		fChunksUsed = fChunksAllocated = fChunks.length;
+		fChunks = new AtomicReferenceArray<Chunk>(1);
+		fChunksUsed = fChunksAllocated = fChunks.length();
+		releaseWindows();
 		try {
 			fHeaderChunk.flush();	// zero out header chunk
 			fFile.getChannel().truncate(CHUNK_SIZE);	// truncate database
@@ -227,6 +524,10 @@ public class Database {
 			CCorePlugin.log(e);
 		}
 		malloced = freed = 0;
+		if (fBTreeBuffers != null) {
+			fBTreeBuffers= new HashMap<Long, BTreeBuffer>();
+			fBufferedRecords= 0;
+		}
 		/*
 		 * This is for debugging purposes in order to simulate having a very large PDOM database. 
 		 * This will set aside the specified number of chunks.
@@ -244,13 +545,73 @@ public class Database {
 		}
 	}
 
+	/**
+	 * Starts or ends a bulk build of the database. During a bulk build the records inserted into
+	 * an empty b-tree that supports it are buffered in memory, the b-trees are built when the
+	 * bulk build ends.
+	 * @see BTree#BTree(Database, long, IBTreeComparator, boolean)
+	 */
+	public void setBulkBuild(boolean bulk) throws CoreException {
+		assert fExclusiveLock;
+		if (bulk) {
+			if (fBTreeBuffers == null) {
+				fBTreeBuffers= new HashMap<Long, BTreeBuffer>();
+				fBufferedRecords= 0;
+			}
+		} else {
+			final Map<Long, BTreeBuffer> buffers= fBTreeBuffers;
+			if (buffers != null) {
+				fBTreeBuffers= null;
+				for (BTreeBuffer buffer : buffers.values()) {
+					buffer.flush();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a bulk build is in progress.
+	 */
+	public boolean isBulkBuild() {
+		return fBTreeBuffers != null;
+	}
+
+	/**
+	 * Returns the buffer of the given b-tree during a bulk build, or <code>null</code> if its
+	 * records are stored in the database.
+	 * @param newRecords the number of records about to be inserted, a buffer is created only
+	 * if this is positive and the tree is empty.
+	 */
+	BTreeBuffer getBTreeBuffer(BTree tree, int newRecords) throws CoreException {
+		final Map<Long, BTreeBuffer> buffers= fBTreeBuffers;
+		if (buffers == null)
+			return null;
+
+		BTreeBuffer buffer= buffers.get(tree.rootPointer);
+		if (newRecords > 0) {
+			assert fExclusiveLock;
+			if (buffer == null) {
+				if (getRecPtr(tree.rootPointer) != 0)
+					return null;
+				buffer= new BTreeBuffer(tree);
+				buffers.put(tree.rootPointer, buffer);
+			}
+			fBufferedRecords+= newRecords;
+			if (fBufferedRecords > MAX_BUFFERED_RECORDS) {
+				setBulkBuild(false);
+				return null;
+			}
+		}
+		return buffer;
+	}
+
 	private void removeChunksFromCache() {
 		synchronized (fCache) {
-			for (int i=1; i < fChunks.length; i++) {
-				Chunk chunk= fChunks[i];
+			for (int i=1; i < fChunks.length(); i++) {
+				Chunk chunk= fChunks.get(i);
 				if (chunk != null) {
 					fCache.remove(chunk);
-					fChunks[i]= null;
+					fChunks.set(i, null);
 				}
 			}
 		}
@@ -268,23 +629,63 @@ public class Database {
 		long long_index = offset / CHUNK_SIZE;
 		assert long_index < Integer.MAX_VALUE; 
 
-		synchronized(fCache) {
-			assert fLocked;
-			final int index = (int)long_index;
-			Chunk chunk= fChunks[index];
-			if (chunk == null) {
-				cacheMisses++;
-				chunk = fChunks[index] = new Chunk(this, index);
-				chunk.read();
+		if (fMapped && fExclusiveLock && !fIsMarkedIncomplete) {
+			// mapped chunks are modified in place, the file has to be marked before that happens.
+			markFileIncomplete();
+		}
+
+		assert fLocked;
+		final int index = (int)long_index;
+		if (fExclusiveLock) {
+			synchronized(fCache) {
+				Chunk chunk= fChunks.get(index);
+				if (chunk == null) {
+					cacheMisses++;
+					chunk = newChunk(index);
+					chunk.read();
+					fChunks.set(index, chunk);
+				}
+				else {
+					cacheHits++;
+				}
+				fCache.add(chunk, true);
+				return chunk;
 			}
-			else {
+		}
+
+		// Readers: chunks in the table are valid until the next write-lock, even if they get evicted
+		// from the cache in the meantime. Hence a hit does not need the lock of the shared cache.
+		Chunk chunk= fChunks.get(index);
+		if (chunk != null) {
+			cacheHits++;
+			chunk.recordAccess();
+			return chunk;
+		}
+
+		// Read heap chunks before taking the lock, such that other readers are not blocked by the I/O.
+		final Chunk newChunk= fMapped ? null : readChunk(index);
+		synchronized(fCache) {
+			chunk= fChunks.get(index);
+			if (chunk != null) {
+				// another reader was faster
 				cacheHits++;
+				fCache.add(chunk, false);
+				return chunk;
 			}
-			fCache.add(chunk, fExclusiveLock);
+			cacheMisses++;
+			chunk= newChunk != null ? newChunk : newChunk(index);
+			fChunks.set(index, chunk);
+			fCache.add(chunk, false);
 			return chunk;
 		}
 	}
 
+	private Chunk readChunk(int index) throws CoreException {
+		final Chunk chunk= new Chunk(this, index);
+		chunk.read();
+		return chunk;
+	}
+
 	/**
 	 * Allocate a block out of the database.
 	 */ 
@@ -292,16 +693,16 @@ public class Database {
 		assert fExclusiveLock;
 		assert datasize >=0 && datasize <= MAX_MALLOC_SIZE;
 					
-		int needDeltas= (datasize + BLOCK_HEADER_SIZE + BLOCK_SIZE_DELTA - 1) / BLOCK_SIZE_DELTA;
-		if (needDeltas < MIN_BLOCK_DELTAS) {
-			needDeltas= MIN_BLOCK_DELTAS;
+		int needDeltas= (datasize + BLOCK_HEADER_SIZE + fBlockSizeDelta - 1) >> fBlockSizeDeltaBits;
+		if (needDeltas < fMinBlockDeltas) {
+			needDeltas= fMinBlockDeltas;
 		}
 
 		// Which block size
 		long freeblock = 0;
 		int useDeltas;
-		for (useDeltas= needDeltas; useDeltas <= MAX_BLOCK_DELTAS; useDeltas++) {
-			freeblock = getFirstBlock(useDeltas*BLOCK_SIZE_DELTA);
+		for (useDeltas= needDeltas; useDeltas <= fMaxBlockDeltas; useDeltas++) {
+			freeblock = getFirstBlock(useDeltas << fBlockSizeDeltaBits);
 			if (freeblock != 0)
 				break;
 		}
@@ -311,22 +712,22 @@ public class Database {
 		if (freeblock == 0) {
 			// allocate a new chunk
 			freeblock= createNewChunk();
-			useDeltas = MAX_BLOCK_DELTAS;
+			useDeltas = fMaxBlockDeltas;
 			chunk = getChunk(freeblock);
 		} else {
 			chunk = getChunk(freeblock);
-			removeBlock(chunk, useDeltas*BLOCK_SIZE_DELTA, freeblock);
+			removeBlock(chunk, useDeltas << fBlockSizeDeltaBits, freeblock);
 		}
  
 		final int unusedDeltas = useDeltas-needDeltas;
-		if (unusedDeltas >= MIN_BLOCK_DELTAS) {
+		if (unusedDeltas >= fMinBlockDeltas) {
 			// Add in the unused part of our block
-			addBlock(chunk, unusedDeltas*BLOCK_SIZE_DELTA, freeblock + needDeltas*BLOCK_SIZE_DELTA);
+			addBlock(chunk, unusedDeltas << fBlockSizeDeltaBits, freeblock + (needDeltas << fBlockSizeDeltaBits));
 			useDeltas= needDeltas;
 		}
 		
 		// Make our size negative to show in use
-		final int usedSize= useDeltas*BLOCK_SIZE_DELTA;
+		final int usedSize= useDeltas << fBlockSizeDeltaBits;
 		chunk.putShort(freeblock, (short) -usedSize);
 
 		// Clear out the block, lots of people are expecting this
@@ -341,19 +742,16 @@ public class Database {
 		synchronized (fCache) {
 			final int newChunkIndex = fChunksUsed; // fChunks.length;
 
-			final Chunk chunk = new Chunk(this, newChunkIndex);
+			final Chunk chunk = newChunk(newChunkIndex);
 			chunk.fDirty = true;
 
 			if (newChunkIndex >= fChunksAllocated) {
 				int increment = Math.max(1024, fChunksAllocated/20);
-				Chunk[] newchunks = new Chunk[fChunksAllocated + increment];
-				System.arraycopy(fChunks, 0, newchunks, 0, fChunksAllocated);
-
-				fChunks = newchunks;
+				fChunks = copyOf(fChunks, fChunksAllocated + increment);
 				fChunksAllocated += increment;
 			}
 			fChunksUsed += 1;
-			fChunks[newChunkIndex] = chunk;
+			fChunks.set(newChunkIndex, chunk);
 
 			fCache.add(chunk, true);
 			long address = (long) newChunkIndex * CHUNK_SIZE;
@@ -364,8 +762,11 @@ public class Database {
 			 * special status, the indexing operation should be stopped. This is desired since generally, once
 			 * the max size is exceeded, there are lots of errors.
 			 */
-			if (address >= MAX_DB_SIZE) {
-				Object bindings[] = { this.getLocation().getAbsolutePath(), MAX_DB_SIZE };
+			if (address >= getMaxSize()) {
+				synchronized (this) {
+					fExceededMaxSize= true;
+				}
+				Object bindings[] = { this.getLocation().getAbsolutePath(), getMaxSize() };
 				throw new CoreException(new Status(IStatus.ERROR, CCorePlugin.PLUGIN_ID,
 						CCorePlugin.STATUS_PDOM_TOO_LARGE, NLS.bind(CCorePlugin
 								.getResourceString("pdom.DatabaseTooLarge"), bindings), null)); //$NON-NLS-1$
@@ -380,15 +781,11 @@ public class Database {
 	private long createNewChunks(int numChunks) throws CoreException {
 		assert fExclusiveLock;
 		synchronized (fCache) {
-			final int oldLen= fChunks.length;
-			Chunk[] newchunks = new Chunk[oldLen+numChunks];
-			System.arraycopy(fChunks, 0, newchunks, 0, oldLen);
-			for( int i = oldLen; i < oldLen + numChunks; i++ ) {
-				newchunks[i]= null;
-			}
-			final Chunk chunk= new Chunk(this, oldLen + numChunks - 1);
+			final int oldLen= fChunks.length();
+			AtomicReferenceArray<Chunk> newchunks = copyOf(fChunks, oldLen+numChunks);
+			final Chunk chunk= newChunk(oldLen + numChunks - 1);
 			chunk.fDirty= true;
-			newchunks[ oldLen + numChunks - 1 ] = chunk;
+			newchunks.set(oldLen + numChunks - 1, chunk);
 			fChunks= newchunks;
 			fCache.add(chunk, true);
 			fChunksAllocated=oldLen+numChunks;
@@ -397,14 +794,23 @@ public class Database {
 		}
 	}
 	
+	private static AtomicReferenceArray<Chunk> copyOf(AtomicReferenceArray<Chunk> chunks, int newLength) {
+		final AtomicReferenceArray<Chunk> result= new AtomicReferenceArray<Chunk>(newLength);
+		final int len= Math.min(chunks.length(), newLength);
+		for (int i = 0; i < len; i++) {
+			result.set(i, chunks.get(i));
+		}
+		return result;
+	}
+
 	private long getFirstBlock(int blocksize) throws CoreException {
 		assert fLocked;
-		return fHeaderChunk.getFreeRecPtr((blocksize/BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 1) * INT_SIZE);
+		return fHeaderChunk.getFreeRecPtr(((blocksize >> fBlockSizeDeltaBits) - fMinBlockDeltas + 1) * PTR_SIZE);
 	}
 	
 	private void setFirstBlock(int blocksize, long block) throws CoreException {
 		assert fExclusiveLock;
-		fHeaderChunk.putFreeRecPtr((blocksize/BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 1) * INT_SIZE, block);
+		fHeaderChunk.putFreeRecPtr(((blocksize >> fBlockSizeDeltaBits) - fMinBlockDeltas + 1) * PTR_SIZE, block);
 	}
 	
 	private void removeBlock(Chunk chunk, int blocksize, long block) throws CoreException {
@@ -548,7 +954,93 @@ public class Database {
 		if (length > ShortString.MAX_LENGTH)
 			return new LongString(this, offset);
 		else
-			return new ShortString(this, offset);
+			return new ShortString(this, offset);	// includes compact strings with a negative length
+	}
+
+	/**
+	 * Compares the strings stored at the given records like {@link IString#compare(IString, boolean)},
+	 * without creating objects for short strings.
+	 */
+	public int compareStrings(long record1, long record2, boolean caseSensitive) throws CoreException {
+		final Chunk chunk1= getChunk(record1);
+		final Chunk chunk2= getChunk(record2);
+		if (chunk1.getInt(record1) > ShortString.MAX_LENGTH || chunk2.getInt(record2) > ShortString.MAX_LENGTH)
+			return getString(record1).compare(getString(record2), caseSensitive);
+		return ShortString.compare(chunk1, record1, chunk2, record2, caseSensitive);
+	}
+
+	/**
+	 * Compares the strings stored at the given records like
+	 * {@link IString#compareCompatibleWithIgnoreCase(IString)}, without creating objects for short strings.
+	 */
+	public int compareStringsCompatibleWithIgnoreCase(long record1, long record2) throws CoreException {
+		final Chunk chunk1= getChunk(record1);
+		final Chunk chunk2= getChunk(record2);
+		if (chunk1.getInt(record1) > ShortString.MAX_LENGTH || chunk2.getInt(record2) > ShortString.MAX_LENGTH)
+			return getString(record1).compareCompatibleWithIgnoreCase(getString(record2));
+		return ShortString.compareCompatibleWithIgnoreCase(chunk1, record1, chunk2, record2);
+	}
+
+	/**
+	 * Compares the string stored at the given record with a character array like
+	 * {@link IString#compare(char[], boolean)}, without creating an object for a short string.
+	 */
+	public int compareString(long record, char[] chars, boolean caseSensitive) throws CoreException {
+		final Chunk chunk= getChunk(record);
+		if (chunk.getInt(record) > ShortString.MAX_LENGTH)
+			return getString(record).compare(chars, caseSensitive);
+		return ShortString.compare(chunk, record, chars, caseSensitive);
+	}
+
+	/**
+	 * Compares the string stored at the given record with a character array like
+	 * {@link IString#compareCompatibleWithIgnoreCase(char[])}, without creating an object for a
+	 * short string.
+	 */
+	public int compareStringCompatibleWithIgnoreCase(long record, char[] chars) throws CoreException {
+		final Chunk chunk= getChunk(record);
+		if (chunk.getInt(record) > ShortString.MAX_LENGTH)
+			return getString(record).compareCompatibleWithIgnoreCase(chars);
+		return ShortString.compareCompatibleWithIgnoreCase(chunk, record, chars);
+	}
+
+	/**
+	 * Compares the string stored at the given record with a prefix like
+	 * {@link IString#comparePrefix(char[], boolean)}, without creating an object for a short string.
+	 */
+	public int compareStringPrefix(long record, char[] prefix, boolean caseSensitive) throws CoreException {
+		final Chunk chunk= getChunk(record);
+		if (chunk.getInt(record) > ShortString.MAX_LENGTH)
+			return getString(record).comparePrefix(prefix, caseSensitive);
+		return ShortString.comparePrefix(chunk, record, prefix, caseSensitive);
+	}
+
+	/**
+	 * Checks whether the string stored at the given record consists of the given characters,
+	 * without creating an object for a short string.
+	 */
+	public boolean stringEquals(long record, char[] chars) throws CoreException {
+		final Chunk chunk= getChunk(record);
+		if (chunk.getInt(record) > ShortString.MAX_LENGTH)
+			return getString(record).equals(chars);
+		return ShortString.equals(chunk, record, chars);
+	}
+
+	/**
+	 * Returns whether new short strings consisting of Latin-1 characters are stored with one
+	 * byte per character.
+	 */
+	public boolean usesCompactStrings() {
+		return fCompactStrings;
+	}
+
+	/**
+	 * Specifies whether new short strings consisting of Latin-1 characters are stored with one
+	 * byte per character, which is the default. Strings that have been stored already are not
+	 * affected.
+	 */
+	public void setCompactStrings(boolean value) {
+		fCompactStrings= value;
 	}
 	
 	/**
@@ -560,7 +1052,7 @@ public class Database {
 		System.out.println("free'd: " + freed); //$NON-NLS-1$
 		System.out.println("wasted: " + (fChunksUsed * CHUNK_SIZE - (malloced - freed))); //$NON-NLS-1$
 		System.out.println("Free blocks"); //$NON-NLS-1$
-		for (int bs = MIN_BLOCK_DELTAS*BLOCK_SIZE_DELTA; bs <= CHUNK_SIZE; bs += BLOCK_SIZE_DELTA) {
+		for (int bs = fMinBlockDeltas*fBlockSizeDelta; bs <= CHUNK_SIZE; bs += fBlockSizeDelta) {
 			int count = 0;
 			long block = getFirstBlock(bs);
 			while (block != 0) {
@@ -580,15 +1072,29 @@ public class Database {
 	 */
 	public void close() throws CoreException {
 		assert fExclusiveLock;
+		setBulkBuild(false);
 		flush();
 		removeChunksFromCache();
 		
 		// chunks have been removed from the cache, so we are fine
+		final long usedSize= (long) fChunksUsed * CHUNK_SIZE;
 		fHeaderChunk.clear(0, CHUNK_SIZE);
 		fHeaderChunk.fDirty= false;
-		fChunks= new Chunk[] {null};
-		fChunksUsed = fChunksAllocated = fChunks.length;
+		fChunks= new AtomicReferenceArray<Chunk>(1);
+		fChunksUsed = fChunksAllocated = fChunks.length();
 		try {
+			if (fMapped) {
+				releaseWindows();
+				if (!fReadOnly) {
+					// mapping a window grows the file, cut off the unused part.
+					try {
+						fFile.getChannel().truncate(usedSize);
+					} catch (IOException e) {
+						// some platforms do not allow truncating a file while it is mapped, the
+						// trailing chunks are empty and are cut off when the file is opened again.
+					}
+				}
+			}
 			fFile.close();
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
@@ -606,8 +1112,9 @@ public class Database {
 	 * Called from any thread via the cache, protected by {@link #fCache}.
 	 */
 	void releaseChunk(final Chunk chunk) {
+		cacheEvictions++;
 		if (!chunk.fLocked) {
-			fChunks[chunk.fSequenceNumber]= null;
+			fChunks.set(chunk.fSequenceNumber, null);
 		}			
 	}
 
@@ -638,7 +1145,7 @@ public class Database {
 				ArrayList<Chunk> dirtyChunks= new ArrayList<Chunk>();
 				synchronized (fCache) {
 					for (int i= 1; i < fChunksUsed; i++) {
-						Chunk chunk= fChunks[i];
+						Chunk chunk= fChunks.get(i);
 						if (chunk != null) {
 							if (chunk.fCacheIndex < 0) { 	
 								// locked chunk that has been removed from cache.
@@ -647,7 +1154,7 @@ public class Database {
 								}
 								else {
 									chunk.fLocked= false;
-									fChunks[i]= null;
+									fChunks.set(i, null);
 								}
 							}
 							else if (chunk.fLocked) {
@@ -692,7 +1199,7 @@ public class Database {
 		ArrayList<Chunk> dirtyChunks= new ArrayList<Chunk>();
 		synchronized (fCache) {
 			for (int i= 1; i < fChunksUsed ; i++) {
-				Chunk chunk= fChunks[i];
+				Chunk chunk= fChunks.get(i);
 				if (chunk != null && chunk.fDirty) {
 					dirtyChunks.add(chunk);
 				}
@@ -716,13 +1223,14 @@ public class Database {
 						chunk.flush();
 					}
 				}
+				forceWindows();
 
 				// only after the chunks are flushed we may unlock and release them.
 				synchronized (fCache) {
 					for (Chunk chunk : dirtyChunks) {
 						chunk.fLocked= false;
 						if (chunk.fCacheIndex < 0) {
-							fChunks[chunk.fSequenceNumber]= null;
+							fChunks.set(chunk.fSequenceNumber, null);
 						}
 					}
 				}
@@ -730,7 +1238,7 @@ public class Database {
 
 			if (isComplete) {
 				if (fHeaderChunk.fDirty || fIsMarkedIncomplete) {
-					fHeaderChunk.putInt(VERSION_OFFSET, fVersion);
+					fHeaderChunk.putInt(VERSION_OFFSET, getHeaderVersion());
 					fHeaderChunk.flush();
 					fIsMarkedIncomplete= false;
 				}
@@ -751,7 +1259,7 @@ public class Database {
 	}
 
 	public void resetCacheCounters() {
-		cacheHits= cacheMisses= 0;
+		cacheHits= cacheMisses= cacheEvictions= 0;
 	}
 	
 	public long getCacheHits() {
@@ -762,7 +1270,25 @@ public class Database {
 		return cacheMisses;
 	}
 
+	/**
+	 * Returns the number of chunks of this database that have been evicted from the cache.
+	 */
+	public long getCacheEvictions() {
+		return cacheEvictions;
+	}
+
+	/**
+	 * Returns whether this database accesses its file via memory mapped windows.
+	 */
+	public boolean isMapped() {
+		return fMapped;
+	}
+
 	public long getSizeBytes() {
+		if (fMapped) {
+			// the file is grown in units of mapped windows.
+			return (long) fChunksUsed * CHUNK_SIZE;
+		}
 		try {
 			return fFile.length();
 		} catch (IOException e) {
@@ -100,6 +100,18 @@ public interface IString {
 	 */
 	public int comparePrefix(char[] name, boolean caseSensitive) throws CoreException;
 
+	/**
+	 * Returns the number of characters of this IString record, without reading them.
+	 * @throws CoreException
+	 */
+	public int getLength() throws CoreException;
+
+	/**
+	 * Returns a hash code compatible with {@link String#hashCode()}. The hash code is computed
+	 * from the record without creating a copy of the characters.
+	 */
+	public int hashCode();
+
 	/**
 	 * Get an equivalent character array to this IString record<p>
 	 * <b>N.B. This method can be expensive: compare and equals can be used for
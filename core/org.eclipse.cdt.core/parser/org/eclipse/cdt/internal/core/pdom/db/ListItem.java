@@ -25,10 +25,10 @@ public class ListItem {
 	protected final long record;
 	
 	protected static final int NEXT = 0;
-	protected static final int PREV = 4;
-	protected static final int ITEM = 8;
+	protected static final int PREV = NEXT + Database.PTR_SIZE;
+	protected static final int ITEM = PREV + Database.PTR_SIZE;
 
-	protected static final int RECORD_SIZE = 12;
+	protected static final int RECORD_SIZE = ITEM + Database.PTR_SIZE;
 	
 	public ListItem(Database db, long record) {
 		this.db = db;
@@ -34,13 +34,13 @@ public class LongString implements IString {
 	// Additional fields of first record
 	private static final int LENGTH = 0; // must be first to match ShortString
 	private static final int NEXT1 = 4;
-	private static final int CHARS1 = 8;
+	private static final int CHARS1 = NEXT1 + Database.PTR_SIZE;
 	
 	private static final int NUM_CHARS1 = (Database.MAX_MALLOC_SIZE - CHARS1) / 2;
 	
 	// Additional fields of subsequent records
 	private static final int NEXTN = 0;
-	private static final int CHARSN = 4;
+	private static final int CHARSN = NEXTN + Database.PTR_SIZE;
 	
 	private static final int NUM_CHARSN = (Database.MAX_MALLOC_SIZE - CHARSN) / 2;
 	
@@ -346,7 +346,7 @@ public class LongString implements IString {
 				p = db.getRecPtr(record + NEXT1) + CHARSN;
 			}
 			if(count > NUM_CHARS1 && ((count-NUM_CHARS1) % NUM_CHARSN)==0) {
-				p = db.getRecPtr(p-(NUM_CHARSN*2)-4) + CHARSN;
+				p = db.getRecPtr(p-(NUM_CHARSN*2)-CHARSN) + CHARSN;
 			}
 			return result;
 		}
@@ -356,6 +356,10 @@ public class LongString implements IString {
 		}
 	}
 	
+	public int getLength() throws CoreException {
+		return db.getInt(record + LENGTH);
+	}
+
 	public char[] getChars() throws CoreException {
 		int length = db.getInt(record + LENGTH);
 		final char[] chars = new char[length];
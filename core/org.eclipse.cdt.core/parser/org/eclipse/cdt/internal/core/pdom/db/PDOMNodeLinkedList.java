@@ -29,7 +29,7 @@ public class PDOMNodeLinkedList {
 	private boolean allowsNull;
 	
 	private static final int FIRST_MEMBER = 0;
-	protected static final int RECORD_SIZE = 4;
+	protected static final int RECORD_SIZE = FIRST_MEMBER + Database.PTR_SIZE;
 
 	public PDOMNodeLinkedList(PDOMLinkage linkage, long offset, boolean allowsNulls) {
 		this.offset = offset;
@@ -17,7 +17,10 @@ import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.core.runtime.CoreException;
 
 /**
- * This is for strings that fit inside a single chunk.
+ * This is for strings that fit inside a single chunk. Strings consisting of Latin-1
+ * characters only are stored with one byte per character in databases that use compact
+ * strings, all other strings with two bytes per character. A compact string is marked by
+ * a negative length.
  * 
  * @author Doug Schaefer
  */
@@ -39,32 +42,85 @@ public class ShortString implements IString {
 
 	public ShortString(Database db, char[] chars) throws CoreException {
 		this.db = db;
-		this.record = db.malloc(CHARS + chars.length * 2);
-		
-		Chunk chunk = db.getChunk(record);
-		chunk.putInt(record + LENGTH, (char)chars.length);
-		int n = chars.length;
-		long p = record + CHARS;
-		for (int i = 0; i < n; ++i) {
-			chunk.putChar(p, chars[i]);
-			p += 2;
+		final int n = chars.length;
+		if (db.usesCompactStrings() && isLatin1(chars)) {
+			this.record = db.malloc(CHARS + n);
+			Chunk chunk = db.getChunk(record);
+			chunk.putInt(record + LENGTH, -n);
+			long p = record + CHARS;
+			for (int i = 0; i < n; ++i) {
+				chunk.putByte(p++, (byte) chars[i]);
+			}
+		} else {
+			this.record = db.malloc(CHARS + n * 2);
+			Chunk chunk = db.getChunk(record);
+			chunk.putInt(record + LENGTH, n);
+			long p = record + CHARS;
+			for (int i = 0; i < n; ++i) {
+				chunk.putChar(p, chars[i]);
+				p += 2;
+			}
 		}
 	}
 	
 	public ShortString(Database db, String string) throws CoreException {
 		this.db = db;
-		this.record = db.malloc(CHARS + string.length() * 2);
-		
-		Chunk chunk = db.getChunk(record);
-		chunk.putInt(record + LENGTH, string.length());
-		int n = string.length();
-		long p = record + CHARS;
-		for (int i = 0; i < n; ++i) {
-			chunk.putChar(p, string.charAt(i));
-			p += 2;
+		final int n = string.length();
+		if (db.usesCompactStrings() && isLatin1(string)) {
+			this.record = db.malloc(CHARS + n);
+			Chunk chunk = db.getChunk(record);
+			chunk.putInt(record + LENGTH, -n);
+			long p = record + CHARS;
+			for (int i = 0; i < n; ++i) {
+				chunk.putByte(p++, (byte) string.charAt(i));
+			}
+		} else {
+			this.record = db.malloc(CHARS + n * 2);
+			Chunk chunk = db.getChunk(record);
+			chunk.putInt(record + LENGTH, n);
+			long p = record + CHARS;
+			for (int i = 0; i < n; ++i) {
+				chunk.putChar(p, string.charAt(i));
+				p += 2;
+			}
 		}
 	}
 	
+	private static boolean isLatin1(char[] chars) {
+		for (char c : chars) {
+			if (c > 0xff)
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isLatin1(String string) {
+		for (int i = 0; i < string.length(); i++) {
+			if (string.charAt(i) > 0xff)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bytes per character of the string stored at the given record.
+	 */
+	private static int charSize(Chunk chunk, long record) {
+		return chunk.getInt(record + LENGTH) < 0 ? 1 : 2;
+	}
+
+	/**
+	 * Returns the number of characters of the string stored at the given record.
+	 */
+	private static int length(Chunk chunk, long record) {
+		final int length = chunk.getInt(record + LENGTH);
+		return length < 0 ? -length : length;
+	}
+
+	private static char charAt(Chunk chunk, long p, int charSize) {
+		return charSize == 1 ? (char) (chunk.getByte(p) & 0xff) : chunk.getChar(p);
+	}
+
 	public long getRecord() {
 		return record;
 	}
@@ -76,8 +132,16 @@ public class ShortString implements IString {
 	public char[] getChars() throws CoreException {
 		Chunk chunk = db.getChunk(record);
 		int length = chunk.getInt(record + LENGTH);
-		char[] chars = new char[length];
-		chunk.getCharArray(record+CHARS, chars);
+		if (length >= 0) {
+			char[] chars = new char[length];
+			chunk.getCharArray(record+CHARS, chars);
+			return chars;
+		}
+		char[] chars = new char[-length];
+		long p = record + CHARS;
+		for (int i = 0; i < chars.length; ++i) {
+			chars[i] = (char) (chunk.getByte(p++) & 0xff);
+		}
 		return chars;
 	}
 	
@@ -99,52 +163,40 @@ public class ShortString implements IString {
 				Chunk chunk1 = db.getChunk(record);
 				Chunk chunk2 = string.db.getChunk(string.record);
 				
-				int n1 = chunk1.getInt(record); 
-				int n2 = chunk2.getInt(string.record);
+				int n1 = length(chunk1, record); 
+				int n2 = length(chunk2, string.record);
 				if (n1 != n2)
 					return false;
 				
+				final int s1 = charSize(chunk1, record);
+				final int s2 = charSize(chunk2, string.record);
 				long p1 = record + CHARS;
 				long p2 = string.record + CHARS;
 				for (int i = 0; i < n1; ++i) {
-					if (chunk1.getChar(p1) != chunk2.getChar(p2))
+					if (charAt(chunk1, p1, s1) != charAt(chunk2, p2, s2))
 						return false;
-					p1 += 2;
-					p2 += 2;
+					p1 += s1;
+					p2 += s2;
 				}
 				return true;
 			} else if (obj instanceof char[]) {
-				char[] chars = (char[])obj;
-				Chunk chunk = db.getChunk(record);
-
-				// Make sure size is the same
-				int n = chunk.getInt(record);
-				if (n != chars.length)
-					return false;
-				
-				// Check each character
-				long p = record + CHARS;
-				for (int i = 0; i < n; ++i) {
-					if (chunk.getChar(p) != chars[i])
-						return false;
-					p += 2;
-				}
-				return true;
+				return equals(db.getChunk(record), record, (char[]) obj);
 			} else if (obj instanceof String) {
 				String string = (String)obj;
 				Chunk chunk = db.getChunk(record);
 
 				// Make sure size is the same
-				int n = chunk.getInt(record);
+				int n = length(chunk, record);
 				if (n != string.length())
 					return false;
 				
 				// Check each character
+				final int s = charSize(chunk, record);
 				long p = record + CHARS;
 				for (int i = 0; i < n; ++i) {
-					if (chunk.getChar(p) != string.charAt(i))
+					if (charAt(chunk, p, s) != string.charAt(i))
 						return false;
-					p += 2;
+					p += s;
 				}
 				return true;
 			}
@@ -154,19 +206,38 @@ public class ShortString implements IString {
 		return false;
 	}
 	
+	static boolean equals(Chunk chunk, long record, char[] chars) {
+		// Make sure size is the same
+		int n = length(chunk, record);
+		if (n != chars.length)
+			return false;
+		
+		// Check each character
+		final int s = charSize(chunk, record);
+		long p = record + CHARS;
+		for (int i = 0; i < n; ++i) {
+			if (charAt(chunk, p, s) != chars[i])
+				return false;
+			p += s;
+		}
+		return true;
+	}
+
 	/**
-	 * Compatible with {@link String#hashCode()}
+	 * Compatible with {@link String#hashCode()}, computed without copying the characters.
 	 */
 	@Override
 	public int hashCode() {
 		int h = hash;
 		if (h == 0) {
-			char chars[];
 			try {
-				chars = getChars();
-				final int len = chars.length;
-				for (int i = 0; i < len; i++) {
-					h = 31*h + chars[i];
+				Chunk chunk = db.getChunk(record);
+				final int n = length(chunk, record);
+				final int s = charSize(chunk, record);
+				long p = record + CHARS;
+				for (int i = 0; i < n; i++) {
+					h = 31*h + charAt(chunk, p, s);
+					p += s;
 				}
 			} catch (CoreException e) {
 			}
@@ -176,19 +247,22 @@ public class ShortString implements IString {
 	}
 	
 	public int compare(char[] other, boolean caseSensitive) throws CoreException {
-		Chunk chunk = db.getChunk(record);
-		
+		return compare(db.getChunk(record), record, other, caseSensitive);
+	}
+
+	static int compare(Chunk chunk, long record, char[] other, boolean caseSensitive) {
+		final int s = charSize(chunk, record);
 		long i1 = record + CHARS;
 		int i2 = 0;
-		long n1 = i1 + chunk.getInt(record + LENGTH) * 2;
+		long n1 = i1 + length(chunk, record) * s;
 		int n2 = other.length;
 		
 		while (i1 < n1 && i2 < n2) {
-			int cmp= compareChars(chunk.getChar(i1), other[i2], caseSensitive);
+			int cmp= compareChars(charAt(chunk, i1, s), other[i2], caseSensitive);
 			if(cmp!=0)
 				return cmp;
 			
-			i1 += 2;
+			i1 += s;
 			++i2;
 		}
 
@@ -210,21 +284,24 @@ public class ShortString implements IString {
 	}
 	
 	public int compare(ShortString other, boolean caseSensitive) throws CoreException {
-		Chunk chunk1 = db.getChunk(record);
-		Chunk chunk2 = other.db.getChunk(other.record);
+		return compare(db.getChunk(record), record, other.db.getChunk(other.record), other.record, caseSensitive);
+	}
 
-		long i1 = record + CHARS;
-		long i2 = other.record + CHARS;
-		long n1 = i1 + chunk1.getInt(record + LENGTH) * 2;
-		long n2 = i2 + chunk2.getInt(other.record + LENGTH) * 2;
+	static int compare(Chunk chunk1, long record1, Chunk chunk2, long record2, boolean caseSensitive) {
+		final int s1 = charSize(chunk1, record1);
+		final int s2 = charSize(chunk2, record2);
+		long i1 = record1 + CHARS;
+		long i2 = record2 + CHARS;
+		long n1 = i1 + length(chunk1, record1) * s1;
+		long n2 = i2 + length(chunk2, record2) * s2;
 		
 		while (i1 < n1 && i2 < n2) {
-			int cmp= compareChars(chunk1.getChar(i1), chunk2.getChar(i2), caseSensitive);
+			int cmp= compareChars(charAt(chunk1, i1, s1), charAt(chunk2, i2, s2), caseSensitive);
 			if(cmp!=0)
 				return cmp;
 			
-			i1 += 2;
-			i2 += 2;
+			i1 += s1;
+			i2 += s2;
 		}
 
 		if (i1 == n1 && i2 != n2)
@@ -238,17 +315,18 @@ public class ShortString implements IString {
 	public int compare(String other, boolean caseSensitive) throws CoreException {
 		Chunk chunk = db.getChunk(record);
 		
+		final int s = charSize(chunk, record);
 		long i1 = record + CHARS;
 		int i2 = 0;
-		long n1 = i1 + chunk.getInt(record + LENGTH) * 2;
+		long n1 = i1 + length(chunk, record) * s;
 		int n2 = other.length();
 		
 		while (i1 < n1 && i2 < n2) {
-			int cmp= compareChars(chunk.getChar(i1), other.charAt(i2), caseSensitive);
+			int cmp= compareChars(charAt(chunk, i1, s), other.charAt(i2), caseSensitive);
 			if(cmp!=0)
 				return cmp;
 			
-			i1 += 2;
+			i1 += s;
 			++i2;
 		}
 
@@ -272,17 +350,20 @@ public class ShortString implements IString {
 
 	
 	public int compareCompatibleWithIgnoreCase(ShortString other) throws CoreException {
-		Chunk chunk1 = db.getChunk(record);
-		Chunk chunk2 = other.db.getChunk(other.record);
+		return compareCompatibleWithIgnoreCase(db.getChunk(record), record, other.db.getChunk(other.record), other.record);
+	}
 
-		long i1 = record + CHARS;
-		long i2 = other.record + CHARS;
-		long n1 = i1 + chunk1.getInt(record + LENGTH) * 2;
-		long n2 = i2 + chunk2.getInt(other.record + LENGTH) * 2;
+	static int compareCompatibleWithIgnoreCase(Chunk chunk1, long record1, Chunk chunk2, long record2) {
+		final int s1 = charSize(chunk1, record1);
+		final int s2 = charSize(chunk2, record2);
+		long i1 = record1 + CHARS;
+		long i2 = record2 + CHARS;
+		long n1 = i1 + length(chunk1, record1) * s1;
+		long n2 = i2 + length(chunk2, record2) * s2;
 		int sensitiveCmp= 0;
 		while (i1 < n1 && i2 < n2) {
-			final char c1= chunk1.getChar(i1);
-			final char c2= chunk2.getChar(i2);
+			final char c1= charAt(chunk1, i1, s1);
+			final char c2= charAt(chunk2, i2, s2);
 			if (c1 != c2) {
 				int cmp= compareChars(c1, c2, false); // insensitive
 				if(cmp!=0)
@@ -298,8 +379,8 @@ public class ShortString implements IString {
 				}
 			}
 			
-			i1 += 2;
-			i2 += 2;
+			i1 += s1;
+			i2 += s2;
 		}
 		
 		if (i1 == n1 && i2 != n2)
@@ -311,15 +392,18 @@ public class ShortString implements IString {
 	}
 
 	public int compareCompatibleWithIgnoreCase(char[] chars) throws CoreException {
-		Chunk chunk1 = db.getChunk(record);
+		return compareCompatibleWithIgnoreCase(db.getChunk(record), record, chars);
+	}
 
+	static int compareCompatibleWithIgnoreCase(Chunk chunk1, long record, char[] chars) {
+		final int s1 = charSize(chunk1, record);
 		long i1 = record + CHARS;
 		int i2 = 0;
-		long n1 = i1 + chunk1.getInt(record + LENGTH) * 2;
+		long n1 = i1 + length(chunk1, record) * s1;
 		int n2 = chars.length;
 		int sensitiveCmp= 0;
 		while (i1 < n1 && i2 < n2) {
-			final char c1= chunk1.getChar(i1);
+			final char c1= charAt(chunk1, i1, s1);
 			final char c2= chars[i2];
 			if (c1 != c2) {
 				int cmp= compareChars(c1, c2, false); // insensitive
@@ -336,7 +420,7 @@ public class ShortString implements IString {
 				}
 			}
 			
-			i1 += 2;
+			i1 += s1;
 			i2++;
 		}
 		
@@ -349,19 +433,22 @@ public class ShortString implements IString {
 	}
 	
 	public int comparePrefix(char[] other, boolean caseSensitive) throws CoreException {
-		Chunk chunk = db.getChunk(record);
-		
+		return comparePrefix(db.getChunk(record), record, other, caseSensitive);
+	}
+
+	static int comparePrefix(Chunk chunk, long record, char[] other, boolean caseSensitive) {
+		final int s = charSize(chunk, record);
 		long i1 = record + CHARS;
 		int i2 = 0;
-		long n1 = i1 + chunk.getInt(record + LENGTH) * 2;
+		long n1 = i1 + length(chunk, record) * s;
 		int n2 = other.length;
 		
 		while (i1 < n1 && i2 < n2) {
-			int cmp= compareChars(chunk.getChar(i1), other[i2], caseSensitive);
+			int cmp= compareChars(charAt(chunk, i1, s), other[i2], caseSensitive);
 			if(cmp!=0)
 				return cmp;
 			
-			i1 += 2;
+			i1 += s;
 			++i2;
 		}
 
@@ -372,12 +459,13 @@ public class ShortString implements IString {
 	}
 	
 	public char charAt(int i) throws CoreException {
-		long ptr = record + CHARS + (i*2);
-		return db.getChar(ptr);
+		Chunk chunk = db.getChunk(record);
+		final int s = charSize(chunk, record);
+		return charAt(chunk, record + CHARS + i * s, s);
 	}
 	
 	public int getLength() throws CoreException {
-		return db.getInt(record + LENGTH);
+		return length(db.getChunk(record), record);
 	}
 	
 	/**
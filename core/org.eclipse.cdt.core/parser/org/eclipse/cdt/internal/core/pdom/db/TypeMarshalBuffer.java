@@ -28,18 +28,15 @@ import org.eclipse.core.runtime.CoreException;
  * For marshalling types to byte arrays.
  */
 public class TypeMarshalBuffer implements ITypeMarshalBuffer {
-	public final static byte [] EMPTY= {0,0,0,0,0,0};
+	public final static byte [] EMPTY= new byte[Database.TYPE_SIZE];
 	public final static byte NULL_TYPE= 0;
 	public final static byte INDIRECT_TYPE= (byte) -1;
 	public final static byte BINDING_TYPE= (byte) -2;
 	public final static byte UNSTORABLE_TYPE= (byte) -3;
+	public final static byte SHARED_TYPE= (byte) -4;
 	
 	public final static IType UNSTORABLE_TYPE_PROBLEM = new ProblemType(ISemanticProblem.TYPE_NOT_PERSISTED);
 
-	static {
-		assert EMPTY.length == Database.TYPE_SIZE;
-	}
-
 	private final PDOMLinkage fLinkage;
 	private int fPos;
 	private byte[] fBuffer;
@@ -256,7 +253,7 @@ public class TypeMarshalBuffer implements ITypeMarshalBuffer {
 
 	private void putRecordPointer(long record) {
 		request(Database.PTR_SIZE);
-		Chunk.putRecPtr(record, fBuffer, fPos);
+		Chunk.putRecPtr(record, fBuffer, fPos, fLinkage.getDB().getBlockSizeDeltaBits());
 		fPos+= Database.PTR_SIZE;
 	}
 
@@ -267,7 +264,7 @@ public class TypeMarshalBuffer implements ITypeMarshalBuffer {
 			fPos= fBuffer.length;
 			throw unmarshallingError();
 		}
-		return Chunk.getRecPtr(fBuffer, pos);
+		return Chunk.getRecPtr(fBuffer, pos, fLinkage.getDB().getBlockSizeDeltaBits());
 	}
 
 	public void putCharArray(char[] chars) {
@@ -17,7 +17,6 @@ import org.eclipse.cdt.internal.core.pdom.db.BTree;
 import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
-import org.eclipse.cdt.internal.core.pdom.db.IString;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.OperationCanceledException;
 
@@ -35,9 +34,8 @@ public class FindBinding {
 		}
 
 		public int compare(long record1, long record2) throws CoreException {
-			IString nm1 = PDOMNamedNode.getDBName(database, record1);
-			IString nm2 = PDOMNamedNode.getDBName(database, record2);
-			int cmp= nm1.compareCompatibleWithIgnoreCase(nm2);
+			int cmp= database.compareStringsCompatibleWithIgnoreCase(PDOMNamedNode.getNameRecord(database, record1),
+					PDOMNamedNode.getNameRecord(database, record2));
 			if (cmp == 0) {
 				long t1= PDOMBinding.getLocalToFileRec(database, record1);
 				long t2= PDOMBinding.getLocalToFileRec(database, record2);
@@ -68,8 +66,7 @@ public class FindBinding {
 		// IBTreeVisitor
 		public int compare(long record) throws CoreException {
 			final Database db = fLinkage.getDB();
-			IString nm1 = PDOMNamedNode.getDBName(db, record);
-			int cmp= nm1.compareCompatibleWithIgnoreCase(fName); 
+			int cmp= db.compareStringCompatibleWithIgnoreCase(PDOMNamedNode.getNameRecord(db, record), fName);
 			if (cmp == 0) {
 				long t1= PDOMBinding.getLocalToFileRec(db, record);
 				long t2= fLocalToFile;
@@ -148,10 +145,8 @@ public class FindBinding {
 			db= database;
 		}
 		public int compare(long record1, long record2) throws CoreException {
-			return compare(PDOMNamedNode.getDBName(db, record1), PDOMNamedNode.getDBName(db, record2));	// compare names
-		}
-		private int compare(IString nameInDB, IString nameInDB2) throws CoreException {
-			return nameInDB.compareCompatibleWithIgnoreCase(nameInDB2);
+			return db.compareStringsCompatibleWithIgnoreCase(PDOMNamedNode.getNameRecord(db, record1),
+					PDOMNamedNode.getNameRecord(db, record2));	// compare names
 		}
 	}
 
@@ -16,8 +16,8 @@ import java.util.List;
 
 import org.eclipse.cdt.core.parser.util.IContentAssistMatcher;
 import org.eclipse.cdt.internal.core.parser.util.ContentAssistMatcherFactory;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
-import org.eclipse.cdt.internal.core.pdom.db.IString;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -82,23 +82,20 @@ public final class MacroContainerCollector implements IBTreeVisitor {
 	final public int compare(long record) throws CoreException {
 		if (monitor != null)
 			checkCancelled();
-		IString rhsName= PDOMNamedNode.getDBName(linkage.getDB(), record);
-		return compare(rhsName);
-	}
-
-	private int compare(IString rhsName) throws CoreException {
+		final Database db= linkage.getDB();
+		final long rhsName= PDOMNamedNode.getNameRecord(db, record);
 		int cmp;
 		if (prefixLookup) {
-			cmp= rhsName.comparePrefix(matchChars, false);
+			cmp= db.compareStringPrefix(rhsName, matchChars, false);
 			if(caseSensitive) {
-				cmp= cmp==0 ? rhsName.comparePrefix(matchChars, true) : cmp;
+				cmp= cmp==0 ? db.compareStringPrefix(rhsName, matchChars, true) : cmp;
 			}
 		} else {
 			if(caseSensitive) {
-				cmp= rhsName.compareCompatibleWithIgnoreCase(matchChars);
+				cmp= db.compareStringCompatibleWithIgnoreCase(rhsName, matchChars);
 			}
 			else {
-				cmp= rhsName.compare(matchChars, false);
+				cmp= db.compareString(rhsName, matchChars, false);
 			}
 		}
 		return cmp;
@@ -10,8 +10,8 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.dom;
 
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
-import org.eclipse.cdt.internal.core.pdom.db.IString;
 import org.eclipse.core.runtime.CoreException;
 
 /**
@@ -32,12 +32,8 @@ public final class MacroContainerFinder implements IBTreeVisitor {
 	}
 		
 	final public int compare(long record) throws CoreException {
-		IString name= PDOMNamedNode.getDBName(fLinkage.getDB(), record);
-		return compare(name);
-	}
-
-	private int compare(IString rhsName) throws CoreException {
-		return rhsName.compareCompatibleWithIgnoreCase(fName);
+		final Database db= fLinkage.getDB();
+		return db.compareStringCompatibleWithIgnoreCase(PDOMNamedNode.getNameRecord(db, record), fName);
 	}
 	
 	final public boolean visit(long record) throws CoreException {
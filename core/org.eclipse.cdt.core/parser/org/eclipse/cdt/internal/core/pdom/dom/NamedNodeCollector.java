@@ -19,7 +19,7 @@ import org.eclipse.cdt.core.dom.IPDOMVisitor;
 import org.eclipse.cdt.core.parser.util.IContentAssistMatcher;
 import org.eclipse.cdt.internal.core.parser.util.ContentAssistMatcherFactory;
 import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
-import org.eclipse.cdt.internal.core.pdom.db.IString;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -90,23 +90,24 @@ public class NamedNodeCollector implements IBTreeVisitor, IPDOMVisitor {
 	final public int compare(long record) throws CoreException {
 		if (monitor != null)
 			checkCancelled();
-		IString rhsName= PDOMNamedNode.getDBName(linkage.getDB(), record);
-		return compare(rhsName);
+		return compareName(record);
 	}
 
-	private int compare(IString rhsName) throws CoreException {
+	private int compareName(long record) throws CoreException {
+		final Database db= linkage.getDB();
+		final long rhsName= PDOMNamedNode.getNameRecord(db, record);
 		int cmp;
 		if (prefixLookup) {
-			cmp= rhsName.comparePrefix(matchChars, false);
+			cmp= db.compareStringPrefix(rhsName, matchChars, false);
 			if(caseSensitive) {
-				cmp= cmp==0 ? rhsName.comparePrefix(matchChars, true) : cmp;
+				cmp= cmp==0 ? db.compareStringPrefix(rhsName, matchChars, true) : cmp;
 			}
 		} else {
 			if(caseSensitive) {
-				cmp= rhsName.compareCompatibleWithIgnoreCase(matchChars);
+				cmp= db.compareStringCompatibleWithIgnoreCase(rhsName, matchChars);
 			}
 			else {
-				cmp= rhsName.compare(matchChars, false);
+				cmp= db.compareString(rhsName, matchChars, false);
 			}
 		}
 		return cmp;
@@ -131,7 +132,7 @@ public class NamedNodeCollector implements IBTreeVisitor, IPDOMVisitor {
 	 * @throws CoreException 
 	 */
 	protected boolean addNode(PDOMNamedNode node) throws CoreException {
-		if ((contentAssistMatcher == null) || contentAssistMatcher.match(node.getDBName().getChars())) {
+		if ((contentAssistMatcher == null) || contentAssistMatcher.match(node.getNameCharArray())) {
 			nodes.add(node);
 		}
 		return true; // look for more
@@ -151,7 +152,7 @@ public class NamedNodeCollector implements IBTreeVisitor, IPDOMVisitor {
 		
 		if (node instanceof PDOMNamedNode) {
 			PDOMNamedNode pb= (PDOMNamedNode) node;
-			if (compare(pb.getDBName()) == 0) {
+			if (compareName(pb.getRecord()) == 0) {
 				addNode(pb);
 			}
 		}
@@ -43,13 +43,13 @@ import org.eclipse.core.runtime.CoreException;
 public abstract class PDOMBinding extends PDOMNamedNode implements IPDOMBinding {
 	public static final PDOMBinding[] EMPTY_PDOMBINDING_ARRAY = {};
 
-	private static final int FIRST_DECL_OFFSET   = PDOMNamedNode.RECORD_SIZE +  0; // size 4
-	private static final int FIRST_DEF_OFFSET    = PDOMNamedNode.RECORD_SIZE + 4; // size 4
-	private static final int FIRST_REF_OFFSET    = PDOMNamedNode.RECORD_SIZE + 8; // size 4
-	private static final int LOCAL_TO_FILE		 = PDOMNamedNode.RECORD_SIZE + 12; // size 4
+	private static final int FIRST_DECL_OFFSET   = PDOMNamedNode.RECORD_SIZE; // size PTR_SIZE
+	private static final int FIRST_DEF_OFFSET    = FIRST_DECL_OFFSET + Database.PTR_SIZE; // size PTR_SIZE
+	private static final int FIRST_REF_OFFSET    = FIRST_DEF_OFFSET + Database.PTR_SIZE; // size PTR_SIZE
+	private static final int LOCAL_TO_FILE		 = FIRST_REF_OFFSET + Database.PTR_SIZE; // size PTR_SIZE
 	
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 16;
+	protected static final int RECORD_SIZE = LOCAL_TO_FILE + Database.PTR_SIZE;
 	private byte hasDeclaration= -1;
 	
 	protected PDOMBinding(PDOMLinkage linkage, PDOMNode parent, char[] name) throws CoreException {
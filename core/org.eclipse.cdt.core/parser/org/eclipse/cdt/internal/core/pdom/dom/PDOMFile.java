@@ -65,19 +65,23 @@ public class PDOMFile implements IIndexFragmentFile {
 	private IIndexFileLocation location;  // No need to make volatile, all fields of IIndexFileLocation are final.
 
 	private static final int FIRST_NAME = 0;
-	private static final int FIRST_INCLUDE = 4;
-	private static final int FIRST_INCLUDED_BY = 8;
-	private static final int FIRST_MACRO = 12;
-	private static final int LOCATION_REPRESENTATION = 16;
-	private static final int LINKAGE_ID= 20;
-	private static final int TIME_STAMP = 24;
-	private static final int CONTENT_HASH= 32;
-	private static final int SCANNER_CONFIG_HASH= 40;
-	private static final int ENCODING_HASH= 44;
-	private static final int LAST_USING_DIRECTIVE= 48;
-	private static final int FIRST_MACRO_REFERENCE= 52;
-
-	private static final int RECORD_SIZE= 56;
+	private static final int FIRST_INCLUDE = FIRST_NAME + Database.PTR_SIZE;
+	private static final int FIRST_INCLUDED_BY = FIRST_INCLUDE + Database.PTR_SIZE;
+	private static final int FIRST_MACRO = FIRST_INCLUDED_BY + Database.PTR_SIZE;
+	private static final int LOCATION_REPRESENTATION = FIRST_MACRO + Database.PTR_SIZE;
+	private static final int LINKAGE_ID= LOCATION_REPRESENTATION + Database.PTR_SIZE; // int
+	private static final int TIME_STAMP = LINKAGE_ID + 4; // long
+	private static final int CONTENT_HASH= TIME_STAMP + 8; // long
+	private static final int SCANNER_CONFIG_HASH= CONTENT_HASH + 8; // int
+	private static final int ENCODING_HASH= SCANNER_CONFIG_HASH + 4; // int
+	private static final int LAST_USING_DIRECTIVE= ENCODING_HASH + 4;
+	private static final int FIRST_MACRO_REFERENCE= LAST_USING_DIRECTIVE + Database.PTR_SIZE;
+	private static final int INCLUDE_GUARD= FIRST_MACRO_REFERENCE + Database.PTR_SIZE;
+	private static final int FLAGS= INCLUDE_GUARD + Database.PTR_SIZE; // byte
+
+	private static final int RECORD_SIZE= FLAGS + 1;
+
+	private static final int FLAG_PRAGMA_ONCE= 0x01;
 
 	public static class Comparator implements IBTreeComparator {
 		private Database db;
@@ -87,9 +91,8 @@ public class PDOMFile implements IIndexFragmentFile {
 		}
 
 		public int compare(long record1, long record2) throws CoreException {
-			IString name1 = db.getString(db.getRecPtr(record1 + LOCATION_REPRESENTATION));
-			IString name2 = db.getString(db.getRecPtr(record2 + LOCATION_REPRESENTATION));
-			int cmp= name1.compare(name2, true);
+			int cmp= db.compareStrings(db.getRecPtr(record1 + LOCATION_REPRESENTATION),
+					db.getRecPtr(record2 + LOCATION_REPRESENTATION), true);
 			if (cmp == 0) {
 				cmp= db.getInt(record1 + LINKAGE_ID) - db.getInt(record2 + LINKAGE_ID);
 			}
@@ -228,6 +231,7 @@ public class PDOMFile implements IIndexFragmentFile {
 		setEncodingHashcode(sourceFile.getEncodingHashcode());
 		setContentsHash(sourceFile.getContentsHash());
 		setScannerConfigurationHashcode(sourceFile.getScannerConfigurationHashcode());
+		setIncludeGuard(sourceFile.getIncludeGuard(), sourceFile.hasPragmaOnce());
 
 		sourceFile.delete();
 	}
@@ -286,6 +290,28 @@ public class PDOMFile implements IIndexFragmentFile {
 		db.putLong(record + CONTENT_HASH, hash);
 	}
 
+	public char[] getIncludeGuard() throws CoreException {
+		Database db = fLinkage.getDB();
+		long rec= db.getRecPtr(record + INCLUDE_GUARD);
+		return rec == 0 ? null : db.getString(rec).getChars();
+	}
+
+	public boolean hasPragmaOnce() throws CoreException {
+		Database db = fLinkage.getDB();
+		return (db.getByte(record + FLAGS) & FLAG_PRAGMA_ONCE) != 0;
+	}
+
+	public void setIncludeGuard(char[] guard, boolean pragmaOnce) throws CoreException {
+		Database db= fLinkage.getDB();
+		long oldRecord= db.getRecPtr(record + INCLUDE_GUARD);
+		if (oldRecord != 0)
+			db.getString(oldRecord).delete();
+		db.putRecPtr(record + INCLUDE_GUARD, guard == null ? 0 : db.newString(guard).getRecord());
+		int flags= db.getByte(record + FLAGS);
+		flags= pragmaOnce ? flags | FLAG_PRAGMA_ONCE : flags & ~FLAG_PRAGMA_ONCE;
+		db.putByte(record + FLAGS, (byte) flags);
+	}
+
 	public int getScannerConfigurationHashcode() throws CoreException {
 		Database db = fLinkage.getDB();
 		return db.getInt(record + SCANNER_CONFIG_HASH);
@@ -529,6 +555,9 @@ public class PDOMFile implements IIndexFragmentFile {
 		long locRecord = db.getRecPtr(record + LOCATION_REPRESENTATION);
 		if (locRecord != 0)
 			db.getString(locRecord).delete();
+		long guardRecord = db.getRecPtr(record + INCLUDE_GUARD);
+		if (guardRecord != 0)
+			db.getString(guardRecord).delete();
 
 		db.free(record);
 	}
@@ -684,7 +713,7 @@ public class PDOMFile implements IIndexFragmentFile {
 	private static class Finder implements IBTreeVisitor {
 		private static final long[] EMPTY = {};
 		private final Database db;
-		private final String rawKey;
+		private final char[] rawKey;
 		private long record;
 		private long[] records;
 		private final int linkageID;
@@ -694,7 +723,7 @@ public class PDOMFile implements IIndexFragmentFile {
 		 */
 		public Finder(Database db, String internalRepresentation, int linkageID) {
 			this.db = db;
-			this.rawKey = internalRepresentation;
+			this.rawKey = internalRepresentation.toCharArray();
 			this.linkageID= linkageID;
 		}
 
@@ -709,8 +738,7 @@ public class PDOMFile implements IIndexFragmentFile {
 		}
 		
 		public int compare(long record) throws CoreException {
-			IString name = db.getString(db.getRecPtr(record + PDOMFile.LOCATION_REPRESENTATION));
-			int cmp= name.compare(rawKey, true);
+			int cmp= db.compareString(db.getRecPtr(record + PDOMFile.LOCATION_REPRESENTATION), rawKey, true);
 			if (cmp == 0 && linkageID >= 0) {
 				cmp= db.getInt(record + PDOMFile.LINKAGE_ID) - linkageID;
 			}
@@ -30,19 +30,20 @@ import org.eclipse.core.runtime.CoreException;
 public class PDOMInclude implements IIndexFragmentInclude {
 
 	private static final int INCLUDED_FILE		 	=  0;
-	private static final int INCLUDED_BY 			=  4;
-	private static final int INCLUDES_NEXT 			=  8;
-	private static final int INCLUDED_BY_NEXT 		= 12;
-	private static final int INCLUDED_BY_PREV 		= 16;
+	private static final int INCLUDED_BY 			= INCLUDED_FILE + Database.PTR_SIZE;
+	private static final int INCLUDES_NEXT 			= INCLUDED_BY + Database.PTR_SIZE;
+	private static final int INCLUDED_BY_NEXT 		= INCLUDES_NEXT + Database.PTR_SIZE;
+	private static final int INCLUDED_BY_PREV 		= INCLUDED_BY_NEXT + Database.PTR_SIZE;
 	// If the include name is the same as the end part of the path of the included file,
 	// we store the length of the name instead of the name itself, and indicate that
 	// by turning on FLAG_DEDUCIBLE_NAME flag. Notice that the length of include name
 	// can be different from the node length, if the name is defined by a macro. 
-	private static final int INCLUDE_NAME_OR_LENGTH = 20; // TODO: assumes that int and stored pointers are the same size
-	private static final int NODE_OFFSET  			= 24; // 3-byte unsigned int (sufficient for files <= 16mb)
-	private static final int NODE_LENGTH  			= 27; // short (sufficient for names <= 32k)
-	private static final int FLAGS		 			= 29;
-	private static final int RECORD_SIZE 			= 30;
+	// The slot is PTR_SIZE wide, which is never smaller than an int.
+	private static final int INCLUDE_NAME_OR_LENGTH = INCLUDED_BY_PREV + Database.PTR_SIZE;
+	private static final int NODE_OFFSET  			= INCLUDE_NAME_OR_LENGTH + Database.PTR_SIZE; // 3-byte unsigned int (sufficient for files <= 16mb)
+	private static final int NODE_LENGTH  			= NODE_OFFSET + 3; // short (sufficient for names <= 32k)
+	private static final int FLAGS		 			= NODE_LENGTH + 2;
+	private static final int RECORD_SIZE 			= FLAGS + 1;
 
 	private static final int FLAG_SYSTEM_INCLUDE 		= 0x01;
 	private static final int FLAG_INACTIVE_INCLUDE 		= 0x02;
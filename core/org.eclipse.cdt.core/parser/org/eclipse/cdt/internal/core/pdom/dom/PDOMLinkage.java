@@ -57,19 +57,21 @@ import org.eclipse.core.runtime.IProgressMonitor;
 public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage, IIndexBindingConstants {
 	// record offsets
 	private static final int ID_OFFSET   = PDOMNamedNode.RECORD_SIZE + 0;
-	private static final int NEXT_OFFSET = PDOMNamedNode.RECORD_SIZE + 4;
-	private static final int INDEX_OFFSET = PDOMNamedNode.RECORD_SIZE + 8;
-	private static final int NESTED_BINDINGS_INDEX = PDOMNamedNode.RECORD_SIZE + 12;
-	private static final int MACRO_BTREE = PDOMNamedNode.RECORD_SIZE + 16;
+	private static final int NEXT_OFFSET = ID_OFFSET + Database.PTR_SIZE;
+	private static final int INDEX_OFFSET = NEXT_OFFSET + Database.PTR_SIZE;
+	private static final int NESTED_BINDINGS_INDEX = INDEX_OFFSET + Database.PTR_SIZE;
+	private static final int MACRO_BTREE = NESTED_BINDINGS_INDEX + Database.PTR_SIZE;
+	private static final int TYPE_TABLE = MACRO_BTREE + Database.PTR_SIZE;
 
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 20;
+	protected static final int RECORD_SIZE = TYPE_TABLE + Database.PTR_SIZE;
 	protected static final long[] FILE_LOCAL_REC_DUMMY = new long[]{0};
 
 	// node types
 	protected static final int LINKAGE= 0; // special one for myself
 
 	private BTree fMacroIndex= null;  // No need for volatile, all fields of BTree are final.
+	private PDOMTypeTable fTypeTable= null;  // No need for volatile, all fields of PDOMTypeTable are final.
 	private final PDOM fPDOM;
 	private final Database fDatabase;
 
@@ -129,7 +131,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	}
 
 	public BTree getIndex() throws CoreException {
-		return new BTree(getDB(), record + INDEX_OFFSET, getIndexComparator());
+		return new BTree(getDB(), record + INDEX_OFFSET, getIndexComparator(), true);
 	}
 
 	/**
@@ -137,7 +139,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	 * @throws CoreException
 	 */
 	public BTree getNestedBindingsIndex() throws CoreException {
-		return new BTree(fDatabase, record + NESTED_BINDINGS_INDEX, getNestedBindingsComparator());
+		return new BTree(fDatabase, record + NESTED_BINDINGS_INDEX, getNestedBindingsComparator(), true);
 	}
 
 	@Override
@@ -328,7 +330,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 	
 	public BTree getMacroIndex() {
 		if (fMacroIndex == null) {
-			fMacroIndex= new BTree(getDB(), record + MACRO_BTREE, new FindBinding.MacroBTreeComparator(fDatabase));
+			fMacroIndex= new BTree(getDB(), record + MACRO_BTREE, new FindBinding.MacroBTreeComparator(fDatabase), true);
 		}
 		return fMacroIndex;
 	}
@@ -439,11 +441,10 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 			if (len > 0) {
 				if (len <= Database.TYPE_SIZE) {
 					db.putBytes(offset, bc.getBuffer(), len);
-				} else if (len <= Database.MAX_MALLOC_SIZE-2){
-					long ptr= db.malloc(len+2);
-					db.putShort(ptr, (short) len);
-					db.putBytes(ptr+2, bc.getBuffer(), len);
-					db.putByte(offset, TypeMarshalBuffer.INDIRECT_TYPE);
+				} else if (len <= PDOMTypeTable.MAX_LENGTH) {
+					// Larger types are shared between all the bindings that use them.
+					long ptr= getTypeTable().addReference(bc.getBuffer(), len);
+					db.putByte(offset, TypeMarshalBuffer.SHARED_TYPE);
 					db.putRecPtr(offset+2, ptr);
 				}
 			}
@@ -456,6 +457,12 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 			long ptr= db.getRecPtr(offset+2);
 			clearType(db, offset);
 			db.free(ptr);
+		} else if (firstByte == TypeMarshalBuffer.SHARED_TYPE) {
+			long ptr= db.getRecPtr(offset+2);
+			clearType(db, offset);
+			if (getTypeTable().removeReference(ptr)) {
+				fPDOM.removeCachedResult(ptr);
+			}
 		} else {
 			clearType(db, offset);
 		}
@@ -476,6 +483,8 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 			data= new byte[len];
 			db.getBytes(ptr+2, data);
 			break;
+		case TypeMarshalBuffer.SHARED_TYPE:
+			return loadSharedType(db.getRecPtr(offset+2));
 		case TypeMarshalBuffer.UNSTORABLE_TYPE:
 			return TypeMarshalBuffer.UNSTORABLE_TYPE_PROBLEM;
 		case TypeMarshalBuffer.NULL_TYPE:
@@ -488,6 +497,30 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		return new TypeMarshalBuffer(this, data).unmarshalType();
 	}
 
+	/**
+	 * Types shared between bindings are unmarshalled once while the index is locked, such that
+	 * all bindings with the same type return the same object.
+	 */
+	private IType loadSharedType(long ptr) throws CoreException {
+		final Long key= ptr;
+		Object cached= fPDOM.getCachedResult(key);
+		if (cached instanceof IType)
+			return (IType) cached;
+
+		IType type= new TypeMarshalBuffer(this, getTypeTable().getData(ptr)).unmarshalType();
+		if (type != null) {
+			fPDOM.putCachedResult(key, type);
+		}
+		return type;
+	}
+
+	private PDOMTypeTable getTypeTable() {
+		if (fTypeTable == null) {
+			fTypeTable= new PDOMTypeTable(fDatabase, record + TYPE_TABLE);
+		}
+		return fTypeTable;
+	}
+
 	public void storeValue(long offset, IValue type) throws CoreException {
 		final Database db= getDB();
 		deleteValue(db, offset);
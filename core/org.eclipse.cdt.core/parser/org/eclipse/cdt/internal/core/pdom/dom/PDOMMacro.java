@@ -47,16 +47,16 @@ import org.eclipse.core.runtime.IPath;
  */
 public class PDOMMacro implements IIndexMacro, IPDOMBinding, IASTFileLocation {
 	private static final int CONTAINER = 0;
-	private static final int FILE = 4;
-	private static final int PARAMETERS= 8;
-	private static final int EXPANSION = 12;
-	private static final int NEXT_IN_FILE = 16;
-	private static final int NEXT_IN_CONTAINER = 20;
-	private static final int PREV_IN_CONTAINER = 24;
-	private static final int NAME_OFFSET = 28;
-	private static final int NAME_LENGTH = 32; // short
+	private static final int FILE = CONTAINER + Database.PTR_SIZE;
+	private static final int PARAMETERS= FILE + Database.PTR_SIZE;
+	private static final int EXPANSION = PARAMETERS + Database.PTR_SIZE;
+	private static final int NEXT_IN_FILE = EXPANSION + Database.PTR_SIZE;
+	private static final int NEXT_IN_CONTAINER = NEXT_IN_FILE + Database.PTR_SIZE;
+	private static final int PREV_IN_CONTAINER = NEXT_IN_CONTAINER + Database.PTR_SIZE;
+	private static final int NAME_OFFSET = PREV_IN_CONTAINER + Database.PTR_SIZE; // int
+	private static final int NAME_LENGTH = NAME_OFFSET + 4; // short
 	
-	private static final int RECORD_SIZE = 34;  
+	private static final int RECORD_SIZE = NAME_LENGTH + 2;  
 	private static final char[][] UNINITIALIZED= {};
 	private static final char[]   UNINITIALIZED1= {};
 
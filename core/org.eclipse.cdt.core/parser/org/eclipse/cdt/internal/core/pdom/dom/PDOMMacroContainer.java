@@ -29,11 +29,11 @@ import org.eclipse.core.runtime.CoreException;
  * @since 5.0
  */
 public class PDOMMacroContainer extends PDOMNamedNode implements IIndexMacroContainer, IPDOMBinding {
-	private static final int FIRST_DEF_OFFSET    = PDOMNamedNode.RECORD_SIZE + 0; // size 4
-	private static final int FIRST_REF_OFFSET    = PDOMNamedNode.RECORD_SIZE + 4; // size 4
+	private static final int FIRST_DEF_OFFSET    = PDOMNamedNode.RECORD_SIZE + 0; // size PTR_SIZE
+	private static final int FIRST_REF_OFFSET    = FIRST_DEF_OFFSET + Database.PTR_SIZE; // size PTR_SIZE
 	
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNamedNode.RECORD_SIZE + 8;
+	protected static final int RECORD_SIZE = FIRST_REF_OFFSET + Database.PTR_SIZE;
 
 	public PDOMMacroContainer(PDOMLinkage linkage, char[] name) throws CoreException {
 		super(linkage, linkage, name);
@@ -35,14 +35,14 @@ public final class PDOMMacroReferenceName implements IIndexFragmentName, IASTFil
 	private final long record;
 	
 	private static final int FILE_REC_OFFSET     = 0;
-	private static final int FILE_NEXT_OFFSET	 = 4;
-	private static final int CONTAINER_REC_OFFSET  = 8;
-	private static final int CONTAINER_PREV_OFFSET = 12;
-	private static final int CONTAINER_NEXT_OFFSET = 16;
-	private static final int NODE_OFFSET_OFFSET  = 20; 
-	private static final int NODE_LENGTH_OFFSET  = 24; 
-
-	private static final int RECORD_SIZE = 26;	
+	private static final int FILE_NEXT_OFFSET	 = FILE_REC_OFFSET + Database.PTR_SIZE;
+	private static final int CONTAINER_REC_OFFSET  = FILE_NEXT_OFFSET + Database.PTR_SIZE;
+	private static final int CONTAINER_PREV_OFFSET = CONTAINER_REC_OFFSET + Database.PTR_SIZE;
+	private static final int CONTAINER_NEXT_OFFSET = CONTAINER_PREV_OFFSET + Database.PTR_SIZE;
+	private static final int NODE_OFFSET_OFFSET  = CONTAINER_NEXT_OFFSET + Database.PTR_SIZE; 
+	private static final int NODE_LENGTH_OFFSET  = NODE_OFFSET_OFFSET + 4; 
+
+	private static final int RECORD_SIZE = NODE_LENGTH_OFFSET + 2;	
 
 	public PDOMMacroReferenceName(PDOMLinkage linkage, IASTName name, PDOMFile file,
 			PDOMMacroContainer container) throws CoreException {
@@ -34,16 +34,17 @@ public final class PDOMName implements IIndexFragmentName, IASTFileLocation {
 	private final long record;
 	
 	private static final int FILE_REC_OFFSET     = 0;
-	private static final int FILE_NEXT_OFFSET	 = 4;
-	private static final int CALLER_REC_OFFSET   = 8;
-	private static final int BINDING_REC_OFFSET  = 12;
-	private static final int BINDING_PREV_OFFSET = 16;
-	private static final int BINDING_NEXT_OFFSET = 20;
-	private static final int NODE_OFFSET_OFFSET  = 24; // 3-byte unsigned int (sufficient for files <= 16mb)
-	private static final int NODE_LENGTH_OFFSET  = 27; // short (sufficient for names <= 32k)
-	private static final int FLAGS 				 = 29; 
-
-	private static final int RECORD_SIZE = 30;	// 30 yields a 32-byte block. (31 would trigger a 40-byte block)
+	private static final int FILE_NEXT_OFFSET	 = FILE_REC_OFFSET + Database.PTR_SIZE;
+	private static final int CALLER_REC_OFFSET   = FILE_NEXT_OFFSET + Database.PTR_SIZE;
+	private static final int BINDING_REC_OFFSET  = CALLER_REC_OFFSET + Database.PTR_SIZE;
+	private static final int BINDING_PREV_OFFSET = BINDING_REC_OFFSET + Database.PTR_SIZE;
+	private static final int BINDING_NEXT_OFFSET = BINDING_PREV_OFFSET + Database.PTR_SIZE;
+	private static final int NODE_OFFSET_OFFSET  = BINDING_NEXT_OFFSET + Database.PTR_SIZE; // 3-byte unsigned int (sufficient for files <= 16mb)
+	private static final int NODE_LENGTH_OFFSET  = NODE_OFFSET_OFFSET + 3; // short (sufficient for names <= 32k)
+	private static final int FLAGS 				 = NODE_LENGTH_OFFSET + 2; 
+
+	// with 4-byte pointers 30 yields a 32-byte block. (31 would trigger a 40-byte block)
+	private static final int RECORD_SIZE = FLAGS + 1;
 
 	public static final int IS_DECLARATION 						= 0x01;
 	public static final int IS_DEFINITION 						= 0x02;
@@ -36,7 +36,7 @@ public abstract class PDOMNamedNode extends PDOMNode {
 	 * The size in bytes of a PDOMNamedNode record in the database.
 	 */
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNode.RECORD_SIZE + 4;
+	protected static final int RECORD_SIZE = NAME + Database.PTR_SIZE;
 
 	private volatile char[] fName;
 	
@@ -72,6 +72,14 @@ public abstract class PDOMNamedNode extends PDOMNode {
 		long namerec = db.getRecPtr(record + NAME);
 		return db.getString(namerec);
 	}
+
+	/**
+	 * Returns the record of the name of the node, for comparisons via the database that do not
+	 * create string objects.
+	 */
+	public static long getNameRecord(Database db, long record) throws CoreException {
+		return db.getRecPtr(record + NAME);
+	}
 	
 	public char[] getNameCharArray() throws CoreException {
 		if (fName != null)
@@ -84,7 +92,8 @@ public abstract class PDOMNamedNode extends PDOMNode {
 		if (fName != null)
 			return Arrays.equals(fName, name);
 			
-		return getDBName().equals(name);
+		final Database db= getDB();
+		return db.stringEquals(getNameRecord(db, record), name);
 	}
 
 	/**
@@ -27,7 +27,7 @@ public abstract class PDOMNode implements IInternalPDOMNode {
 	private static final int TYPE = 0;
 	private static final int PARENT = 4;
 	
-	protected static final int RECORD_SIZE = 8;
+	protected static final int RECORD_SIZE = PARENT + Database.PTR_SIZE;
 	
 	private final PDOMLinkage fLinkage;
 	protected final long record;
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.dom;
+
+import org.eclipse.cdt.internal.core.pdom.db.BTree;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeComparator;
+import org.eclipse.cdt.internal.core.pdom.db.IBTreeVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Table of the marshalled types of a linkage that are too large to be stored in the type field
+ * of a binding. Every distinct type is stored once, the type fields reference the record of the
+ * type, which counts the references to it.
+ */
+final class PDOMTypeTable {
+	private static final int REFERENCE_COUNT= 0;
+	private static final int HASH= 4;
+	private static final int LENGTH= 8;
+	private static final int DATA= 10;
+
+	/** The maximum length of a type that can be stored in the table */
+	static final int MAX_LENGTH= Database.MAX_MALLOC_SIZE - DATA;
+
+	private final class Comparator implements IBTreeComparator {
+		public int compare(long record1, long record2) throws CoreException {
+			return PDOMTypeTable.this.compare(record1, fDatabase.getInt(record2 + HASH), getData(record2));
+		}
+	}
+
+	private final class Finder implements IBTreeVisitor {
+		final int fHash;
+		final byte[] fData;
+		long fResult;
+
+		Finder(int hash, byte[] data) {
+			fHash= hash;
+			fData= data;
+		}
+
+		public int compare(long record) throws CoreException {
+			return PDOMTypeTable.this.compare(record, fHash, fData);
+		}
+
+		public boolean visit(long record) throws CoreException {
+			fResult= record;
+			return false;
+		}
+	}
+
+	private final Database fDatabase;
+	private final BTree fIndex;
+
+	PDOMTypeTable(Database db, long rootPointer) {
+		fDatabase= db;
+		fIndex= new BTree(db, rootPointer, new Comparator());
+	}
+
+	/**
+	 * Returns the record of the given marshalled type and adds a reference to it. The type is
+	 * stored when it is not yet part of the table.
+	 */
+	long addReference(byte[] buffer, int length) throws CoreException {
+		final byte[] data= new byte[length];
+		System.arraycopy(buffer, 0, data, 0, length);
+		final int hash= hash(data);
+		final Finder finder= new Finder(hash, data);
+		fIndex.accept(finder);
+		long record= finder.fResult;
+		if (record != 0) {
+			fDatabase.putInt(record + REFERENCE_COUNT, fDatabase.getInt(record + REFERENCE_COUNT) + 1);
+			return record;
+		}
+
+		record= fDatabase.malloc(DATA + length);
+		fDatabase.putInt(record + REFERENCE_COUNT, 1);
+		fDatabase.putInt(record + HASH, hash);
+		fDatabase.putShort(record + LENGTH, (short) length);
+		fDatabase.putBytes(record + DATA, data, length);
+		fIndex.insert(record);
+		return record;
+	}
+
+	/**
+	 * Removes a reference to the type stored in the given record. Returns whether the record has
+	 * been deleted, because there are no more references to it.
+	 */
+	boolean removeReference(long record) throws CoreException {
+		final int count= fDatabase.getInt(record + REFERENCE_COUNT) - 1;
+		if (count > 0) {
+			fDatabase.putInt(record + REFERENCE_COUNT, count);
+			return false;
+		}
+		fIndex.delete(record);
+		fDatabase.free(record);
+		return true;
+	}
+
+	/**
+	 * Returns the marshalled type stored in the given record.
+	 */
+	byte[] getData(long record) throws CoreException {
+		final byte[] data= new byte[fDatabase.getShort(record + LENGTH) & 0xffff];
+		fDatabase.getBytes(record + DATA, data);
+		return data;
+	}
+
+	/**
+	 * Orders the types by hash code, length and content.
+	 */
+	private int compare(long record, int hash, byte[] data) throws CoreException {
+		final int recordHash= fDatabase.getInt(record + HASH);
+		if (recordHash != hash)
+			return recordHash < hash ? -1 : 1;
+
+		final int recordLength= fDatabase.getShort(record + LENGTH) & 0xffff;
+		if (recordLength != data.length)
+			return recordLength < data.length ? -1 : 1;
+
+		final byte[] recordData= getData(record);
+		for (int i = 0; i < recordData.length; i++) {
+			if (recordData[i] != data[i])
+				return recordData[i] < data[i] ? -1 : 1;
+		}
+		return 0;
+	}
+
+	private static int hash(byte[] data) {
+		int hash= 0;
+		for (byte b : data) {
+			hash= 31 * hash + b;
+		}
+		return hash;
+	}
+}
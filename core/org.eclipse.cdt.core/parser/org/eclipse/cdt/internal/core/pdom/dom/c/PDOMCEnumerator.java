@@ -31,11 +31,11 @@ import org.eclipse.core.runtime.CoreException;
 class PDOMCEnumerator extends PDOMBinding implements IEnumerator {
 
 	private static final int ENUMERATION = PDOMBinding.RECORD_SIZE + 0;
-	private static final int NEXT_ENUMERATOR = PDOMBinding.RECORD_SIZE + 4;
-	private static final int VALUE= PDOMBinding.RECORD_SIZE + 8;
+	private static final int NEXT_ENUMERATOR = ENUMERATION + Database.PTR_SIZE;
+	private static final int VALUE= NEXT_ENUMERATOR + Database.PTR_SIZE;
 	
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMBinding.RECORD_SIZE + 12;
+	protected static final int RECORD_SIZE = VALUE + 4;
 	
 	public PDOMCEnumerator(PDOMLinkage linkage, PDOMNode parent, IEnumerator enumerator, PDOMCEnumeration enumeration)
 			throws CoreException {
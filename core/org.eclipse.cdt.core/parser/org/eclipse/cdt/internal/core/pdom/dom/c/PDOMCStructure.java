@@ -34,6 +34,7 @@ import org.eclipse.cdt.internal.core.index.IIndexCBindingConstants;
 import org.eclipse.cdt.internal.core.index.IIndexScope;
 import org.eclipse.cdt.internal.core.index.IIndexType;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.PDOMNodeLinkedList;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMMemberOwner;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMASTAdapter;
@@ -49,10 +50,10 @@ import org.eclipse.core.runtime.Status;
  */
 public class PDOMCStructure extends PDOMBinding implements ICompositeType, ICCompositeTypeScope, IPDOMMemberOwner, IIndexType, IIndexScope {
 	private static final int MEMBERLIST = PDOMBinding.RECORD_SIZE;
-	private static final int KEY = MEMBERLIST + 4; // byte
-	private static final int ANONYMOUS= MEMBERLIST + 5;
+	private static final int KEY = MEMBERLIST + Database.PTR_SIZE; // byte
+	private static final int ANONYMOUS= KEY + 1;
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = MEMBERLIST + 6;
+	protected static final int RECORD_SIZE = ANONYMOUS + 1;
 	
 	public PDOMCStructure(PDOMLinkage linkage, PDOMNode parent, ICompositeType compType) throws CoreException {
 		super(linkage, parent, compType.getNameCharArray());		
@@ -27,10 +27,10 @@ import org.eclipse.core.runtime.CoreException;
  */
 class PDOMCPPBase implements ICPPBase, ICPPInternalBase {
 	private static final int BASECLASS_SPECIFIER = 0;
-	private static final int NEXTBASE = 4;
-	private static final int FLAGS = 8;
+	private static final int NEXTBASE = BASECLASS_SPECIFIER + Database.PTR_SIZE;
+	private static final int FLAGS = NEXTBASE + Database.PTR_SIZE;
 	
-	protected static final int RECORD_SIZE = 9;
+	protected static final int RECORD_SIZE = FLAGS + 1;
 	
 	private final PDOMLinkage linkage;
 	private final long record;
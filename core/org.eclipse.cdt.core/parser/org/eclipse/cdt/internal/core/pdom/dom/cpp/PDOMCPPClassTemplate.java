@@ -50,14 +50,14 @@ import org.eclipse.core.runtime.CoreException;
 public class PDOMCPPClassTemplate extends PDOMCPPClassType
 		implements ICPPClassTemplate, ICPPInstanceCache, IPDOMCPPTemplateParameterOwner {
 	private static final int PARAMETERS = PDOMCPPClassType.RECORD_SIZE + 0;
-	private static final short RELEVANT_PARAMETERS= PDOMCPPClassType.RECORD_SIZE + 4;
-	private static final int FIRST_PARTIAL = PDOMCPPClassType.RECORD_SIZE + 6;
+	private static final int RELEVANT_PARAMETERS= PARAMETERS + Database.PTR_SIZE; // short
+	private static final int FIRST_PARTIAL = RELEVANT_PARAMETERS + 2;
 	
 	/**
 	 * The size in bytes of a PDOMCPPClassTemplate record in the database.
 	 */
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMCPPClassType.RECORD_SIZE + 10;
+	protected static final int RECORD_SIZE = FIRST_PARTIAL + Database.PTR_SIZE;
 	
 	private volatile ICPPTemplateParameter[] params;  // Cached template parameters.
 	
@@ -42,15 +42,15 @@ class PDOMCPPClassTemplatePartialSpecialization extends	PDOMCPPClassTemplate
 		implements IPDOMPartialSpecialization, ICPPSpecialization, IPDOMOverloader {
 	
 	private static final int ARGUMENTS = PDOMCPPClassTemplate.RECORD_SIZE + 0;
-	private static final int SIGNATURE_HASH = PDOMCPPClassTemplate.RECORD_SIZE + 4;
-	private static final int PRIMARY = PDOMCPPClassTemplate.RECORD_SIZE + 8;
-	private static final int NEXT_PARTIAL = PDOMCPPClassTemplate.RECORD_SIZE + 12;
+	private static final int SIGNATURE_HASH = ARGUMENTS + Database.PTR_SIZE;
+	private static final int PRIMARY = SIGNATURE_HASH + 4;
+	private static final int NEXT_PARTIAL = PRIMARY + Database.PTR_SIZE;
 	
 	/**
 	 * The size in bytes of a PDOMCPPClassTemplatePartialSpecialization record in the database.
 	 */
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMCPPClassTemplate.RECORD_SIZE + 16;
+	protected static final int RECORD_SIZE = NEXT_PARTIAL + Database.PTR_SIZE;
 	
 	public PDOMCPPClassTemplatePartialSpecialization(PDOMCPPLinkage linkage, PDOMNode parent,
 			ICPPClassTemplatePartialSpecialization partial, PDOMCPPClassTemplate primary) 
@@ -34,10 +34,10 @@ class PDOMCPPClassTemplatePartialSpecializationSpecialization extends PDOMCPPCla
 		implements IPDOMPartialSpecialization, ICPPClassTemplatePartialSpecializationSpecialization {
 
 	private static final int PRIMARY_TEMPLATE = PDOMCPPClassTemplateSpecialization.RECORD_SIZE;
-	private static final int ARGUMENTS = PDOMCPPClassTemplateSpecialization.RECORD_SIZE+4;
-	private static final int NEXT_PARTIAL = PDOMCPPClassTemplateSpecialization.RECORD_SIZE+8;
+	private static final int ARGUMENTS = PRIMARY_TEMPLATE+Database.PTR_SIZE;
+	private static final int NEXT_PARTIAL = ARGUMENTS+Database.PTR_SIZE;
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE= PDOMCPPClassTemplateSpecialization.RECORD_SIZE+12;
+	protected static final int RECORD_SIZE= NEXT_PARTIAL+Database.PTR_SIZE;
 	
 	private volatile ICPPClassTemplate fPrimaryTemplate;
 
@@ -36,6 +36,7 @@ import org.eclipse.cdt.internal.core.dom.parser.ProblemBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil;
 import org.eclipse.cdt.internal.core.index.IIndexCPPBindingConstants;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.PDOMNodeLinkedList;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMMemberOwner;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMLinkage;
@@ -48,12 +49,12 @@ import org.eclipse.core.runtime.CoreException;
  */
 class PDOMCPPClassType extends PDOMCPPBinding implements IPDOMCPPClassType, IPDOMMemberOwner {
 	private static final int FIRSTBASE = PDOMCPPBinding.RECORD_SIZE + 0;
-	private static final int MEMBERLIST = PDOMCPPBinding.RECORD_SIZE + 4;
-	private static final int FIRSTFRIEND = PDOMCPPBinding.RECORD_SIZE + 8;
-	private static final int KEY = PDOMCPPBinding.RECORD_SIZE + 12; // byte
-	private static final int ANONYMOUS= PDOMCPPBinding.RECORD_SIZE + 13; // byte
+	private static final int MEMBERLIST = FIRSTBASE + Database.PTR_SIZE;
+	private static final int FIRSTFRIEND = MEMBERLIST + Database.PTR_SIZE;
+	private static final int KEY = FIRSTFRIEND + Database.PTR_SIZE; // byte
+	private static final int ANONYMOUS= KEY + 1; // byte
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMCPPBinding.RECORD_SIZE + 14;
+	protected static final int RECORD_SIZE = ANONYMOUS + 1;
 
 	private PDOMCPPClassScope fScope; // No need for volatile, all fields of PDOMCPPClassScope are final.
 
@@ -35,6 +35,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPTemplates;
 import org.eclipse.cdt.internal.core.index.IIndexCPPBindingConstants;
 import org.eclipse.cdt.internal.core.index.IIndexType;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.db.PDOMNodeLinkedList;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMMemberOwner;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
@@ -49,12 +50,12 @@ import org.eclipse.core.runtime.CoreException;
 class PDOMCPPDeferredClassInstance extends PDOMCPPSpecialization
 		implements ICPPDeferredClassInstance, IPDOMMemberOwner, IIndexType {
 	private static final int MEMBERLIST = PDOMCPPSpecialization.RECORD_SIZE + 0;
-	private static final int ARGUMENTS = PDOMCPPSpecialization.RECORD_SIZE + 4;	
+	private static final int ARGUMENTS = MEMBERLIST + Database.PTR_SIZE;	
 	/**
 	 * The size in bytes of a PDOMCPPDeferredClassInstance record in the database.
 	 */
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMCPPSpecialization.RECORD_SIZE + 8;
+	protected static final int RECORD_SIZE = ARGUMENTS + Database.PTR_SIZE;
 
 	private PDOMCPPUnknownScope unknownScope; // No need for volatile, PDOMCPPUnknownScope protects its fields. 
 	
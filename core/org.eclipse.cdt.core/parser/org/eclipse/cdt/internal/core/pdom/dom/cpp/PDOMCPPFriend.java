@@ -13,6 +13,7 @@ package org.eclipse.cdt.internal.core.pdom.dom.cpp;
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ast.IBinding;
 import org.eclipse.cdt.internal.core.index.IIndexCPPBindingConstants;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMLinkage;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMName;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMNode;
@@ -21,10 +22,10 @@ import org.eclipse.core.runtime.CoreException;
 class PDOMCPPFriend extends PDOMNode {
 
 	private static final int FRIEND_SPECIFIER = PDOMNode.RECORD_SIZE + 0;
-	private static final int NEXT_FRIEND = PDOMNode.RECORD_SIZE + 4;
+	private static final int NEXT_FRIEND = FRIEND_SPECIFIER + Database.PTR_SIZE;
 
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMNode.RECORD_SIZE + 8;
+	protected static final int RECORD_SIZE = NEXT_FRIEND + Database.PTR_SIZE;
 
 	public PDOMCPPFriend(PDOMLinkage linkage, long record) {
 		super(linkage, record);
@@ -33,10 +33,10 @@ class PDOMCPPFunctionInstance extends PDOMCPPFunctionSpecialization implements I
 	private static final int ARGUMENTS = PDOMCPPFunctionSpecialization.RECORD_SIZE + 0;
 	
 	@SuppressWarnings("hiding")
-	private static final int EXCEPTION_SPEC = PDOMCPPFunctionSpecialization.RECORD_SIZE + 4;
+	private static final int EXCEPTION_SPEC = ARGUMENTS + Database.PTR_SIZE;
 
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMCPPFunctionSpecialization.RECORD_SIZE + 8;
+	protected static final int RECORD_SIZE = EXCEPTION_SPEC + Database.PTR_SIZE;
 	
 	public PDOMCPPFunctionInstance(PDOMLinkage linkage, PDOMNode parent, ICPPFunction function, PDOMBinding orig)
 			throws CoreException {
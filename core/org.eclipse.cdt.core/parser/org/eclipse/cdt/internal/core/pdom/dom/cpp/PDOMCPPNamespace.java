@@ -101,7 +101,7 @@ class PDOMCPPNamespace extends PDOMCPPBinding
 	}
 
 	public BTree getIndex() throws CoreException {
-		return new BTree(getDB(), record + INDEX_OFFSET, getLinkage().getIndexComparator());
+		return new BTree(getDB(), record + INDEX_OFFSET, getLinkage().getIndexComparator(), true);
 	}
 
 	@Override
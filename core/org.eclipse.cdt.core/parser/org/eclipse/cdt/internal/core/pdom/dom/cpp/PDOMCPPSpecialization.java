@@ -21,6 +21,7 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateParameterMap;
 import org.eclipse.cdt.core.parser.util.ObjectMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPTemplates;
 import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMBinding;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMOverloader;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMLinkage;
@@ -32,13 +33,13 @@ import org.eclipse.core.runtime.CoreException;
  */
 abstract class PDOMCPPSpecialization extends PDOMCPPBinding implements ICPPSpecialization, IPDOMOverloader {
 	private static final int ARGMAP = PDOMCPPBinding.RECORD_SIZE + 0;
-	private static final int SIGNATURE_HASH = PDOMCPPBinding.RECORD_SIZE + 4;
-	private static final int SPECIALIZED = PDOMCPPBinding.RECORD_SIZE + 8;
+	private static final int SIGNATURE_HASH = ARGMAP + Database.PTR_SIZE;
+	private static final int SPECIALIZED = SIGNATURE_HASH + 4;
 	/**
 	 * The size in bytes of a PDOMCPPSpecialization record in the database.
 	 */
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMCPPBinding.RECORD_SIZE + 12;
+	protected static final int RECORD_SIZE = SPECIALIZED + Database.PTR_SIZE;
 	
 	private volatile IBinding fSpecializedCache= null;
 	private volatile ICPPTemplateParameterMap fArgMap;
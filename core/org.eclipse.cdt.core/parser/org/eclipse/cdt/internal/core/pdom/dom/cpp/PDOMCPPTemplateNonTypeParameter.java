@@ -42,7 +42,7 @@ class PDOMCPPTemplateNonTypeParameter extends PDOMCPPBinding implements IPDOMMem
 	private static final int PARAMETERID= TYPE_OFFSET + Database.TYPE_SIZE;
 	private static final int DEFAULTVAL= PARAMETERID + Database.VALUE_SIZE;
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = DEFAULTVAL + Database.PTR_SIZE;
+	protected static final int RECORD_SIZE = DEFAULTVAL + Database.VALUE_SIZE;
 
 	private int fCachedParamID= -1;
 	private volatile IType fType;
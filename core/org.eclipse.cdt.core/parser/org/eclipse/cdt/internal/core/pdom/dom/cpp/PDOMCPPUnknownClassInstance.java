@@ -33,7 +33,7 @@ import org.eclipse.core.runtime.CoreException;
 class PDOMCPPUnknownClassInstance extends PDOMCPPUnknownClassType implements ICPPUnknownClassInstance, IPDOMOverloader {
 
 	private static final int ARGUMENTS = PDOMCPPUnknownClassType.RECORD_SIZE + 0;
-	private static final int SIGNATURE_HASH = ARGUMENTS + 4;
+	private static final int SIGNATURE_HASH = ARGUMENTS + Database.PTR_SIZE;
 
 	@SuppressWarnings("hiding")
 	protected static final int RECORD_SIZE = SIGNATURE_HASH + 4;
@@ -38,10 +38,10 @@ class PDOMCPPUsingDeclaration extends PDOMCPPBinding implements	ICPPUsingDeclara
 	// Using declarations for functions may have multiple delegates. We model such case
 	// by creating a chain of PDOMCPPUsingDeclaration objects linked by NEXT_DELEGATE field.
 	
-	private static final int NEXT_DELEGATE = PDOMCPPBinding.RECORD_SIZE + 4;
+	private static final int NEXT_DELEGATE = TARGET_BINDING + Database.PTR_SIZE;
 	
 	@SuppressWarnings("hiding")
-	protected static final int RECORD_SIZE = PDOMCPPBinding.RECORD_SIZE + 8;
+	protected static final int RECORD_SIZE = NEXT_DELEGATE + Database.PTR_SIZE;
 	
 	private volatile IBinding[] delegates;
 	
@@ -32,10 +32,10 @@ import org.eclipse.core.runtime.CoreException;
  */
 public class PDOMCPPUsingDirective implements ICPPUsingDirective, IPDOMNode {
 	private static final int CONTAINER_NAMESPACE 	= 0;
-	private static final int NOMINATED_NAMESPACE    = 4;
-	private static final int PREV_DIRECTIVE_OF_FILE	= 8;
-	private static final int FILE_OFFSET	        = 12;
-	private static final int RECORD_SIZE 			= 16;
+	private static final int NOMINATED_NAMESPACE    = CONTAINER_NAMESPACE + Database.PTR_SIZE;
+	private static final int PREV_DIRECTIVE_OF_FILE	= NOMINATED_NAMESPACE + Database.PTR_SIZE;
+	private static final int FILE_OFFSET	        = PREV_DIRECTIVE_OF_FILE + Database.PTR_SIZE;
+	private static final int RECORD_SIZE 			= FILE_OFFSET + 4;
 
 	private final PDOMCPPLinkage fLinkage;
 	private final long fRecord;
@@ -35,7 +35,7 @@ public class PDOMTemplateParameterArray {
 		long p= block;
 
 		db.putShort(p, len); p+=2;
-		for (int i=0; i<len; i++, p+=4) {
+		for (int i=0; i<len; i++, p+=Database.PTR_SIZE) {
 			final IPDOMCPPTemplateParameter elem= params[i];
 			db.putRecPtr(p, elem == null ? 0 : elem.getRecord());
 		}
@@ -58,7 +58,7 @@ public class PDOMTemplateParameterArray {
 		rec+=2;
 		IPDOMCPPTemplateParameter[] result= new IPDOMCPPTemplateParameter[len];
 		for (int i=0; i<len; i++) {
-			final long nodeRec= db.getRecPtr(rec); rec+=4;
+			final long nodeRec= db.getRecPtr(rec); rec+=Database.PTR_SIZE;
 			result[i]= nodeRec == 0 ? null : (IPDOMCPPTemplateParameter) linkage.getNode(nodeRec);
 		}
 		return result;
@@ -16,38 +16,82 @@ import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.utils.UNCPathConverter;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.runtime.CoreException;
 
 /**
- * A cache for checking whether a file exists. The cache shall be used for a limited amount of time, only (e.g. one 
- * indexer task). It uses as much memory as it needs. To protect against OutOfMemory situations, a soft reference is
- * used.
+ * A cache for checking whether a file exists. The cache stores the listings of directories, it
+ * uses as much memory as it needs. To protect against OutOfMemory situations, a soft reference is
+ * used. The cache may be used by multiple threads.
+ * <p>
+ * The shared instances returned by {@link #getShared(boolean)} are used by all indexer tasks. Their
+ * listings need to be invalidated when files are added or removed, see {@link #invalidateShared(Collection)}.
+ * In addition the modification time of a directory is checked when its listing has not been 
+ * validated for {@link IncludeResolutionCache#VALIDATION_INTERVAL} milliseconds.
  * @since 5.0
  */
 public final class FileExistsCache {
-	private static final Content EMPTY_STRING_ARRAY= new Content(new String[0]);
+	private static final String[] EMPTY_STRING_ARRAY= {};
 	private static boolean BYPASS_CACHE= Boolean.getBoolean("CDT_INDEXER_BYPASS_FILE_EXISTS_CACHE"); //$NON-NLS-1$
 
+	private static final FileExistsCache SHARED= new FileExistsCache(false, IncludeResolutionCache.VALIDATION_INTERVAL);
+	private static final FileExistsCache SHARED_CASE_INSENSITIVE= new FileExistsCache(true, IncludeResolutionCache.VALIDATION_INTERVAL);
+
 	private static class Content {
-		public Content(String[] names) {
+		public Content(String[] names, long lastModified, long validated) {
 			fNames= names;
 			fIsFile= new BitSet(names.length*2);
+			fLastModified= lastModified;
+			fValidated= validated;
 		}
-		public String[] fNames;
-		public BitSet fIsFile;
+		public final String[] fNames;
+		public final BitSet fIsFile;
+		public final long fLastModified;
+		public volatile long fValidated;
 	}
-	private Reference<Map<String,Content>> fCache= null;
+	private volatile Reference<ConcurrentHashMap<String, Content>> fCache= null;
 	private final boolean fCaseInSensitive;
+	private final long fValidationInterval;
+	private final AtomicLong fHits= new AtomicLong();
+	private final AtomicLong fMisses= new AtomicLong();
+
+	/**
+	 * Returns the cache shared by all indexer tasks.
+	 */
+	public static FileExistsCache getShared(boolean caseInsensitive) {
+		return caseInsensitive ? SHARED_CASE_INSENSITIVE : SHARED;
+	}
+
+	/**
+	 * Invalidates the listings of the given directories and of the directories nested in them
+	 * in the shared caches, and the include resolutions that depend on them.
+	 */
+	public static void invalidateShared(Collection<String> directories) {
+		SHARED.invalidate(directories);
+		SHARED_CASE_INSENSITIVE.invalidate(directories);
+		IncludeResolutionCache.getInstance().invalidate(directories);
+	}
 
 	public FileExistsCache(boolean caseInsensitive) {
+		this(caseInsensitive, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param validationInterval time in milliseconds after which the modification time of a 
+	 * directory is compared with the one of its cached listing.
+	 */
+	public FileExistsCache(boolean caseInsensitive, long validationInterval) {
 		fCaseInSensitive= caseInsensitive;
-		fCache= new SoftReference<Map<String,Content>>(new HashMap<String, Content>());	// before running out of memory the entire map will be thrown away.
+		fValidationInterval= validationInterval;
 	}
 	
 	public boolean isFile(String path) {
@@ -88,8 +132,24 @@ public final class FileExistsCache {
 		if (fCaseInSensitive)
 			name= name.toUpperCase();
 		
-		Content avail= getExistsCache().get(parent); 
+		final ConcurrentHashMap<String, Content> cache= getExistsCache();
+		Content avail= cache.get(parent);
+		if (avail != null) {
+			final long now= System.currentTimeMillis();
+			if (now - avail.fValidated > fValidationInterval) {
+				if (getLastModified(parent, parentStore) == avail.fLastModified) {
+					avail.fValidated= now;
+				} else {
+					// The directory has changed, resolutions of include directives may be outdated.
+					cache.remove(parent, avail);
+					IncludeResolutionCache.getInstance().invalidate(Collections.singleton(parent));
+					avail= null;
+				}
+			}
+		}
 		if (avail == null) {
+			fMisses.incrementAndGet();
+			final long lastModified= getLastModified(parent, parentStore);
 			String[] files = null;
 			try {
 				files = (parentStore == null) ? new File(parent).list() : parentStore.childNames(EFS.NONE, null);
@@ -97,7 +157,7 @@ public final class FileExistsCache {
 				// Ignore
 			}
 			if (files == null || files.length == 0) {
-				avail= EMPTY_STRING_ARRAY;
+				files= EMPTY_STRING_ARRAY;
 			}
 			else {
 				if (fCaseInSensitive) {
@@ -106,9 +166,11 @@ public final class FileExistsCache {
 					}
 				}
 				Arrays.sort(files);
-				avail= new Content(files);
 			}
-			getExistsCache().put(parent, avail);
+			avail= new Content(files, lastModified, System.currentTimeMillis());
+			cache.put(parent, avail);
+		} else {
+			fHits.incrementAndGet();
 		}
 		int idx= Arrays.binarySearch(avail.fNames, name);
 		if (idx < 0)
@@ -116,24 +178,78 @@ public final class FileExistsCache {
 		idx *= 2;
 		
 		final BitSet isFileBitset = avail.fIsFile;
-		if (isFileBitset.get(idx))
-			return true;
-		if (isFileBitset.get(idx+1))
-			return false;
+		synchronized (isFileBitset) {
+			if (isFileBitset.get(idx))
+				return true;
+			if (isFileBitset.get(idx+1))
+				return false;
+		}
 		
-		if ((file != null && file.isFile()) || (fileStore != null && !fileStore.fetchInfo().isDirectory())) {
-			isFileBitset.set(idx);
-			return true;
+		final boolean isFile= (file != null && file.isFile()) || (fileStore != null && !fileStore.fetchInfo().isDirectory());
+		synchronized (isFileBitset) {
+			isFileBitset.set(isFile ? idx : idx+1);
+		}
+		return isFile;
+	}
+
+	/**
+	 * Invalidates the listings of the given directory and of the directories nested in it.
+	 */
+	public void invalidate(String directory) {
+		invalidate(Collections.singleton(directory));
+	}
+
+	/**
+	 * Invalidates the listings of the given directories and of the directories nested in them.
+	 */
+	public void invalidate(Collection<String> directories) {
+		if (directories.isEmpty())
+			return;
+		final ConcurrentHashMap<String, Content> cache= getExistsCache();
+		for (Iterator<String> it= cache.keySet().iterator(); it.hasNext();) {
+			for (String dir= it.next(); dir != null; dir= new File(dir).getParent()) {
+				if (directories.contains(dir)) {
+					it.remove();
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of lookups that were served from a cached directory listing.
+	 */
+	public long getHitCount() {
+		return fHits.get();
+	}
+
+	/**
+	 * Returns the number of directory listings that had to be read.
+	 */
+	public long getMissCount() {
+		return fMisses.get();
+	}
+
+	private static long getLastModified(String parent, IFileStore parentStore) {
+		if (parentStore != null)
+			return parentStore.fetchInfo().getLastModified();
+		return new File(parent).lastModified();
+	}
+
+	private ConcurrentHashMap<String, Content> getExistsCache() {
+		Reference<ConcurrentHashMap<String, Content>> ref= fCache;
+		ConcurrentHashMap<String, Content> cache= ref == null ? null : ref.get();
+		if (cache == null) {
+			cache= createExistsCache();
 		}
-		isFileBitset.set(idx+1);
-		return false;
+		return cache;
 	}
 
-	private Map<String, Content> getExistsCache() {
-		Map<String, Content> cache= fCache.get();
+	private synchronized ConcurrentHashMap<String, Content> createExistsCache() {
+		ConcurrentHashMap<String, Content> cache= fCache == null ? null : fCache.get();
 		if (cache == null) {
-			cache= new HashMap<String, Content>();
-			fCache= new SoftReference<Map<String, Content>>(cache); // before running out of memory the entire map will be thrown away.
+			cache= new ConcurrentHashMap<String, Content>();
+			fCache= new SoftReference<ConcurrentHashMap<String, Content>>(cache); // before running out of memory the entire map will be thrown away.
 		}
 		return cache;
 	}
@@ -57,6 +57,8 @@ public class IndexerPreferences {
 	public static final String KEY_SKIP_MACRO_REFERENCES= "skipMacroReferences"; //$NON-NLS-1$
 	public static final String KEY_UPDATE_POLICY= "updatePolicy"; //$NON-NLS-1$
 	public static final String KEY_SKIP_FILES_LARGER_THAN_MB = "skipFilesLargerThanMB"; //$NON-NLS-1$
+	public static final String KEY_PARSER_THREADS= "parserThreads"; //$NON-NLS-1$
+	public static final String KEY_SHARD_ROOTS= "shardRoots"; //$NON-NLS-1$
 
 	private static final String KEY_INDEXER_PREFS_SCOPE = "preferenceScope"; //$NON-NLS-1$
 	private static final String KEY_INDEX_IMPORT_LOCATION = "indexImportLocation"; //$NON-NLS-1$
@@ -75,6 +77,7 @@ public class IndexerPreferences {
 		"signal.h, " +         // configures bits/signum.h									//$NON-NLS-1$
 		"cstdio";              // configures stdio.h for c++ !! fragments bits/signum.h !!	//$NON-NLS-1$
 	private static final int DEFAULT_UPDATE_POLICY= 0;
+	public static final int DEFAULT_PARSER_THREADS= 1;
 	public static final int DEFAULT_FILE_SIZE_LIMIT = 8;
 
 	private static final String QUALIFIER = CCorePlugin.PLUGIN_ID;
@@ -406,6 +409,45 @@ public class IndexerPreferences {
 		}
 	}
 
+	/**
+	 * Returns the comma separated list of project relative folders whose files are stored in
+	 * separate databases (shards) of the index of the given project. The setting of the project
+	 * takes precedence over the one of the workspace, by default the list is empty. A change
+	 * takes effect when the index of the project is loaded.
+	 */
+	public static String getShardRoots(IProject project) {
+		Preferences[] prefs;
+		if (project != null) {
+			prefs= new Preferences[] {
+					getProjectPreferences(project),
+					getInstancePreferences(),
+					getConfigurationPreferences(),
+					getDefaultPreferences()
+			};
+		} else {
+			prefs= getInstancePreferencesArray();
+		}
+		return Platform.getPreferencesService().get(KEY_SHARD_ROOTS, "", prefs); //$NON-NLS-1$
+	}
+
+	/**
+	 * Sets the folders whose files are stored in separate databases of the index of the given
+	 * project, or of the projects of the workspace if the project is <code>null</code>.
+	 * @param roots a comma separated list of project relative folders, or <code>null</code> to
+	 * remove the setting.
+	 */
+	public static void setShardRoots(IProject project, String roots) {
+		Preferences prefs= project != null ? getProjectPreferences(project) : getInstancePreferences();
+		if (roots == null) {
+			prefs.remove(KEY_SHARD_ROOTS);
+		} else {
+			prefs.put(KEY_SHARD_ROOTS, roots);
+		}
+		if (project != null) {
+			CCoreInternals.savePreferences(project, true);
+		}
+	}
+
 	public static int getUpdatePolicy(IProject project) {
 		// no support for project specific policies
 		Preferences[] prefs= getInstancePreferencesArray();
@@ -430,6 +472,59 @@ public class IndexerPreferences {
 		return DEFAULT_UPDATE_POLICY;
 	}
 
+	/**
+	 * Returns the number of threads the indexer uses for parsing the source files of the given
+	 * project. The setting depends on the host, therefore a project can override the workspace
+	 * setting in its private preferences, only.
+	 */
+	public static int getParserThreads(IProject project) {
+		Preferences[] prefs;
+		if (project != null) {
+			prefs= new Preferences[] {
+					getLocalPreferences(project),
+					getInstancePreferences(),
+					getConfigurationPreferences(),
+					getDefaultPreferences()
+			};
+		} else {
+			prefs= getInstancePreferencesArray();
+		}
+		String val= Platform.getPreferencesService().get(KEY_PARSER_THREADS, null, prefs);
+		if (val != null) {
+			try {
+				int result= Integer.parseInt(val);
+				if (result > 0) {
+					return result;
+				}
+			} catch (NumberFormatException e) {
+				CCorePlugin.log(e);
+			}
+		}
+		return DEFAULT_PARSER_THREADS;
+	}
+
+	/**
+	 * Sets the number of threads the indexer uses for parsing source files in the workspace.
+	 */
+	public static void setParserThreads(int threads) {
+		setParserThreads(null, threads);
+	}
+
+	/**
+	 * Sets the number of threads the indexer uses for parsing the source files of the given
+	 * project, or of the workspace if the project is <code>null</code>.
+	 */
+	public static void setParserThreads(IProject project, int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException();
+		if (project != null) {
+			getLocalPreferences(project).put(KEY_PARSER_THREADS, String.valueOf(threads));
+			CCoreInternals.savePreferences(project, false);
+		} else {
+			getInstancePreferences().put(KEY_PARSER_THREADS, String.valueOf(threads));
+		}
+	}
+
 	public static boolean preferDefaultLanguage(IProject project) {
 		IPreferencesService prefService = Platform.getPreferencesService();
 		Preferences[] prefs= IndexerPreferences.getPreferences(project);
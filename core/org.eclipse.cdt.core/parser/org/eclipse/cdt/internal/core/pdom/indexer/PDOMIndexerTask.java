@@ -30,11 +30,16 @@ import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.cdt.core.parser.IScannerInfo;
 import org.eclipse.cdt.core.parser.IScannerInfoProvider;
 import org.eclipse.cdt.core.parser.ScannerInfo;
+import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.LookupCache;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
+import org.eclipse.cdt.internal.core.index.IWritableIndexFragment;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
+import org.eclipse.cdt.internal.core.parser.scanner.IncludeResolutionCache;
 import org.eclipse.cdt.internal.core.pdom.AbstractIndexerTask;
 import org.eclipse.cdt.internal.core.pdom.ITodoTaskUpdater;
 import org.eclipse.cdt.internal.core.pdom.IndexerProgress;
+import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -55,6 +60,9 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 	
 	private AbstractPDOMIndexer fIndexer;
 	private boolean fWriteInfoToLog;
+	private int fShard= -1;
+	// Counters of the shared caches at the start of the task, to report the hits of this task.
+	private long fResolutionHits, fResolutionMisses, fListingHits, fListingMisses;
 	
 	protected PDOMIndexerTask(ITranslationUnit[] forceFiles, ITranslationUnit[] updateFiles, ITranslationUnit[] removeFiles,
 			AbstractPDOMIndexer indexer, boolean isFastIndexer) {
@@ -67,6 +75,7 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 		setShowProblems(checkDebugOption(TRACE_PROBLEMS, TRUE));
 		final long limit = getIntProperty(IndexerPreferences.KEY_SKIP_FILES_LARGER_THAN_MB, 0);
 		setFileSizeLimit(limit * 1024 * 1024);
+		setParserThreads(IndexerPreferences.getParserThreads(indexer.getProject().getProject()));
 		if (checkProperty(IndexerPreferences.KEY_SKIP_ALL_REFERENCES)) {
 			setSkipReferences(SKIP_ALL_REFERENCES);
 		} else {
@@ -124,10 +133,28 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 	
 	public final void run(IProgressMonitor monitor) throws InterruptedException {
 		long start = System.currentTimeMillis();
+		final IncludeResolutionCache resolutionCache= IncludeResolutionCache.getInstance();
+		final FileExistsCache existsCache= FileExistsCache.getShared(fResolver.isCaseInsensitiveFileSystem());
+		fResolutionHits= resolutionCache.getHitCount();
+		fResolutionMisses= resolutionCache.getMissCount();
+		fListingHits= existsCache.getHitCount();
+		fListingMisses= existsCache.getMissCount();
 		runTask(monitor);
 		traceEnd(start, fIndex, monitor.isCanceled());
 	}
 	
+	@Override
+	protected void logException(Throwable e) {
+		super.logException(e);
+		if (e instanceof CoreException) {
+			final IStatus status= ((CoreException) e).getStatus();
+			if (status.getCode() == CCorePlugin.STATUS_PDOM_TOO_LARGE 
+					&& CCorePlugin.PLUGIN_ID.equals(status.getPlugin())) {
+				CCoreInternals.getPDOMManager().handleDatabaseTooLarge(getCProject());
+			}
+		}
+	}
+
 	/**
 	 * Checks whether a given debug option is enabled. See {@link IPDOMIndexerTask}
 	 * for valid values.
@@ -186,7 +213,13 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 
 	@Override
 	protected IScannerInfo createDefaultScannerConfig(int linkageID) {
-		IProject project= getProject().getProject();
+		return getDefaultScannerConfig(getProject().getProject(), linkageID);
+	}
+
+	/**
+	 * Returns the scanner configuration of the project for files of the given linkage.
+	 */
+	public static IScannerInfo getDefaultScannerConfig(IProject project, int linkageID) {
 		IScannerInfoProvider provider= CCorePlugin.getDefault().getScannerInfoProvider(project);
 		IScannerInfo scanInfo;
 		if (provider != null) {
@@ -214,6 +247,9 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 	@Override
 	protected final IWritableIndex createIndex() {
 		try {
+			if (fShard >= 0) {
+				return CCoreInternals.getPDOMManager().getWritableIndex(getProject(), fShard);
+			}
 			return ((IWritableIndexManager) CCorePlugin.getIndexManager()).getWritableIndex(getProject());
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
@@ -289,6 +325,7 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 			System.out.println(ident + " Database: " + dbSize + " bytes");   //$NON-NLS-1$ //$NON-NLS-2$
 			System.out.println(ident + " Timings: "     //$NON-NLS-1$
 					+ totalTime + " total, "    //$NON-NLS-1$
+					+ fStatistics.fSelectionTime + " selection, "    //$NON-NLS-1$
 					+ fStatistics.fParsingTime + " parser, "    //$NON-NLS-1$
 					+ fStatistics.fResolutionTime + " resolution, "    //$NON-NLS-1$
 					+ fStatistics.fAddToIndexTime + " index update.");    //$NON-NLS-1$
@@ -297,6 +334,8 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 					+ fStatistics.fUnresolvedIncludesCount + " include, "     //$NON-NLS-1$
 					+ fStatistics.fPreprocessorProblemCount + " scanner, "     //$NON-NLS-1$
 					+ fStatistics.fSyntaxProblemsCount + " syntax errors.");    //$NON-NLS-1$
+			System.out.println(ident + " Include guards: "    //$NON-NLS-1$
+					+ fStatistics.fIncludeGuardSkipCount + " inclusions skipped.");    //$NON-NLS-1$
 
 			NumberFormat nfPercent= NumberFormat.getPercentInstance();
 			nfPercent.setMaximumFractionDigits(2);
@@ -313,7 +352,42 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 			System.out.println(ident + " Cache["    //$NON-NLS-1$
 					+ ChunkCache.getSharedInstance().getMaxSize() / 1024 / 1024 + "MB]: " +    //$NON-NLS-1$
 					+ hits + " hits, "      //$NON-NLS-1$
-					+ misses + "(" + nfPercent.format(missPct) + ") misses.");      //$NON-NLS-1$ //$NON-NLS-2$
+					+ misses + "(" + nfPercent.format(missPct) + ") misses, "      //$NON-NLS-1$ //$NON-NLS-2$
+					+ index.getCacheEvictions() + " evictions.");      //$NON-NLS-1$
+
+			// The caches are shared, tasks running concurrently contribute to the counts.
+			final IncludeResolutionCache resolutionCache= IncludeResolutionCache.getInstance();
+			final FileExistsCache existsCache= FileExistsCache.getShared(fResolver.isCaseInsensitiveFileSystem());
+			final long resolutionHits= resolutionCache.getHitCount() - fResolutionHits;
+			final long resolutionTries= resolutionHits + resolutionCache.getMissCount() - fResolutionMisses;
+			final long listingHits= existsCache.getHitCount() - fListingHits;
+			final long listingTries= listingHits + existsCache.getMissCount() - fListingMisses;
+			System.out.println(ident + " Include resolution: "    //$NON-NLS-1$
+					+ resolutionHits + " hits, "      //$NON-NLS-1$
+					+ (resolutionTries - resolutionHits) + " misses ("      //$NON-NLS-1$
+					+ nfPercent.format(resolutionTries == 0 ? 0.0 : (double) resolutionHits / resolutionTries)
+					+ "), directory listings: "      //$NON-NLS-1$
+					+ listingHits + " hits, "      //$NON-NLS-1$
+					+ (listingTries - listingHits) + " misses ("      //$NON-NLS-1$
+					+ nfPercent.format(listingTries == 0 ? 0.0 : (double) listingHits / listingTries)
+					+ ").");      //$NON-NLS-1$
+
+			final long lookupHits= LookupCache.getLookupHitCount();
+			final long lookupTries= lookupHits + LookupCache.getLookupMissCount();
+			final long instanceHits= LookupCache.getInstanceHitCount();
+			final long instanceTries= instanceHits + LookupCache.getInstanceMissCount();
+			System.out.println(ident + " Lookup cache: "    //$NON-NLS-1$
+					+ lookupHits + " index lookups of " + lookupTries + " ("      //$NON-NLS-1$ //$NON-NLS-2$
+					+ nfPercent.format(lookupTries == 0 ? 0.0 : (double) lookupHits / lookupTries)
+					+ ") and " + instanceHits + " template instances of " + instanceTries + " ("      //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ nfPercent.format(instanceTries == 0 ? 0.0 : (double) instanceHits / instanceTries)
+					+ ") reused.");      //$NON-NLS-1$
+
+			final IWritableIndexFragment fragment= index.getWritableFragment();
+			if (fragment instanceof PDOM) {
+				System.out.println(ident + " Locks: "    //$NON-NLS-1$
+						+ ((PDOM) fragment).getLockStatistics().toString().replace("\n", "\n" + ident + "   "));    //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
 
 			if ("true".equals(System.getProperty("SHOW_COMPRESSED_INDEXER_INFO"))) {    //$NON-NLS-1$ //$NON-NLS-2$
 				Calendar cal = Calendar.getInstance();
@@ -374,6 +448,14 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 		fWriteInfoToLog= true;
 	}
 
+	/**
+	 * Restricts the task to write a single shard of a sharded project index.
+	 * @see org.eclipse.cdt.internal.core.pdom.PDOMManager#getWritableIndex(ICProject, int)
+	 */
+	public void setShard(int shard) {
+		fShard= shard;
+	}
+
 	@Override
 	public synchronized boolean acceptUrgentTask(IPDOMIndexerTask urgentTask) {
 		final IPDOMIndexer ti = urgentTask.getIndexer();
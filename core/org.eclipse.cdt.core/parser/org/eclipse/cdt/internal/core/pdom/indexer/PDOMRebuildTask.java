@@ -13,23 +13,31 @@ package org.eclipse.cdt.internal.core.pdom.indexer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.IPDOMIndexer;
 import org.eclipse.cdt.core.dom.IPDOMIndexerTask;
 import org.eclipse.cdt.core.dom.IPDOMManager;
 import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.internal.core.CCoreInternals;
 import org.eclipse.cdt.internal.core.index.IWritableIndex;
-import org.eclipse.cdt.internal.core.index.IWritableIndexFragment;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
+import org.eclipse.cdt.internal.core.index.IndexShardLayout;
 import org.eclipse.cdt.internal.core.pdom.IndexerProgress;
 import org.eclipse.cdt.internal.core.pdom.PDOMManager;
-import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -39,9 +47,22 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 	protected static final String TRUE= String.valueOf(true);
 	protected static final ITranslationUnit[] NO_TUS = new ITranslationUnit[0];
 	
+	// For testing purposes, only.
+	public static boolean sBulkBuild= true;
+	public static boolean sParallelShards= true;
+
+	private static final ThreadFactory SHARD_THREAD_FACTORY= new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread= new Thread(r, "Indexer Shard"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
 	private final IPDOMIndexer fIndexer;
 	private final IndexerProgress fProgress;
 	private volatile IPDOMIndexerTask fDelegate;
+	private volatile IPDOMIndexerTask[] fShardDelegates;
 
 	public PDOMRebuildTask(IPDOMIndexer indexer) {
 		fIndexer= indexer;
@@ -64,11 +85,15 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 
 		ICProject cproject= fIndexer.getProject();
 		IProject project= cproject.getProject();
+		IWritableIndex bulkIndex= null;
 		if (project.isOpen() && project.exists()) {
 			try {
 				IWritableIndex index= ((IWritableIndexManager) CCorePlugin.getIndexManager()).getWritableIndex(cproject);
 				if (index != null) {
 					clearIndex(cproject, index);
+					if (sBulkBuild) {
+						bulkIndex= index;
+					}
 					if (!IPDOMManager.ID_NO_INDEXER.equals(fIndexer.getID())) {
 						createDelegate(cproject, monitor);
 					}
@@ -81,8 +106,16 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 			}
 		}
 		
-		if (fDelegate != null) {
-			fDelegate.run(monitor);
+		try {
+			if (fShardDelegates != null) {
+				runShardDelegates(fShardDelegates, monitor);
+			} else if (fDelegate != null) {
+				fDelegate.run(monitor);
+			}
+		} finally {
+			if (bulkIndex != null) {
+				endBulkBuild(bulkIndex);
+			}
 		}
 	}
 	
@@ -91,15 +124,27 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 		index.acquireWriteLock(0);
 		try {
 			index.clear();
-			IWritableIndexFragment wf= index.getWritableFragment();
-			if (wf instanceof WritablePDOM) {
-				PDOMManager.writeProjectPDOMProperties((WritablePDOM) wf, project.getProject());
+			PDOMManager.writeProjectPDOMProperties(index, project.getProject());
+			// The cleared index is filled in bulk, its b-trees are built when indexing is done.
+			if (sBulkBuild) {
+				index.setBulkBuild(true);
 			}
 		} finally {
 			index.releaseWriteLock(0);
 		}
 	}
 
+	private void endBulkBuild(IWritableIndex index) throws InterruptedException {
+		index.acquireWriteLock(0);
+		try {
+			index.setBulkBuild(false);
+		} catch (CoreException e) {
+			CCorePlugin.log(e);
+		} finally {
+			index.releaseWriteLock(0);
+		}
+	}
+
 	private void createDelegate(ICProject project, IProgressMonitor monitor) throws CoreException {
 		boolean allFiles = 
 			TRUE.equals(fIndexer.getProperty(IndexerPreferences.KEY_INDEX_UNUSED_HEADERS_WITH_DEFAULT_LANG)) || 
@@ -109,23 +154,113 @@ public class PDOMRebuildTask implements IPDOMIndexerTask {
 		TranslationUnitCollector collector= new TranslationUnitCollector(sources, headers, monitor);
 		project.accept(collector);
 		ITranslationUnit[] tus= sources.toArray(new ITranslationUnit[sources.size()]);
+		IndexShardLayout layout= CCoreInternals.getPDOMManager().getShardLayout(project);
+		if (sParallelShards && layout != null && createShardDelegates(tus, layout))
+			return;
+
 		IPDOMIndexerTask delegate= fIndexer.createTask(tus, NO_TUS, NO_TUS);
+		configure(delegate, -1);
+		synchronized (this) {
+			fDelegate= delegate;
+		}
+	}
+
+	private void configure(IPDOMIndexerTask delegate, int shard) {
 		if (delegate instanceof PDOMIndexerTask) {
 			final PDOMIndexerTask pdomIndexerTask = (PDOMIndexerTask) delegate;
 			pdomIndexerTask.setUpdateFlags(IIndexManager.UPDATE_ALL);
 			pdomIndexerTask.setParseUpFront();
 			pdomIndexerTask.setWriteInfoToLog();
+			pdomIndexerTask.setShard(shard);
+		}
+	}
+
+	/**
+	 * Creates one task per shard of a sharded index, which indexes the files below the root of
+	 * the shard. Returns <code>false</code> if the files are not spread over multiple shards.
+	 */
+	private boolean createShardDelegates(ITranslationUnit[] tus, IndexShardLayout layout) {
+		List<List<ITranslationUnit>> partitions= new ArrayList<List<ITranslationUnit>>();
+		for (int i = 0; i < layout.getShardCount(); i++) {
+			partitions.add(new ArrayList<ITranslationUnit>());
+		}
+		for (ITranslationUnit tu : tus) {
+			partitions.get(layout.getShard(IndexLocationFactory.getIFL(tu))).add(tu);
 		}
+		List<IPDOMIndexerTask> delegates= new ArrayList<IPDOMIndexerTask>();
+		for (int i = 0; i < partitions.size(); i++) {
+			final List<ITranslationUnit> partition= partitions.get(i);
+			if (!partition.isEmpty()) {
+				IPDOMIndexerTask delegate= fIndexer.createTask(
+						partition.toArray(new ITranslationUnit[partition.size()]), NO_TUS, NO_TUS);
+				if (!(delegate instanceof PDOMIndexerTask))
+					return false;
+				configure(delegate, i);
+				delegates.add(delegate);
+			}
+		}
+		if (delegates.size() < 2)
+			return false;
+
 		synchronized (this) {
-			fDelegate= delegate;
+			fShardDelegates= delegates.toArray(new IPDOMIndexerTask[delegates.size()]);
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the tasks of the shards in parallel, the first one on the calling thread.
+	 */
+	private void runShardDelegates(IPDOMIndexerTask[] delegates, final IProgressMonitor monitor)
+			throws InterruptedException {
+		final ExecutorService executor= Executors.newFixedThreadPool(delegates.length - 1, SHARD_THREAD_FACTORY);
+		try {
+			List<Future<Object>> futures= new ArrayList<Future<Object>>();
+			for (int i = 1; i < delegates.length; i++) {
+				final IPDOMIndexerTask delegate= delegates[i];
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						delegate.run(new NullProgressMonitor() {
+							@Override
+							public boolean isCanceled() {
+								return monitor.isCanceled();
+							}
+						});
+						return null;
+					}
+				}));
+			}
+			delegates[0].run(monitor);
+			for (Future<Object> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					CCorePlugin.log(e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
 		}
 	}
 
 	public synchronized IndexerProgress getProgressInformation() {
+		if (fShardDelegates != null) {
+			IndexerProgress result= new IndexerProgress();
+			for (IPDOMIndexerTask delegate : fShardDelegates) {
+				IndexerProgress progress= delegate.getProgressInformation();
+				result.fRequestedFilesCount+= progress.fRequestedFilesCount;
+				result.fCompletedSources+= progress.fCompletedSources;
+				result.fPrimaryHeaderCount+= progress.fPrimaryHeaderCount;
+				result.fCompletedHeaders+= progress.fCompletedHeaders;
+				result.fTimeEstimate+= progress.fTimeEstimate;
+			}
+			return result;
+		}
 		return fDelegate != null ? fDelegate.getProgressInformation() : fProgress;
 	}
 
 	public synchronized boolean acceptUrgentTask(IPDOMIndexerTask task) {
-		return fDelegate != null && fDelegate.acceptUrgentTask(task);
+		// The tasks of the shards cannot write other shards, urgent tasks wait for the rebuild.
+		return fShardDelegates == null && fDelegate != null && fDelegate.acceptUrgentTask(task);
 	}
 }
@@ -12,7 +12,9 @@
 package org.eclipse.cdt.internal.core.pdom.indexer;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
@@ -51,7 +53,7 @@ public class ProjectIndexerInputAdapter extends IndexerInputAdapter {
 	private static final AbstractLanguage[] NO_LANGUAGE = new AbstractLanguage[0];
 
 	private final ICProject fCProject;
-	private final HashMap<String, IIndexFileLocation> fIflCache;
+	private final Map<String, IIndexFileLocation> fIflCache;
 	private final FileExistsCache fExistsCache;
 	private AbstractLanguage fLangC;
 	private AbstractLanguage fLangCpp;
@@ -65,8 +67,9 @@ public class ProjectIndexerInputAdapter extends IndexerInputAdapter {
 		fCProject= cproject;
 		fProjectPrefix= cproject.getProject().getFullPath().toString() + IPath.SEPARATOR;
 		if (useCache) {
-			fIflCache= new HashMap<String, IIndexFileLocation>();
-			fExistsCache= new FileExistsCache(isCaseInsensitiveFileSystem());
+			// the indexer may use multiple threads for parsing.
+			fIflCache= Collections.synchronizedMap(new HashMap<String, IIndexFileLocation>());
+			fExistsCache= FileExistsCache.getShared(isCaseInsensitiveFileSystem());
 		} else {
 			fIflCache= null;
 			fExistsCache= null;
@@ -294,7 +297,7 @@ public class ProjectIndexerInputAdapter extends IndexerInputAdapter {
 			return null;
 		
 		final FileContent reader= FileContent.create(tu);
-		if (reader != null) {
+		if (reader != null && fIflCache != null) {
 			IIndexFileLocation ifl= IndexLocationFactory.getIFL(tu);
 			fIflCache.put(reader.getFileLocation(), ifl);
 		}
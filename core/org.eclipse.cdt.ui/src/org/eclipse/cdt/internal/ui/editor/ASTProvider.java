@@ -13,6 +13,9 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.ui.editor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -20,6 +23,8 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IEditorReference;
 import org.eclipse.ui.IPartListener2;
 import org.eclipse.ui.IWindowListener;
 import org.eclipse.ui.IWorkbenchPart;
@@ -127,6 +132,13 @@ public final class ASTProvider {
 			if (isActiveEditor(ref)) {
 				activeEditorChanged(null);
 			}
+			IWorkbenchPart part= ref.getPart(false);
+			if (part instanceof CEditor) {
+				ICElement cElement= ((CEditor) part).getInputCElement();
+				if (cElement instanceof ITranslationUnit) {
+					fCache.disposeAST((ITranslationUnit) cElement);
+				}
+			}
 		}
 
 		/*
@@ -261,6 +273,28 @@ public final class ASTProvider {
 			fTimeStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
 			fCache.setActiveElement((ITranslationUnit) cElement);
 		}
+		if (cElement instanceof ITranslationUnit) {
+			preparseOpenEditors(editor);
+		}
+	}
+
+	/**
+	 * Parses the translation units of the other open C editors in the background, such that
+	 * their ASTs are available when the user switches to one of them.
+	 */
+	private void preparseOpenEditors(IWorkbenchPart activeEditor) {
+		List<ITranslationUnit> tUnits= new ArrayList<ITranslationUnit>();
+		IEditorReference[] refs= activeEditor.getSite().getPage().getEditorReferences();
+		for (IEditorReference ref : refs) {
+			IEditorPart part= ref.getEditor(false);
+			if (part != activeEditor && part instanceof CEditor) {
+				ICElement cElement= ((CEditor) part).getInputCElement();
+				if (cElement instanceof ITranslationUnit) {
+					tUnits.add((ITranslationUnit) cElement);
+				}
+			}
+		}
+		fCache.schedulePreparse(tUnits);
 	}
 
 	/**
@@ -315,6 +349,7 @@ public final class ASTProvider {
 			fActivationListener= null;
 		}
 		fCache.setActiveElement(null);
+		fCache.flush();
 	}
 
 	/*
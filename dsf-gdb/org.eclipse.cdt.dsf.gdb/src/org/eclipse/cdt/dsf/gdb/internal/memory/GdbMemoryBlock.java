@@ -16,6 +16,7 @@ import java.util.concurrent.ExecutionException;
 import org.eclipse.cdt.debug.core.model.provisional.IMemorySpaceAwareMemoryBlock;
 import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
 import org.eclipse.cdt.dsf.concurrent.IDsfStatusConstants;
+import org.eclipse.cdt.dsf.concurrent.ImmediateExecutor;
 import org.eclipse.cdt.dsf.concurrent.Query;
 import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
 import org.eclipse.cdt.dsf.datamodel.AbstractDMContext;
@@ -24,8 +25,10 @@ import org.eclipse.cdt.dsf.debug.model.DsfMemoryBlock;
 import org.eclipse.cdt.dsf.debug.model.DsfMemoryBlockRetrieval;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
 import org.eclipse.cdt.dsf.debug.service.IMemory.IMemoryDMContext;
+import org.eclipse.cdt.dsf.debug.service.IMemory2;
 import org.eclipse.cdt.dsf.debug.service.IMemorySpaces;
 import org.eclipse.cdt.dsf.debug.service.IMemorySpaces.IMemorySpaceDMContext;
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
 import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
 import org.eclipse.cdt.utils.Addr64;
 import org.eclipse.core.runtime.IStatus;
@@ -120,10 +123,11 @@ public class GdbMemoryBlock extends DsfMemoryBlock implements IMemorySpaceAwareM
     	// For the IAddress interface
     	final Addr64 address = new Addr64(bigAddress);
     	
-        // Use a Query to synchronize the downstream calls  
-        Query<MemoryByte[]> query = new Query<MemoryByte[]>() {
+        // Use a Query to synchronize the downstream calls. A MemoryData block is converted
+        // on the calling thread, services that do not implement IMemory2 return a MemoryByte[].
+        Query<Object> query = new Query<Object>() {
 			@Override
-			protected void execute(final DataRequestMonitor<MemoryByte[]> drm) {
+			protected void execute(final DataRequestMonitor<Object> drm) {
 				GdbMemoryBlockRetrieval retrieval = (GdbMemoryBlockRetrieval)getMemoryBlockRetrieval();
 				int addressableSize = 1;
 				try {
@@ -149,7 +153,18 @@ public class GdbMemoryBlock extends DsfMemoryBlock implements IMemorySpaceAwareM
 				}
 						
 			    IMemory memoryService = (IMemory) retrieval.getServiceTracker().getService();
-			    if (memoryService != null) {
+			    if (memoryService instanceof IMemory2) {
+			        ((IMemory2) memoryService).getMemoryData( 
+			        	context, address, 0, addressableSize, (int) length,
+			            new DataRequestMonitor<MemoryData>(ImmediateExecutor.getInstance(), drm) {
+			                @Override
+			                protected void handleSuccess() {
+			                    drm.setData(getData());
+			                    drm.done();
+			                }
+			            });
+			    }
+			    else if (memoryService != null) {
 			        // Go for it
 			        memoryService.getMemory( 
 			        	context, address, 0, addressableSize, (int) length,
@@ -173,7 +188,11 @@ public class GdbMemoryBlock extends DsfMemoryBlock implements IMemorySpaceAwareM
         retrieval.getExecutor().execute(query);
 
 		try {
-            return query.get();
+            Object data = query.get();
+            if (data instanceof MemoryData) {
+                return ((MemoryData) data).toMemoryBytes();
+            }
+            return (MemoryByte[]) data;
         } catch (InterruptedException e) {
     		throw new DebugException(new Status(IStatus.ERROR, GdbPlugin.PLUGIN_ID, DebugException.INTERNAL_ERROR, Messages.Err_MemoryReadFailed, e));
         } catch (ExecutionException e) {
@@ -21,12 +21,12 @@ import org.eclipse.cdt.dsf.datamodel.IDMContext;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
 import org.eclipse.cdt.dsf.debug.service.IMemorySpaces.IMemorySpaceDMContext;
 import org.eclipse.cdt.dsf.debug.service.IRunControl;
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
 import org.eclipse.cdt.dsf.gdb.internal.memory.GdbMemoryBlock.MemorySpaceDMContext;
 import org.eclipse.cdt.dsf.mi.service.IMIContainerDMContext;
 import org.eclipse.cdt.dsf.mi.service.IMIExecutionDMContext;
 import org.eclipse.cdt.dsf.mi.service.MIMemory;
 import org.eclipse.cdt.dsf.service.DsfSession;
-import org.eclipse.debug.core.model.MemoryByte;
 
 public class GDBMemory_7_0 extends MIMemory {
 
@@ -58,8 +58,8 @@ public class GDBMemory_7_0 extends MIMemory {
 	}
 
 	@Override
-	protected void readMemoryBlock(IDMContext dmc, IAddress address, long offset,
-			int word_size, int count, DataRequestMonitor<MemoryByte[]> drm)
+	protected void readMemoryData(IDMContext dmc, IAddress address, long offset,
+			int word_size, int count, DataRequestMonitor<MemoryData> drm)
 	{
 		IDMContext threadOrMemoryDmc = dmc;
 
@@ -96,7 +96,7 @@ public class GDBMemory_7_0 extends MIMemory {
 			}
 		}
 
-		super.readMemoryBlock(threadOrMemoryDmc, address, offset, word_size, count, drm);
+		super.readMemoryData(threadOrMemoryDmc, address, offset, word_size, count, drm);
 	}
 
 	@Override
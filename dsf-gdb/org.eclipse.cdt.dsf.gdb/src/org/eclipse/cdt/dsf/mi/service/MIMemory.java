@@ -14,10 +14,10 @@
  *******************************************************************************/
 package org.eclipse.cdt.dsf.mi.service;
 
+import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Hashtable;
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.cdt.core.IAddress;
@@ -34,11 +34,13 @@ import org.eclipse.cdt.dsf.debug.service.IExpressions;
 import org.eclipse.cdt.dsf.debug.service.IExpressions.IExpressionDMAddress;
 import org.eclipse.cdt.dsf.debug.service.IExpressions.IExpressionDMContext;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
+import org.eclipse.cdt.dsf.debug.service.IMemory2;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IContainerResumedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IContainerSuspendedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.IResumedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.ISuspendedDMEvent;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.StateChangeReason;
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
 import org.eclipse.cdt.dsf.debug.service.command.BufferedCommandControl;
 import org.eclipse.cdt.dsf.debug.service.command.CommandCache;
 import org.eclipse.cdt.dsf.gdb.internal.GdbPlugin;
@@ -60,9 +62,13 @@ import org.osgi.framework.BundleContext;
 /**
  * Memory service implementation
  */
-public class MIMemory extends AbstractDsfService implements IMemory, ICachingService {
+public class MIMemory extends AbstractDsfService implements IMemory2, ICachingService {
 
 	private static final String READ_MEMORY_BYTES_FEATURE = "data-read-memory-bytes"; //$NON-NLS-1$
+
+	// System properties to configure the memory caches
+	private static final String CACHE_BUDGET_PROPERTY = "org.eclipse.cdt.dsf.gdb.memoryCacheBudget"; //$NON-NLS-1$
+	private static final String CACHE_PAGE_SIZE_PROPERTY = "org.eclipse.cdt.dsf.gdb.memoryCachePageSize"; //$NON-NLS-1$
 	
     public class MemoryChangedEvent extends AbstractDMEvent<IMemoryDMContext> 
         implements IMemoryChangedEvent 
@@ -80,6 +86,64 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
         }
     }
 
+    /**
+     * Statistics of the memory cache of a memory context.
+     * @since 4.1
+     */
+    public static class MemoryCacheStatistics {
+    	private final long fHits;
+    	private final long fMisses;
+    	private final long fFetchedBytes;
+    	private final long fEvictions;
+    	private final long fCachedBytes;
+    	private final int fBlockCount;
+
+    	MemoryCacheStatistics(long hits, long misses, long fetchedBytes, long evictions, long cachedBytes, int blockCount) {
+    		fHits = hits;
+    		fMisses = misses;
+    		fFetchedBytes = fetchedBytes;
+    		fEvictions = evictions;
+    		fCachedBytes = cachedBytes;
+    		fBlockCount = blockCount;
+    	}
+
+    	/** Number of read requests that were served from the cache only */
+    	public long getHits() {
+    		return fHits;
+    	}
+
+    	/** Number of read requests that needed to fetch memory from the target */
+    	public long getMisses() {
+    		return fMisses;
+    	}
+
+    	/** Number of bytes fetched from the target to fill the cache */
+    	public long getFetchedBytes() {
+    		return fFetchedBytes;
+    	}
+
+    	/** Number of blocks evicted from the cache because it exceeded its budget */
+    	public long getEvictions() {
+    		return fEvictions;
+    	}
+
+    	/** Number of bytes currently cached */
+    	public long getCachedBytes() {
+    		return fCachedBytes;
+    	}
+
+    	/** Number of blocks of contiguous memory currently cached */
+    	public int getBlockCount() {
+    		return fBlockCount;
+    	}
+
+    	@Override
+    	public String toString() {
+    		return "hits=" + fHits + ", misses=" + fMisses + ", fetched=" + fFetchedBytes + ", evictions=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    				+ fEvictions + ", cached=" + fCachedBytes + " bytes in " + fBlockCount + " blocks"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    	}
+    }
+
 	// Back-end commands cache
 	private CommandCache fCommandCache;
 	private CommandFactory fCommandFactory;
@@ -99,6 +163,15 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     // Whether the -data-read-memory-bytes should be used
     // instead of -data-read-memory
     private boolean fDataReadMemoryBytes;
+
+    // Alignment of the memory fetched for the caches and the number of bytes each cache may keep.
+    // Memory is padded to the alignment only if a page size above one is configured.
+    private final int fMemoryCachePageSize =
+    	Math.max(1, Integer.getInteger(CACHE_PAGE_SIZE_PROPERTY, MemoryBlockCache.DEFAULT_PAGE_SIZE));
+    private long fMemoryCacheBudget = Long.getLong(CACHE_BUDGET_PROPERTY, MemoryBlockCache.DEFAULT_BUDGET);
+
+    // Whether a subclass still overrides readMemoryBlock rather than readMemoryData
+    private final boolean fReadMemoryBlockOverridden = isReadMemoryBlockOverridden();
     
 	/**
 	 *  Constructor 
@@ -200,7 +273,24 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
      * @see org.eclipse.cdt.dsf.debug.service.IMemory#getMemory(org.eclipse.cdt.dsf.datamodel.IDMContext, org.eclipse.cdt.core.IAddress, long, int, org.eclipse.cdt.dsf.concurrent.DataRequestMonitor)
      */
     public void getMemory(IMemoryDMContext memoryDMC, IAddress address, long offset,
-    		int word_size, int count, DataRequestMonitor<MemoryByte[]> drm)
+    		int word_size, int count, final DataRequestMonitor<MemoryByte[]> drm)
+	{
+    	getMemoryData(memoryDMC, address, offset, word_size, count,
+    		new DataRequestMonitor<MemoryData>(ImmediateExecutor.getInstance(), drm) {
+    			@Override
+    			protected void handleSuccess() {
+    				drm.setData(getData().toMemoryBytes());
+    				drm.done();
+    			}
+    		});
+	}
+
+    /**
+     * {@inheritDoc}
+     * @since 4.1
+     */
+    public void getMemoryData(IMemoryDMContext memoryDMC, IAddress address, long offset,
+    		int word_size, int count, DataRequestMonitor<MemoryData> drm)
 	{
         // Validate the context
         if (memoryDMC == null) {
@@ -318,6 +408,11 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     ///////////////////////////////////////////////////////////////////////
 
     /**
+     * Reads memory from the back-end, see {@link #readMemoryData}. The memory cache
+     * reads through {@link #readMemoryData}, subclasses should override that method.
+     * For compatibility, {@link #readMemoryData} calls this method if a subclass
+     * overrides it.
+     * 
      * @param memoryDMC
      * @param address
      * @param offset
@@ -329,6 +424,50 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
      */
     protected void readMemoryBlock(IDMContext dmc, IAddress address, final long offset,
     		final int word_size, final int count, final DataRequestMonitor<MemoryByte[]> drm)
+    {
+    	readMemoryFromBackend(dmc, address, offset, word_size, count,
+    		new DataRequestMonitor<MemoryData>(ImmediateExecutor.getInstance(), drm) {
+    			@Override
+    			protected void handleSuccess() {
+    				drm.setData(getData().toMemoryBytes());
+    				drm.done();
+    			}
+    		});
+    }
+
+    /**
+     * Reads memory from the back-end. Bytes that cannot be read are marked as unreadable,
+     * the request does not fail because of them. If a subclass overrides
+     * {@link #readMemoryBlock}, the memory is read through that method.
+     * 
+     * @param dmc
+     * @param address
+     * @param offset
+     * @param word_size
+     * @param count
+     * @param drm
+     * 
+     * @since 4.1
+     */
+    protected void readMemoryData(IDMContext dmc, IAddress address, final long offset,
+    		final int word_size, final int count, final DataRequestMonitor<MemoryData> drm)
+    {
+    	if (fReadMemoryBlockOverridden) {
+    		readMemoryBlock(dmc, address, offset, word_size, count,
+    			new DataRequestMonitor<MemoryByte[]>(ImmediateExecutor.getInstance(), drm) {
+    				@Override
+    				protected void handleSuccess() {
+    					drm.setData(MemoryData.fromMemoryBytes(getData()));
+    					drm.done();
+    				}
+    			});
+    	} else {
+    		readMemoryFromBackend(dmc, address, offset, word_size, count, drm);
+    	}
+    }
+
+    private void readMemoryFromBackend(IDMContext dmc, IAddress address, final long offset,
+    		final int word_size, final int count, final DataRequestMonitor<MemoryData> drm)
     {
     	if (fDataReadMemoryBytes) {
     		fCommandCache.execute(
@@ -337,12 +476,13 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     				@Override
     				protected void handleSuccess() {
     					// Retrieve the memory block
-    					drm.setData(getData().getMIMemoryBlock());
+    					drm.setData(getData().getMemoryData());
     					drm.done();
     				}
     				@Override
     				protected void handleFailure() {
-    					drm.setData(createInvalidBlock(word_size * count));
+    					// Bug234289: If memory read fails, return a block marked as invalid
+    					drm.setData(new MemoryData(word_size * count));
     					drm.done();
     				}    					
     			});
@@ -361,26 +501,31 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     				@Override
     				protected void handleSuccess() {
     					// Retrieve the memory block
-    					drm.setData(getData().getMIMemoryBlock());
+    					drm.setData(getData().getMemoryData());
     					drm.done();
     				}
     				@Override
     				protected void handleFailure() {
-    					drm.setData(createInvalidBlock(word_size * count));
+    					// Bug234289: If memory read fails, return a block marked as invalid
+    					drm.setData(new MemoryData(word_size * count));
     					drm.done();
     				}
     			}
     		);
     	}
     }
-    
-	private MemoryByte[] createInvalidBlock(int size) {
-		// Bug234289: If memory read fails, return a block marked as invalid
-		MemoryByte[] block = new MemoryByte[size];
-		for (int i = 0; i < block.length; i++)
-			block[i] = new MemoryByte((byte) 0, (byte) 0);
-		return block;
-	}
+
+    private boolean isReadMemoryBlockOverridden() {
+    	for (Class<?> c = getClass(); c != MIMemory.class; c = c.getSuperclass()) {
+    		try {
+    			c.getDeclaredMethod("readMemoryBlock", IDMContext.class, IAddress.class, long.class, //$NON-NLS-1$
+    					int.class, int.class, DataRequestMonitor.class);
+    			return true;
+    		} catch (NoSuchMethodException e) {
+    		}
+    	}
+    	return false;
+    }
 
     /**
      * @param memoryDMC
@@ -508,343 +653,85 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 		}
 	}
 
-	///////////////////////////////////////////////////////////////////////////
-	// SortedLinkedlist
-	///////////////////////////////////////////////////////////////////////////
-
-	// This class is really the equivalent of a C struct (old habits die hard...)
-   	// For simplicity, everything is public.
-   	private class MemoryBlock {
-		public IAddress fAddress;
-		public long fLength;
-		public MemoryByte[] fBlock;
-		public MemoryBlock(IAddress address, long length, MemoryByte[] block) {
-			fAddress = address;
-			fLength = length;
-			fBlock = block;
-		}
-	}
-
-   	// Address-ordered data structure to cache the memory blocks.
-   	// Contiguous blocks are merged if possible.
-	@SuppressWarnings("serial")
-	private class SortedMemoryBlockList extends LinkedList<MemoryBlock> {
-
-		public SortedMemoryBlockList() {
-			super();
-		}
-
-		// Insert the block in the sorted linked list and merge contiguous
-		// blocks if necessary
-		@Override
-		public boolean add(MemoryBlock block) {
-
-			// If the list is empty, just store the block
-			if (isEmpty()) {
-				addFirst(block);
-				return true;
-			}
-
-			// Insert the block at the correct location and then
-			// merge the blocks if possible
-			ListIterator<MemoryBlock> it = listIterator();
-			while (it.hasNext()) {
-				int index = it.nextIndex();
-				MemoryBlock item = it.next();
-				if (block.fAddress.compareTo(item.fAddress) < 0) {
-					add(index, block);
-					compact(index);
-					return true;
-				}
-			}
-
-			// Put at the end of the list and merge if necessary 
-			addLast(block);
-			compact(size() - 1);
-			return true;
-		}
-
-		// Merge this block with its contiguous neighbors (if any)
-		// Note: Merge is not performed if resulting block size would exceed MAXINT
-		private void compact(int index) {
-
-			MemoryBlock newBlock = get(index); 
-
-			// Case where the block is to be merged with the previous block
-			if (index > 0) {
-				MemoryBlock prevBlock = get(index - 1);
-				IAddress endOfPreviousBlock = prevBlock.fAddress.add(prevBlock.fLength);
-				if (endOfPreviousBlock.distanceTo(newBlock.fAddress).longValue() == 0) {
-					long newLength = prevBlock.fLength + newBlock.fLength;
-					if (newLength <= Integer.MAX_VALUE) {
-						MemoryByte[] block = new MemoryByte[(int) newLength] ;
-						System.arraycopy(prevBlock.fBlock, 0, block, 0, (int) prevBlock.fLength);
-						System.arraycopy(newBlock.fBlock, 0, block, (int) prevBlock.fLength, (int) newBlock.fLength);
-						newBlock = new MemoryBlock(prevBlock.fAddress, newLength, block);
-						remove(index);
-						index -= 1;
-						set(index, newBlock);
-					}
-				}
-			}
-
-			// Case where the block is to be merged with the following block
-			int lastIndex = size() - 1;
-			if (index < lastIndex) {
-				MemoryBlock nextBlock = get(index + 1);
-				IAddress endOfNewBlock = newBlock.fAddress.add(newBlock.fLength);
-				if (endOfNewBlock.distanceTo(nextBlock.fAddress).longValue() == 0) {
-					long newLength = newBlock.fLength + nextBlock.fLength;
-					if (newLength <= Integer.MAX_VALUE) {
-						MemoryByte[] block = new MemoryByte[(int) newLength] ;
-						System.arraycopy(newBlock.fBlock, 0, block, 0, (int) newBlock.fLength);
-						System.arraycopy(nextBlock.fBlock, 0, block, (int) newBlock.fLength, (int) nextBlock.fLength);
-						newBlock = new MemoryBlock(newBlock.fAddress, newLength, block);
-						set(index, newBlock);
-						remove(index + 1);
-					}
-				}
-			}
-		}
-	}
-
 	///////////////////////////////////////////////////////////////////////////
 	// MIMemoryCache
 	///////////////////////////////////////////////////////////////////////////
 
 	private class MIMemoryCache {
 		// The memory cache data structure
-		private SortedMemoryBlockList fMemoryBlockList;
+		private final MemoryBlockCache fCache;
 
 		public MIMemoryCache() {
 	    	// Create the memory block cache
-	    	fMemoryBlockList = new SortedMemoryBlockList();
+			fCache = new MemoryBlockCache(fMemoryCachePageSize, fMemoryCacheBudget);
 		}
 
 		public void reset() {
 	    	// Clear the memory cache
-	    	fMemoryBlockList.clear();
+			fCache.clear();
 		}
 
-	    /**
- 	     *  This function walks the address-sorted memory block list to identify
-	     *  the 'missing' blocks (i.e. the holes) that need to be fetched on the target.
-	     * 
-	     *  The idea is fairly simple but an illustration could perhaps help.
-	     *  Assume the cache holds a number of cached memory blocks with gaps i.e.
-	     *  there is un-cached memory areas between blocks A, B and C:
-	     * 
-	     *        +---------+      +---------+      +---------+
-	     *        +    A    +      +    B    +      +    C    +
-	     *        +---------+      +---------+      +---------+
-	     *        :         :      :         :      :         :
-	     *   [a]  :         :  [b] :         :  [c] :         :  [d]
-	     *        :         :      :         :      :         :
-	     *   [e---+--]      :  [f--+---------+--]   :         :
-	     *   [g---+---------+------+---------+------+---------+----]
-	     *        :         :      :         :      :         :
-	     *        :   [h]   :      :   [i----+--]   :         :
-	     * 
-	     * 
-	     *  We have the following cases to consider.The requested block [a-i] either:
-	     * 
-	     *  [1] Fits entirely before A, in one of the gaps, or after C
-	     *      with no overlap and no contiguousness (e.g. [a], [b], [c] and [d])
-	     *      -> Add the requested block to the list of blocks to fetch
-	     * 
-	     *  [2] Starts before an existing block but overlaps part of it, possibly
-	     *      spilling in the gap following the cached block (e.g. [e], [f] and [g])
-	     *      -> Determine the length of the missing part (< count)
-	     *      -> Add a request to fill the gap before the existing block
-	     *      -> Update the requested block for the next iteration:
-	     *         - Start address to point just after the end of the cached block
-	     *         - Count reduced by cached block length (possibly becoming negative, e.g. [e])
-	     *      At this point, the updated requested block starts just beyond the cached block
-	     *      for the next iteration.
-	     * 
-	     *  [3] Starts at or into an existing block and overlaps part of it ([h] and [i])
-	     *      -> Update the requested block for the next iteration:
-	     *         - Start address to point just after the end of the cached block
-	     *         - Count reduced by length to end of cached block (possibly becoming negative, e.g. [h])
-	     *      At this point, the updated requested block starts just beyond the cached block
-	     *      for the next iteration.
-	     * 
-	     *  We iterate over the cached blocks list until there is no entry left or until
-	     *  the remaining requested block count is <= 0, meaning the result list contains
-	     *  only the sub-blocks needed to fill the gap(s), if any.
-	     * 
-	     *  (As is often the case, it takes much more typing to explain it than to just do it :-)
-	     *
-	     *  What is missing is a parameter that indicates the minimal block size that is worth fetching.
-	     *  This is target-specific and straight in the realm of the coalescing function... 
-	     *  
-	     * @param reqBlockStart The address of the requested block
-	     * @param count Its length
-	     * @return A list of the sub-blocks to fetch in order to fill enough gaps in the memory cache
-	     * to service the request
-	     */
-	    private LinkedList<MemoryBlock> getListOfMissingBlocks(IAddress reqBlockStart, int count) {
-
-			LinkedList<MemoryBlock> list = new LinkedList<MemoryBlock>();
-			ListIterator<MemoryBlock> it = fMemoryBlockList.listIterator();
-
-			// Look for holes in the list of memory blocks
-			while (it.hasNext() && count > 0) {
-				MemoryBlock cachedBlock = it.next();
-				IAddress cachedBlockStart = cachedBlock.fAddress;
-				IAddress cachedBlockEnd   = cachedBlock.fAddress.add(cachedBlock.fLength);
-
-				// Case where we miss a block before the cached block
-				if (reqBlockStart.distanceTo(cachedBlockStart).longValue() >= 0) {
-					int length = (int) Math.min(reqBlockStart.distanceTo(cachedBlockStart).longValue(), count);
-					// If both blocks start at the same location, no need to create a new cached block
-					if (length > 0) {
-						MemoryBlock newBlock = new MemoryBlock(reqBlockStart, length, new MemoryByte[0]);
-						list.add(newBlock);
-					}
-					// Adjust request block start and length for the next iteration
-					reqBlockStart = cachedBlockEnd;
-					count -= length + cachedBlock.fLength;
-				}
-
-				// Case where the requested block starts somewhere in the cached block
-				else if (cachedBlockStart.distanceTo(reqBlockStart).longValue() > 0
-					&&  reqBlockStart.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					// Start of the requested block already in cache
-					// Adjust request block start and length for the next iteration
-					count -= reqBlockStart.distanceTo(cachedBlockEnd).longValue();
-					reqBlockStart = cachedBlockEnd;
-				}
-			}
-
-			// Case where we miss a block at the end of the cache
-			if (count > 0) {
-				MemoryBlock newBlock = new MemoryBlock(reqBlockStart, count, new MemoryByte[0]);
-				list.add(newBlock);
-			}
-			
-			return list;
+		public MemoryCacheStatistics getStatistics() {
+			return new MemoryCacheStatistics(fCache.getHits(), fCache.getMisses(), fCache.getFetchedBytes(),
+					fCache.getEvictions(), fCache.getSize(), fCache.getBlockCount());
 		}
 
-	    /**
-	     *  This function walks the address-sorted memory block list to get the
-	     *  cached memory bytes (possibly from multiple contiguous blocks).
-	     *  This function is called *after* the missing blocks have been read from
-	     *  the back end i.e. the requested memory is all cached. 
-	     *
-	     *  Again, this is fairly simple. As we loop over the address-ordered list,
-	     *  There are really only 2 cases:
-	     *
-	     *  [1] The requested block fits entirely in the cached block ([a] or [b])
-	     *  [2] The requested block starts in a cached block and ends in the
-	     *      following (contiguous) one ([c]) in which case it is treated
-	     *      as 2 contiguous requests ([c'] and [c"])
-	     *
-	     *       +--------------+--------------+
-	     *       +       A      +      B       +
-	     *       +--------------+--------------+
-	     *       :  [a----]     :   [b-----]   :
-	     *       :              :              :
-	     *       :       [c-----+------]       :
-	     *       :       [c'---]+[c"---]       :
-		 *
-	     * @param reqBlockStart The address of the requested block
-	     * @param count Its length
-	     * @return The cached memory content
-	     */
-	    private MemoryByte[] getMemoryBlockFromCache(IAddress reqBlockStart, int count) {
-
-			IAddress reqBlockEnd = reqBlockStart.add(count);
-			MemoryByte[] resultBlock = new MemoryByte[count];
-			ListIterator<MemoryBlock> iter = fMemoryBlockList.listIterator();
-
-			while (iter.hasNext()) {
-				MemoryBlock cachedBlock = iter.next();
-				IAddress cachedBlockStart = cachedBlock.fAddress;
-				IAddress cachedBlockEnd   = cachedBlock.fAddress.add(cachedBlock.fLength);
-
-				// Case where the cached block overlaps completely the requested memory block  
-				if (cachedBlockStart.distanceTo(reqBlockStart).longValue() >= 0
-					&& reqBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(reqBlockStart).longValue();
-					System.arraycopy(cachedBlock.fBlock, pos, resultBlock, 0, count);
-				}
-				
-				// Case where the beginning of the cached block is within the requested memory block  
-				else if (reqBlockStart.distanceTo(cachedBlockStart).longValue() >= 0
-					&& cachedBlockStart.distanceTo(reqBlockEnd).longValue() > 0)
-				{
-					int pos = (int) reqBlockStart.distanceTo(cachedBlockStart).longValue();
-					int length = (int) Math.min(cachedBlock.fLength, count - pos);
-					System.arraycopy(cachedBlock.fBlock, 0, resultBlock, pos, length);
-				}
-				
-				// Case where the end of the cached block is within the requested memory block  
-				else if (cachedBlockStart.distanceTo(reqBlockStart).longValue() >= 0
-					&& reqBlockStart.distanceTo(cachedBlockEnd).longValue() > 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(reqBlockStart).longValue();
-					int length = (int) Math.min(cachedBlock.fLength - pos, count);
-					System.arraycopy(cachedBlock.fBlock, pos, resultBlock, 0, length);
-				}
- 			}
-			return resultBlock;
+		public void setBudget(long budget) {
+			fCache.setBudget(budget);
 		}
 
-		/**
-	     *  This function walks the address-sorted memory block list and updates
-	     *  the content with the actual memory just read from the target.
+	    /**
+	     * Reads a range of memory that is missing in the cache, stores it in the cache and copies
+	     * the requested part of it into the result.
 	     * 
-		 * @param modBlockStart
-		 * @param count
-		 * @param modBlock
-		 */
-		private void updateMemoryCache(IAddress modBlockStart, int count, MemoryByte[] modBlock) {
-			
-			IAddress modBlockEnd = modBlockStart.add(count);
-			ListIterator<MemoryBlock> iter = fMemoryBlockList.listIterator();
-
-			while (iter.hasNext()) {
-				MemoryBlock cachedBlock = iter.next();
-				IAddress cachedBlockStart = cachedBlock.fAddress;
-				IAddress cachedBlockEnd   = cachedBlock.fAddress.add(cachedBlock.fLength);
-				
-				// For now, we only bother to update bytes already cached.
-				// Note: In a better implementation (v1.1), we would augment
-				// the cache with the missing memory blocks since we went 
-				// through the pains of reading them in the first place.
-				// (this is left as an exercise to the reader :-)
-
-				// Case where the modified block is completely included in the cached block  
-				if (cachedBlockStart.distanceTo(modBlockStart).longValue() >= 0
-					&& modBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(modBlockStart).longValue();
-					System.arraycopy(modBlock, 0, cachedBlock.fBlock, pos, count);
-				}
-				
-				// Case where the beginning of the modified block is within the cached block  
-				else if (cachedBlockStart.distanceTo(modBlockStart).longValue() >= 0
-					&& modBlockStart.distanceTo(cachedBlockEnd).longValue() > 0)
-				{
-					int pos = (int) cachedBlockStart.distanceTo(modBlockStart).longValue();
-					int length = (int) cachedBlockStart.distanceTo(modBlockEnd).longValue();
-					System.arraycopy(modBlock, 0, cachedBlock.fBlock, pos, length);
-				}
-				
-				// Case where the end of the modified block is within the cached block  
-				else if (cachedBlockStart.distanceTo(modBlockEnd).longValue() > 0
-					&& modBlockEnd.distanceTo(cachedBlockEnd).longValue() >= 0)
-				{
-					int pos = (int) modBlockStart.distanceTo(cachedBlockStart).longValue();
-					int length = (int) cachedBlockStart.distanceTo(modBlockEnd).longValue();
-					System.arraycopy(modBlock, pos, cachedBlock.fBlock, 0, length);
-				}
- 			}
-			return;
-		}
+	     * If padding is enabled, the range is padded to page boundaries. If the padding reaches
+	     * memory that cannot be read, back-ends that fail the entire read return invalid bytes
+	     * only. In that case the requested part is read again without the padding.
+	     * 
+	     * @param memoryDMC
+	     * @param address	the address of the request
+	     * @param rangeStart	the start of the range to read
+	     * @param length	the length of the range to read
+	     * @param word_size	the size, in bytes, of an addressable item
+	     * @param result	the buffer for the request
+	     * @param rm		the asynchronous request monitor
+	     */
+	    private void readMissingRange(final IMemoryDMContext memoryDMC, final IAddress address,
+	    		final BigInteger rangeStart, final int length, final int word_size, final MemoryData result,
+	    		final RequestMonitor rm)
+	    {
+	    	final BigInteger reqStart = address.getValue();
+	    	readMemoryData(memoryDMC, address.add(rangeStart.subtract(reqStart)), 0, word_size, length,
+	    			new DataRequestMonitor<MemoryData>(getExecutor(), rm) {
+	    				@Override
+	    				protected void handleSuccess() {
+	    					MemoryData block = getData();
+	    					BigInteger rangeEnd = rangeStart.add(BigInteger.valueOf(block.getLength()));
+	    					BigInteger from = rangeStart.max(reqStart);
+	    					BigInteger to = rangeEnd.min(reqStart.add(BigInteger.valueOf(result.getLength())));
+	    					if (block.getLength() == 0 || from.compareTo(to) >= 0) {
+	    						rm.done();
+	    						return;
+	    					}
+	    					if ((!from.equals(rangeStart) || !to.equals(rangeEnd)) && isInvalid(block)) {
+	    						readMissingRange(memoryDMC, address, from, to.subtract(from).intValue(), word_size, result, rm);
+	    						return;
+	    					}
+	    					fCache.put(rangeStart, block);
+	    					result.put(from.subtract(reqStart).intValue(), block, from.subtract(rangeStart).intValue(),
+	    							to.subtract(from).intValue());
+	    					rm.done();
+	    				}
+	    			});
+	    }
+
+	    private boolean isInvalid(MemoryData block) {
+	    	for (int i = 0; i < block.getLength(); i++) {
+	    		if (block.isReadable(i))
+	    			return false;
+	    	}
+	    	return true;
+	    }
 
 	    /**
 		 * @param memoryDMC
@@ -854,11 +741,18 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	     * @param drm		the asynchronous data request monitor
 	     */
 	    public void getMemory(IMemoryDMContext memoryDMC, final IAddress address, final int word_size, 
-	    		final int count, final DataRequestMonitor<MemoryByte[]> drm)
+	    		final int count, final DataRequestMonitor<MemoryData> drm)
 	    {
 	    	// Determine the number of read requests to issue 
-	    	LinkedList<MemoryBlock> missingBlocks = getListOfMissingBlocks(address, count);
-	    	int numberOfRequests = missingBlocks.size();
+	    	BigInteger start = address.getValue();
+	    	List<MemoryBlockCache.Range> missingRanges =
+	    		fCache.getMissingRanges(start, count, address.getMaxOffset().add(BigInteger.ONE));
+	    	int numberOfRequests = missingRanges.size();
+
+	    	// Take the cached part of the result right away, the fetched ranges are copied in
+	    	// as they arrive. This way the result does not depend on the fetched blocks to
+	    	// survive in the cache until the last one has been read.
+	    	final MemoryData result = fCache.get(start, count);
 
 	    	// A read request will be issued for each block needed
 	    	// so we need to keep track of the count
@@ -866,29 +760,16 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	        	new CountingRequestMonitor(getExecutor(), drm) { 
 	                @Override
 	                protected void handleSuccess() {
-	                	// We received everything so read the result from the memory cache
-	                	drm.setData(getMemoryBlockFromCache(address, count));
+	                	// We received everything
+	                	drm.setData(result);
 	                    drm.done();
 	                }
 	            };
 	       	countingRM.setDoneCount(numberOfRequests);
 
 	        // Issue the read requests
-	        for (int i = 0; i < numberOfRequests; i++) {
-	        	MemoryBlock block = missingBlocks.get(i);
-	        	final IAddress startAddress = block.fAddress;
-	        	final int length = (int) block.fLength;
-		        readMemoryBlock(memoryDMC, startAddress, 0, word_size, length,
-					    new DataRequestMonitor<MemoryByte[]>(getSession().getExecutor(), drm) {
-					    	@Override
-					    	protected void handleSuccess() {
-					    		MemoryByte[] block = new MemoryByte[count];
-					    		block = getData();
-					    		MemoryBlock memoryBlock = new MemoryBlock(startAddress, length, block);
-					    		fMemoryBlockList.add(memoryBlock);
-					    		countingRM.done();
-					    	}
-					    });
+	        for (MemoryBlockCache.Range range : missingRanges) {
+	        	readMissingRange(memoryDMC, address, range.fStart, range.fLength, word_size, result, countingRM);
 	        }
 	    }
 
@@ -915,11 +796,11 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 						fCommandCache.reset();
 
 				    	// Re-read the modified memory block to asynchronously update of the memory cache
-				        readMemoryBlock(memoryDMC, address, offset, word_size, count,
-					        new DataRequestMonitor<MemoryByte[]>(getExecutor(), rm) { 
+				        readMemoryData(memoryDMC, address, offset, word_size, count,
+					        new DataRequestMonitor<MemoryData>(getExecutor(), rm) { 
 					        	@Override
 	                            protected void handleSuccess() {
-									updateMemoryCache(address.add(offset), count, getData());
+					        		fCache.update(address.add(offset).getValue(), getData());
 									// Send the MemoryChangedEvent
 									IAddress[] addresses = new IAddress[count];
 									for (int i = 0; i < count; i++) {
@@ -947,14 +828,9 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 	   {
 		   // Check if we already cache part of this memory area (which means it
 		   // is used by a memory service client that will have to be updated)
-		   LinkedList<MemoryBlock> list = getListOfMissingBlocks(address, count);
-		   int sizeToRead = 0;
-		   for (MemoryBlock block : list) {
-			   sizeToRead += block.fLength;
-		   }
-
-		   // If none of the requested memory is in cache, just get out
-		   if (sizeToRead == count) {
+		   final BigInteger start = address.getValue();
+		   if (!fCache.intersects(start, count)) {
+			   // None of the requested memory is in cache, just get out
 			   rm.done();
 			   return;
 		   }
@@ -967,21 +843,23 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
 
 		   // Read the corresponding memory block
 		   fCommandCache.reset();
-		   readMemoryBlock(memoryDMC, address, 0, 1, count,
-				   new DataRequestMonitor<MemoryByte[]>(getExecutor(), rm) {
+		   readMemoryData(memoryDMC, address, 0, 1, count,
+				   new DataRequestMonitor<MemoryData>(getExecutor(), rm) {
 					   @Override
 					   protected void handleSuccess() {
-						   MemoryByte[] oldBlock = getMemoryBlockFromCache(address, count);
-						   MemoryByte[] newBlock = getData();
+						   MemoryData oldBlock = fCache.get(start, count);
+						   MemoryData newBlock = getData();
 						   boolean blocksDiffer = false;
-						   for (int i = 0; i < oldBlock.length; i++) {
-						       if (oldBlock[i].getValue() != newBlock[i].getValue()) {
+						   int length = Math.min(oldBlock.getLength(), newBlock.getLength());
+						   for (int i = 0; i < length; i++) {
+							   // Only the cached bytes are of interest, the others are unreadable in the old block
+						       if (oldBlock.isReadable(i) && (!newBlock.isReadable(i) || oldBlock.getByte(i) != newBlock.getByte(i))) {
 						          blocksDiffer = true;
 						          break;
 						       }
 						   }
 						   if (blocksDiffer) {
-							   updateMemoryCache(address, count, newBlock);
+							   fCache.update(start, newBlock);
 							   getSession().dispatchEvent(new MemoryChangedEvent(memoryDMC, addresses), getProperties());
 						   }
 						   rm.done();
@@ -1008,4 +886,34 @@ public class MIMemory extends AbstractDsfService implements IMemory, ICachingSer
     		fMemoryCaches.get(memoryDMC).reset();
     	}
     }
+
+    /**
+     * Sets the number of bytes the cache of each memory context may keep. When the budget is
+     * exceeded, the least recently used memory is evicted. The default budget can be changed
+     * with the system property <code>org.eclipse.cdt.dsf.gdb.memoryCacheBudget</code>.
+     * <p>
+     * This method must be called on the executor of the session.
+     * 
+     * @param bytes the budget in bytes
+     * @since 4.1
+     */
+    public void setMemoryCacheBudget(long bytes) {
+    	fMemoryCacheBudget = bytes;
+    	for (MIMemoryCache cache : fMemoryCaches.values()) {
+    		cache.setBudget(bytes);
+    	}
+    }
+
+    /**
+     * Returns the statistics of the memory cache of the given context, or <code>null</code>
+     * when no memory of the context has been requested.
+     * <p>
+     * This method must be called on the executor of the session.
+     * 
+     * @since 4.1
+     */
+    public MemoryCacheStatistics getMemoryCacheStatistics(IMemoryDMContext memoryDMC) {
+    	MIMemoryCache cache = fMemoryCaches.get(memoryDMC);
+    	return cache == null ? null : cache.getStatistics();
+    }
 }
@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
+
+/**
+ * Cache for the memory of a single memory context. The cached bytes are kept in non-overlapping
+ * blocks, which are sorted by their start address such that the blocks touched by a request are
+ * found in logarithmic time. Adjacent blocks are coalesced up to a maximum block size.
+ * <p>
+ * Missing memory is fetched as requested. With a page size above one, the missing ranges are
+ * padded to page boundaries, such that neighboring requests of a memory view or of the disassembly
+ * do not fragment the cache. The padding is opt-in, because it makes the target read memory that
+ * was not requested. When the cached bytes exceed the budget, the least recently used blocks are
+ * evicted.
+ * <p>
+ * The cache is not thread-safe, it is accessed on the executor of the session only.
+ */
+class MemoryBlockCache {
+	/** Default size of the pages in which memory is fetched, memory is not padded by default */
+	static final int DEFAULT_PAGE_SIZE = 1;
+	/** Default number of bytes to keep in a cache */
+	static final long DEFAULT_BUDGET = 4 * 1024 * 1024;
+	/** Adjacent blocks are not coalesced beyond this size, it is the granularity of the eviction */
+	static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * A range of addresses
+	 */
+	static final class Range {
+		final BigInteger fStart;
+		final int fLength;
+
+		Range(BigInteger start, int length) {
+			fStart = start;
+			fLength = length;
+		}
+
+		@Override
+		public String toString() {
+			return "[0x" + fStart.toString(16) + ", " + fLength + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	/**
+	 * A block of contiguous memory
+	 */
+	private static final class Block {
+		final BigInteger fStart;
+		final BigInteger fEnd;
+		final MemoryData fData;
+
+		Block(BigInteger start, MemoryData data) {
+			fStart = start;
+			fEnd = start.add(BigInteger.valueOf(data.getLength()));
+			fData = data;
+		}
+
+		int length() {
+			return fData.getLength();
+		}
+
+		/**
+		 * Returns the offset of the address relative to the start of the block.
+		 */
+		int offsetOf(BigInteger address) {
+			return address.subtract(fStart).intValue();
+		}
+
+		Block slice(BigInteger start, BigInteger end) {
+			return new Block(start, fData.copy(offsetOf(start), end.subtract(start).intValue()));
+		}
+
+		static Block concat(Block first, Block second) {
+			MemoryData data = new MemoryData(new byte[first.length() + second.length()]);
+			data.put(0, first.fData, 0, first.length());
+			data.put(first.length(), second.fData, 0, second.length());
+			return new Block(first.fStart, data);
+		}
+	}
+
+	private final SortedMap<BigInteger, Block> fBlocks = new TreeMap<BigInteger, Block>();
+	// The same blocks in the order of their use, least recently used first.
+	private final LinkedHashMap<BigInteger, Block> fUsage = new LinkedHashMap<BigInteger, Block>(16, 0.75f, true);
+	private final BigInteger fPageSize;
+	private long fBudget;
+	private long fSize;
+
+	private long fHits;
+	private long fMisses;
+	private long fFetchedBytes;
+	private long fEvictions;
+
+	/**
+	 * @param pageSize the alignment of the ranges that are fetched from the target, 1 for no padding.
+	 * @param budget the number of bytes that can be cached.
+	 */
+	MemoryBlockCache(int pageSize, long budget) {
+		if (pageSize <= 0)
+			throw new IllegalArgumentException("Invalid page size: " + pageSize); //$NON-NLS-1$
+		fPageSize = BigInteger.valueOf(pageSize);
+		fBudget = budget;
+	}
+
+	/**
+	 * Changes the number of bytes that can be cached, evicts blocks if necessary.
+	 */
+	void setBudget(long budget) {
+		fBudget = budget;
+		evict();
+	}
+
+	/**
+	 * Returns the number of bytes that are currently cached.
+	 */
+	long getSize() {
+		return fSize;
+	}
+
+	int getBlockCount() {
+		return fBlocks.size();
+	}
+
+	long getHits() {
+		return fHits;
+	}
+
+	long getMisses() {
+		return fMisses;
+	}
+
+	long getFetchedBytes() {
+		return fFetchedBytes;
+	}
+
+	long getEvictions() {
+		return fEvictions;
+	}
+
+	/**
+	 * Removes all cached memory, the statistics are kept.
+	 */
+	void clear() {
+		fBlocks.clear();
+		fUsage.clear();
+		fSize = 0;
+	}
+
+	/**
+	 * Returns the ranges that need to be fetched from the target in order to serve a request for
+	 * the given range. The ranges are extended to page boundaries, as far as this is possible
+	 * without overlapping cached blocks or exceeding the address space. The request is counted as
+	 * a hit or a miss.
+	 *
+	 * @param start the start of the requested range
+	 * @param count the number of requested bytes
+	 * @param limit the first address beyond the address space of the target
+	 */
+	List<Range> getMissingRanges(BigInteger start, int count, BigInteger limit) {
+		final BigInteger end = start.add(BigInteger.valueOf(count));
+		final List<Range> result = new ArrayList<Range>();
+		BigInteger pos = start;
+		BigInteger lowerBound = BigInteger.ZERO;
+
+		final Block previous = getBlockBefore(start);
+		if (previous != null) {
+			lowerBound = previous.fEnd;
+			pos = pos.max(previous.fEnd);
+		}
+		if (pos.compareTo(end) < 0) {
+			for (Block block : fBlocks.tailMap(pos).values()) {
+				if (block.fStart.compareTo(pos) > 0) {
+					addMissingRange(result, pos, end.min(block.fStart), lowerBound, block.fStart);
+				}
+				pos = block.fEnd;
+				lowerBound = block.fEnd;
+				if (pos.compareTo(end) >= 0)
+					break;
+			}
+			if (pos.compareTo(end) < 0) {
+				addMissingRange(result, pos, end, lowerBound, limit);
+			}
+		}
+
+		if (result.isEmpty()) {
+			fHits++;
+		} else {
+			fMisses++;
+		}
+		return result;
+	}
+
+	private void addMissingRange(List<Range> result, BigInteger start, BigInteger end,
+			BigInteger lowerBound, BigInteger upperBound) {
+		if (fPageSize.equals(BigInteger.ONE)) {
+			result.add(new Range(start, end.subtract(start).intValue()));
+			return;
+		}
+		start = start.subtract(start.mod(fPageSize)).max(lowerBound);
+		final BigInteger endOffset = end.mod(fPageSize);
+		if (endOffset.signum() != 0) {
+			end = end.add(fPageSize).subtract(endOffset);
+		}
+		end = end.min(upperBound);
+		result.add(new Range(start, end.subtract(start).intValue()));
+	}
+
+	/**
+	 * Returns whether any of the bytes in the given range are cached.
+	 */
+	boolean intersects(BigInteger start, int count) {
+		return !getOverlappingBlocks(start, start.add(BigInteger.valueOf(count))).isEmpty();
+	}
+
+	/**
+	 * Returns the cached bytes of the given range. The bytes that are not cached are marked
+	 * as unreadable.
+	 */
+	MemoryData get(BigInteger start, int count) {
+		final BigInteger end = start.add(BigInteger.valueOf(count));
+		final MemoryData result = new MemoryData(count);
+		for (Block block : getOverlappingBlocks(start, end)) {
+			fUsage.get(block.fStart);
+			final BigInteger from = block.fStart.max(start);
+			final int length = block.fEnd.min(end).subtract(from).intValue();
+			result.put(from.subtract(start).intValue(), block.fData, block.offsetOf(from), length);
+		}
+		return result;
+	}
+
+	/**
+	 * Stores memory fetched from the target. Cached bytes in the range are replaced, the block
+	 * is coalesced with its neighbors. The data is copied.
+	 */
+	void put(BigInteger start, MemoryData data) {
+		final int length = data.getLength();
+		if (length == 0)
+			return;
+
+		final BigInteger end = start.add(BigInteger.valueOf(length));
+		fFetchedBytes += length;
+
+		// Cut the range out of the cached blocks.
+		for (Block block : getOverlappingBlocks(start, end)) {
+			removeBlock(block);
+			if (block.fStart.compareTo(start) < 0) {
+				addBlock(block.slice(block.fStart, start));
+			}
+			if (block.fEnd.compareTo(end) > 0) {
+				addBlock(block.slice(end, block.fEnd));
+			}
+		}
+
+		Block block = new Block(start, data.copy(0, length));
+		final Block previous = getBlockBefore(start);
+		if (previous != null && previous.fEnd.equals(start) && previous.length() + length <= MAX_BLOCK_SIZE) {
+			removeBlock(previous);
+			block = Block.concat(previous, block);
+		}
+		final Block next = fBlocks.get(end);
+		if (next != null && block.length() + next.length() <= MAX_BLOCK_SIZE) {
+			removeBlock(next);
+			block = Block.concat(block, next);
+		}
+		addBlock(block);
+		evict();
+	}
+
+	/**
+	 * Updates the cached bytes in the given range, bytes that are not cached are ignored.
+	 */
+	void update(BigInteger start, MemoryData data) {
+		final BigInteger end = start.add(BigInteger.valueOf(data.getLength()));
+		for (Block block : getOverlappingBlocks(start, end)) {
+			final BigInteger from = block.fStart.max(start);
+			final int length = block.fEnd.min(end).subtract(from).intValue();
+			block.fData.put(block.offsetOf(from), data, from.subtract(start).intValue(), length);
+		}
+	}
+
+	/**
+	 * Returns the last block that starts before the given address, or <code>null</code>.
+	 */
+	private Block getBlockBefore(BigInteger address) {
+		final SortedMap<BigInteger, Block> head = fBlocks.headMap(address);
+		return head.isEmpty() ? null : head.get(head.lastKey());
+	}
+
+	/**
+	 * Returns the blocks overlapping the given range, in the order of their addresses.
+	 */
+	private List<Block> getOverlappingBlocks(BigInteger start, BigInteger end) {
+		final List<Block> result = new ArrayList<Block>();
+		final Block previous = getBlockBefore(start);
+		if (previous != null && previous.fEnd.compareTo(start) > 0) {
+			result.add(previous);
+		}
+		for (Block block : fBlocks.tailMap(start).values()) {
+			if (block.fStart.compareTo(end) >= 0)
+				break;
+			result.add(block);
+		}
+		return result;
+	}
+
+	private void addBlock(Block block) {
+		fBlocks.put(block.fStart, block);
+		fUsage.put(block.fStart, block);
+		fSize += block.length();
+	}
+
+	private void removeBlock(Block block) {
+		fBlocks.remove(block.fStart);
+		fUsage.remove(block.fStart);
+		fSize -= block.length();
+	}
+
+	/**
+	 * Removes the least recently used blocks until the cache fits into its budget. The most
+	 * recently used block is always kept, it is needed to serve the current request.
+	 */
+	private void evict() {
+		final Iterator<Block> it = fUsage.values().iterator();
+		while (fSize > fBudget && fUsage.size() > 1) {
+			final Block block = it.next();
+			it.remove();
+			fBlocks.remove(block.fStart);
+			fSize -= block.length();
+			fEvictions++;
+		}
+	}
+}
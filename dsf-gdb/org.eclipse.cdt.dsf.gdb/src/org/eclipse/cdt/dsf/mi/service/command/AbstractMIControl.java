@@ -36,6 +36,7 @@ import org.eclipse.cdt.dsf.debug.service.IRunControl;
 import org.eclipse.cdt.dsf.debug.service.IStack.IFrameDMContext;
 import org.eclipse.cdt.dsf.debug.service.command.ICommand;
 import org.eclipse.cdt.dsf.debug.service.command.ICommandListener;
+import org.eclipse.cdt.dsf.debug.service.command.ICommandListener2;
 import org.eclipse.cdt.dsf.debug.service.command.ICommandResult;
 import org.eclipse.cdt.dsf.debug.service.command.ICommandToken;
 import org.eclipse.cdt.dsf.debug.service.command.IEventListener;
@@ -73,6 +74,8 @@ public abstract class AbstractMIControl extends AbstractDsfService
     implements IMICommandControl
 {
 	private static final String MI_TRACE_IDENTIFIER = " [MI]  "; //$NON-NLS-1$
+	private static final String COMMAND_WINDOW_MIN_PROPERTY = "org.eclipse.cdt.dsf.gdb.commandWindowMin"; //$NON-NLS-1$
+	private static final String COMMAND_WINDOW_MAX_PROPERTY = "org.eclipse.cdt.dsf.gdb.commandWindowMax"; //$NON-NLS-1$
 	
     /*
 	 *  Thread control variables for the transmit and receive threads.
@@ -117,6 +120,12 @@ public abstract class AbstractMIControl extends AbstractDsfService
     
     private final List<CommandHandle> fCommandQueue = new ArrayList<CommandHandle>();
 
+    /**
+     *   Number of commands which may be on the wire to the backend, it adapts to the
+     *   latency of the backend.
+     */
+    private final CommandWindow fCommandWindow = createCommandWindow();
+
     /**
      * Flag indicating that the command control has stopped processing commands.
      */
@@ -315,7 +324,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
             rm.done();
         } else {
         	/*
-        	 *  We only allow three outstanding commands to be on the wire to the backend
+        	 *  We only allow a window of outstanding commands to be on the wire to the backend
         	 *  at any one time. This allows for coalescing as well as canceling
         	 *  existing commands on a state change. So we add it to the waiting list and let
         	 *  the user know they can now work with this item if need be.
@@ -323,12 +332,14 @@ public abstract class AbstractMIControl extends AbstractDsfService
         	fCommandQueue.add(handle);
             processCommandQueued(handle);
             
-            if (fRxCommands.size() < 3) {
+            if (getPendingCommandCount() < fCommandWindow.getSize()) {
                 // In a separate dispatch cycle.  This allows command listeners 
-            	// to respond to the command queued event.  
+            	// to respond to the command queued event.  Commands queued in the
+            	// same dispatch cycle, like the children of an expanded variable,
+            	// are handed to the transmitter together and written at once.
                 getExecutor().execute(new DsfRunnable() {
                     public void run() {
-                        processNextQueuedCommand();
+                        processNextQueuedCommands();
                     }
                 });
             }
@@ -337,6 +348,29 @@ public abstract class AbstractMIControl extends AbstractDsfService
         return handle;
     }
 
+    private static CommandWindow createCommandWindow() {
+    	int minSize = Math.max(1, Integer.getInteger(COMMAND_WINDOW_MIN_PROPERTY, CommandWindow.DEFAULT_MIN_SIZE));
+    	int maxSize = Math.max(minSize, Integer.getInteger(COMMAND_WINDOW_MAX_PROPERTY, CommandWindow.DEFAULT_MAX_SIZE));
+    	return new CommandWindow(minSize, maxSize);
+    }
+
+    /**
+     * Returns the number of commands which have been handed to the transmitter
+     * and whose result has not been received yet.
+     */
+    private int getPendingCommandCount() {
+    	return fTxCommands.size() + fRxCommands.size();
+    }
+
+    /**
+     * Sends queued commands until the window of outstanding commands is full.
+     */
+    private void processNextQueuedCommands() {
+    	while (fCommandQueue.size() > 0 && getPendingCommandCount() < fCommandWindow.getSize()) {
+    		processNextQueuedCommand();
+    	}
+    }
+
     private void processNextQueuedCommand() {
 		if (fCommandQueue.size() > 0) {
 			final CommandHandle handle = fCommandQueue.remove(0);
@@ -483,10 +517,17 @@ public abstract class AbstractMIControl extends AbstractDsfService
     }
 
     private void processCommandDone(CommandHandle commandHandle, ICommandResult result) {
+        fCommandWindow.commandDone(commandHandle.fSentTime, commandHandle.fDoneTime, commandHandle.fSentIdle);
+
         /*
          *  Tell the listeners we have completed this one.
          */
+        long queueTime = commandHandle.fSentTime - commandHandle.fQueuedTime;
+        long responseTime = commandHandle.fDoneTime - commandHandle.fSentTime;
         for (ICommandListener processor : fCommandProcessors) {
+            if (processor instanceof ICommandListener2) {
+                ((ICommandListener2)processor).commandLatency(commandHandle, queueTime, responseTime);
+            }
             processor.commandDone(commandHandle, result);
         }
     }
@@ -522,11 +563,20 @@ public abstract class AbstractMIControl extends AbstractDsfService
         private MICommand<MIInfo> fCommand;
         private DataRequestMonitor<MIInfo> fRequestMonitor;
         private int fTokenId ;
+
+        // Timing of the command in System.nanoTime(), the sent time is set by the
+        // transmitter thread and the done time by the receiver thread.
+        private final long fQueuedTime;
+        private volatile long fSentTime;
+        private volatile long fDoneTime;
+        // Whether no other command was on the wire when this one was sent
+        private volatile boolean fSentIdle;
         
         CommandHandle(MICommand<MIInfo> c, DataRequestMonitor<MIInfo> d) {
             fCommand = c; 
             fRequestMonitor = d;
             fTokenId = -1; // Only initialize to a real value when needed
+            fQueuedTime = System.nanoTime();
         }
         
         public MICommand<MIInfo> getCommand() { return fCommand; }
@@ -583,74 +633,70 @@ public abstract class AbstractMIControl extends AbstractDsfService
 
         @Override
         public void run () {
-            while (true) {
-                CommandHandle commandHandle = null;
+            List<CommandHandle> commandHandles = new ArrayList<CommandHandle>();
+            boolean shutdown = false;
+            while (!shutdown) {
+                commandHandles.clear();
                 
                 /*
                  *   Note: Acquiring locks for both fRxCommands and fTxCommands collections. 
                  */
                 synchronized(fTxCommands) {
                     try {
-                        commandHandle = fTxCommands.take();
+                        commandHandles.add(fTxCommands.take());
                     } catch (InterruptedException e) {
                         break;  // Shutting down.
                     }
-        
-                    if (commandHandle == fTerminatorHandle) {
-                        
-                        break; // Null command is an indicator that we're shutting down. 
-                    }
-                    
+
                     /*
-                     *  We note that this is an outstanding request at this point.
+                     *  Commands which were handed off in the same dispatch cycle are sent
+                     *  in a single write, the backend reads them while it is busy with the
+                     *  first one.
                      */
-                    if (!(commandHandle.getCommand() instanceof RawCommand)) {
-                    	// RawCommands will not get an answer, so we cannot put them in the receive queue.
-                    	fRxCommands.put(commandHandle.getTokenId(), commandHandle);
+                    fTxCommands.drainTo(commandHandles);
+        
+                    for (int i = 0; i < commandHandles.size(); i++) {
+                        CommandHandle commandHandle = commandHandles.get(i);
+                        if (commandHandle == fTerminatorHandle) {
+                            // Null command is an indicator that we're shutting down.
+                            commandHandles.subList(i, commandHandles.size()).clear();
+                            shutdown = true;
+                            break;
+                        }
+                    
+                        /*
+                         *  We note that this is an outstanding request at this point.
+                         */
+                        if (!(commandHandle.getCommand() instanceof RawCommand)) {
+                        	// RawCommands will not get an answer, so we cannot put them in the receive queue.
+                        	commandHandle.fSentIdle = fRxCommands.isEmpty();
+                        	commandHandle.fSentTime = System.nanoTime();
+                        	fRxCommands.put(commandHandle.getTokenId(), commandHandle);
+                        }
                     }
                 }
                 
+                if (commandHandles.isEmpty()) {
+                	continue;
+                }
+
                 /*
-                 *   Construct the new command and push this command out the pipeline.
+                 *   Construct the new commands and push them out the pipeline.
                  */
-
-                final String str;
-                if (commandHandle.getCommand() instanceof RawCommand) {
-                	// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
-                	str = commandHandle.getCommand().constructCommand();
-                } else if (fUseThreadGroupOption) {
-                	// Implies that fUseThreadAndFrameOptions == true
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getGroupId(),
-							   																	   commandHandle.getThreadId(),
-							   																	   commandHandle.getStackFrameId());                	
-                } else if (fUseThreadAndFrameOptions) {
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getThreadId(),
-							   																	   commandHandle.getStackFrameId());
-                } else {
-                	str = commandHandle.getTokenId() + commandHandle.getCommand().constructCommand();
+                String[] strs = new String[commandHandles.size()];
+                StringBuilder batch = new StringBuilder();
+                for (int i = 0; i < strs.length; i++) {
+                	strs[i] = constructCommand(commandHandles.get(i));
+                	batch.append(strs[i]);
                 }
                 
                 try {
                     if (fOutputStream != null) {
-                        fOutputStream.write(str.getBytes());
+                        fOutputStream.write(batch.toString().getBytes());
                         fOutputStream.flush();
 
-                        GdbPlugin.debug(GdbPlugin.getDebugTime() + MI_TRACE_IDENTIFIER + str);
-                        if (getMITracingStream() != null) {
-                        	try {
-                        		String message = GdbPlugin.getDebugTime() + " " + str; //$NON-NLS-1$
-                        		while (message.length() > 100) {
-                        			String partial = message.substring(0, 100) + "\\\n"; //$NON-NLS-1$
-                        			message = message.substring(100);
-                        			getMITracingStream().write(partial.getBytes());
-                        		}
-                        		getMITracingStream().write(message.getBytes());
-                        	} catch (IOException e) {
-                        		// The tracing stream could be closed at any time
-                        		// since the user can set a preference to turn off
-                        		// this tracing.
-                        		setMITracingStream(null);
-                        	}
+                        for (String str : strs) {
+                        	trace(str);
                         }
                     }
                 } catch (IOException e) {
@@ -665,6 +711,43 @@ public abstract class AbstractMIControl extends AbstractDsfService
 			} catch (IOException e) {
 			}
         }
+
+        private String constructCommand(CommandHandle commandHandle) {
+            if (commandHandle.getCommand() instanceof RawCommand) {
+            	// RawCommands CANNOT have a token id: GDB would read it as part of the RawCommand!
+            	return commandHandle.getCommand().constructCommand();
+            } else if (fUseThreadGroupOption) {
+            	// Implies that fUseThreadAndFrameOptions == true
+            	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getGroupId(),
+            			   																	   commandHandle.getThreadId(),
+            			   																	   commandHandle.getStackFrameId());                	
+            } else if (fUseThreadAndFrameOptions) {
+            	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand(commandHandle.getThreadId(),
+            			   																	   commandHandle.getStackFrameId());
+            } else {
+            	return commandHandle.getTokenId() + commandHandle.getCommand().constructCommand();
+            }
+        }
+
+        private void trace(String str) {
+            GdbPlugin.debug(GdbPlugin.getDebugTime() + MI_TRACE_IDENTIFIER + str);
+            if (getMITracingStream() != null) {
+            	try {
+            		String message = GdbPlugin.getDebugTime() + " " + str; //$NON-NLS-1$
+            		while (message.length() > 100) {
+            			String partial = message.substring(0, 100) + "\\\n"; //$NON-NLS-1$
+            			message = message.substring(100);
+            			getMITracingStream().write(partial.getBytes());
+            		}
+            		getMITracingStream().write(message.getBytes());
+            	} catch (IOException e) {
+            		// The tracing stream could be closed at any time
+            		// since the user can set a preference to turn off
+            		// this tracing.
+            		setMITracingStream(null);
+            	}
+            }
+        }
     }
 
     private class RxThread extends Thread {
@@ -692,17 +775,19 @@ public abstract class AbstractMIControl extends AbstractDsfService
 
         @Override
         public void run() {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(fInputStream));
+            MILineReader reader = new MILineReader(fInputStream);
             try {
-                String line;
+                byte[] line;
                 while ((line = reader.readLine()) != null) {
-                    if (line.length() != 0) {
-                        GdbPlugin.debug(GdbPlugin.getDebugTime() + MI_TRACE_IDENTIFIER + line + "\n"); //$NON-NLS-1$
+                    if (line.length != 0) {
+                        // Only decode the line when it is traced, the parser works on the bytes
+                        if (GdbPlugin.DEBUG) {
+                        	GdbPlugin.debug(GdbPlugin.getDebugTime() + MI_TRACE_IDENTIFIER + new String(line) + "\n"); //$NON-NLS-1$
+                        }
                         
-                        final String finalLine = line;
                         if (getMITracingStream() != null) {
                         	try {
-                        		String message = GdbPlugin.getDebugTime() + " " + finalLine + "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+                        		String message = GdbPlugin.getDebugTime() + " " + new String(line) + "\n"; //$NON-NLS-1$ //$NON-NLS-2$
                         		while (message.length() > 100) {
                         			String partial = message.substring(0, 100) + "\\\n"; //$NON-NLS-1$
                         			message = message.substring(100);
@@ -848,7 +933,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
         	return clientMsg.toString();
         }
 
-        void processMIOutput(String line) {
+        void processMIOutput(byte[] line) {
             MIParser.RecordType recordType = fMiParser.getRecordType(line);
             
             if (recordType == MIParser.RecordType.ResultRecord) {
@@ -863,6 +948,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
                 final CommandHandle commandHandle = fRxCommands.remove(id);
 
                 if (commandHandle != null) {
+                    commandHandle.fDoneTime = System.nanoTime();
                     final MIOutput response = new MIOutput(
                         rr, fAccumulatedOOBRecords.toArray(new MIOOBRecord[fAccumulatedOOBRecords.size()]) );
                     fAccumulatedOOBRecords.clear();
@@ -995,7 +1081,7 @@ public abstract class AbstractMIControl extends AbstractDsfService
             
             getExecutor().execute(new DsfRunnable() {
             	public void run() {
-        			processNextQueuedCommand();
+        			processNextQueuedCommands();
             	}
             });
         }
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+/**
+ * The number of commands that may be on the wire to the back-end at the same time.
+ * <p>
+ * The back-end processes one command after the other, a command sent while it is busy
+ * waits for the previous ones. To keep the back-end busy the window needs to cover the
+ * round trip to the back-end, it is estimated as the response time of commands sent to
+ * an idle back-end divided by the time between the results of a busy back-end. For a
+ * local debugger this is about one command, for a remote one it grows with the latency
+ * of the connection.
+ * <p>
+ * The window is kept between a minimum and a maximum. Commands that are not yet sent
+ * can still be coalesced or removed, so the window should not be larger than needed.
+ * <p>
+ * The class is not thread-safe, it is accessed on the executor of the session only.
+ */
+final class CommandWindow {
+	/** Default minimum of the window, it was the fixed size of the window in the past */
+	static final int DEFAULT_MIN_SIZE = 3;
+	/** Default maximum of the window */
+	static final int DEFAULT_MAX_SIZE = 32;
+
+	// Weight of a new sample in the moving averages
+	private static final double WEIGHT = 0.125;
+
+	private final int fMinSize;
+	private final int fMaxSize;
+	private int fSize;
+
+	// Moving averages in nanoseconds, negative while there is no sample
+	private double fIdleResponseTime = -1;
+	private double fServiceTime = -1;
+
+	private long fLastDoneTime;
+	private boolean fHasLastDoneTime;
+
+	/**
+	 * @param minSize the minimum of the window, at least one.
+	 * @param maxSize the maximum of the window, the window is fixed if it equals the minimum.
+	 */
+	CommandWindow(int minSize, int maxSize) {
+		if (minSize < 1 || maxSize < minSize)
+			throw new IllegalArgumentException("Invalid window: " + minSize + ", " + maxSize); //$NON-NLS-1$ //$NON-NLS-2$
+		fMinSize = minSize;
+		fMaxSize = maxSize;
+		fSize = minSize;
+	}
+
+	int getSize() {
+		return fSize;
+	}
+
+	int getMinSize() {
+		return fMinSize;
+	}
+
+	int getMaxSize() {
+		return fMaxSize;
+	}
+
+	/**
+	 * Returns the average response time of commands sent to an idle back-end in
+	 * nanoseconds, or -1 if it is not known yet.
+	 */
+	long getIdleResponseTime() {
+		return (long) fIdleResponseTime;
+	}
+
+	/**
+	 * Returns the average time the back-end spends on a command in nanoseconds, or
+	 * -1 if it is not known yet.
+	 */
+	long getServiceTime() {
+		return (long) fServiceTime;
+	}
+
+	/**
+	 * Records the result of a command. The results have to be recorded in the order
+	 * in which they were received.
+	 *
+	 * @param sentTime the {@link System#nanoTime()} when the command was sent.
+	 * @param doneTime the {@link System#nanoTime()} when the result was received.
+	 * @param idle whether no other command was on the wire when the command was sent.
+	 */
+	void commandDone(long sentTime, long doneTime, boolean idle) {
+		if (idle) {
+			fIdleResponseTime = average(fIdleResponseTime, doneTime - sentTime);
+		} else if (fHasLastDoneTime && sentTime - fLastDoneTime <= 0) {
+			// The command waited for the previous one, the time between
+			// the results is spent by the back-end on this command.
+			fServiceTime = average(fServiceTime, doneTime - fLastDoneTime);
+		}
+		fLastDoneTime = doneTime;
+		fHasLastDoneTime = true;
+
+		if (fIdleResponseTime >= 0 && fServiceTime >= 0) {
+			final double size = Math.ceil(fIdleResponseTime / Math.max(fServiceTime, 1));
+			fSize = (int) Math.max(fMinSize, Math.min(fMaxSize, size));
+		}
+	}
+
+	private static double average(double average, long sample) {
+		final long value = Math.max(sample, 0);
+		if (average < 0)
+			return value;
+		return average + WEIGHT * (value - average);
+	}
+
+	@Override
+	public String toString() {
+		return "CommandWindow[size=" + fSize + ", idleResponseTime=" + getIdleResponseTime() //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", serviceTime=" + getServiceTime() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the output of the back-end line by line, without decoding it. A line is terminated
+ * by a line feed, a carriage return, or a carriage return followed by a line feed, like for
+ * {@link java.io.BufferedReader#readLine()}.
+ * <p>
+ * Every line is returned in an array of its own, which is handed to the parser without
+ * further copying.
+ */
+final class MILineReader {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream fInputStream;
+	private final byte[] fBuffer = new byte[BUFFER_SIZE];
+	private int fPos;
+	private int fLimit;
+	private boolean fSkipLineFeed;
+
+	// The start of a line that does not fit into the buffer
+	private byte[] fPending = new byte[0];
+	private int fPendingLength;
+
+	MILineReader(InputStream inputStream) {
+		fInputStream = inputStream;
+	}
+
+	/**
+	 * Returns the next line without the line terminator, or <code>null</code> at the end of
+	 * the stream.
+	 */
+	byte[] readLine() throws IOException {
+		while (true) {
+			if (fPos == fLimit) {
+				fPos = 0;
+				fLimit = fInputStream.read(fBuffer);
+				if (fLimit <= 0) {
+					fLimit = 0;
+					if (fPendingLength == 0)
+						return null;
+					return takePending(0, 0);
+				}
+			}
+			if (fSkipLineFeed) {
+				fSkipLineFeed = false;
+				if (fBuffer[fPos] == '\n') {
+					fPos++;
+					continue;
+				}
+			}
+
+			for (int i = fPos; i < fLimit; i++) {
+				final byte c = fBuffer[i];
+				if (c == '\n' || c == '\r') {
+					final int start = fPos;
+					fPos = i + 1;
+					fSkipLineFeed = c == '\r';
+					return takePending(start, i - start);
+				}
+			}
+
+			// The line continues in the next chunk of input
+			appendPending(fPos, fLimit - fPos);
+			fPos = fLimit;
+		}
+	}
+
+	private void appendPending(int start, int length) {
+		if (fPendingLength + length > fPending.length) {
+			final byte[] pending = new byte[Math.max(2 * fPending.length, fPendingLength + length)];
+			System.arraycopy(fPending, 0, pending, 0, fPendingLength);
+			fPending = pending;
+		}
+		System.arraycopy(fBuffer, start, fPending, fPendingLength, length);
+		fPendingLength += length;
+	}
+
+	/**
+	 * Returns the pending start of the line together with the given range of the buffer.
+	 */
+	private byte[] takePending(int start, int length) {
+		final byte[] line = new byte[fPendingLength + length];
+		System.arraycopy(fPending, 0, line, 0, fPendingLength);
+		System.arraycopy(fBuffer, start, line, fPendingLength, length);
+		if (fPending.length > BUFFER_SIZE) {
+			// Do not keep the memory of a huge line
+			fPending = new byte[0];
+		}
+		fPendingLength = 0;
+		return line;
+	}
+}
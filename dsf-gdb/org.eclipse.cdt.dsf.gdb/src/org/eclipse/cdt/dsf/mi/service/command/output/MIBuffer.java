@@ -0,0 +1,387 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command.output;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A line of MI output as it was received from the back-end, together with the lexing
+ * needed to build the values of a record from it.
+ * <p>
+ * Tuples and lists are parsed when their content is first accessed, the c-strings of
+ * constants are decoded when they are first accessed. Until then they only keep their
+ * position in the line, such that large records are not copied and values nobody looks
+ * at are never decoded. The bytes are expected to be ASCII, other bytes are decoded
+ * with the charset of the buffer.
+ * <p>
+ * The buffer is immutable, its values can be expanded from any thread.
+ */
+final class MIBuffer {
+	/**
+	 * The results and the values of a tuple or a list.
+	 */
+	static final class Contents {
+		final MIResult[] fResults;
+		final MIValue[] fValues;
+
+		Contents(MIResult[] results, MIValue[] values) {
+			fResults = results;
+			fValues = values;
+		}
+	}
+
+	// The names of variables are repeated in almost every record, they are shared
+	// through a small direct mapped cache. Races on the cache are harmless, a
+	// missing or replaced entry only causes another string to be created.
+	private static final int NAME_CACHE_SIZE = 1024;
+	private static final String[] fgNames = new String[NAME_CACHE_SIZE];
+
+	private final byte[] fBytes;
+	private final Charset fCharset;
+
+	/**
+	 * @param bytes the line without the line terminator. The array is not copied.
+	 * @param charset the charset for decoding non-ASCII characters.
+	 */
+	MIBuffer(byte[] bytes, Charset charset) {
+		fBytes = bytes;
+		fCharset = charset;
+	}
+
+	int length() {
+		return fBytes.length;
+	}
+
+	char charAt(int index) {
+		return (char) (fBytes[index] & 0xff);
+	}
+
+	boolean startsWith(String prefix, int pos) {
+		if (pos + prefix.length() > fBytes.length)
+			return false;
+		for (int i = 0; i < prefix.length(); i++) {
+			if (fBytes[pos + i] != prefix.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	int indexOf(char c, int pos, int end) {
+		for (int i = pos; i < end; i++) {
+			if (fBytes[i] == c)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the position after the token at the start of the line, or 0 if there is none.
+	 */
+	int skipToken() {
+		int i = 0;
+		while (i < fBytes.length && isDigit(fBytes[i])) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the token at the start of the line, or -1 if there is none.
+	 */
+	int getToken() {
+		final int end = skipToken();
+		if (end == 0)
+			return -1;
+		long id = 0;
+		for (int i = 0; i < end; i++) {
+			id = id * 10 + fBytes[i] - '0';
+			if (id > Integer.MAX_VALUE)
+				return -1;
+		}
+		return (int) id;
+	}
+
+	/**
+	 * Decodes a range of the line.
+	 */
+	String getString(int start, int end) {
+		if (isAscii(start, end)) {
+			final char[] chars = new char[end - start];
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = (char) fBytes[start + i];
+			}
+			return new String(chars);
+		}
+		return fCharset.decode(ByteBuffer.wrap(fBytes, start, end - start)).toString();
+	}
+
+	/**
+	 * Returns the name of a variable, names are shared between records.
+	 */
+	String getName(int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + fBytes[i];
+		}
+		final int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+		String name = fgNames[slot];
+		if (name != null && matches(name, start, end))
+			return name;
+
+		name = getString(start, end);
+		if (isAscii(start, end)) {
+			fgNames[slot] = name;
+		}
+		return name;
+	}
+
+	private boolean matches(String name, int start, int end) {
+		if (name.length() != end - start)
+			return false;
+		for (int i = 0; i < name.length(); i++) {
+			if (name.charAt(i) != fBytes[start + i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the position of the double quote closing a c-string, or the end of the line.
+	 *
+	 * @param pos the position after the opening double quote.
+	 */
+	int findClosingQuote(int pos) {
+		boolean escape = false;
+		for (int i = pos; i < fBytes.length; i++) {
+			final byte c = fBytes[i];
+			if (c == '\\') {
+				escape = !escape;
+			} else if (c == '"' && !escape) {
+				return i;
+			} else {
+				escape = false;
+			}
+		}
+		return fBytes.length;
+	}
+
+	/**
+	 * Returns the position of the bracket closing a tuple or a list, or the given end.
+	 *
+	 * @param pos the position after the opening bracket.
+	 */
+	int findClosingBracket(int pos, int end) {
+		int depth = 0;
+		for (int i = pos; i < end; i++) {
+			switch (fBytes[i]) {
+			case '"':
+				i = findClosingQuote(i + 1);
+				break;
+			case '{':
+			case '[':
+				depth++;
+				break;
+			case '}':
+			case ']':
+				if (depth == 0)
+					return i;
+				depth--;
+				break;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Translates the content of a c-string, only escaped double quotes are replaced. See
+	 * {@link MIConst#getString()} for translating the escape sequences.
+	 *
+	 * @param start the position after the opening double quote.
+	 * @param end the position of the closing double quote.
+	 */
+	String getCString(int start, int end) {
+		if (!isAscii(start, end))
+			return translateCString(getString(start, end));
+
+		final char[] chars = new char[end - start];
+		int length = 0;
+		boolean escape = false;
+		for (int i = start; i < end; i++) {
+			final char c = (char) fBytes[i];
+			if (c == '\\') {
+				if (escape) {
+					chars[length++] = c;
+					chars[length++] = c;
+					escape = false;
+				} else {
+					escape = true;
+				}
+			} else {
+				if (escape && c != '"') {
+					chars[length++] = '\\';
+				}
+				chars[length++] = c;
+				escape = false;
+			}
+		}
+		return new String(chars, 0, length);
+	}
+
+	private static String translateCString(String str) {
+		final StringBuilder sb = new StringBuilder(str.length());
+		boolean escape = false;
+		for (int i = 0; i < str.length(); i++) {
+			final char c = str.charAt(i);
+			if (c == '\\') {
+				if (escape) {
+					sb.append(c).append(c);
+					escape = false;
+				} else {
+					escape = true;
+				}
+			} else {
+				if (escape && c != '"') {
+					sb.append('\\');
+				}
+				sb.append(c);
+				escape = false;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Parses the comma separated results in the given range, assuming that the leading comma
+	 * was consumed. There is always at least one result.
+	 */
+	MIResult[] parseResults(int pos, int end) {
+		return new Scanner(pos, end).processMIResults();
+	}
+
+	/**
+	 * Parses the content of a tuple or a list, the range excludes the brackets.
+	 */
+	Contents parseContents(int pos, int end) {
+		return new Scanner(pos, end).processContents();
+	}
+
+	private boolean isAscii(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (fBytes[i] < 0)
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isDigit(byte c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Parses a range of the line. The grammar is the one of {@link MIParser}, the scanner
+	 * only differs in creating lazy values.
+	 */
+	private final class Scanner {
+		private int fPos;
+		private final int fEnd;
+
+		Scanner(int pos, int end) {
+			fPos = pos;
+			fEnd = end;
+		}
+
+		private boolean at(char c) {
+			return fPos < fEnd && fBytes[fPos] == c;
+		}
+
+		MIResult[] processMIResults() {
+			final List<MIResult> results = new ArrayList<MIResult>();
+			results.add(processMIResult());
+			while (at(',')) {
+				fPos++;
+				results.add(processMIResult());
+			}
+			return results.toArray(new MIResult[results.size()]);
+		}
+
+		private MIResult processMIResult() {
+			final MIResult result = new MIResult();
+			int equal;
+			if (fPos < fEnd && Character.isLetter(charAt(fPos)) && (equal = indexOf('=', fPos, fEnd)) != -1) {
+				result.setVariable(getName(fPos, equal));
+				fPos = equal + 1;
+				result.setMIValue(processMIValue());
+			} else if (at('"')) {
+				// This an error but we just swallow it and move on.
+				result.setMIValue(processMIValue());
+			} else {
+				result.setVariable(getString(fPos, fEnd));
+				result.setMIValue(new MIConst()); // Empty string:???
+				fPos = fEnd;
+			}
+			return result;
+		}
+
+		private MIValue processMIValue() {
+			if (fPos >= fEnd)
+				return null;
+
+			final int start = fPos + 1;
+			switch (fBytes[fPos]) {
+			case '{': {
+				final int close = findClosingBracket(start, fEnd);
+				fPos = Math.min(close + 1, fEnd);
+				return new MITuple(MIBuffer.this, start, close);
+			}
+			case '[': {
+				final int close = findClosingBracket(start, fEnd);
+				fPos = Math.min(close + 1, fEnd);
+				return new MIList(MIBuffer.this, start, close);
+			}
+			case '"': {
+				final int close = Math.min(findClosingQuote(start), fEnd);
+				fPos = Math.min(close + 1, fEnd);
+				return new MIConst(MIBuffer.this, start, close);
+			}
+			}
+			return null;
+		}
+
+		Contents processContents() {
+			List<MIResult> results = null;
+			List<MIValue> values = null;
+			while (fPos < fEnd) {
+				// Try for the MIValue first
+				final MIValue value = processMIValue();
+				if (value != null) {
+					if (values == null) {
+						values = new ArrayList<MIValue>();
+					}
+					values.add(value);
+				} else {
+					if (results == null) {
+						results = new ArrayList<MIResult>();
+					}
+					results.add(processMIResult());
+				}
+				if (at(',')) {
+					fPos++;
+				}
+			}
+			return new Contents(
+					results == null ? MITuple.nullResults : results.toArray(new MIResult[results.size()]),
+					values == null ? MITuple.nullValues : values.toArray(new MIValue[values.size()]));
+		}
+	}
+}
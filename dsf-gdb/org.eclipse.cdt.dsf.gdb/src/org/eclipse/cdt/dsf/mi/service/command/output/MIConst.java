@@ -18,8 +18,35 @@ package org.eclipse.cdt.dsf.mi.service.command.output;
 public class MIConst extends MIValue {
     String cstring = ""; //$NON-NLS-1$
 
+    // The line and the range of the c-string, as long as it has not been decoded
+    private final MIBuffer fBuffer;
+    private final int fStart;
+    private final int fEnd;
+
+    public MIConst() {
+        fBuffer = null;
+        fStart = fEnd = 0;
+    }
+
+    /**
+     * Creates a constant that is decoded from the given range of the line on demand.
+     */
+    MIConst(MIBuffer buffer, int start, int end) {
+        cstring = null;
+        fBuffer = buffer;
+        fStart = start;
+        fEnd = end;
+    }
+
     public String getCString() {
-        return cstring;
+        String result = cstring;
+        if (result == null) {
+            // Strings can be published without synchronization, in the worst case
+            // the c-string is decoded twice.
+            result = fBuffer.getCString(fStart, fEnd);
+            cstring = result;
+        }
+        return result;
     }
 
     public void setCString(String str) {
@@ -30,7 +57,7 @@ public class MIConst extends MIValue {
      * Translate gdb c-string.
      */
     public String getString() {
-        return getString(cstring);
+        return getString(getCString());
     }
 
     public static String getString(String str) {
@@ -11,6 +11,7 @@
 
 package org.eclipse.cdt.dsf.mi.service.command.output;
 
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
 import org.eclipse.debug.core.model.MemoryByte;
 
 /** 
@@ -25,7 +26,9 @@ import org.eclipse.debug.core.model.MemoryByte;
  */
 public class MIDataReadMemoryBytesInfo extends MIInfo {
 	
-	/* The cached memory block.  */
+	/* The parsed memory block.  */
+	private MemoryData fData = null;
+	/* The memory block converted for MemoryByte[] clients, created on demand.  */
 	private MemoryByte[] fBlock = null;
 
 	public MIDataReadMemoryBytesInfo(MIOutput output, int size) {
@@ -37,15 +40,23 @@ public class MIDataReadMemoryBytesInfo extends MIInfo {
 	 * Return the memory block
 	 */
 	public MemoryByte[] getMIMemoryBlock() {		
+		if (fBlock == null)
+			fBlock = fData.toMemoryBytes();
 		return fBlock;		
 	}
+
+	/**
+	 * Return the memory block, the bytes that were not read are marked as unreadable.
+	 * @since 4.1
+	 */
+	public MemoryData getMemoryData() {
+		return fData;
+	}
 	
 	private void parse(int size)
 	{		
-		fBlock = new MemoryByte[size];
-		// Fill the block with invalid bytes, initially.
-		for (int i = 0; i < size; i++)
-			fBlock[i] = new MemoryByte((byte) 0, (byte) 0);
+		// All bytes are invalid, initially.
+		fData = new MemoryData(size);
 
 		MIResult[] results = getMIOutput().getMIResultRecord().getMIResults();
 
@@ -74,10 +85,8 @@ public class MIDataReadMemoryBytesInfo extends MIInfo {
 
 						if (offset + contents.length()/2 <= size)
 							for (int k = 0; k < contents.length() / 2; ++k) {
-								fBlock[offset + k] = new MemoryByte(
-										(byte) Integer.parseInt(
-												contents.substring(k * 2, k * 2 + 2),
-												16));
+								fData.setByte(offset + k, (byte) (hexDigit(contents.charAt(k * 2)) << 4
+										| hexDigit(contents.charAt(k * 2 + 1))));
 							}
 					}
 				}
@@ -89,4 +98,10 @@ public class MIDataReadMemoryBytesInfo extends MIInfo {
 		}
 	}
 
+	private static int hexDigit(char c) {
+		final int digit = Character.digit(c, 16);
+		if (digit < 0)
+			throw new NumberFormatException("Invalid hex digit: " + c); //$NON-NLS-1$
+		return digit;
+	}
 }
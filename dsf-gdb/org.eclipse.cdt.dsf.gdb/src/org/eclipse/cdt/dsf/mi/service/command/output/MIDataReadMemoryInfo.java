@@ -16,6 +16,7 @@ package org.eclipse.cdt.dsf.mi.service.command.output;
 
 import java.math.BigInteger;
 
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
 import org.eclipse.debug.core.model.MemoryByte;
 
 /**
@@ -66,6 +67,8 @@ public class MIDataReadMemoryInfo extends MIInfo {
 	BigInteger fAddress = new BigInteger("0"); //$NON-NLS-1$
 	int fBytesRead;
 	int fBytesRequested;
+    MemoryData fMemoryData;
+    // The memory block converted for MemoryByte[] clients, created on demand
     MemoryByte[] fMemoryBlock;
 
     /**
@@ -77,7 +80,7 @@ public class MIDataReadMemoryInfo extends MIInfo {
 
     	super(output);
 
-    	fMemoryBlock = new MemoryByte[0];
+    	fMemoryData = new MemoryData(0);
         if (isDone()) {
         	parseResult(1);
         }
@@ -92,7 +95,7 @@ public class MIDataReadMemoryInfo extends MIInfo {
 
     	super(output);
 
-    	fMemoryBlock = new MemoryByte[0];
+    	fMemoryData = new MemoryData(0);
         if (isDone()) {
         	parseResult(word_size);
         }
@@ -155,9 +158,7 @@ public class MIDataReadMemoryInfo extends MIInfo {
     				if (value instanceof MIConst) {
     					String size = ((MIConst) value).getCString();
     					fBytesRequested = Integer.parseInt(size);
-    					fMemoryBlock = new MemoryByte[fBytesRequested];
-    					for (int j = 0; j < fMemoryBlock.length; j++)
-    						fMemoryBlock[j] = new MemoryByte((byte) 0, (byte) 0);
+    					fMemoryData = new MemoryData(fBytesRequested);
     				}
     			}
 
@@ -180,7 +181,7 @@ public class MIDataReadMemoryInfo extends MIInfo {
      *  
      *  Since we haven't implemented coalescing yet, we conveniently simplify
      *  the processing by assuming that the memory block address matches the
-     *  one of the request. Therefore, we only have to fill the memoryBlock[]
+     *  one of the request. Therefore, we only have to fill the memory data
      *  with the incoming bytes.
      *  
      *  This will have to be revisited as soon as we start considering
@@ -214,9 +215,8 @@ public class MIDataReadMemoryInfo extends MIInfo {
 					MIList list = (MIList) value;
 					MIValue[] values = list.getMIValues();
 
-					MemoryByte[] byteValues = new MemoryByte[values.length * word_size];
-
-					// Parse the result array
+					// Parse the result array directly into the memory block, bytes
+					// that cannot be parsed remain unreadable
 					for (int j = 0; j < values.length; j++) {
 						if (values[j] instanceof MIConst) {
 							String str = ((MIConst) values[j]).getCString();
@@ -224,16 +224,12 @@ public class MIDataReadMemoryInfo extends MIInfo {
 								long word = Long.decode(str.trim()).longValue();
 								for (int k = 0; k < word_size; k++) {
 									int bit_shift =  (word_size - k - 1) * 8;
-									byteValues[j * word_size + k] = new MemoryByte((byte) ((word >> bit_shift) % 256));
+									fMemoryData.setByte(offset + j * word_size + k, (byte) (word >> bit_shift));
 								}
 							} catch (NumberFormatException e) {
-								for (int k = 0; k < word_size; k++)
-									byteValues[j * word_size + k] = new MemoryByte((byte) -1, (byte) 0);
 							}
 						}
 					}
-					// Copy the parsed line to the memory block
-					System.arraycopy(byteValues, 0, fMemoryBlock, offset, byteValues.length);
 				}
 			}
 		}
@@ -243,7 +239,17 @@ public class MIDataReadMemoryInfo extends MIInfo {
      *  Return the memory block
      */
     public MemoryByte[] getMIMemoryBlock() {
+    	if (fMemoryBlock == null)
+    		fMemoryBlock = fMemoryData.toMemoryBytes();
 		return fMemoryBlock;
 	}
 
+	/**
+	 * Return the memory block, the bytes that were not read are marked as unreadable.
+	 * @since 4.1
+	 */
+	public MemoryData getMemoryData() {
+		return fMemoryData;
+	}
+
 }
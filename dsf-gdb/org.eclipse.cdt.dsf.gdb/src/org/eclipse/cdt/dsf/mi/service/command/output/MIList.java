@@ -23,24 +23,61 @@ public class MIList extends MIValue {
     MIResult[] results = nullResults;
     MIValue[] values = nullValues;
 
+    // The line and the range of the content, as long as the list has not been parsed
+    private volatile MIBuffer fBuffer;
+    private int fStart;
+    private int fEnd;
+
+    public MIList() {
+    }
+
+    /**
+     * Creates a list that is parsed from the given range of the line on demand.
+     */
+    MIList(MIBuffer buffer, int start, int end) {
+        fBuffer = buffer;
+        fStart = start;
+        fEnd = end;
+    }
+
+    private void expand() {
+        if (fBuffer != null) {
+            synchronized (this) {
+                final MIBuffer buffer = fBuffer;
+                if (buffer != null) {
+                    MIBuffer.Contents contents = buffer.parseContents(fStart, fEnd);
+                    results = contents.fResults;
+                    values = contents.fValues;
+                    fBuffer = null;
+                }
+            }
+        }
+    }
+
     public MIResult[] getMIResults() {
+        expand();
         return results;
     }
 
     public void setMIResults(MIResult[] res) {
+        expand();
         results = res;
     }
 
     public MIValue[] getMIValues() {
+        expand();
         return values;
     }
 
     public void setMIValues(MIValue[] vals) {
+        expand();
         values = vals;
     }
 
     @Override
     public String toString() {
+        MIResult[] results = getMIResults();
+        MIValue[] values = getMIValues();
         StringBuffer buffer = new StringBuffer();
         buffer.append('[');
         for (int i = 0; i < results.length; i++) {
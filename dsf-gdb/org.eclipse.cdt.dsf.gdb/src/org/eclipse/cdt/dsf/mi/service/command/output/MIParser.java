@@ -12,8 +12,7 @@
 
 package org.eclipse.cdt.dsf.mi.service.command.output;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.Charset;
 
 /**
 <pre>
@@ -91,11 +90,16 @@ import java.util.List;
  */
 public class MIParser {
     public enum RecordType { ResultRecord, OOBRecord, PrimaryPrompt }
+
+    private static final String[] RESULT_CLASSES = { MIResultRecord.DONE, MIResultRecord.ERROR,
+        MIResultRecord.EXIT, MIResultRecord.RUNNING, MIResultRecord.CONNECTED };
     
     public String primaryPrompt = "(gdb)"; //$NON-NLS-1$
     public String cliPrompt = primaryPrompt;
     public String secondaryPrompt = ">"; //$NON-NLS-1$
 
+    private static final Charset UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
     public RecordType getRecordType(String line) {
         int i = 0;
         if (Character.isDigit(line.charAt(0))) {
@@ -115,42 +119,66 @@ public class MIParser {
         }
     }    
 
+    /**
+     * Returns the type of a line of output as received from the back-end, without the
+     * line terminator.
+     * 
+     * @since 4.1
+     */
+    public RecordType getRecordType(byte[] line) {
+        return getRecordType(new MIBuffer(line, Charset.defaultCharset()));
+    }
+
+    private RecordType getRecordType(MIBuffer buffer) {
+        int i = buffer.skipToken();
+        if (i < buffer.length() && buffer.charAt(i) == '^') {
+            return RecordType.ResultRecord;
+        } else if (buffer.startsWith(primaryPrompt, i)) {
+            return RecordType.PrimaryPrompt;
+        } else {
+            return RecordType.OOBRecord;
+        }
+    }
+
     /**
      * 
      */
     public MIResultRecord parseMIResultRecord(String line) {
-        StringBuffer buffer = new StringBuffer(line);
+        return parseMIResultRecord(new MIBuffer(line.getBytes(UTF8), UTF8));
+    }
+
+    /**
+     * Parses a result record from a line of output as received from the back-end, without
+     * the line terminator. The array is not copied, it must not be modified afterwards.
+     * <p>
+     * Tuples and lists of the record are parsed and c-strings are decoded when they are
+     * accessed for the first time.
+     * 
+     * @since 4.1
+     */
+    public MIResultRecord parseMIResultRecord(byte[] line) {
+        return parseMIResultRecord(new MIBuffer(line, Charset.defaultCharset()));
+    }
+
+    private MIResultRecord parseMIResultRecord(MIBuffer buffer) {
         // Fetch the Token/Id
-        int id = parseToken(buffer);
-        // Consume the '^'
-        buffer.deleteCharAt(0);
+        int id = buffer.getToken();
+        // Consume the token and the '^'
+        int pos = buffer.skipToken() + 1;
         
         MIResultRecord rr = new MIResultRecord();
         rr.setToken(id);
-        if (buffer.toString().startsWith(MIResultRecord.DONE)) {
-            rr.setResultClass(MIResultRecord.DONE);
-            buffer.delete(0, MIResultRecord.DONE.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.ERROR)) {
-            rr.setResultClass(MIResultRecord.ERROR);
-            buffer.delete(0, MIResultRecord.ERROR.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.EXIT)) {
-            rr.setResultClass(MIResultRecord.EXIT);
-            buffer.delete(0, MIResultRecord.EXIT.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.RUNNING)) {
-            rr.setResultClass(MIResultRecord.RUNNING);
-            buffer.delete(0, MIResultRecord.RUNNING.length());
-        } else if (buffer.toString().startsWith(MIResultRecord.CONNECTED)) {
-            rr.setResultClass(MIResultRecord.CONNECTED);
-            buffer.delete(0, MIResultRecord.CONNECTED.length());
-        } else {
-            // Error throw an exception?
+        for (String resultClass : RESULT_CLASSES) {
+            if (buffer.startsWith(resultClass, pos)) {
+                rr.setResultClass(resultClass);
+                pos += resultClass.length();
+                break;
+            }
         }
 
         // Results are separated by commas.
-        if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-            buffer.deleteCharAt(0);
-            MIResult[] res = processMIResults(new FSB(buffer));
-            rr.setMIResults(res);
+        if (pos < buffer.length() && buffer.charAt(pos) == ',') {
+            rr.setMIResults(buffer.parseResults(pos + 1, buffer.length()));
         }
         return rr;
     }
@@ -159,13 +187,31 @@ public class MIParser {
      * Find OutOfBand Records depending on the starting token.
      */
     public MIOOBRecord parseMIOOBRecord(String line) {
-        StringBuffer buffer = new StringBuffer(line);
-        int id = parseToken(buffer);
+        return parseMIOOBRecord(new MIBuffer(line.getBytes(UTF8), UTF8));
+    }
+
+    /**
+     * Parses an out-of-band record from a line of output as received from the back-end,
+     * without the line terminator. The array is not copied, it must not be modified afterwards.
+     * <p>
+     * Tuples and lists of the record are parsed and c-strings are decoded when they are
+     * accessed for the first time.
+     * 
+     * @since 4.1
+     */
+    public MIOOBRecord parseMIOOBRecord(byte[] line) {
+        return parseMIOOBRecord(new MIBuffer(line, Charset.defaultCharset()));
+    }
+
+    private MIOOBRecord parseMIOOBRecord(MIBuffer buffer) {
+        int id = buffer.getToken();
+        int pos = buffer.skipToken();
+        final int length = buffer.length();
         MIOOBRecord oob = null;
-        char c = buffer.length() != 0 ? buffer.charAt(0) : 0;
+        char c = pos < length ? buffer.charAt(pos) : 0;
         if (c == '*' || c == '+' || c == '=') {
             // Consume the first char
-            buffer.deleteCharAt(0);
+            pos++;
             MIAsyncRecord async = null;
             switch (c) {
                 case '*' :
@@ -182,22 +228,20 @@ public class MIParser {
             }
             async.setToken(id);
             // Extract the Async-Class
-            int i = buffer.toString().indexOf(',');
+            int i = buffer.indexOf(',', pos, length);
             if (i != -1) {
-                String asyncClass = buffer.substring(0, i);
-                async.setAsyncClass(asyncClass);
+                async.setAsyncClass(buffer.getName(pos, i));
                 // Consume the async-class and the comma
-                buffer.delete(0, i + 1);
+                pos = i + 1;
             } else {
-                async.setAsyncClass(buffer.toString().trim());
-                buffer.setLength(0);
+                async.setAsyncClass(buffer.getString(pos, length).trim());
+                pos = length;
             }
-            MIResult[] res = processMIResults(new FSB(buffer));
-            async.setMIResults(res);
+            async.setMIResults(buffer.parseResults(pos, length));
             oob = async;
         } else if (c == '~' || c == '@' || c == '&') {
             // Consume the first char
-            buffer.deleteCharAt(0);
+            pos++;
             MIStreamRecord stream = null;
             switch (c) {
                 case '~' :
@@ -212,220 +256,20 @@ public class MIParser {
                     stream = new MILogStreamOutput();
                     break;
             }
-            // translateCString() assumes that the leading " is deleted
-            if (buffer.length() > 0 && buffer.charAt(0) == '"') {
-                buffer.deleteCharAt(0);
+            // The c-string starts after the leading "
+            if (pos < length && buffer.charAt(pos) == '"') {
+                pos++;
             }
-            stream.setCString(translateCString(new FSB(buffer)));
+            stream.setCString(buffer.getCString(pos, buffer.findClosingQuote(pos)));
             oob = stream;
         } else {
             // Badly format MI line, just pass it to the user as target stream
             MIStreamRecord stream = new MITargetStreamOutput();
-            stream.setCString(line + "\n"); //$NON-NLS-1$
+            stream.setCString(buffer.getString(0, length) + "\n"); //$NON-NLS-1$
             oob = stream;
         }
         return oob;
     }
-    
-    private int parseToken(StringBuffer buffer) {
-        int id = -1;
-        // Fetch the Token/Id
-        if (Character.isDigit(buffer.charAt(0))) {
-            int i = 1;
-            while (i < buffer.length() && Character.isDigit(buffer.charAt(i))) {
-                i++;
-            }
-            String numbers = buffer.substring(0, i);
-            try {
-                id = Integer.parseInt(numbers);
-            } catch (NumberFormatException e) {
-            }
-            // Consume the token.
-            buffer.delete(0, i);
-        }
-        return id;
-    }
-
-    /**
-     * Assuming that the usual leading comma was consumed.
-     * Extract the MI Result comma seperated responses.
-     */
-    private MIResult[] processMIResults(FSB buffer) {
-        List<MIResult> aList = new ArrayList<MIResult>();
-        MIResult result = processMIResult(buffer);
-        if (result != null) {
-            aList.add(result);
-        }
-        while (buffer.length() > 0 && buffer.charAt(0) == ',') {
-            buffer.deleteCharAt(0);
-            result = processMIResult(buffer);
-            if (result != null) {
-                aList.add(result);
-            }
-        }
-        return aList.toArray(new MIResult[aList.size()]);
-    }
-
-    /**
-     * Construct the DsfMIResult.  Characters will be consume/delete
-     * moving forward constructing the AST.
-     */
-    private MIResult processMIResult(FSB buffer) {
-        MIResult result = new MIResult();
-        int equal;
-        if (buffer.length() > 0 && Character.isLetter(buffer.charAt(0)) && (equal = buffer.indexOf('=')) != -1) {
-            String variable = buffer.substring(0, equal);
-            result.setVariable(variable);
-            buffer.delete(0, equal + 1);
-            MIValue value = processMIValue(buffer);
-            result.setMIValue(value);
-        } else if(buffer.length()>0 && buffer.charAt(0)=='"') {
-            // This an error but we just swallow it and move on.
-            MIValue value = processMIValue(buffer);
-            result.setMIValue(value);
-        } else {
-            result.setVariable(buffer.toString());
-            result.setMIValue(new MIConst()); // Empty string:???
-            buffer.setLength(0);
-        }
-        return result;
-    }
-
-    /**
-     * Find a DsfMIValue implementation or return null.
-     */
-    private MIValue processMIValue(FSB buffer) {
-        MIValue value = null;
-        if (buffer.length() > 0) {
-            if (buffer.charAt(0) == '{') {
-                buffer.deleteCharAt(0);
-                value = processMITuple(buffer);
-            } else if (buffer.charAt(0) == '[') {
-                buffer.deleteCharAt(0);
-                value = processMIList(buffer);
-            } else if (buffer.charAt(0) == '"') {
-                buffer.deleteCharAt(0);
-                MIConst cnst = new MIConst();
-                cnst.setCString(translateCString(buffer));
-                value = cnst;
-            }
-        }
-        return value;
-    }
-
-    /**
-     * Assuming the starting '{' was deleted form the StringBuffer,
-     * go to the closing '}' consuming/deleting all the characters.
-     * This is usually call by processMIvalue();
-     */
-    private MIValue processMITuple(FSB buffer) {
-        MITuple tuple = new MITuple();
-        List<MIValue> valueList = new ArrayList<MIValue>();
-        List<MIResult> resultList = new ArrayList<MIResult>();
-        // Catch closing '}'
-        while (buffer.length() > 0 && buffer.charAt(0) != '}') {
-            // Try for the DsfMIValue first
-            MIValue value = processMIValue(buffer);
-            if (value != null) {
-                valueList.add(value);
-            } else {
-                MIResult result = processMIResult(buffer);
-                if (result != null) {
-                    resultList.add(result);
-                }
-            }
-            if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-                buffer.deleteCharAt(0);
-            }
-        }
-        if (buffer.length() > 0 && buffer.charAt(0) == '}') {
-            buffer.deleteCharAt(0);
-        }
-        MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
-        MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
-        tuple.setMIValues(values);
-        tuple.setMIResults(res);
-        return tuple;
-    }
-
-    /**
-     * Assuming the leading '[' was deleted, find the closing
-     * ']' consuming/delete chars from the StringBuffer.
-     */
-    private MIValue processMIList(FSB buffer) {
-        MIList list = new MIList();
-        List<MIValue> valueList = new ArrayList<MIValue>();
-        List<MIResult> resultList = new ArrayList<MIResult>();
-        // catch closing ']'
-        while (buffer.length() > 0 && buffer.charAt(0) != ']') {
-            // Try for the DsfMIValue first
-            MIValue value = processMIValue(buffer);
-            if (value != null) {
-                valueList.add(value);
-            } else {
-                MIResult result = processMIResult(buffer);
-                if (result != null) {
-                    resultList.add(result);
-                }
-            }
-            if (buffer.length() > 0 && buffer.charAt(0) == ',') {
-                buffer.deleteCharAt(0);
-            }
-        }
-        if (buffer.length() > 0 && buffer.charAt(0) == ']') {
-            buffer.deleteCharAt(0);
-        }
-        MIValue[] values = valueList.toArray(new MIValue[valueList.size()]);
-        MIResult[] res = resultList.toArray(new MIResult[resultList.size()]);
-        list.setMIValues(values);
-        list.setMIResults(res);
-        return list;
-    }
-
-    /*
-     * MI C-String rather MICOnst values are enclose in double quotes
-     * and any double quotes or backslash in the string are escaped.
-     * Assuming the starting double quote was removed.
-     * This method will stop at the closing double quote remove the extra
-     * backslach escaping and return the string __without__ the enclosing double quotes
-     * The orignal StringBuffer will move forward.
-     */
-    private String translateCString(FSB buffer) {
-        boolean escape = false;
-        boolean closingQuotes = false;
-
-        StringBuffer sb = new StringBuffer();
-
-        int index = 0;
-        for (; index < buffer.length() && !closingQuotes; index++) {
-            char c = buffer.charAt(index);
-            if (c == '\\') {
-                if (escape) {
-                    sb.append(c);
-                    sb.append(c);
-                    escape = false;
-                } else {
-                    escape = true;
-                }
-            } else if (c == '"') {
-                if (escape) {
-                    sb.append(c);
-                    escape = false;
-                } else {
-                    // Bail out.
-                    closingQuotes = true;
-                }
-            } else {
-                if (escape) {
-                    sb.append('\\');
-                }
-                sb.append(c);
-                escape = false;
-            }
-        }
-        buffer.delete(0, index);
-        return sb.toString();
-    }
 
     /**
      * Tests if this string starts with the specified prefix beginning
@@ -458,7 +302,10 @@ public class MIParser {
      * with this for large arrays. Use of FSB rather than String
      * Buffer makes MIParser N rather than N^2 because FSB can 
      * delete from the front in constant time.
+     * 
+     * @deprecated The parser works on the bytes of the lines and no longer uses this class.
      */
+    @Deprecated
     public class FSB {
         StringBuffer buf;
         int pos;
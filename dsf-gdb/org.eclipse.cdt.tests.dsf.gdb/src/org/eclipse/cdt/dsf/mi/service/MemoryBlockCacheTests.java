@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
+import org.eclipse.cdt.dsf.mi.service.MemoryBlockCache.Range;
+import org.junit.Test;
+
+public class MemoryBlockCacheTests {
+	private static final BigInteger LIMIT = BigInteger.ONE.shiftLeft(32);
+
+	private static BigInteger addr(long address) {
+		return BigInteger.valueOf(address);
+	}
+
+	// The content of the simulated target memory
+	private static byte valueAt(long address) {
+		return (byte) (address * 7);
+	}
+
+	private static MemoryData read(long address, int length) {
+		byte[] result = new byte[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = valueAt(address + i);
+		}
+		return new MemoryData(result);
+	}
+
+	private static void fetch(MemoryBlockCache cache, long address, int length) {
+		for (Range range : cache.getMissingRanges(addr(address), length, LIMIT)) {
+			cache.put(range.fStart, read(range.fStart.longValue(), range.fLength));
+		}
+	}
+
+	private static void assertRange(Range range, long start, int length) {
+		assertEquals(addr(start), range.fStart);
+		assertEquals(length, range.fLength);
+	}
+
+	@Test
+	public void testPageAlignment() {
+		MemoryBlockCache cache = new MemoryBlockCache(16, Long.MAX_VALUE);
+		List<Range> missing = cache.getMissingRanges(addr(20), 8, LIMIT);
+		assertEquals(1, missing.size());
+		assertRange(missing.get(0), 16, 16);
+
+		// Aligned requests are not extended
+		missing = cache.getMissingRanges(addr(32), 32, LIMIT);
+		assertEquals(1, missing.size());
+		assertRange(missing.get(0), 32, 32);
+
+		// The end of the address space is not exceeded
+		missing = cache.getMissingRanges(addr(90), 4, addr(96));
+		assertRange(missing.get(0), 80, 16);
+		missing = cache.getMissingRanges(addr(90), 4, addr(94));
+		assertRange(missing.get(0), 80, 14);
+	}
+
+	@Test
+	public void testMissingRanges() {
+		MemoryBlockCache cache = new MemoryBlockCache(16, Long.MAX_VALUE);
+		cache.put(addr(36), read(36, 8));
+		cache.put(addr(70), read(70, 10));
+
+		// Padding does not overlap the cached blocks
+		List<Range> missing = cache.getMissingRanges(addr(20), 80, LIMIT);
+		assertEquals(3, missing.size());
+		assertRange(missing.get(0), 16, 20);
+		assertRange(missing.get(1), 44, 26);
+		assertRange(missing.get(2), 80, 32);
+
+		// Requests within cached blocks are hits
+		long hits = cache.getHits();
+		assertTrue(cache.getMissingRanges(addr(38), 4, LIMIT).isEmpty());
+		assertTrue(cache.getMissingRanges(addr(70), 10, LIMIT).isEmpty());
+		assertEquals(hits + 2, cache.getHits());
+
+		missing = cache.getMissingRanges(addr(40), 8, LIMIT);
+		assertEquals(1, missing.size());
+		assertRange(missing.get(0), 44, 4);
+	}
+
+	@Test
+	public void testCoalescing() {
+		MemoryBlockCache cache = new MemoryBlockCache(16, Long.MAX_VALUE);
+		fetch(cache, 0, 10);
+		fetch(cache, 40, 10);
+		assertEquals(2, cache.getBlockCount());
+		fetch(cache, 10, 30);
+		assertEquals(1, cache.getBlockCount());
+		assertEquals(64, cache.getSize());
+
+		MemoryData bytes = cache.get(addr(5), 50);
+		assertTrue(bytes.isReadable());
+		for (int i = 0; i < bytes.getLength(); i++) {
+			assertEquals(valueAt(5 + i), bytes.getByte(i));
+		}
+		assertFalse(cache.get(addr(60), 8).isReadable(7));
+	}
+
+	@Test
+	public void testNoPadding() {
+		MemoryBlockCache cache = new MemoryBlockCache(MemoryBlockCache.DEFAULT_PAGE_SIZE, Long.MAX_VALUE);
+		List<Range> missing = cache.getMissingRanges(addr(20), 8, LIMIT);
+		assertEquals(1, missing.size());
+		assertRange(missing.get(0), 20, 8);
+
+		// Only the bytes between cached blocks are fetched
+		fetch(cache, 20, 8);
+		fetch(cache, 31, 3);
+		missing = cache.getMissingRanges(addr(18), 20, LIMIT);
+		assertEquals(3, missing.size());
+		assertRange(missing.get(0), 18, 2);
+		assertRange(missing.get(1), 28, 3);
+		assertRange(missing.get(2), 34, 4);
+	}
+
+	@Test
+	public void testOverlappingPut() {
+		MemoryBlockCache cache = new MemoryBlockCache(1, Long.MAX_VALUE);
+		cache.put(addr(10), read(10, 20));
+		MemoryData changed = new MemoryData(new byte[] { 1, 2 });
+		cache.put(addr(15), changed);
+		assertEquals(1, cache.getBlockCount());
+		assertEquals(20, cache.getSize());
+
+		MemoryData bytes = cache.get(addr(10), 20);
+		assertEquals(valueAt(14), bytes.getByte(4));
+		assertEquals(1, bytes.getByte(5));
+		assertEquals(2, bytes.getByte(6));
+		assertEquals(valueAt(17), bytes.getByte(7));
+
+		// Unreadable bytes are cached as such
+		MemoryData invalid = new MemoryData(2);
+		cache.put(addr(20), invalid);
+		bytes = cache.get(addr(19), 4);
+		assertTrue(bytes.isReadable(0));
+		assertFalse(bytes.isReadable(1));
+		assertFalse(bytes.isReadable(2));
+		assertTrue(bytes.isReadable(3));
+	}
+
+	@Test
+	public void testUpdate() {
+		MemoryBlockCache cache = new MemoryBlockCache(1, Long.MAX_VALUE);
+		cache.put(addr(10), read(10, 4));
+		byte[] changed = new byte[8];
+		for (int i = 0; i < changed.length; i++) {
+			changed[i] = -1;
+		}
+		// Only the cached bytes are updated
+		cache.update(addr(8), new MemoryData(changed));
+		assertEquals(4, cache.getSize());
+		MemoryData bytes = cache.get(addr(8), 8);
+		assertFalse(bytes.isReadable(0));
+		assertEquals(-1, bytes.getByte(2));
+		assertEquals(-1, bytes.getByte(5));
+		assertFalse(bytes.isReadable(6));
+
+		assertTrue(cache.intersects(addr(13), 4));
+		assertFalse(cache.intersects(addr(14), 4));
+		assertFalse(cache.intersects(addr(6), 4));
+	}
+
+	@Test
+	public void testEviction() {
+		MemoryBlockCache cache = new MemoryBlockCache(16, 64);
+		fetch(cache, 0, 16);
+		fetch(cache, 128, 16);
+		fetch(cache, 256, 16);
+		// Use the first block such that the second one is the least recently used
+		cache.get(addr(0), 1);
+		fetch(cache, 384, 32);
+		assertEquals(64, cache.getSize());
+		assertEquals(1, cache.getEvictions());
+		assertTrue(cache.get(addr(0), 1).isReadable(0));
+		assertFalse(cache.get(addr(128), 1).isReadable(0));
+
+		// The block serving the current request is kept
+		fetch(cache, 512, 128);
+		assertEquals(128, cache.getSize());
+		assertTrue(cache.get(addr(512), 128).isReadable());
+
+		cache.setBudget(0);
+		assertEquals(128, cache.getSize());
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getBlockCount());
+	}
+
+	@Test
+	public void testRandomAccess() {
+		MemoryBlockCache cache = new MemoryBlockCache(32, Long.MAX_VALUE);
+		Random random = new Random(4711);
+		for (int i = 0; i < 2000; i++) {
+			final long address = random.nextInt(100000);
+			final int length = 1 + random.nextInt(300);
+			fetch(cache, address, length);
+			assertTrue(cache.getMissingRanges(addr(address), length, LIMIT).isEmpty());
+			MemoryData bytes = cache.get(addr(address), length);
+			for (int j = 0; j < length; j++) {
+				assertEquals(valueAt(address + j), bytes.getByte(j));
+			}
+		}
+	}
+
+	@Test
+	public void testRandomAccessWithEviction() {
+		MemoryBlockCache cache = new MemoryBlockCache(32, 4096);
+		Random random = new Random(4711);
+		for (int i = 0; i < 10000; i++) {
+			final long address = random.nextInt(20000);
+			final int length = 1 + random.nextInt(300);
+			fetch(cache, address, length);
+			// Evicted bytes are missing, but the cached ones must be correct
+			MemoryData bytes = cache.get(addr(address), length);
+			for (int j = 0; j < length; j++) {
+				if (bytes.isReadable(j)) {
+					assertEquals(valueAt(address + j), bytes.getByte(j));
+				}
+			}
+			assertTrue(cache.getSize() <= 4096 || cache.getBlockCount() == 1);
+		}
+	}
+}
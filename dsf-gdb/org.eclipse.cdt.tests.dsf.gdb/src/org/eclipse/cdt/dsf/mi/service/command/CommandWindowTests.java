@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class CommandWindowTests {
+	private static final long MS = 1000 * 1000;
+
+	/**
+	 * Simulates a back-end with the given round trip and the given time per command:
+	 * one command sent to the idle back-end, followed by a burst of commands which are
+	 * sent at the same time.
+	 */
+	private static void simulate(CommandWindow window, long roundTrip, long serviceTime, int burst) {
+		long time = 1000 * MS;
+		window.commandDone(time, time + roundTrip + serviceTime, true);
+
+		time += 1000 * MS;
+		for (int i = 1; i <= burst; i++) {
+			window.commandDone(time, time + roundTrip + i * serviceTime, i == 1);
+		}
+	}
+
+	@Test
+	public void testInitialSize() {
+		CommandWindow window = new CommandWindow(3, 32);
+		assertEquals(3, window.getSize());
+		assertEquals(-1, window.getIdleResponseTime());
+		assertEquals(-1, window.getServiceTime());
+
+		// Without the time per command the window stays at the minimum
+		window.commandDone(0, 50 * MS, true);
+		assertEquals(3, window.getSize());
+	}
+
+	@Test
+	public void testLocalBackend() {
+		CommandWindow window = new CommandWindow(3, 32);
+		simulate(window, 0, MS, 10);
+		assertEquals(MS, window.getServiceTime());
+		assertEquals(3, window.getSize());
+	}
+
+	@Test
+	public void testRemoteBackend() {
+		CommandWindow window = new CommandWindow(3, 64);
+		simulate(window, 20 * MS, MS, 10);
+		assertEquals(MS, window.getServiceTime());
+		assertEquals(21, window.getSize());
+
+		window = new CommandWindow(3, 32);
+		simulate(window, 50 * MS, MS, 10);
+		assertEquals(32, window.getSize());
+	}
+
+	@Test
+	public void testAdaptsToLatency() {
+		CommandWindow window = new CommandWindow(3, 64);
+		simulate(window, 20 * MS, MS, 10);
+		assertEquals(21, window.getSize());
+
+		// The connection got faster
+		for (int i = 0; i < 50; i++) {
+			simulate(window, 0, MS, 10);
+		}
+		assertEquals(3, window.getSize());
+	}
+
+	@Test
+	public void testFixedSize() {
+		CommandWindow window = new CommandWindow(5, 5);
+		simulate(window, 50 * MS, MS, 10);
+		assertEquals(5, window.getSize());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSize() {
+		new CommandWindow(4, 3);
+	}
+}
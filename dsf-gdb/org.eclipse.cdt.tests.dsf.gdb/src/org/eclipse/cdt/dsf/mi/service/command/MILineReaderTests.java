@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+public class MILineReaderTests {
+
+	/**
+	 * Returns the input in chunks of the given size, like a pipe would do.
+	 */
+	private static InputStream input(String text, final int chunkSize) {
+		return new ByteArrayInputStream(text.getBytes()) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, chunkSize));
+			}
+		};
+	}
+
+	private static void assertLines(MILineReader reader, String... lines) throws IOException {
+		for (String line : lines) {
+			assertEquals(line, new String(reader.readLine()));
+		}
+		assertNull(reader.readLine());
+	}
+
+	@Test
+	public void testLineTerminators() throws IOException {
+		for (int chunkSize : new int[] { 1, 2, 3, 1000 }) {
+			assertLines(new MILineReader(input("1^done\n(gdb) \r\n\r\n*stopped\r~\"x\"", chunkSize)),
+					"1^done", "(gdb) ", "", "*stopped", "~\"x\"");
+		}
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		StringBuilder line = new StringBuilder("^done,stack=[");
+		while (line.length() < 300000) {
+			line.append("frame={level=\"").append(line.length()).append("\"},");
+		}
+		line.append(']');
+		assertLines(new MILineReader(input(line + "\n" + line + "\r\n(gdb) \n", 4096)),
+				line.toString(), line.toString(), "(gdb) ");
+	}
+}
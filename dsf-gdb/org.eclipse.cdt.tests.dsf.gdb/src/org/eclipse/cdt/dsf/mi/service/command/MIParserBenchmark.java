@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.dsf.mi.service.command.output.MIAsyncRecord;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIConst;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIList;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIParser;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIResult;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIResultRecord;
+import org.eclipse.cdt.dsf.mi.service.command.output.MITuple;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIValue;
+import org.junit.Test;
+
+/**
+ * Parses the MI transcripts in data/mi the way the receiving thread of the command control does,
+ * reporting the time and the memory retained by the parsed records. The transcripts contain the
+ * commands sent to GDB as well, they are skipped.
+ * <p>
+ * Lines are read either as strings, like it was done with a buffered reader, or as bytes. The
+ * records are either traversed completely, decoding every value, or only their top-level
+ * results are accessed. Each transcript is parsed {@link #REPEAT} times per round, the first
+ * rounds serve as warm-up for the JIT and their numbers should be ignored.
+ */
+public class MIParserBenchmark {
+	private static final String CORPUS = "data/mi/"; //$NON-NLS-1$
+	private static final int ROUNDS = 5;
+	private static final int REPEAT = 10;
+
+	private static byte[] load(File file) throws IOException {
+		final byte[] content = new byte[(int) file.length()];
+		final InputStream in = new FileInputStream(file);
+		try {
+			int pos = 0;
+			while (pos < content.length) {
+				pos += in.read(content, pos, content.length - pos);
+			}
+		} finally {
+			in.close();
+		}
+		return content;
+	}
+
+	private static boolean isCommand(String line) {
+		int i = 0;
+		while (i < line.length() && Character.isDigit(line.charAt(i))) {
+			i++;
+		}
+		return i < line.length() && line.charAt(i) == '-';
+	}
+
+	private static boolean isCommand(byte[] line) {
+		int i = 0;
+		while (i < line.length && line[i] >= '0' && line[i] <= '9') {
+			i++;
+		}
+		return i < line.length && line[i] == '-';
+	}
+
+	private static List<Object> parseStrings(byte[] content) throws IOException {
+		final List<Object> records = new ArrayList<Object>();
+		final MIParser parser = new MIParser();
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content)));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.length() == 0 || isCommand(line))
+				continue;
+			switch (parser.getRecordType(line)) {
+			case ResultRecord:
+				records.add(parser.parseMIResultRecord(line));
+				break;
+			case OOBRecord:
+				records.add(parser.parseMIOOBRecord(line));
+				break;
+			}
+		}
+		return records;
+	}
+
+	private static List<Object> parseBytes(byte[] content) throws IOException {
+		final List<Object> records = new ArrayList<Object>();
+		final MIParser parser = new MIParser();
+		final MILineReader reader = new MILineReader(new ByteArrayInputStream(content));
+		byte[] line;
+		while ((line = reader.readLine()) != null) {
+			if (line.length == 0 || isCommand(line))
+				continue;
+			switch (parser.getRecordType(line)) {
+			case ResultRecord:
+				records.add(parser.parseMIResultRecord(line));
+				break;
+			case OOBRecord:
+				records.add(parser.parseMIOOBRecord(line));
+				break;
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Accesses the top-level results of the records, returns their number.
+	 */
+	private static int visitTopLevel(List<Object> records) {
+		int count = 0;
+		for (Object record : records) {
+			MIResult[] results = null;
+			if (record instanceof MIResultRecord) {
+				results = ((MIResultRecord) record).getMIResults();
+			} else if (record instanceof MIAsyncRecord) {
+				results = ((MIAsyncRecord) record).getMIResults();
+			}
+			if (results != null) {
+				for (MIResult result : results) {
+					if (result.getMIValue() instanceof MIList) {
+						count += ((MIList) result.getMIValue()).getMIResults().length;
+					}
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Decodes all values of the records, returns the number of characters.
+	 */
+	private static int visitAll(List<Object> records) {
+		int count = 0;
+		for (Object record : records) {
+			if (record instanceof MIResultRecord) {
+				count += visit(((MIResultRecord) record).getMIResults());
+			} else if (record instanceof MIAsyncRecord) {
+				count += visit(((MIAsyncRecord) record).getMIResults());
+			}
+		}
+		return count;
+	}
+
+	private static int visit(MIResult[] results) {
+		int count = 0;
+		for (MIResult result : results) {
+			count += result.getVariable().length() + visit(result.getMIValue());
+		}
+		return count;
+	}
+
+	private static int visit(MIValue value) {
+		int count = 0;
+		if (value instanceof MIConst) {
+			count += ((MIConst) value).getCString().length();
+		} else if (value instanceof MITuple) {
+			count += visit(((MITuple) value).getMIResults());
+			for (MIValue v : ((MITuple) value).getMIValues()) {
+				count += visit(v);
+			}
+		} else if (value instanceof MIList) {
+			count += visit(((MIList) value).getMIResults());
+			for (MIValue v : ((MIList) value).getMIValues()) {
+				count += visit(v);
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testCorpus() throws IOException {
+		final File[] files = new File(CORPUS).listFiles();
+		assertTrue("Missing corpus: " + new File(CORPUS).getAbsolutePath(), files != null && files.length > 0); //$NON-NLS-1$
+		for (File file : files) {
+			if (!file.getName().endsWith(".mi")) //$NON-NLS-1$
+				continue;
+			final byte[] content = load(file);
+			for (int round = 0; round < ROUNDS; round++) {
+				long time = System.nanoTime();
+				for (int i = 0; i < REPEAT; i++) {
+					visitAll(parseStrings(content));
+				}
+				final long stringsTime = (System.nanoTime() - time) / REPEAT;
+
+				time = System.nanoTime();
+				for (int i = 0; i < REPEAT; i++) {
+					visitAll(parseBytes(content));
+				}
+				final long allTime = (System.nanoTime() - time) / REPEAT;
+
+				time = System.nanoTime();
+				for (int i = 0; i < REPEAT; i++) {
+					visitTopLevel(parseBytes(content));
+				}
+				final long topLevelTime = (System.nanoTime() - time) / REPEAT;
+
+				long memory = usedMemory();
+				List<Object> records = parseBytes(content);
+				visitTopLevel(records);
+				final long topLevelMemory = usedMemory() - memory;
+				visitAll(records);
+				final long allMemory = usedMemory() - memory;
+				records = null;
+
+				System.out.println(file.getName() + " (" + content.length / 1024 + "kB): strings " + stringsTime / 1000000 //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						+ "ms; bytes, all values " + allTime / 1000000 + "ms, ~" + allMemory / 1024 //$NON-NLS-1$ //$NON-NLS-2$
+						+ "kB; bytes, top-level " + topLevelTime / 1000000 + "ms, ~" + topLevelMemory / 1024 + "kB"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+	}
+
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			runtime.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -10,6 +10,11 @@
  *******************************************************************************/
 package org.eclipse.cdt.dsf.mi.service.command.commands;
 
+import org.eclipse.cdt.dsf.mi.service.MemoryBlockCacheTests;
+import org.eclipse.cdt.dsf.mi.service.command.CommandWindowTests;
+import org.eclipse.cdt.dsf.mi.service.command.MILineReaderTests;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIDataReadMemoryInfoTests;
+import org.eclipse.cdt.dsf.mi.service.command.output.MIParserTests;
 import org.eclipse.cdt.dsf.mi.service.command.output.MIThreadTests;
 import org.eclipse.cdt.tests.dsf.gdb.framework.OnceOnlySuite;
 import org.eclipse.cdt.tests.dsf.gdb.tests.LaunchUtilsTest;
@@ -27,7 +32,12 @@ import org.junit.runners.Suite;
         TestMIBreakInsertCommand.class,
         TestMICommandConstructCommand.class,
         MIThreadTests.class,
-        LaunchUtilsTest.class
+        LaunchUtilsTest.class,
+        MemoryBlockCacheTests.class,
+        MIDataReadMemoryInfoTests.class,
+        MIParserTests.class,
+        MILineReaderTests.class,
+        CommandWindowTests.class
         /* Add your test class here */
         })
 public class Suite_Sessionless_Tests {
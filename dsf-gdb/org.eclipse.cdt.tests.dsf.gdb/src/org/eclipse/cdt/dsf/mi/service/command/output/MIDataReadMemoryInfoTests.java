@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
+import org.eclipse.debug.core.model.MemoryByte;
+import org.junit.Test;
+
+public class MIDataReadMemoryInfoTests {
+
+	private static MIOutput parse(String line) {
+		return new MIOutput(new MIParser().parseMIResultRecord(line), new MIOOBRecord[0]);
+	}
+
+	@Test
+	public void testReadMemoryBytes() {
+		MIOutput output = parse("^done,memory=[{begin=\"0x1000\",offset=\"0x00000002\",end=\"0x1006\",contents=\"00ff7fA0\"}]\n");
+		MIDataReadMemoryBytesInfo info = new MIDataReadMemoryBytesInfo(output, 8);
+		MemoryData data = info.getMemoryData();
+		assertEquals(8, data.getLength());
+		assertFalse(data.isReadable(1));
+		assertTrue(data.isReadable(2));
+		assertEquals(0, data.getByte(2));
+		assertEquals(-1, data.getByte(3));
+		assertEquals(0x7f, data.getByte(4));
+		assertEquals((byte) 0xa0, data.getByte(5));
+		assertFalse(data.isReadable(6));
+
+		// The adapter for MemoryByte[] clients has the same content
+		MemoryByte[] bytes = info.getMIMemoryBlock();
+		assertEquals(8, bytes.length);
+		assertFalse(bytes[1].isReadable());
+		assertTrue(bytes[5].isReadable());
+		assertEquals((byte) 0xa0, bytes[5].getValue());
+	}
+
+	@Test
+	public void testReadMemoryBytesInvalidContents() {
+		MIOutput output = parse("^done,memory=[{begin=\"0x1000\",offset=\"0x00000000\",end=\"0x1004\",contents=\"01x20304\"}]\n");
+		MemoryData data = new MIDataReadMemoryBytesInfo(output, 4).getMemoryData();
+		assertTrue(data.isReadable(0));
+		assertEquals(1, data.getByte(0));
+		// Parsing stops at the invalid digit
+		assertFalse(data.isReadable(1));
+		assertFalse(data.isReadable(3));
+	}
+
+	@Test
+	public void testReadMemory() {
+		MIOutput output = parse("^done,addr=\"0x1000\",nr-bytes=\"4\",total-bytes=\"6\",next-row=\"0x1006\",prev-row=\"0x0ffa\","
+				+ "next-page=\"0x1006\",prev-page=\"0x0ffa\",memory=[{addr=\"0x1000\",data=[\"0x1234\",\"0xff01\",\"zz\"]}]\n");
+		MemoryData data = new MIDataReadMemoryInfo(output, 2).getMemoryData();
+		assertEquals(6, data.getLength());
+		assertEquals(0x12, data.getByte(0));
+		assertEquals(0x34, data.getByte(1));
+		assertEquals(-1, data.getByte(2));
+		assertEquals(1, data.getByte(3));
+		assertFalse(data.isReadable(4));
+		assertFalse(data.isReadable(5));
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MIParserTests {
+
+	private static byte[] bytes(String line) {
+		return line.getBytes();
+	}
+
+	@Test
+	public void testRecordType() {
+		MIParser parser = new MIParser();
+		assertEquals(MIParser.RecordType.ResultRecord, parser.getRecordType(bytes("12^done")));
+		assertEquals(MIParser.RecordType.PrimaryPrompt, parser.getRecordType(bytes("(gdb) ")));
+		assertEquals(MIParser.RecordType.OOBRecord, parser.getRecordType(bytes("*stopped,reason=\"exited-normally\"")));
+		assertEquals(MIParser.RecordType.OOBRecord, parser.getRecordType(bytes("~\"text\"")));
+	}
+
+	@Test
+	public void testResultRecord() {
+		MIResultRecord rr = new MIParser().parseMIResultRecord(bytes(
+				"42^done,stack=[frame={level=\"0\",addr=\"0x0040052d\",func=\"recurse\",args=[]},frame={level=\"1\"}],depth=\"2\""));
+		assertEquals(42, rr.getToken());
+		assertEquals(MIResultRecord.DONE, rr.getResultClass());
+		MIResult[] results = rr.getMIResults();
+		assertEquals(2, results.length);
+		assertEquals("stack", results[0].getVariable());
+		assertEquals("depth", results[1].getVariable());
+		assertEquals("2", ((MIConst) results[1].getMIValue()).getCString());
+
+		MIResult[] frames = ((MIList) results[0].getMIValue()).getMIResults();
+		assertEquals(2, frames.length);
+		MIResult[] frame = ((MITuple) frames[0].getMIValue()).getMIResults();
+		assertEquals(4, frame.length);
+		assertEquals("func", frame[2].getVariable());
+		assertEquals("recurse", ((MIConst) frame[2].getMIValue()).getCString());
+		assertEquals(0, ((MIList) frame[3].getMIValue()).getMIValues().length);
+
+		// The names of variables are shared between records
+		MIResultRecord other = new MIParser().parseMIResultRecord(bytes("43^done,depth=\"3\""));
+		assertSame(results[1].getVariable(), other.getMIResults()[0].getVariable());
+
+		assertEquals("42^done,stack=[frame={level=\"0\",addr=\"0x0040052d\",func=\"recurse\",args=[]},frame={level=\"1\"}],depth=\"2\"",
+				rr.toString());
+	}
+
+	@Test
+	public void testCStrings() {
+		MIResultRecord rr = new MIParser().parseMIResultRecord(bytes(
+				"^error,msg=\"No symbol \\\"foo\\\" in current context.\\n\",path=\"C:\\\\tmp\",end=\"}]\""));
+		MIResult[] results = rr.getMIResults();
+		assertEquals(3, results.length);
+		MIConst msg = (MIConst) results[0].getMIValue();
+		// Only the escaped double quotes are translated by the parser
+		assertEquals("No symbol \"foo\" in current context.\\n", msg.getCString());
+		assertTrue(msg.getString().startsWith("No symbol \"foo\" in current context."));
+		assertEquals("C:\\\\tmp", ((MIConst) results[1].getMIValue()).getCString());
+		assertEquals("C:\\tmp", ((MIConst) results[1].getMIValue()).getString());
+		assertEquals("}]", ((MIConst) results[2].getMIValue()).getCString());
+	}
+
+	@Test
+	public void testNonAscii() {
+		MIResultRecord rr = new MIParser().parseMIResultRecord("^done,value=\"0x4006f4 \\\"gr\u00fc\u00df dich\\\"\"");
+		assertEquals("0x4006f4 \"gr\u00fc\u00df dich\"", ((MIConst) rr.getMIResults()[0].getMIValue()).getCString());
+	}
+
+	@Test
+	public void testOOBRecords() {
+		MIParser parser = new MIParser();
+		MIOOBRecord oob = parser.parseMIOOBRecord(bytes("*stopped,reason=\"breakpoint-hit\",frame={func=\"main\",args=[{name=\"argc\",value=\"1\"}]},thread-id=\"1\""));
+		assertTrue(oob instanceof MIExecAsyncOutput);
+		MIExecAsyncOutput async = (MIExecAsyncOutput) oob;
+		assertEquals("stopped", async.getAsyncClass());
+		assertEquals(3, async.getMIResults().length);
+		MITuple frame = (MITuple) async.getMIResults()[1].getMIValue();
+		MIList args = (MIList) frame.getMIResults()[1].getMIValue();
+		assertEquals("{name=\"argc\",value=\"1\"}", args.getMIValues()[0].toString());
+
+		oob = parser.parseMIOOBRecord(bytes("=thread-group-added,id=\"i1\""));
+		assertTrue(oob instanceof MINotifyAsyncOutput);
+		assertEquals("thread-group-added", ((MINotifyAsyncOutput) oob).getAsyncClass());
+
+		oob = parser.parseMIOOBRecord(bytes("~\"Breakpoint 1, main () at \\\"main.c\\\":5\\n\""));
+		assertTrue(oob instanceof MIConsoleStreamOutput);
+		assertEquals("Breakpoint 1, main () at \"main.c\":5\\n", ((MIStreamRecord) oob).getCString());
+
+		oob = parser.parseMIOOBRecord(bytes("not an MI record"));
+		assertTrue(oob instanceof MITargetStreamOutput);
+		assertEquals("not an MI record\n", ((MIStreamRecord) oob).getCString());
+	}
+}
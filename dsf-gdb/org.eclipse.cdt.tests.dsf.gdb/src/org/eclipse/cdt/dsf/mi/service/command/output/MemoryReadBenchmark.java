@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.mi.service.command.output;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
+import org.eclipse.debug.core.model.MemoryByte;
+import org.junit.Test;
+
+/**
+ * Compares the memory blocks for large reads with an object per byte and with a byte array,
+ * reporting the time for parsing the result of -data-read-memory-bytes and the memory retained
+ * by the block. The response is synthesized for a read of one megabyte and parsed once, only
+ * the construction of the memory block from the parsed record is measured.
+ */
+public class MemoryReadBenchmark {
+	private static final int SIZE = 1024 * 1024;
+	private static final int ROUNDS = 5;
+
+	@Test
+	public void testReadMemoryBytes() {
+		final StringBuilder contents = new StringBuilder(SIZE * 2);
+		for (int i = 0; i < SIZE; i++) {
+			contents.append(Character.forDigit((i >> 4) & 0xf, 16)).append(Character.forDigit(i & 0xf, 16));
+		}
+		final String line = "^done,memory=[{begin=\"0x10000\",offset=\"0x00000000\",end=\"0x" //$NON-NLS-1$
+				+ Integer.toHexString(0x10000 + SIZE) + "\",contents=\"" + contents + "\"}]\n"; //$NON-NLS-1$ //$NON-NLS-2$
+		final MIOutput output = new MIOutput(new MIParser().parseMIResultRecord(line), new MIOOBRecord[0]);
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long memory = usedMemory();
+			long time = System.nanoTime();
+			MemoryByte[] bytes = new MIDataReadMemoryBytesInfo(output, SIZE).getMIMemoryBlock();
+			final long bytesTime = System.nanoTime() - time;
+			final long bytesMemory = usedMemory() - memory;
+			assertEquals(SIZE, bytes.length);
+			bytes = null;
+
+			memory = usedMemory();
+			time = System.nanoTime();
+			MemoryData data = new MIDataReadMemoryBytesInfo(output, SIZE).getMemoryData();
+			final long dataTime = System.nanoTime() - time;
+			final long dataMemory = usedMemory() - memory;
+			assertEquals(SIZE, data.getLength());
+			assertEquals((byte) (SIZE - 1), data.getByte(SIZE - 1));
+
+			report("MemoryByte[]", bytesTime, bytesMemory, "MemoryData", dataTime, dataMemory); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private static void report(String oldName, long oldTime, long oldMemory, String newName, long newTime,
+			long newMemory) {
+		System.out.println(oldName + ": " + oldTime / 1000000 + "ms, ~" + oldMemory / 1024 + "kB; " + newName //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ ": " + newTime / 1000000 + "ms, ~" + newMemory / 1024 + "kB"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			runtime.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -23,6 +23,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics.SlowTask;
 import org.eclipse.cdt.dsf.internal.DsfPlugin;
 import org.eclipse.cdt.dsf.internal.LoggingUtils;
 import org.eclipse.core.runtime.ILog;
@@ -50,6 +51,17 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
      */
     private String fName;
     
+    /**
+     * System property for the threshold above which tasks are recorded as slow, in milliseconds.
+     */
+    private static final String SLOW_TASK_THRESHOLD_PROPERTY = "org.eclipse.cdt.dsf.executorSlowTaskThreshold"; //$NON-NLS-1$
+    
+    /**
+     * Statistics of the tasks run by this executor, they are always collected.
+     */
+    private final DsfExecutorMetrics fMetrics = new DsfExecutorMetrics(TimeUnit.MILLISECONDS.toNanos(
+        Long.getLong(SLOW_TASK_THRESHOLD_PROPERTY, TimeUnit.NANOSECONDS.toMillis(DsfExecutorMetrics.DEFAULT_SLOW_TASK_THRESHOLD))));
+    
     /** Thread factory that creates the single thread to be used for this executor */
     static class DsfThreadFactory implements ThreadFactory {
         private String fThreadName; 
@@ -101,6 +113,53 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
     protected String getName() { 
         return fName;
     }
+
+    /**
+     * Returns a snapshot of the statistics of the tasks that were run by this
+     * executor since it was created or since the statistics were reset.
+     * 
+     * @since 2.3
+     */
+    public DsfExecutorStatistics getStatistics() {
+        return fMetrics.getStatistics(((DsfThreadFactory)getThreadFactory()).fThreadName, getQueue().size());
+    }
+
+    /**
+     * Discards the statistics collected so far.
+     * 
+     * @since 2.3
+     */
+    public void resetStatistics() {
+        fMetrics.reset();
+    }
+
+    /**
+     * Sets the run time above which tasks are recorded as slow.  The default 
+     * is 100 milliseconds, it can be changed with the system property 
+     * <code>org.eclipse.cdt.dsf.executorSlowTaskThreshold</code>.
+     * 
+     * @since 2.3
+     */
+    public void setSlowTaskThreshold(long threshold, TimeUnit unit) {
+        fMetrics.setSlowTaskThreshold(unit.toNanos(threshold));
+    }
+
+    private void taskDone(Object executable, int queueDepth, long waitTime, long runTime) {
+        if (fMetrics.taskDone(executable, queueDepth, waitTime, runTime)) {
+            String description;
+            try {
+                description = LoggingUtils.trimTrailingNewlines(executable.toString());
+            } catch (RuntimeException e) {
+                description = LoggingUtils.toString(executable, false);
+            }
+            SlowTask task = new SlowTask(executable.getClass().getName(), description, waitTime, runTime, System.currentTimeMillis());
+            fMetrics.addSlowTask(task);
+
+            if (DEBUG_EXECUTOR && ("".equals(DEBUG_EXECUTOR_NAME) || fName.equals(DEBUG_EXECUTOR_NAME))) { //$NON-NLS-1$
+                DsfPlugin.debug(DsfPlugin.getDebugTime() + " Slow task in executor (" + ((DsfThreadFactory)getThreadFactory()).fThreadName + "): " + task); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+    }
     
     static void logException(Throwable t) {
         DsfPlugin plugin = DsfPlugin.getDefault();
@@ -415,6 +474,77 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
         }
     }
 
+    /**
+     * Wrapper for runnables/callables, measures the time they wait in the queue 
+     * and the time they run for the statistics of the executor.  All tasks pass
+     * through the schedule methods, which is where they are wrapped.
+     */
+    abstract class MeteredWrapper {
+        /** The submitted runnable/callable */
+        final Object fExecutable;
+
+        /** Time when the task is due, in System.nanoTime() */
+        long fDueTime;
+
+        /** Period of a periodic task, positive for a fixed rate and negative for a fixed delay */
+        final long fPeriod;
+
+        MeteredWrapper(Object executable, long delay, long period) {
+            if (executable == null) throw new NullPointerException();
+            fExecutable = executable instanceof TracingWrapper ? ((TracingWrapper)executable).getExecutable() : executable;
+            fDueTime = System.nanoTime() + delay;
+            fPeriod = period;
+        }
+
+        void recordExecution(int queueDepth, long startTime) {
+            long endTime = System.nanoTime();
+            taskDone(fExecutable, queueDepth, Math.max(0, startTime - fDueTime), endTime - startTime);
+            if (fPeriod > 0) {
+                fDueTime += fPeriod;
+            } else if (fPeriod < 0) {
+                fDueTime = endTime - fPeriod;
+            }
+        }
+    }
+
+    class MeteredRunnable extends MeteredWrapper implements Runnable {
+        final Runnable fRunnable;
+
+        MeteredRunnable(Runnable runnable, long delay, long period) {
+            super(runnable, delay, period);
+            fRunnable = runnable;
+        }
+
+        public void run() {
+            int queueDepth = getQueue().size();
+            long startTime = System.nanoTime();
+            try {
+                fRunnable.run();
+            } finally {
+                recordExecution(queueDepth, startTime);
+            }
+        }
+    }
+
+    class MeteredCallable<T> extends MeteredWrapper implements Callable<T> {
+        final Callable<T> fCallable;
+
+        MeteredCallable(Callable<T> callable, long delay) {
+            super(callable, delay, 0);
+            fCallable = callable;
+        }
+
+        public T call() throws Exception {
+            int queueDepth = getQueue().size();
+            long startTime = System.nanoTime();
+            try {
+                return fCallable.call();
+            } finally {
+                recordExecution(queueDepth, startTime);
+            }
+        }
+    }
+
     @Override
     public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
         if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
@@ -422,7 +552,7 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
                 callable = new TracingWrapperCallable<V>(callable);
             }
         }
-        return super.schedule(callable, delay, unit);
+        return super.schedule(new MeteredCallable<V>(callable, unit.toNanos(delay)), delay, unit);
     }
      @Override
      public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
@@ -431,7 +561,7 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
                  command = new TracingWrapperRunnable(command);
              }
          }
-         return super.schedule(command, delay, unit);
+         return super.schedule(new MeteredRunnable(command, unit.toNanos(delay), 0), delay, unit);
     }
 
     @Override
@@ -439,7 +569,7 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
         if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
             command = new TracingWrapperRunnable(command);
         }
-        return super.scheduleAtFixedRate(command, initialDelay, period, unit);
+        return super.scheduleAtFixedRate(new MeteredRunnable(command, unit.toNanos(initialDelay), unit.toNanos(period)), initialDelay, period, unit);
     }
 
     @Override
@@ -447,7 +577,7 @@ public class DefaultDsfExecutor extends ScheduledThreadPoolExecutor
         if(DEBUG_EXECUTOR || ASSERTIONS_ENABLED) {
             command = new TracingWrapperRunnable(command);
         }
-        return super.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+        return super.scheduleWithFixedDelay(new MeteredRunnable(command, unit.toNanos(initialDelay), -unit.toNanos(delay)), initialDelay, delay, unit);
     }
     
     @Override
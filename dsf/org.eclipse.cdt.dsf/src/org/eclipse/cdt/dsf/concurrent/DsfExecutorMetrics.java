@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics.RunnableStatistics;
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics.SlowTask;
+
+/**
+ * Collects the statistics of an executor. The tasks are recorded by the executor
+ * thread, the snapshots can be taken from any thread.
+ */
+@ThreadSafe
+class DsfExecutorMetrics {
+    /** Default threshold above which a task is considered to be slow */
+    static final long DEFAULT_SLOW_TASK_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+    /** Number of slow tasks that are kept */
+    static final int MAX_SLOW_TASKS = 32;
+
+    private static class Entry {
+        long fCount;
+        long fTotalWaitTime;
+        long fMaxWaitTime;
+        long fTotalRunTime;
+        long fMaxRunTime;
+        long fSlowCount;
+    }
+
+    private final Map<Class<?>, Entry> fEntries = new HashMap<Class<?>, Entry>();
+    private final LinkedList<SlowTask> fSlowTasks = new LinkedList<SlowTask>();
+    private long fSlowTaskThreshold;
+
+    private int fMaxQueueDepth;
+    private long fTaskCount;
+    private long fTotalWaitTime;
+    private long fMaxWaitTime;
+    private long fTotalRunTime;
+    private long fMaxRunTime;
+    private long fSlowTaskCount;
+
+    DsfExecutorMetrics(long slowTaskThreshold) {
+        fSlowTaskThreshold = slowTaskThreshold;
+    }
+
+    synchronized long getSlowTaskThreshold() {
+        return fSlowTaskThreshold;
+    }
+
+    synchronized void setSlowTaskThreshold(long threshold) {
+        fSlowTaskThreshold = threshold;
+    }
+
+    /**
+     * Records a task that was run.
+     *
+     * @param executable the runnable or callable that was submitted
+     * @param queueDepth the number of tasks in the queue when the task started
+     * @return whether the task was slow
+     */
+    synchronized boolean taskDone(Object executable, int queueDepth, long waitTime, long runTime) {
+        Entry entry = fEntries.get(executable.getClass());
+        if (entry == null) {
+            entry = new Entry();
+            fEntries.put(executable.getClass(), entry);
+        }
+        entry.fCount++;
+        entry.fTotalWaitTime += waitTime;
+        entry.fMaxWaitTime = Math.max(entry.fMaxWaitTime, waitTime);
+        entry.fTotalRunTime += runTime;
+        entry.fMaxRunTime = Math.max(entry.fMaxRunTime, runTime);
+
+        fMaxQueueDepth = Math.max(fMaxQueueDepth, queueDepth);
+        fTaskCount++;
+        fTotalWaitTime += waitTime;
+        fMaxWaitTime = Math.max(fMaxWaitTime, waitTime);
+        fTotalRunTime += runTime;
+        fMaxRunTime = Math.max(fMaxRunTime, runTime);
+
+        if (runTime < fSlowTaskThreshold)
+            return false;
+        entry.fSlowCount++;
+        fSlowTaskCount++;
+        return true;
+    }
+
+    /**
+     * Records the details of a slow task, the oldest slow tasks are dropped.
+     */
+    synchronized void addSlowTask(SlowTask task) {
+        fSlowTasks.add(task);
+        if (fSlowTasks.size() > MAX_SLOW_TASKS) {
+            fSlowTasks.removeFirst();
+        }
+    }
+
+    synchronized void reset() {
+        fEntries.clear();
+        fSlowTasks.clear();
+        fMaxQueueDepth = 0;
+        fTaskCount = 0;
+        fTotalWaitTime = 0;
+        fMaxWaitTime = 0;
+        fTotalRunTime = 0;
+        fMaxRunTime = 0;
+        fSlowTaskCount = 0;
+    }
+
+    synchronized DsfExecutorStatistics getStatistics(String executorName, int queueDepth) {
+        List<RunnableStatistics> runnables = new ArrayList<RunnableStatistics>(fEntries.size());
+        for (Map.Entry<Class<?>, Entry> mapEntry : fEntries.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            runnables.add(new RunnableStatistics(mapEntry.getKey().getName(), entry.fCount,
+                entry.fTotalWaitTime, entry.fMaxWaitTime, entry.fTotalRunTime, entry.fMaxRunTime,
+                entry.fSlowCount));
+        }
+        Collections.sort(runnables, new Comparator<RunnableStatistics>() {
+            public int compare(RunnableStatistics s1, RunnableStatistics s2) {
+                if (s1.getTotalRunTime() != s2.getTotalRunTime()) {
+                    return s1.getTotalRunTime() > s2.getTotalRunTime() ? -1 : 1;
+                }
+                return s1.getClassName().compareTo(s2.getClassName());
+            }
+        });
+        return new DsfExecutorStatistics(executorName, System.currentTimeMillis(), queueDepth,
+            Math.max(fMaxQueueDepth, queueDepth), fTaskCount, fTotalWaitTime, fMaxWaitTime,
+            fTotalRunTime, fMaxRunTime, fSlowTaskThreshold, fSlowTaskCount, runnables,
+            new ArrayList<SlowTask>(fSlowTasks));
+    }
+}
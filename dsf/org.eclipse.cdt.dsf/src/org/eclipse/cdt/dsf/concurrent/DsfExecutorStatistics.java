@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.concurrent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the statistics of a {@link DefaultDsfExecutor}, as returned by
+ * {@link DefaultDsfExecutor#getStatistics()}.
+ * <p>
+ * The wait time of a task is the time between the moment it was due and the
+ * moment it started running, the run time is the time it kept the executor
+ * thread busy. All times are in nanoseconds. The statistics of the tasks are
+ * grouped by the class of the submitted runnable or callable, which for the
+ * usual anonymous classes identifies the service or view model node that
+ * submitted them.
+ * <p>
+ * The snapshot is immutable, its getters follow the conventions of JMX
+ * attributes such that it can be published through a management bean.
+ *
+ * @since 2.3
+ */
+@Immutable
+public final class DsfExecutorStatistics {
+
+    /**
+     * Statistics of the tasks of one class.
+     */
+    @Immutable
+    public static final class RunnableStatistics {
+        private final String fClassName;
+        private final long fCount;
+        private final long fTotalWaitTime;
+        private final long fMaxWaitTime;
+        private final long fTotalRunTime;
+        private final long fMaxRunTime;
+        private final long fSlowCount;
+
+        RunnableStatistics(String className, long count, long totalWaitTime, long maxWaitTime,
+                long totalRunTime, long maxRunTime, long slowCount) {
+            fClassName = className;
+            fCount = count;
+            fTotalWaitTime = totalWaitTime;
+            fMaxWaitTime = maxWaitTime;
+            fTotalRunTime = totalRunTime;
+            fMaxRunTime = maxRunTime;
+            fSlowCount = slowCount;
+        }
+
+        public String getClassName() { return fClassName; }
+        public long getCount() { return fCount; }
+        public long getTotalWaitTime() { return fTotalWaitTime; }
+        public long getMaxWaitTime() { return fMaxWaitTime; }
+        public long getTotalRunTime() { return fTotalRunTime; }
+        public long getMaxRunTime() { return fMaxRunTime; }
+
+        /** Returns the number of tasks which ran longer than the slow task threshold. */
+        public long getSlowCount() { return fSlowCount; }
+
+        public long getAverageRunTime() {
+            return fCount == 0 ? 0 : fTotalRunTime / fCount;
+        }
+
+        @Override
+        public String toString() {
+            return fClassName + ": count=" + fCount + ", run=" + millis(fTotalRunTime) //$NON-NLS-1$ //$NON-NLS-2$
+                + " (max " + millis(fMaxRunTime) + "), wait=" + millis(fTotalWaitTime) //$NON-NLS-1$ //$NON-NLS-2$
+                + " (max " + millis(fMaxWaitTime) + "), slow=" + fSlowCount; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    /**
+     * A task which ran longer than the slow task threshold.
+     */
+    @Immutable
+    public static final class SlowTask {
+        private final String fClassName;
+        private final String fDescription;
+        private final long fWaitTime;
+        private final long fRunTime;
+        private final long fTimestamp;
+
+        SlowTask(String className, String description, long waitTime, long runTime, long timestamp) {
+            fClassName = className;
+            fDescription = description;
+            fWaitTime = waitTime;
+            fRunTime = runTime;
+            fTimestamp = timestamp;
+        }
+
+        public String getClassName() { return fClassName; }
+
+        /** Returns the result of <code>toString()</code> of the task. */
+        public String getDescription() { return fDescription; }
+
+        public long getWaitTime() { return fWaitTime; }
+        public long getRunTime() { return fRunTime; }
+
+        /** Returns the time when the task completed, in milliseconds since the epoch. */
+        public long getTimestamp() { return fTimestamp; }
+
+        @Override
+        public String toString() {
+            return fClassName + " ran " + millis(fRunTime) + " after waiting " + millis(fWaitTime) //$NON-NLS-1$ //$NON-NLS-2$
+                + " [" + fDescription + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private final String fExecutorName;
+    private final long fTimestamp;
+    private final int fQueueDepth;
+    private final int fMaxQueueDepth;
+    private final long fTaskCount;
+    private final long fTotalWaitTime;
+    private final long fMaxWaitTime;
+    private final long fTotalRunTime;
+    private final long fMaxRunTime;
+    private final long fSlowTaskThreshold;
+    private final long fSlowTaskCount;
+    private final List<RunnableStatistics> fRunnableStatistics;
+    private final List<SlowTask> fSlowTasks;
+
+    DsfExecutorStatistics(String executorName, long timestamp, int queueDepth, int maxQueueDepth,
+            long taskCount, long totalWaitTime, long maxWaitTime, long totalRunTime, long maxRunTime,
+            long slowTaskThreshold, long slowTaskCount, List<RunnableStatistics> runnableStatistics,
+            List<SlowTask> slowTasks) {
+        fExecutorName = executorName;
+        fTimestamp = timestamp;
+        fQueueDepth = queueDepth;
+        fMaxQueueDepth = maxQueueDepth;
+        fTaskCount = taskCount;
+        fTotalWaitTime = totalWaitTime;
+        fMaxWaitTime = maxWaitTime;
+        fTotalRunTime = totalRunTime;
+        fMaxRunTime = maxRunTime;
+        fSlowTaskThreshold = slowTaskThreshold;
+        fSlowTaskCount = slowTaskCount;
+        fRunnableStatistics = Collections.unmodifiableList(runnableStatistics);
+        fSlowTasks = Collections.unmodifiableList(slowTasks);
+    }
+
+    public String getExecutorName() { return fExecutorName; }
+
+    /** Returns the time of the snapshot, in milliseconds since the epoch. */
+    public long getTimestamp() { return fTimestamp; }
+
+    /** Returns the number of tasks in the queue of the executor, including scheduled tasks which are not due yet. */
+    public int getQueueDepth() { return fQueueDepth; }
+
+    /** Returns the largest queue depth that was observed when a task started or a snapshot was taken. */
+    public int getMaxQueueDepth() { return fMaxQueueDepth; }
+
+    /** Returns the number of tasks that were run. */
+    public long getTaskCount() { return fTaskCount; }
+
+    public long getTotalWaitTime() { return fTotalWaitTime; }
+    public long getMaxWaitTime() { return fMaxWaitTime; }
+    public long getTotalRunTime() { return fTotalRunTime; }
+    public long getMaxRunTime() { return fMaxRunTime; }
+    public long getSlowTaskThreshold() { return fSlowTaskThreshold; }
+    public long getSlowTaskCount() { return fSlowTaskCount; }
+
+    /** Returns the statistics per class of task, the classes with the largest total run time first. */
+    public List<RunnableStatistics> getRunnableStatistics() { return fRunnableStatistics; }
+
+    /** Returns the most recent slow tasks, the oldest first. */
+    public List<SlowTask> getSlowTasks() { return fSlowTasks; }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Executor ").append(fExecutorName) //$NON-NLS-1$
+            .append(": tasks=").append(fTaskCount) //$NON-NLS-1$
+            .append(", queue=").append(fQueueDepth) //$NON-NLS-1$
+            .append(" (max ").append(fMaxQueueDepth).append(')') //$NON-NLS-1$
+            .append(", run=").append(millis(fTotalRunTime)) //$NON-NLS-1$
+            .append(" (max ").append(millis(fMaxRunTime)).append(')') //$NON-NLS-1$
+            .append(", wait=").append(millis(fTotalWaitTime)) //$NON-NLS-1$
+            .append(" (max ").append(millis(fMaxWaitTime)).append(')') //$NON-NLS-1$
+            .append(", slow=").append(fSlowTaskCount); //$NON-NLS-1$
+        for (RunnableStatistics statistics : fRunnableStatistics) {
+            builder.append("\n\t").append(statistics); //$NON-NLS-1$
+        }
+        for (SlowTask task : fSlowTasks) {
+            builder.append("\n\tslow: ").append(task); //$NON-NLS-1$
+        }
+        return builder.toString();
+    }
+
+    private static String millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms"; //$NON-NLS-1$
+    }
+}
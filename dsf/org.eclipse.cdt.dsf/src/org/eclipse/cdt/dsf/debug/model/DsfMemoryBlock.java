@@ -21,14 +21,17 @@ import java.util.concurrent.RejectedExecutionException;
 
 import org.eclipse.cdt.core.IAddress;
 import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
+import org.eclipse.cdt.dsf.concurrent.ImmediateExecutor;
 import org.eclipse.cdt.dsf.concurrent.Query;
 import org.eclipse.cdt.dsf.concurrent.RequestMonitor;
 import org.eclipse.cdt.dsf.debug.internal.provisional.model.IMemoryBlockUpdatePolicyProvider;
 import org.eclipse.cdt.dsf.debug.service.IMemory;
+import org.eclipse.cdt.dsf.debug.service.IMemory2;
 import org.eclipse.cdt.dsf.debug.service.IRunControl;
 import org.eclipse.cdt.dsf.debug.service.IMemory.IMemoryChangedEvent;
 import org.eclipse.cdt.dsf.debug.service.IMemory.IMemoryDMContext;
 import org.eclipse.cdt.dsf.debug.service.IRunControl.StateChangeReason;
+import org.eclipse.cdt.dsf.debug.service.MemoryData;
 import org.eclipse.cdt.dsf.internal.DsfPlugin;
 import org.eclipse.cdt.dsf.service.DsfServiceEventHandler;
 import org.eclipse.cdt.utils.Addr64;
@@ -574,12 +577,25 @@ public class DsfMemoryBlock extends PlatformObject implements IMemoryBlockExtens
     	// For the IAddress interface
     	final Addr64 address = new Addr64(bigAddress);
     	
-        // Use a Query to synchronize the downstream calls  
-        Query<MemoryByte[]> query = new Query<MemoryByte[]>() {
+        // Use a Query to synchronize the downstream calls. A MemoryData block is converted
+        // on the calling thread, not on the DSF executor. Services that do not implement
+        // IMemory2 return a MemoryByte[], which is passed through.
+        Query<Object> query = new Query<Object>() {
 			@Override
-			protected void execute(final DataRequestMonitor<MemoryByte[]> drm) {
+			protected void execute(final DataRequestMonitor<Object> drm) {
 			    IMemory memoryService = (IMemory) fRetrieval.getServiceTracker().getService();
-			    if (memoryService != null) {
+			    if (memoryService instanceof IMemory2) {
+			        ((IMemory2) memoryService).getMemoryData( 
+			            fContext, address, 0, fWordSize, (int) length,
+			            new DataRequestMonitor<MemoryData>(ImmediateExecutor.getInstance(), drm) {
+			                @Override
+			                protected void handleSuccess() {
+			                    drm.setData(getData());
+			                    drm.done();
+			                }
+			            });
+			    }
+			    else if (memoryService != null) {
 			        // Go for it
 			        memoryService.getMemory( 
 			            fContext, address, 0, fWordSize, (int) length,
@@ -599,7 +615,11 @@ public class DsfMemoryBlock extends PlatformObject implements IMemoryBlockExtens
         fRetrieval.getExecutor().execute(query);
 
 		try {
-            return query.get();
+            Object data = query.get();
+            if (data instanceof MemoryData) {
+                return ((MemoryData) data).toMemoryBytes();
+            }
+            return (MemoryByte[]) data;
         } catch (InterruptedException e) {
     		throw new DebugException(new Status(IStatus.ERROR, DsfPlugin.PLUGIN_ID, DebugException.INTERNAL_ERROR, "Error reading memory block (InterruptedException)", e)); //$NON-NLS-1$
         } catch (ExecutionException e) {
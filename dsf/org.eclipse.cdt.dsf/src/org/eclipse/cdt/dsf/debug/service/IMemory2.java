@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.debug.service;
+
+import org.eclipse.cdt.core.IAddress;
+import org.eclipse.cdt.dsf.concurrent.DataRequestMonitor;
+
+/**
+ * This interface extends the memory service with reads that return the memory
+ * as a contiguous block instead of an object per byte.
+ *
+ * @since 2.3
+ */
+public interface IMemory2 extends IMemory {
+
+    /**
+     * Reads a memory block from the target.
+     *
+     * Equivalent to {@link #getMemory(IMemoryDMContext, IAddress, long, int, int, DataRequestMonitor)},
+     * the result is a block of [word_size] * [count] bytes. The bytes in error
+     * (unreachable/bad memory) are marked as unreadable.
+     *
+     * @param context	the context of the target memory block
+     * @param address	the memory block address (on the target)
+     * @param offset	the offset from the start address
+     * @param word_size	the size, in bytes, of an addressable item
+     * @param count		the number of data elements to read
+     * @param drm		the asynchronous data request monitor
+     */
+    public void getMemoryData(IMemoryDMContext context, IAddress address, long offset,
+    		int word_size, int count, DataRequestMonitor<MemoryData> drm);
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.debug.service;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import org.eclipse.debug.core.model.MemoryByte;
+
+/**
+ * A contiguous block of target memory, as returned by {@link IMemory2#getMemoryData}.
+ * <p>
+ * The values of the bytes are kept in a single byte array, the bytes that could not be read are
+ * marked in a bit set. Compared to an array of {@link MemoryByte} this needs two objects instead
+ * of one per byte. Bytes with other flags than the ones of a readable or an unreadable byte
+ * are supported, for them the flags are stored in an additional byte array.
+ * <p>
+ * The class is not thread-safe.
+ *
+ * @since 2.3
+ */
+public final class MemoryData {
+	// The flags of a byte that was read successfully
+	private static final byte READABLE_FLAGS = new MemoryByte((byte) 0).getFlags();
+
+	private final byte[] fBytes;
+	// The bytes that could not be read, null when all bytes are readable. Not used when
+	// the flags of the bytes are stored explicitly.
+	private BitSet fUnreadable;
+	// The flags of the bytes, null as long as all bytes have the flags of a readable
+	// or of an unreadable byte.
+	private byte[] fFlags;
+
+	/**
+	 * Creates a block of the given length, all of its bytes are marked as unreadable.
+	 */
+	public MemoryData(int length) {
+		fBytes = new byte[length];
+		if (length > 0) {
+			fUnreadable = new BitSet(length);
+			fUnreadable.set(0, length);
+		}
+	}
+
+	/**
+	 * Creates a block for the given bytes, all of which are readable. The array is not copied.
+	 */
+	public MemoryData(byte[] bytes) {
+		fBytes = bytes;
+	}
+
+	/**
+	 * Adapter for services and clients using arrays of {@link MemoryByte}. The flags of the
+	 * bytes are preserved.
+	 */
+	public static MemoryData fromMemoryBytes(MemoryByte[] bytes) {
+		final MemoryData result = new MemoryData(new byte[bytes.length]);
+		for (int i = 0; i < bytes.length; i++) {
+			final MemoryByte b = bytes[i];
+			result.fBytes[i] = b.getValue();
+			final byte flags = b.getFlags();
+			if (flags != READABLE_FLAGS) {
+				if (flags == 0 && result.fFlags == null) {
+					result.setUnreadable(i);
+				} else {
+					result.ensureFlags();
+					result.fFlags[i] = flags;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adapter for clients using arrays of {@link MemoryByte}, creates a new memory byte for
+	 * every byte of the block.
+	 */
+	public MemoryByte[] toMemoryBytes() {
+		final MemoryByte[] result = new MemoryByte[fBytes.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new MemoryByte(fBytes[i], getFlags(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of bytes in this block.
+	 */
+	public int getLength() {
+		return fBytes.length;
+	}
+
+	/**
+	 * Returns the values of the bytes. The array is not copied, the values of unreadable
+	 * bytes are undefined.
+	 */
+	public byte[] getBytes() {
+		return fBytes;
+	}
+
+	/**
+	 * Returns a read-only buffer for the values of the bytes.
+	 */
+	public ByteBuffer asByteBuffer() {
+		return ByteBuffer.wrap(fBytes).asReadOnlyBuffer();
+	}
+
+	public byte getByte(int index) {
+		return fBytes[index];
+	}
+
+	/**
+	 * Returns the flags of the byte at the given index, see {@link MemoryByte#getFlags()}.
+	 */
+	public byte getFlags(int index) {
+		if (fFlags != null)
+			return fFlags[index];
+		return isUnreadable(index) ? 0 : READABLE_FLAGS;
+	}
+
+	public boolean isReadable(int index) {
+		if (fFlags != null)
+			return (fFlags[index] & MemoryByte.READABLE) != 0;
+		return !isUnreadable(index);
+	}
+
+	/**
+	 * Returns whether all bytes of this block are readable.
+	 */
+	public boolean isReadable() {
+		if (fFlags != null) {
+			for (byte flags : fFlags) {
+				if ((flags & MemoryByte.READABLE) == 0)
+					return false;
+			}
+			return true;
+		}
+		return fUnreadable == null || fUnreadable.isEmpty();
+	}
+
+	/**
+	 * Stores the value of a byte and marks it as readable.
+	 */
+	public void setByte(int index, byte value) {
+		fBytes[index] = value;
+		if (fFlags != null) {
+			fFlags[index] = READABLE_FLAGS;
+		} else if (fUnreadable != null) {
+			fUnreadable.clear(index);
+		}
+	}
+
+	/**
+	 * Marks the byte at the given index as unreadable.
+	 */
+	public void setUnreadable(int index) {
+		if (fFlags != null) {
+			fFlags[index] = 0;
+		} else {
+			if (fUnreadable == null) {
+				fUnreadable = new BitSet(fBytes.length);
+			}
+			fUnreadable.set(index);
+		}
+	}
+
+	/**
+	 * Copies a range of bytes including their flags from another block into this one.
+	 */
+	public void put(int offset, MemoryData source, int sourceOffset, int length) {
+		System.arraycopy(source.fBytes, sourceOffset, fBytes, offset, length);
+		if (fFlags != null || source.fFlags != null) {
+			ensureFlags();
+			for (int i = 0; i < length; i++) {
+				fFlags[offset + i] = source.getFlags(sourceOffset + i);
+			}
+			return;
+		}
+
+		if (fUnreadable != null) {
+			fUnreadable.clear(offset, offset + length);
+		}
+		final BitSet unreadable = source.fUnreadable;
+		if (unreadable != null) {
+			final int end = sourceOffset + length;
+			for (int i = unreadable.nextSetBit(sourceOffset); i >= 0 && i < end; i = unreadable.nextSetBit(i + 1)) {
+				setUnreadable(offset + i - sourceOffset);
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of a range of this block.
+	 */
+	public MemoryData copy(int offset, int length) {
+		final MemoryData result = new MemoryData(new byte[length]);
+		result.put(0, this, offset, length);
+		return result;
+	}
+
+	private boolean isUnreadable(int index) {
+		return fUnreadable != null && fUnreadable.get(index);
+	}
+
+	private void ensureFlags() {
+		if (fFlags == null) {
+			fFlags = new byte[fBytes.length];
+			for (int i = 0; i < fFlags.length; i++) {
+				fFlags[i] = isUnreadable(i) ? 0 : READABLE_FLAGS;
+			}
+			fUnreadable = null;
+		}
+	}
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.dsf.debug.service.command;
+
+import org.eclipse.cdt.dsf.concurrent.ConfinedToDsfExecutor;
+
+/**
+ * Extension of the command listener which is notified about the timing of
+ * the commands. Command controls which measure the timing call the listener
+ * in the same dispatch cycle as {@link #commandDone}, before it.
+ *
+ * @since 2.3
+ */
+@ConfinedToDsfExecutor("")
+public interface ICommandListener2 extends ICommandListener {
+	/**
+	 * Notifies about the latency of a completed command.
+	 *
+	 * @param token the command which has been completed
+	 * @param queueTime the time in nanoseconds between queuing the command
+	 *        and sending it to the debugger
+	 * @param responseTime the time in nanoseconds between sending the command
+	 *        and receiving its result
+	 */
+	public void commandLatency(ICommandToken token, long queueTime, long responseTime);
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2012 NVIDIA Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     NVIDIA - Initial implementation
+ *******************************************************************************/
+package org.eclipse.cdt.tests.dsf.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics;
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics.RunnableStatistics;
+import org.eclipse.cdt.dsf.concurrent.DsfExecutorStatistics.SlowTask;
+import org.eclipse.cdt.dsf.concurrent.DsfRunnable;
+import org.eclipse.cdt.tests.dsf.TestDsfExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the statistics collected by the DSF executor.
+ */
+public class DsfExecutorStatisticsTests {
+    TestDsfExecutor fExecutor;
+
+    static class ShortTask extends DsfRunnable {
+        public void run() {}
+    }
+
+    static class SleepingTask extends DsfRunnable {
+        final long fMillis;
+        SleepingTask(long millis) { fMillis = millis; }
+        public void run() {
+            try {
+                Thread.sleep(fMillis);
+            } catch (InterruptedException e) {
+            }
+        }
+        @Override
+        public String toString() { return "Sleeping for " + fMillis + "ms"; } //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    @Before
+    public void startExecutor() throws ExecutionException, InterruptedException {
+        fExecutor = new TestDsfExecutor();
+    }
+
+    @After
+    public void shutdownExecutor() throws ExecutionException, InterruptedException {
+        fExecutor.submit(new DsfRunnable() { public void run() {
+            fExecutor.shutdown();
+        }}).get();
+        if (fExecutor.exceptionsCaught()) {
+            Throwable[] exceptions = fExecutor.getExceptions();
+            throw new ExecutionException(exceptions[0]);
+        }
+        fExecutor = null;
+    }
+
+    private static RunnableStatistics find(DsfExecutorStatistics statistics, Class<?> c) {
+        for (RunnableStatistics runnableStatistics : statistics.getRunnableStatistics()) {
+            if (runnableStatistics.getClassName().equals(c.getName())) {
+                return runnableStatistics;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void statisticsPerClassTest() throws InterruptedException, ExecutionException {
+        for (int i = 0; i < 10; i++) {
+            fExecutor.execute(new ShortTask());
+        }
+        fExecutor.schedule(new ShortTask(), 1, TimeUnit.MILLISECONDS).get();
+        fExecutor.submit(new Callable<Integer>() {
+            public Integer call() { return 1; }
+        }).get();
+        fExecutor.submit(new SleepingTask(20)).get();
+
+        DsfExecutorStatistics statistics = fExecutor.getStatistics();
+        Assert.assertEquals(13, statistics.getTaskCount());
+        Assert.assertEquals(11, find(statistics, ShortTask.class).getCount());
+        Assert.assertEquals(1, find(statistics, SleepingTask.class).getCount());
+        Assert.assertEquals(3, statistics.getRunnableStatistics().size());
+
+        // The task which ran the longest is reported first
+        RunnableStatistics sleeping = statistics.getRunnableStatistics().get(0);
+        Assert.assertEquals(SleepingTask.class.getName(), sleeping.getClassName());
+        Assert.assertTrue(sleeping.getMaxRunTime() >= TimeUnit.MILLISECONDS.toNanos(15));
+        Assert.assertTrue(statistics.getTotalRunTime() >= sleeping.getTotalRunTime());
+        Assert.assertEquals(0, statistics.getSlowTaskCount());
+    }
+
+    @Test
+    public void waitTimeTest() throws InterruptedException, ExecutionException {
+        fExecutor.execute(new SleepingTask(50));
+        fExecutor.submit(new ShortTask()).get();
+
+        DsfExecutorStatistics statistics = fExecutor.getStatistics();
+        RunnableStatistics waiting = find(statistics, ShortTask.class);
+        Assert.assertTrue(waiting.getMaxWaitTime() >= TimeUnit.MILLISECONDS.toNanos(40));
+        Assert.assertTrue(statistics.getMaxQueueDepth() >= 0);
+    }
+
+    @Test
+    public void slowTaskTest() throws InterruptedException, ExecutionException {
+        fExecutor.setSlowTaskThreshold(10, TimeUnit.MILLISECONDS);
+        fExecutor.submit(new ShortTask()).get();
+        fExecutor.submit(new SleepingTask(30)).get();
+
+        DsfExecutorStatistics statistics = fExecutor.getStatistics();
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(10), statistics.getSlowTaskThreshold());
+        Assert.assertEquals(1, statistics.getSlowTaskCount());
+        Assert.assertEquals(1, find(statistics, SleepingTask.class).getSlowCount());
+        Assert.assertEquals(0, find(statistics, ShortTask.class).getSlowCount());
+
+        Assert.assertEquals(1, statistics.getSlowTasks().size());
+        SlowTask slowTask = statistics.getSlowTasks().get(0);
+        Assert.assertEquals(SleepingTask.class.getName(), slowTask.getClassName());
+        Assert.assertEquals("Sleeping for 30ms", slowTask.getDescription()); //$NON-NLS-1$
+        Assert.assertTrue(slowTask.getRunTime() >= TimeUnit.MILLISECONDS.toNanos(25));
+    }
+
+    @Test
+    public void resetTest() throws InterruptedException, ExecutionException {
+        fExecutor.submit(new ShortTask()).get();
+        Assert.assertEquals(1, fExecutor.getStatistics().getTaskCount());
+
+        fExecutor.resetStatistics();
+        DsfExecutorStatistics statistics = fExecutor.getStatistics();
+        Assert.assertEquals(0, statistics.getTaskCount());
+        Assert.assertTrue(statistics.getRunnableStatistics().isEmpty());
+    }
+}